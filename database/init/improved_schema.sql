@@ -1,6 +1,9 @@
 -- =====================================================
 -- IMPROVED HEALTHCARE DATABASE SCHEMA
 -- Based on Instruction (1).txt requirements
+-- Secondary indexes and later schema changes are versioned
+-- migrations in src/main/resources/db/migration, applied by
+-- the application at startup (MigrationRunner).
 -- =====================================================
 
 -- Wards Table (Ward 1 & Ward 2 as specified)
@@ -1,6 +1,13 @@
 package com.healthcare;
 
+import com.healthcare.config.AppContext;
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.MigrationRunner;
 import com.healthcare.controller.LoginController;
+import com.healthcare.services.AuditAppender;
+import com.healthcare.services.AuditSpool;
+import com.healthcare.services.BedOccupancyIndex;
+import com.healthcare.services.OverdueDoseTracker;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -18,6 +25,12 @@ public class Main extends Application {
     public void init() throws Exception {
         super.init();
         System.out.println("Initializing application...");
+        // Bring the schema up to date before any screen queries it
+        MigrationRunner.migrateOnStartup();
+        // Start replaying audit entries left over from a session without database access
+        AuditSpool.getShared();
+        // Wire the services once, so every screen shares the same caches and pools
+        AppContext.getShared();
     }
     
     @Override
@@ -26,7 +39,7 @@ public class Main extends Application {
             System.out.println("Starting Healthcare JavaFX Application...");
             
             // Load the login FXML file
-            FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/fxml/login.fxml"));
+            FXMLLoader fxmlLoader = AppContext.newLoader(Main.class.getResource("/fxml/login.fxml"));
             Scene scene = new Scene(fxmlLoader.load(), 800, 600);
             
             // Set up the login controller
@@ -50,6 +63,18 @@ public class Main extends Application {
         }
     }
     
+    @Override
+    public void stop() throws Exception {
+        System.out.println("Shutting down application...");
+        AppContext.shutdown();
+        AuditAppender.shutdownShared();
+        AuditSpool.shutdownShared();
+        BedOccupancyIndex.shutdownShared();
+        OverdueDoseTracker.shutdownShared();
+        DBConnection.shutdown();
+        super.stop();
+    }
+    
     public static void main(String[] args) {
         System.out.println("Launching Healthcare JavaFX Application...");
         launch(args);
@@ -0,0 +1,267 @@
+package com.healthcare.config;
+
+import com.healthcare.services.ActionLogService;
+import com.healthcare.services.AuditAppender;
+import com.healthcare.services.BedAllocationEngine;
+import com.healthcare.services.BedCensus;
+import com.healthcare.services.BedManagementService;
+import com.healthcare.services.BedOccupancyIndex;
+import com.healthcare.services.BedReservationService;
+import com.healthcare.services.BedTransferService;
+import com.healthcare.services.DailyRollupService;
+import com.healthcare.services.DashboardSnapshot;
+import com.healthcare.services.DoctorReportService;
+import com.healthcare.services.MedicationAdministrationService;
+import com.healthcare.services.MedicationRoundService;
+import com.healthcare.services.MedicineService;
+import com.healthcare.services.OverdueDoseTracker;
+import com.healthcare.services.PrescriptionService;
+import com.healthcare.services.ResidentService;
+import com.healthcare.services.RosterGenerator;
+import com.healthcare.services.RosterPatternService;
+import com.healthcare.services.ShiftManagementService;
+import com.healthcare.services.ShiftService;
+import com.healthcare.services.StaffAvailabilityIndex;
+import com.healthcare.services.StaffService;
+import com.healthcare.services.WardTopology;
+import com.healthcare.util.ViewLoader;
+import javafx.fxml.FXMLLoader;
+import javafx.util.Callback;
+import org.springframework.beans.factory.InjectionPoint;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Application context holding one instance of every service, wired once at startup
+ *
+ * Services keep their constructors; the beans below call them with the shared
+ * pieces (occupancy index, medication rounds, daily rollups, audit appender and
+ * so on), so every screen reads the same caches and writes through the same
+ * queues. Singletons that have getShared() are created through it, given the
+ * context's pieces where they take any, so the static paths services use
+ * (invalidateShared() and the like) reach the same instances. They are still
+ * shut down by Main rather than by the context. getShared() is otherwise only a
+ * fallback for code built outside the context, such as tests.
+ *
+ * FXML views are loaded through newLoader(), whose controller factory creates
+ * each controller and fills its @Autowired fields from the context, including a
+ * ViewLoader of its own running on the context's loader pool.
+ */
+public final class AppContext {
+
+    private static volatile AnnotationConfigApplicationContext shared;
+
+    private AppContext() {
+    }
+
+    /**
+     * The context, started on first use
+     */
+    public static AnnotationConfigApplicationContext getShared() {
+        AnnotationConfigApplicationContext context = shared;
+        if (context == null) {
+            synchronized (AppContext.class) {
+                context = shared;
+                if (context == null) {
+                    context = new AnnotationConfigApplicationContext(Services.class);
+                    context.setId("healthcare");
+                    shared = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * The shared instance of a service
+     */
+    public static <T> T getBean(Class<T> type) {
+        return getShared().getBean(type);
+    }
+
+    /**
+     * Controller factory creating controllers with their services injected
+     */
+    public static Callback<Class<?>, Object> controllerFactory() {
+        return type -> getShared().getAutowireCapableBeanFactory().createBean(type);
+    }
+
+    /**
+     * FXMLLoader for a view whose controller is created by the context
+     */
+    public static FXMLLoader newLoader(URL location) {
+        FXMLLoader loader = new FXMLLoader(location);
+        loader.setControllerFactory(controllerFactory());
+        return loader;
+    }
+
+    /**
+     * Close the context, if it was started
+     */
+    public static synchronized void shutdown() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * The service graph. destroyMethod = "" keeps the context from stopping
+     * singletons that Main shuts down in order
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class Services {
+
+        // Shared state
+
+        @Bean(destroyMethod = "")
+        BedOccupancyIndex bedOccupancyIndex() {
+            return BedOccupancyIndex.getShared();
+        }
+
+        @Bean(destroyMethod = "")
+        WardTopology wardTopology() {
+            return WardTopology.getShared();
+        }
+
+        @Bean(destroyMethod = "")
+        BedCensus bedCensus() {
+            return BedCensus.getShared();
+        }
+
+        @Bean(destroyMethod = "")
+        StaffAvailabilityIndex staffAvailabilityIndex() {
+            return StaffAvailabilityIndex.getShared();
+        }
+
+        @Bean(destroyMethod = "")
+        AuditAppender auditAppender() {
+            return AuditAppender.getShared();
+        }
+
+        @Bean(destroyMethod = "")
+        OverdueDoseTracker overdueDoseTracker(MedicationRoundService rounds) {
+            return OverdueDoseTracker.getShared(rounds);
+        }
+
+        @Bean(destroyMethod = "")
+        DashboardSnapshot dashboardSnapshot(MedicationRoundService rounds) {
+            return DashboardSnapshot.getShared(rounds);
+        }
+
+        @Bean(destroyMethod = "")
+        DoctorReportService doctorReportService(DailyRollupService rollups) {
+            return DoctorReportService.getShared(rollups);
+        }
+
+        @Bean
+        MedicationRoundService medicationRoundService(BedOccupancyIndex occupancy) {
+            return new MedicationRoundService(occupancy);
+        }
+
+        @Bean
+        DailyRollupService dailyRollupService() {
+            return new DailyRollupService();
+        }
+
+        @Bean
+        RosterGenerator rosterGenerator() {
+            return new RosterGenerator();
+        }
+
+        // Views
+
+        @Bean(destroyMethod = "shutdownNow")
+        ExecutorService viewLoaderPool() {
+            return ViewLoader.newPool();
+        }
+
+        /**
+         * A loader per controller, named after it for error messages
+         */
+        @Bean
+        @Scope(BeanDefinition.SCOPE_PROTOTYPE)
+        ViewLoader viewLoader(ExecutorService viewLoaderPool, InjectionPoint injectionPoint) {
+            String view = injectionPoint.getMember().getDeclaringClass().getSimpleName().replace("Controller", "");
+            return new ViewLoader(view, viewLoaderPool);
+        }
+
+        // Services
+
+        @Bean
+        ActionLogService actionLogService(AuditAppender appender) {
+            return new ActionLogService(appender);
+        }
+
+        @Bean
+        StaffService staffService(MedicationRoundService rounds) {
+            return new StaffService(rounds);
+        }
+
+        @Bean
+        ResidentService residentService(MedicationRoundService rounds, DailyRollupService rollups) {
+            return new ResidentService(rounds, rollups);
+        }
+
+        @Bean
+        PrescriptionService prescriptionService(MedicationRoundService rounds, DailyRollupService rollups) {
+            return new PrescriptionService(rounds, rollups);
+        }
+
+        @Bean
+        MedicineService medicineService(MedicationRoundService rounds) {
+            return new MedicineService(rounds);
+        }
+
+        @Bean
+        MedicationAdministrationService medicationAdministrationService(MedicationRoundService rounds,
+                                                                        OverdueDoseTracker overdueTracker,
+                                                                        DailyRollupService rollups) {
+            return new MedicationAdministrationService(rounds, overdueTracker, rollups);
+        }
+
+        @Bean
+        BedReservationService bedReservationService(BedOccupancyIndex occupancy, DailyRollupService rollups) {
+            return new BedReservationService(occupancy, rollups);
+        }
+
+        @Bean
+        BedAllocationEngine bedAllocationEngine(BedOccupancyIndex occupancy, BedReservationService reservations) {
+            return new BedAllocationEngine(occupancy, reservations);
+        }
+
+        @Bean
+        BedManagementService bedManagementService(BedOccupancyIndex occupancy, WardTopology topology,
+                                                  DailyRollupService rollups, BedAllocationEngine allocation) {
+            return new BedManagementService(occupancy, topology, rollups, allocation);
+        }
+
+        @Bean
+        BedTransferService bedTransferService(BedOccupancyIndex occupancy, BedManagementService beds,
+                                              BedReservationService reservations, ResidentService residents,
+                                              DailyRollupService rollups) {
+            return new BedTransferService(occupancy, beds, reservations, residents, rollups);
+        }
+
+        @Bean
+        ShiftManagementService shiftManagementService(RosterGenerator generator) {
+            return new ShiftManagementService(generator);
+        }
+
+        @Bean
+        ShiftService shiftService() {
+            return new ShiftService();
+        }
+
+        @Bean
+        RosterPatternService rosterPatternService(StaffAvailabilityIndex availability, ShiftManagementService shifts) {
+            return new RosterPatternService(availability, shifts);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.healthcare.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used behind DBConnection
+ * - At most maxSize physical connections, at least minSize kept warm
+ * - Connections are validated on borrow and evicted after idling too long
+ * - Callers wait up to acquireTimeout for a free connection
+ * - Statements and ResultSets left open are closed on return and reported once per SQL
+ * - Connections held longer than the leak threshold are reported with the borrowing stack
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final PoolConfig config;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder leakedConnections = new LongAdder();
+    private final LongAdder unclosedStatements = new LongAdder();
+    private final LongAdder unclosedResultSets = new LongAdder();
+    private final Set<String> reportedLeakSites = ConcurrentHashMap.newKeySet();
+
+    public ConnectionPool(PoolConfig config) {
+        config.validate();
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHousekeepingIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection; closing the returned connection hands it back to the pool
+     * @throws SQLTransientConnectionException if none becomes free within the acquire timeout
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeoutMillis());
+
+        waiters.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new SQLTransientConnectionException("Timed out after " + config.getAcquireTimeoutMillis()
+                        + "ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+
+        try {
+            PooledConnection pooled = takeConnection(deadline);
+            pooled.onBorrow(config.getLeakDetectionThresholdMillis() > 0);
+            borrowedConnections.add(pooled);
+
+            long elapsed = System.nanoTime() - start;
+            acquireCount.increment();
+            acquireNanos.add(elapsed);
+            maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+
+            return pooled.newLease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Current pool counters
+     */
+    public PoolStats getStats() {
+        long count = acquireCount.sum();
+        double averageMillis = count == 0 ? 0 : acquireNanos.sum() / (double) count / 1_000_000;
+        int idle = idleConnections.size();
+        return new PoolStats(
+            totalConnections.get(),
+            borrowedConnections.size(),
+            idle,
+            waiters.get(),
+            count,
+            acquireTimeouts.sum(),
+            averageMillis,
+            maxAcquireNanos.get() / 1_000_000.0,
+            leakedConnections.sum(),
+            unclosedStatements.sum(),
+            unclosedResultSets.sum()
+        );
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Close all idle connections and stop housekeeping; borrowed connections are closed as they are returned
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    // Borrowing
+
+    private PooledConnection takeConnection(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+                continue;
+            }
+
+            if (reserveSlot(config.getMaxSize())) {
+                try {
+                    return createConnection();
+                } catch (SQLException e) {
+                    totalConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+
+            // Pool is at capacity but a connection is being returned or validated elsewhere
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                acquireTimeouts.increment();
+                throw new SQLTransientConnectionException("Timed out waiting for an idle database connection");
+            }
+            try {
+                pooled = idleConnections.pollFirst(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pooled != null) {
+                idleConnections.offerFirst(pooled);
+            }
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsedAt < config.getAliveBypassMillis()) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reserveSlot(int limit) {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+        try {
+            return new PooledConnection(physical);
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+    }
+
+    // Returning
+
+    private void release(PooledConnection pooled) {
+        try {
+            pooled.closeOpenStatements();
+            boolean healthy = !pooled.broken && pooled.resetState();
+            borrowedConnections.remove(pooled);
+            if (closed || !healthy) {
+                discard(pooled);
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    // Housekeeping
+
+    private void housekeep() {
+        try {
+            evictIdleConnections();
+            fillToMinimum();
+            detectLeakedConnections();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> oldestFirst = idleConnections.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > config.getMinSize()) {
+            PooledConnection pooled = oldestFirst.next();
+            if (now - pooled.lastUsedAt > config.getIdleTimeoutMillis() && idleConnections.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && reserveSlot(config.getMinSize())) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                totalConnections.decrementAndGet();
+                System.err.println("Connection pool could not open a warm connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectLeakedConnections() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowedConnections) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > threshold) {
+                pooled.leakReported = true;
+                leakedConnections.increment();
+                System.err.println("Connection pool: connection held for more than " + threshold
+                        + "ms, possible leak. Borrowed at:");
+                if (pooled.borrowStack != null) {
+                    pooled.borrowStack.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void reportUnclosed(String kind, String sql) {
+        String site = kind + ": " + (sql != null ? sql : "<unknown statement>");
+        if (reportedLeakSites.add(site)) {
+            System.err.println("Connection pool: " + kind + " was not closed by its caller - " + site);
+        }
+    }
+
+    private static boolean isConnectionError(Throwable cause) {
+        if (cause instanceof SQLException) {
+            String state = ((SQLException) cause).getSQLState();
+            return state != null && state.startsWith("08");
+        }
+        return false;
+    }
+
+    /**
+     * A physical connection plus the bookkeeping needed to lend it out
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final int defaultIsolation;
+        private final Set<TrackedStatement> openStatements = ConcurrentHashMap.newKeySet();
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+        private boolean stateChanged;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+        }
+
+        void onBorrow(boolean captureStack) {
+            borrowedAt = System.currentTimeMillis();
+            borrowStack = captureStack ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            stateChanged = false;
+        }
+
+        Connection newLease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+
+        void closeOpenStatements() {
+            for (TrackedStatement statement : new ArrayList<>(openStatements)) {
+                try {
+                    boolean leaked = !statement.raw.isClosed();
+                    if (leaked) {
+                        unclosedStatements.increment();
+                        reportUnclosed("Statement", statement.sql);
+                    }
+                    statement.closeQuietly(leaked);
+                } catch (SQLException e) {
+                    broken = true;
+                }
+            }
+            openStatements.clear();
+        }
+
+        /**
+         * Restore defaults so the next borrower gets a clean connection
+         */
+        boolean resetState() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (stateChanged) {
+                    physical.setReadOnly(false);
+                    physical.setTransactionIsolation(defaultIsolation);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Proxy handed to callers for one borrow; close() returns the connection instead of closing it
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private volatile boolean leaseClosed;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!leaseClosed) {
+                        leaseClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return leaseClosed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (leaseClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            String name = method.getName();
+            if (name.equals("setReadOnly") || name.equals("setTransactionIsolation")) {
+                pooled.stateChanged = true;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                if (isConnectionError(e.getCause())) {
+                    pooled.broken = true;
+                }
+                throw e.getCause();
+            }
+
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                TrackedStatement tracked = new TrackedStatement(pooled, (Statement) result, sql, (Connection) proxy);
+                pooled.openStatements.add(tracked);
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        tracked);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Statement proxy that remembers the ResultSets it hands out
+     */
+    private class TrackedStatement implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Statement raw;
+        private final String sql;
+        private final Connection owner;
+        private final List<ResultSet> resultSets = new ArrayList<>(1);
+
+        TrackedStatement(PooledConnection pooled, Statement raw, String sql, Connection owner) {
+            this.pooled = pooled;
+            this.raw = raw;
+            this.sql = sql;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closeQuietly(false);
+                    pooled.openStatements.remove(this);
+                    return null;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(raw, args);
+            } catch (InvocationTargetException e) {
+                if (isConnectionError(e.getCause())) {
+                    pooled.broken = true;
+                }
+                throw e.getCause();
+            }
+
+            if (result instanceof ResultSet) {
+                resultSets.add((ResultSet) result);
+            }
+            return result;
+        }
+
+        /**
+         * Close the statement and its result sets. Closing a statement closes its result sets under JDBC,
+         * so open ones only count as leaked when the connection is returned with the statement still open
+         */
+        void closeQuietly(boolean leaked) throws SQLException {
+            if (leaked) {
+                for (ResultSet resultSet : resultSets) {
+                    if (!resultSet.isClosed()) {
+                        unclosedResultSets.increment();
+                        reportUnclosed("ResultSet", sql);
+                    }
+                }
+            }
+            resultSets.clear();
+            raw.close();
+        }
+    }
+}
@@ -1,33 +1,72 @@
 package com.healthcare.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Simple Database Connection class
- * Provides MySQL connection for CRUD operations
+ * Provides pooled MySQL connections for CRUD operations.
+ * Connections are borrowed from a shared ConnectionPool; closing one returns it to the pool.
  */
 public class DBConnection {
-    
+
     private static final String URL = "jdbc:mysql://localhost:3306/healthcare_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
     private static final String USERNAME = "healthcare_user";
     private static final String PASSWORD = "healthcare_password";
-    
+
+    private static volatile ConnectionPool pool;
+
     /**
      * Get database connection
-     * @return Connection object
-     * @throws SQLException if connection fails
+     * Inside a UnitOfWork this is the connection bound to the current transaction.
+     * @return Connection object; close it to hand it back to the pool
+     * @throws SQLException if connection fails or none is free within the acquire timeout
      */
     public static Connection getConnection() throws SQLException {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL Driver not found", e);
+        Connection bound = UnitOfWork.currentConnection();
+        if (bound != null) {
+            return bound;
         }
+        return getPool().getConnection();
+    }
+
+    /**
+     * Get a pooled connection of its own even inside a UnitOfWork, for reads
+     * that must only see committed data (e.g. loading a shared cache)
+     */
+    public static Connection getDetachedConnection() throws SQLException {
+        return getPool().getConnection();
     }
-    
+
+    /**
+     * Live pool counters (active, idle, waiting threads, acquire latency, leaks)
+     */
+    public static PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    /**
+     * Replace the shared pool, e.g. to point the application at another database.
+     * The previous pool, if any, is shut down.
+     */
+    public static synchronized void configure(PoolConfig config) {
+        ConnectionPool previous = pool;
+        pool = new ConnectionPool(config);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Close all pooled connections; called on application shutdown
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
     /**
      * Close database connection safely
      * @param connection Connection to close
@@ -41,4 +80,27 @@ public class DBConnection {
             }
         }
     }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBConnection.class) {
+                current = pool;
+                if (current == null) {
+                    loadDriver();
+                    current = new ConnectionPool(PoolConfig.fromSystemProperties(URL, USERNAME, PASSWORD));
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void loadDriver() {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("MySQL Driver not found: " + e.getMessage());
+        }
+    }
 }
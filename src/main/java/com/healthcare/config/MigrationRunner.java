@@ -0,0 +1,282 @@
+package com.healthcare.config;
+
+import com.healthcare.exceptions.MigrationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations
+ *
+ * Migrations are SQL scripts on the classpath named V<version>__<description>.sql
+ * (default location db/migration). They run in version order, each one at most
+ * once, and every applied version is recorded in the schema_history table with a
+ * checksum of its script. An applied script that has since been edited is reported
+ * rather than re-run.
+ *
+ * An index or column that already exists (e.g. created by hand, or by a second
+ * client starting at the same moment) is treated as applied. Because DDL cannot be
+ * rolled back, a migration that fails part-way must be safe to run again.
+ */
+public class MigrationRunner {
+
+    public static final String DEFAULT_LOCATION = "db/migration";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final int MYSQL_DUPLICATE_KEY_NAME = 1061;
+    private static final int MYSQL_DUPLICATE_COLUMN_NAME = 1060;
+    private static final int H2_INDEX_ALREADY_EXISTS = 42111;
+    private static final int H2_DUPLICATE_COLUMN_NAME = 42121;
+
+    private static final String CREATE_HISTORY_SQL = "CREATE TABLE IF NOT EXISTS schema_history (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "installed_on TIMESTAMP NOT NULL, " +
+            "execution_ms BIGINT NOT NULL)";
+
+    private final String location;
+
+    public MigrationRunner() {
+        this(DEFAULT_LOCATION);
+    }
+
+    public MigrationRunner(String location) {
+        this.location = location;
+    }
+
+    /**
+     * Apply pending migrations to the application database; called at startup.
+     * Failures are logged so the application can still start against an older schema.
+     */
+    public static void migrateOnStartup() {
+        try (Connection conn = DBConnection.getConnection()) {
+            int applied = new MigrationRunner().migrate(conn);
+            System.out.println("Schema migrations applied: " + applied);
+        } catch (SQLException | MigrationException e) {
+            System.err.println("Error applying schema migrations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply every migration not yet recorded in schema_history
+     * @return number of migrations applied
+     */
+    public int migrate(Connection conn) throws MigrationException {
+        List<Migration> migrations = findMigrations();
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_HISTORY_SQL);
+            }
+            Map<Integer, Long> applied = loadHistory(conn);
+
+            int count = 0;
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.getVersion());
+                if (checksum == null) {
+                    apply(conn, migration);
+                    count++;
+                } else if (checksum != migration.getChecksum()) {
+                    System.err.println("Migration V" + migration.getVersion() + " (" + migration.getDescription() +
+                            ") was changed after it was applied; edit a new migration instead");
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            throw new MigrationException("Migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Migrations at this runner's location, in version order
+     */
+    public List<Migration> findMigrations() throws MigrationException {
+        Map<Integer, Migration> byVersion = new HashMap<>();
+        for (String name : listScripts()) {
+            Matcher matcher = FILE_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            Migration migration = new Migration(
+                    Integer.parseInt(matcher.group(1)),
+                    matcher.group(2).replace('_', ' '),
+                    readScript(name));
+            Migration clash = byVersion.put(migration.getVersion(), migration);
+            if (clash != null) {
+                throw new MigrationException("Two migrations share version " + migration.getVersion());
+            }
+        }
+        List<Migration> migrations = new ArrayList<>(byVersion.values());
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        return migrations;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long started = System.currentTimeMillis();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            // DDL commits implicitly, so a failure only rolls back data changes made after the last DDL
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.getStatements()) {
+                    executeStatement(stmt, sql, migration);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_history (version, description, checksum, installed_on, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+                stmt.setInt(1, migration.getVersion());
+                stmt.setString(2, migration.getDescription());
+                stmt.setLong(3, migration.getChecksum());
+                stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                stmt.setLong(5, System.currentTimeMillis() - started);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Applied migration V" + migration.getVersion() + " (" + migration.getDescription() + ")");
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("V" + migration.getVersion() + " (" + migration.getDescription() + "): " + e.getMessage(),
+                    e.getSQLState(), e.getErrorCode(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void executeStatement(Statement stmt, String sql, Migration migration) throws SQLException {
+        try {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == MYSQL_DUPLICATE_KEY_NAME || e.getErrorCode() == H2_INDEX_ALREADY_EXISTS) {
+                System.out.println("Migration V" + migration.getVersion() + ": index already exists, skipped");
+                return;
+            }
+            if (e.getErrorCode() == MYSQL_DUPLICATE_COLUMN_NAME || e.getErrorCode() == H2_DUPLICATE_COLUMN_NAME) {
+                System.out.println("Migration V" + migration.getVersion() + ": column already exists, skipped");
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private Map<Integer, Long> loadHistory(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private List<String> listScripts() throws MigrationException {
+        List<String> names = new ArrayList<>();
+        try {
+            Enumeration<URL> roots = getClass().getClassLoader().getResources(location);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("jar".equals(root.getProtocol())) {
+                    JarURLConnection connection = (JarURLConnection) root.openConnection();
+                    // Own copy of the jar, so closing it does not close the class loader's
+                    connection.setUseCaches(false);
+                    try (JarFile jar = connection.getJarFile()) {
+                        String prefix = connection.getEntryName() + "/";
+                        for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                            String entry = entries.nextElement().getName();
+                            if (entry.startsWith(prefix) && entry.indexOf('/', prefix.length()) < 0) {
+                                names.add(entry.substring(prefix.length()));
+                            }
+                        }
+                    }
+                } else {
+                    Path dir = Paths.get(root.toURI());
+                    try (Stream<Path> files = Files.list(dir)) {
+                        files.forEach(file -> names.add(file.getFileName().toString()));
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new MigrationException("Cannot list migrations in " + location + ": " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    private String readScript(String name) throws MigrationException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(location + "/" + name)) {
+            if (in == null) {
+                throw new MigrationException("Migration " + name + " not found");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new MigrationException("Cannot read migration " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One versioned migration script
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final long checksum;
+
+        public Migration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            CRC32 crc = new CRC32();
+            crc.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+        }
+
+        /**
+         * Statements in the script: "--" comments removed, split on semicolons
+         */
+        public List<String> getStatements() {
+            StringBuilder body = new StringBuilder();
+            for (String line : script.split("\\R")) {
+                int comment = line.indexOf("--");
+                body.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+            }
+            List<String> statements = new ArrayList<>();
+            for (String sql : body.toString().split(";")) {
+                if (!sql.isBlank()) {
+                    statements.add(sql.trim());
+                }
+            }
+            return statements;
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        public String getScript() { return script; }
+        public long getChecksum() { return checksum; }
+    }
+}
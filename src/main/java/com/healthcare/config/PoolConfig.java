@@ -0,0 +1,101 @@
+package com.healthcare.config;
+
+/**
+ * Connection pool settings
+ * Defaults suit a single desktop client; every value can be overridden with a
+ * -Dhealthcare.db.* system property (e.g. -Dhealthcare.db.pool.maxSize=20)
+ */
+public class PoolConfig {
+
+    private static final String PREFIX = "healthcare.db.";
+
+    private String url;
+    private String username;
+    private String password;
+
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long acquireTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 300_000;
+    private int validationTimeoutSeconds = 2;
+    private long aliveBypassMillis = 500;
+    private long leakDetectionThresholdMillis = 30_000;
+    private long housekeepingIntervalMillis = 10_000;
+
+    public PoolConfig(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Build a config from the given connection defaults, applying any system property overrides
+     */
+    public static PoolConfig fromSystemProperties(String url, String username, String password) {
+        PoolConfig config = new PoolConfig(
+            System.getProperty(PREFIX + "url", url),
+            System.getProperty(PREFIX + "username", username),
+            System.getProperty(PREFIX + "password", password)
+        );
+        config.setMinSize(Integer.getInteger(PREFIX + "pool.minSize", config.minSize));
+        config.setMaxSize(Integer.getInteger(PREFIX + "pool.maxSize", config.maxSize));
+        config.setAcquireTimeoutMillis(Long.getLong(PREFIX + "pool.acquireTimeoutMs", config.acquireTimeoutMillis));
+        config.setIdleTimeoutMillis(Long.getLong(PREFIX + "pool.idleTimeoutMs", config.idleTimeoutMillis));
+        config.setValidationTimeoutSeconds(Integer.getInteger(PREFIX + "pool.validationTimeoutSec", config.validationTimeoutSeconds));
+        config.setLeakDetectionThresholdMillis(Long.getLong(PREFIX + "pool.leakDetectionMs", config.leakDetectionThresholdMillis));
+        config.setHousekeepingIntervalMillis(Long.getLong(PREFIX + "pool.housekeepingMs", config.housekeepingIntervalMillis));
+        return config;
+    }
+
+    /**
+     * Check the settings are consistent before a pool is built from them
+     */
+    public void validate() {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("Database URL must be set");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool maxSize must be at least 1, was " + maxSize);
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool minSize must be between 0 and maxSize (" + maxSize + "), was " + minSize);
+        }
+        if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Pool acquireTimeoutMs cannot be negative");
+        }
+    }
+
+    // Getters and setters
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public int getMinSize() { return minSize; }
+    public void setMinSize(int minSize) { this.minSize = minSize; }
+
+    public int getMaxSize() { return maxSize; }
+    public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+    public long getAcquireTimeoutMillis() { return acquireTimeoutMillis; }
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) { this.acquireTimeoutMillis = acquireTimeoutMillis; }
+
+    public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+
+    public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) { this.validationTimeoutSeconds = validationTimeoutSeconds; }
+
+    public long getAliveBypassMillis() { return aliveBypassMillis; }
+    public void setAliveBypassMillis(long aliveBypassMillis) { this.aliveBypassMillis = aliveBypassMillis; }
+
+    public long getLeakDetectionThresholdMillis() { return leakDetectionThresholdMillis; }
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) { this.leakDetectionThresholdMillis = leakDetectionThresholdMillis; }
+
+    public long getHousekeepingIntervalMillis() { return housekeepingIntervalMillis; }
+    public void setHousekeepingIntervalMillis(long housekeepingIntervalMillis) { this.housekeepingIntervalMillis = housekeepingIntervalMillis; }
+}
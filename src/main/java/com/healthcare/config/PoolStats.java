@@ -0,0 +1,56 @@
+package com.healthcare.config;
+
+/**
+ * Point-in-time snapshot of the connection pool counters
+ * Returned by DBConnection.getPoolStats() for dashboards and diagnostics
+ */
+public class PoolStats {
+
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int threadsAwaiting;
+    private final long acquireCount;
+    private final long acquireTimeouts;
+    private final double averageAcquireMillis;
+    private final double maxAcquireMillis;
+    private final long leakedConnections;
+    private final long unclosedStatements;
+    private final long unclosedResultSets;
+
+    public PoolStats(int totalConnections, int activeConnections, int idleConnections, int threadsAwaiting,
+                     long acquireCount, long acquireTimeouts, double averageAcquireMillis, double maxAcquireMillis,
+                     long leakedConnections, long unclosedStatements, long unclosedResultSets) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.threadsAwaiting = threadsAwaiting;
+        this.acquireCount = acquireCount;
+        this.acquireTimeouts = acquireTimeouts;
+        this.averageAcquireMillis = averageAcquireMillis;
+        this.maxAcquireMillis = maxAcquireMillis;
+        this.leakedConnections = leakedConnections;
+        this.unclosedStatements = unclosedStatements;
+        this.unclosedResultSets = unclosedResultSets;
+    }
+
+    public int getTotalConnections() { return totalConnections; }
+    public int getActiveConnections() { return activeConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getThreadsAwaiting() { return threadsAwaiting; }
+    public long getAcquireCount() { return acquireCount; }
+    public long getAcquireTimeouts() { return acquireTimeouts; }
+    public double getAverageAcquireMillis() { return averageAcquireMillis; }
+    public double getMaxAcquireMillis() { return maxAcquireMillis; }
+    public long getLeakedConnections() { return leakedConnections; }
+    public long getUnclosedStatements() { return unclosedStatements; }
+    public long getUnclosedResultSets() { return unclosedResultSets; }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats[total=%d, active=%d, idle=%d, waiting=%d, acquired=%d, timeouts=%d, " +
+                "avgAcquire=%.2fms, maxAcquire=%.2fms, leakedConnections=%d, unclosedStatements=%d, unclosedResultSets=%d]",
+                totalConnections, activeConnections, idleConnections, threadsAwaiting, acquireCount, acquireTimeouts,
+                averageAcquireMillis, maxAcquireMillis, leakedConnections, unclosedStatements, unclosedResultSets);
+    }
+}
@@ -0,0 +1,255 @@
+package com.healthcare.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaction scope shared by every service called on the current thread
+ *
+ * Inside UnitOfWork.run/execute, DBConnection.getConnection() hands out the same
+ * bound connection, so an admission, transfer or discharge that spans several
+ * services borrows one connection and commits once. Services keep their usual
+ * try-with-resources code: close(), commit() and setAutoCommit() on the bound
+ * connection are deferred to the scope, and any SQLException raised by a
+ * statement marks the whole unit for rollback even if the service swallows it.
+ *
+ * Nested scopes join the outermost one.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private UnitOfWork() {
+    }
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface VoidWork {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Run work in a single transaction and return its result
+     * @throws SQLException if the work failed or any statement in it failed; nothing is committed
+     */
+    public static <T> T execute(Work<T> work) throws SQLException {
+        Scope outer = CURRENT.get();
+        if (outer != null) {
+            try {
+                return work.run();
+            } catch (SQLException | RuntimeException | Error e) {
+                outer.markRollbackOnly(e);
+                throw e;
+            }
+        }
+
+        Connection connection = DBConnection.getConnection();
+        Scope scope = new Scope(connection);
+        CURRENT.set(scope);
+        boolean committed = false;
+        try {
+            connection.setAutoCommit(false);
+            T result = work.run();
+            if (scope.failure != null) {
+                throw new SQLException("Unit of work rolled back: " + scope.failure.getMessage(), scope.failure);
+            }
+            connection.commit();
+            committed = true;
+            return result;
+        } finally {
+            CURRENT.remove();
+            if (!committed) {
+                rollbackQuietly(connection);
+            }
+            connection.close();
+            if (committed) {
+                runAfterCommit(scope);
+            }
+        }
+    }
+
+    /**
+     * Run work in a single transaction
+     */
+    public static void run(VoidWork work) throws SQLException {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the current thread is inside a unit of work
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Force the current unit of work to roll back when it ends
+     */
+    public static void setRollbackOnly(String reason) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.markRollbackOnly(new SQLException(reason));
+        }
+    }
+
+    /**
+     * Run an action once the current unit of work commits; it is dropped on rollback.
+     * Outside a unit of work the action runs immediately.
+     */
+    public static void afterCommit(Runnable action) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Connection bound to the current thread, or null outside a unit of work
+     */
+    static Connection currentConnection() {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope.participant : null;
+    }
+
+    private static void runAfterCommit(Scope scope) {
+        for (Runnable action : scope.afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error running after-commit action: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back unit of work: " + e.getMessage());
+        }
+    }
+
+    /**
+     * State of one outermost unit of work
+     */
+    private static class Scope {
+        private final Connection physical;
+        private final Connection participant;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private Throwable failure;
+
+        Scope(Connection physical) {
+            this.physical = physical;
+            this.participant = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ParticipantHandler(this));
+        }
+
+        void markRollbackOnly(Throwable cause) {
+            if (failure == null) {
+                failure = cause;
+            }
+        }
+    }
+
+    /**
+     * Connection handed to services inside a scope; transaction control stays with the scope
+     */
+    private static class ParticipantHandler implements InvocationHandler {
+        private final Scope scope;
+
+        ParticipantHandler(Scope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        scope.markRollbackOnly(new SQLException("Rollback requested by participant"));
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitOfWork[" + scope.physical + "]";
+                default:
+                    break;
+            }
+
+            Object result = invokeMarkingFailure(scope, scope.physical, method, args);
+            if (result instanceof Statement) {
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new StatementHandler(scope, (Statement) result, (Connection) proxy));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Statement wrapper that records failures against the scope
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final Scope scope;
+        private final Statement raw;
+        private final Connection owner;
+
+        StatementHandler(Scope scope, Statement raw, Connection owner) {
+            this.scope = scope;
+            this.raw = raw;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeMarkingFailure(scope, raw, method, args);
+            }
+        }
+    }
+
+    private static Object invokeMarkingFailure(Scope scope, Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                scope.markRollbackOnly(e.getCause());
+            }
+            throw e.getCause();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.AppContext;
 import com.healthcare.model.Staff;
+import com.healthcare.services.AuditAppender;
+import com.healthcare.services.DashboardSnapshot;
+import com.healthcare.util.ViewLoader;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.util.ResourceBundle;
@@ -24,6 +29,14 @@ public abstract class BaseDashboardController implements Initializable {
     protected Staff currentStaff;
     protected Stage primaryStage;
     
+    // Runs the dashboard's queries off the FX thread
+    @Autowired
+    protected ViewLoader loader;
+    @Autowired
+    protected DashboardSnapshot dashboardSnapshot;
+    @Autowired
+    private AuditAppender auditAppender;
+    
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Common initialization for all dashboards
@@ -54,9 +67,25 @@ public abstract class BaseDashboardController implements Initializable {
     
     @FXML
     protected void handleLogout() {
-        // Navigate back to login screen
+        // Drop any load still running, and make sure this session's audit entries are written before leaving
+        loader.cancelAll();
+        loader.load("logout", () -> auditAppender.flush(5_000), flushed -> {
+            if (!flushed) {
+                System.err.println("Audit entries still queued at logout");
+            }
+            showLogin();
+        }, error -> {
+            System.err.println("Error flushing audit entries at logout: " + error.getMessage());
+            showLogin();
+        });
+    }
+
+    /**
+     * Navigate back to the login screen
+     */
+    private void showLogin() {
         try {
-            javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(getClass().getResource("/fxml/login.fxml"));
+            javafx.fxml.FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/login.fxml"));
             javafx.scene.Scene scene = new javafx.scene.Scene(loader.load(), 800, 600);
             
             LoginController loginController = loader.getController();
@@ -1,19 +1,16 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.AppContext;
 import com.healthcare.model.Staff;
-import com.healthcare.model.Resident;
-import com.healthcare.model.Prescription;
-import com.healthcare.services.StaffService;
-import com.healthcare.services.ResidentService;
 import com.healthcare.services.PrescriptionService;
 import com.healthcare.controller.components.MyPatientsController;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controller for the Doctor Dashboard
@@ -60,9 +57,8 @@ public class DoctorDashboardController extends BaseDashboardController {
     private VBox medicinesContent;
     
     // Services
-    private StaffService staffService = new StaffService();
-    private ResidentService residentService = new ResidentService();
-    private PrescriptionService prescriptionService = new PrescriptionService();
+    @Autowired
+    private PrescriptionService prescriptionService;
 
     @Override
     public void initialize(java.net.URL location, java.util.ResourceBundle resources) {
@@ -117,43 +113,32 @@ public class DoctorDashboardController extends BaseDashboardController {
     
     // Data loading methods
     private void loadDashboardData() {
-        try {
-            if (currentStaff == null) {
-                System.out.println("Current staff not set, cannot load dashboard data");
-                return;
-            }
-            
-            // Load total residents count
-            List<Resident> allResidents = residentService.findActiveResidents();
-            totalResidentsLabel.setText(String.valueOf(allResidents.size()));
-            
-            // Load doctor's assigned patients count
-            List<Resident> myPatients = allResidents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                        resident.getAssignedDoctorId().equals(currentStaff.getStaffId()))
-                .collect(Collectors.toList());
-            myPatientsLabel.setText(String.valueOf(myPatients.size()));
-            
-            // Load today's appointments (using today's prescriptions as proxy)
-            List<Prescription> todaysPrescriptions = prescriptionService.findTodaysByDoctorId(currentStaff.getStaffId());
-            todaysAppointmentsLabel.setText(String.valueOf(todaysPrescriptions.size()));
-            
-            // Load pending prescriptions for this doctor
-            List<Prescription> pendingPrescriptions = prescriptionService.findPendingByDoctorId(currentStaff.getStaffId());
-            pendingPrescriptionsLabel.setText(String.valueOf(pendingPrescriptions.size()));
+        if (currentStaff == null) {
+            System.out.println("Current staff not set, cannot load dashboard data");
+            return;
+        }
+        
+        // All tile counts come from the shared dashboard snapshot
+        Long doctorId = currentStaff.getStaffId();
+        loader.load("dashboard", dashboardSnapshot::get, metrics -> {
+            totalResidentsLabel.setText(String.valueOf(metrics.getResidents()));
+            myPatientsLabel.setText(String.valueOf(metrics.getPatientsOfDoctor(doctorId)));
             
-            // Load recent activity
-            loadRecentActivity();
+            // Today's appointments (using today's prescriptions as proxy)
+            todaysAppointmentsLabel.setText(String.valueOf(metrics.getPrescriptionsToday(doctorId)));
+            pendingPrescriptionsLabel.setText(String.valueOf(metrics.getPendingReviews(doctorId)));
             
             System.out.println("Dashboard data loaded successfully for Dr. " + currentStaff.getFullName());
-            System.out.println("Total patients: " + allResidents.size() + ", My patients: " + myPatients.size() + 
-                             ", Today's appointments: " + todaysPrescriptions.size() + ", Pending prescriptions: " + pendingPrescriptions.size());
-            
-        } catch (Exception e) {
-            System.err.println("Error loading dashboard data: " + e.getMessage());
-            e.printStackTrace();
-            showError("Failed to load dashboard data: " + e.getMessage());
-        }
+            System.out.println("Total patients: " + metrics.getResidents() + ", My patients: " + metrics.getPatientsOfDoctor(doctorId) + 
+                             ", Today's appointments: " + metrics.getPrescriptionsToday(doctorId) + ", Pending prescriptions: " + metrics.getPendingReviews(doctorId));
+        }, error -> {
+            System.err.println("Error loading dashboard data: " + error.getMessage());
+            error.printStackTrace();
+            showError("Failed to load dashboard data: " + error.getMessage());
+        });
+        
+        // Load recent activity
+        loadRecentActivity();
     }
     
     private void loadRecentActivity() {
@@ -161,12 +146,10 @@ public class DoctorDashboardController extends BaseDashboardController {
         
         if (currentStaff != null) {
             // Load real activity based on doctor's recent actions
-            try {
-                List<Prescription> recentPrescriptions = prescriptionService.findByDoctorId(currentStaff.getStaffId());
-                
+            Staff doctor = currentStaff;
+            loader.load("activity", () -> prescriptionService.findRecentByDoctorId(doctor.getStaffId(), 5), recentPrescriptions -> {
                 // Add recent prescription activities
-                recentPrescriptions.stream()
-                    .limit(5)
+                recentPrescriptions
                     .forEach(prescription -> {
                         String activity = "Prescribed medication for patient ID: " + prescription.getResidentId() + 
                                         " on " + prescription.getPrescriptionDate();
@@ -174,18 +157,17 @@ public class DoctorDashboardController extends BaseDashboardController {
                     });
                 
                 // Add login activity
-                recentActivityList.getItems().add("Dr. " + currentStaff.getFullName() + " logged in");
+                recentActivityList.getItems().add("Dr. " + doctor.getFullName() + " logged in");
                 recentActivityList.getItems().add("Dashboard loaded successfully");
-                
-            } catch (Exception e) {
-                System.err.println("Error loading recent activity: " + e.getMessage());
+            }, error -> {
+                System.err.println("Error loading recent activity: " + error.getMessage());
                 // Fallback to default activities
                 recentActivityList.getItems().addAll(
-                    "Dr. " + currentStaff.getFullName() + " logged in",
+                    "Dr. " + doctor.getFullName() + " logged in",
                     "Dashboard loaded",
                     "System ready"
                 );
-            }
+            });
         } else {
             recentActivityList.getItems().addAll(
                 "System started successfully",
@@ -207,7 +189,7 @@ public class DoctorDashboardController extends BaseDashboardController {
             patientManagementContent.getChildren().clear();
             
             // Load My Patients component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/my-patients.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/my-patients.fxml"));
             VBox myPatientsComponent = loader.load();
             
             // Set current doctor in the component
@@ -240,7 +222,7 @@ public class DoctorDashboardController extends BaseDashboardController {
             prescriptionsContent.getChildren().clear();
             
             // Load Prescriptions component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/prescription-management.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/prescription-management.fxml"));
             VBox prescriptionsComponent = loader.load();
             
             // Set current doctor in the component
@@ -273,7 +255,7 @@ public class DoctorDashboardController extends BaseDashboardController {
             reportsContent.getChildren().clear();
             
             // Load Reports component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/doctor-reports.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/doctor-reports.fxml"));
             VBox reportsComponent = loader.load();
             
             // Set current doctor in the component
@@ -306,7 +288,7 @@ public class DoctorDashboardController extends BaseDashboardController {
             medicinesContent.getChildren().clear();
             
             // Load Medicines component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/medicine-management.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/medicine-management.fxml"));
             VBox medicinesComponent = loader.load();
             
             // Set current doctor in the component
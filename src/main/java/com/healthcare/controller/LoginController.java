@@ -1,18 +1,19 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.AppContext;
 import com.healthcare.model.Staff;
 import com.healthcare.services.StaffService;
-import javafx.application.Platform;
+import com.healthcare.util.ViewLoader;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Optional;
 import java.util.ResourceBundle;
 
 /**
@@ -37,7 +38,10 @@ public class LoginController implements Initializable {
     private ProgressIndicator loadingIndicator;
     
     private Stage primaryStage;
-    private StaffService staffService = new StaffService(); // Simple instantiation
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ViewLoader loader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -45,6 +49,8 @@ public class LoginController implements Initializable {
     }
     
     private void setupEventHandlers() {
+        loader.loadingProperty().addListener((obs, wasLoading, isLoading) -> setLoading(isLoading));
+        
         // Login button action
         loginButton.setOnAction(event -> handleLogin());
         
@@ -69,34 +75,20 @@ public class LoginController implements Initializable {
             return;
         }
         
-        setLoading(true);
-        
-        // JPA Service authentication
-        new Thread(() -> {
-            try {
-                System.out.println("Authenticating user: " + username);
-                Optional<Staff> staff = staffService.authenticate(username, password);
-                
-                Platform.runLater(() -> {
-                    setLoading(false);
-                    
-                    if (staff.isPresent()) {
-                        System.out.println("Login successful for: " + staff.get().getUsername() + " with role: " + staff.get().getRole());
-                        navigateToDashboard(staff.get());
-                    } else {
-                        System.out.println("Login failed: Invalid credentials");
-                        showError("Invalid username or password");
-                    }
-                });
-            } catch (Exception e) {
-                System.err.println("Login error: " + e.getMessage());
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    setLoading(false);
-                    showError("Login failed: " + e.getMessage());
-                });
+        // Authenticate in the background; the form is disabled while it runs
+        loader.load("login", () -> staffService.authenticate(username, password), staff -> {
+            if (staff.isPresent()) {
+                System.out.println("Login successful for: " + staff.get().getUsername() + " with role: " + staff.get().getRole());
+                navigateToDashboard(staff.get());
+            } else {
+                System.out.println("Login failed: Invalid credentials");
+                showError("Invalid username or password");
             }
-        }).start();
+        }, error -> {
+            System.err.println("Login error: " + error.getMessage());
+            error.printStackTrace();
+            showError("Login failed: " + error.getMessage());
+        });
     }
     
     private void navigateToDashboard(Staff staff) {
@@ -104,7 +96,7 @@ public class LoginController implements Initializable {
             String dashboardFxml = getDashboardFxml(staff.getRole());
             System.out.println("Navigating to dashboard: " + dashboardFxml + " for role: " + staff.getRole());
             
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(dashboardFxml));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource(dashboardFxml));
             Scene scene = new Scene(loader.load(), 1200, 800);
             
             // Set up the dashboard controller
@@ -1,7 +1,7 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.AppContext;
 import com.healthcare.model.Staff;
-import com.healthcare.services.StaffService;
 import com.healthcare.controller.components.ActionLogsController;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -62,9 +62,6 @@ public class ManagerDashboardController extends BaseDashboardController {
     @FXML
     private VBox systemSettingsContent;
     
-    // Services
-    private StaffService staffService = new StaffService();
-
     @Override
     public void initialize(java.net.URL location, java.util.ResourceBundle resources) {
         super.initialize(location, resources);
@@ -151,21 +148,16 @@ public class ManagerDashboardController extends BaseDashboardController {
     
     // Data loading methods
     private void loadDashboardData() {
-        try {
-            // Load statistics using simple services
-            long totalStaff = staffService.findAll().size();
-            
-            totalResidentsLabel.setText("0"); // TODO: Implement ResidentService
-            totalStaffLabel.setText(String.valueOf(totalStaff));
-            occupiedBedsLabel.setText("0"); // TODO: Implement BedService
-            todaysActionsLabel.setText("0"); // TODO: Implement ActionLogService
+        // Load statistics from the shared dashboard snapshot
+        loader.load("dashboard", dashboardSnapshot::get, metrics -> {
+            totalResidentsLabel.setText(String.valueOf(metrics.getResidents()));
+            totalStaffLabel.setText(String.valueOf(metrics.getStaff()));
+            occupiedBedsLabel.setText(String.valueOf(metrics.getOccupiedBeds()));
+            todaysActionsLabel.setText(String.valueOf(metrics.getActionsToday()));
             
             // Load recent activity
             loadRecentActivity();
-            
-        } catch (Exception e) {
-            showError("Failed to load dashboard data: " + e.getMessage());
-        }
+        }, error -> showError("Failed to load dashboard data: " + error.getMessage()));
     }
     
     private void loadRecentActivity() {
@@ -180,7 +172,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadStaffManagementData() {
         try {
             // Load the Staff Management component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/staff-management.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/staff-management.fxml"));
             VBox staffManagementComponent = loader.load();
             com.healthcare.controller.components.StaffManagementController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
@@ -199,7 +191,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadResidentManagementData() {
         try {
             // Load the Resident Management component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/resident-management.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/resident-management.fxml"));
             VBox residentManagementComponent = loader.load();
             com.healthcare.controller.components.ResidentManagementController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
@@ -218,7 +210,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadShiftSchedulingData() {
         try {
             // Load the Shift Scheduling component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/shift-scheduling.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/shift-scheduling.fxml"));
             VBox shiftSchedulingComponent = loader.load();
             com.healthcare.controller.components.ShiftSchedulingController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
@@ -237,7 +229,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadActionLogsData() {
         try {
             // Load the Action Logs component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/action-logs.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/action-logs.fxml"));
             VBox actionLogsComponent = loader.load();
             ActionLogsController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
@@ -256,7 +248,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadReportsArchivesData() {
         try {
             // Load the Reports and Archives component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/reports-archives.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/reports-archives.fxml"));
             VBox reportsArchivesComponent = loader.load();
             com.healthcare.controller.components.ReportsArchivesController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
@@ -275,7 +267,7 @@ public class ManagerDashboardController extends BaseDashboardController {
     private void loadSystemSettingsData() {
         try {
             // Load the System Settings component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/system-settings.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/system-settings.fxml"));
             VBox systemSettingsComponent = loader.load();
             com.healthcare.controller.components.SystemSettingsController controller = loader.getController();
             controller.setCurrentStaff(currentStaff);
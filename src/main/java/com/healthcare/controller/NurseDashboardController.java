@@ -1,10 +1,9 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.AppContext;
 import com.healthcare.model.Staff;
-import com.healthcare.model.Resident;
-import com.healthcare.services.ResidentService;
-import com.healthcare.services.MedicationAdministrationService;
 import com.healthcare.services.BedTransferService;
+import com.healthcare.services.DashboardSnapshot;
 import com.healthcare.controller.components.SimplifiedMedicationController;
 import com.healthcare.controller.components.BedTransferController;
 import com.healthcare.controller.components.NursePatientCareController;
@@ -12,6 +11,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
 
@@ -56,9 +56,8 @@ public class NurseDashboardController extends BaseDashboardController {
     private VBox bedTransfersContent;
     
     // Services
-    private ResidentService residentService = new ResidentService();
-    private MedicationAdministrationService medicationService = new MedicationAdministrationService();
-    private BedTransferService bedTransferService = new BedTransferService();
+    @Autowired
+    private BedTransferService bedTransferService;
 
     @Override
     public void initialize(java.net.URL location, java.util.ResourceBundle resources) {
@@ -109,52 +108,45 @@ public class NurseDashboardController extends BaseDashboardController {
     
     // Data loading methods
     private void loadDashboardData() {
-        try {
-            if (currentStaff == null) {
-                System.out.println("Current staff not set, cannot load dashboard data");
-                return;
-            }
-            
-            // Load total residents count
-            List<Resident> allResidents = residentService.findActiveResidents();
-            totalResidentsLabel.setText(String.valueOf(allResidents.size()));
+        if (currentStaff == null) {
+            System.out.println("Current staff not set, cannot load dashboard data");
+            return;
+        }
+        
+        // All tile counts come from the shared dashboard snapshot
+        loader.load("dashboard", dashboardSnapshot::get, metrics -> {
+            totalResidentsLabel.setText(String.valueOf(metrics.getResidents()));
             
             // Load nurse's assigned patients count (nurses can care for all residents in their ward)
             // For simplicity, we'll show residents who need medication administration
-            var residentsNeedingCare = allResidents.stream()
-                .filter(resident -> resident.getCurrentBedId() != null)
-                .count();
-            myPatientsLabel.setText(String.valueOf(residentsNeedingCare));
+            myPatientsLabel.setText(String.valueOf(metrics.getResidentsInBeds()));
             
             // Load today's medication tasks
-            var medicationStats = medicationService.getMedicationStats();
-            todaysTasksLabel.setText(String.valueOf(medicationStats.getTotalScheduled()));
-            pendingMedicationsLabel.setText(String.valueOf(medicationStats.getPending()));
+            todaysTasksLabel.setText(String.valueOf(metrics.getScheduledDoses()));
+            pendingMedicationsLabel.setText(String.valueOf(metrics.getPendingDoses()));
             
             // Load recent activity
-            loadRecentActivity();
+            loadRecentActivity(metrics);
             
             System.out.println("Dashboard data loaded successfully for Nurse " + currentStaff.getFullName());
-            System.out.println("Total patients: " + allResidents.size() + 
-                             ", Today's tasks: " + medicationStats.getTotalScheduled() + 
-                             ", Pending medications: " + medicationStats.getPending());
-            
-        } catch (Exception e) {
-            System.err.println("Error loading dashboard data: " + e.getMessage());
-            e.printStackTrace();
-            showError("Failed to load dashboard data: " + e.getMessage());
-        }
+            System.out.println("Total patients: " + metrics.getResidents() + 
+                             ", Today's tasks: " + metrics.getScheduledDoses() + 
+                             ", Pending medications: " + metrics.getPendingDoses());
+        }, error -> {
+            System.err.println("Error loading dashboard data: " + error.getMessage());
+            error.printStackTrace();
+            showError("Failed to load dashboard data: " + error.getMessage());
+        });
     }
     
-    private void loadRecentActivity() {
+    private void loadRecentActivity(DashboardSnapshot.Metrics metrics) {
         recentActivityList.getItems().clear();
         
         if (currentStaff != null) {
-            try {
-                // Load real activity based on nurse's recent actions
-                var recentTransfers = bedTransferService.getRecentTransfersByNurse(currentStaff.getStaffId(), 3);
-                var todaysAdministrations = medicationService.getTodaysAdministrations(currentStaff.getStaffId());
-                
+            // Load real activity based on nurse's recent actions
+            Staff nurse = currentStaff;
+            int givenToday = metrics.getGivenTodayBy(nurse.getStaffId());
+            loader.load("activity", () -> bedTransferService.getRecentTransfersByNurse(nurse.getStaffId(), 3), recentTransfers -> {
                 // Add recent transfer activities
                 recentTransfers.stream()
                     .limit(3)
@@ -164,27 +156,23 @@ public class NurseDashboardController extends BaseDashboardController {
                         recentActivityList.getItems().add(activity);
                     });
                 
-                // Add recent medication activities
-                todaysAdministrations.stream()
-                    .limit(2)
-                    .forEach(admin -> {
-                        String activity = "Administered medication - " + admin.getStatus();
-                        recentActivityList.getItems().add(activity);
-                    });
+                // Add today's medication activity
+                if (givenToday > 0) {
+                    recentActivityList.getItems().add("Administered " + givenToday + " medication dose(s) today");
+                }
                 
                 // Add login activity
-                recentActivityList.getItems().add("Nurse " + currentStaff.getFullName() + " logged in");
+                recentActivityList.getItems().add("Nurse " + nurse.getFullName() + " logged in");
                 recentActivityList.getItems().add("Dashboard loaded successfully");
-                
-            } catch (Exception e) {
-                System.err.println("Error loading recent activity: " + e.getMessage());
+            }, error -> {
+                System.err.println("Error loading recent activity: " + error.getMessage());
                 // Fallback to default activities
                 recentActivityList.getItems().addAll(
-                    "Nurse " + currentStaff.getFullName() + " logged in",
+                    "Nurse " + nurse.getFullName() + " logged in",
                     "Dashboard loaded",
                     "System ready"
                 );
-            }
+            });
         } else {
             recentActivityList.getItems().addAll(
                 "System started successfully",
@@ -205,7 +193,7 @@ public class NurseDashboardController extends BaseDashboardController {
             patientCareContent.getChildren().clear();
             
             // Load Patient Care component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/nurse-patient-care.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/nurse-patient-care.fxml"));
             VBox patientCareComponent = loader.load();
             
             // Set current nurse in the component
@@ -238,7 +226,7 @@ public class NurseDashboardController extends BaseDashboardController {
             medicationsContent.getChildren().clear();
             
             // Load Simplified Medication Administration component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/simplified-medication-administration.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/simplified-medication-administration.fxml"));
             VBox medicationComponent = loader.load();
             
             // Set current nurse in the component
@@ -271,7 +259,7 @@ public class NurseDashboardController extends BaseDashboardController {
             bedTransfersContent.getChildren().clear();
             
             // Load Bed Transfers component
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/components/bed-transfer.fxml"));
+            FXMLLoader loader = AppContext.newLoader(getClass().getResource("/fxml/components/bed-transfer.fxml"));
             VBox bedTransferComponent = loader.load();
             
             // Set current nurse in the component
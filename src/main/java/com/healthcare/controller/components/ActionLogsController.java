@@ -3,25 +3,32 @@ package com.healthcare.controller.components;
 import com.healthcare.model.ActionLog;
 import com.healthcare.model.Staff;
 import com.healthcare.services.ActionLogService;
+import com.healthcare.services.StaffService;
+import com.healthcare.util.PagedWindowList;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
  * Component Controller for Action Logs
- * Handles viewing and filtering of action logs with pagination
+ * Handles viewing and filtering of action logs. Filters run in the database and
+ * the table is backed by a windowed list that fetches pages as they scroll into view.
  */
 public class ActionLogsController implements Initializable {
-    
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 10;
+
     // FXML Elements
     @FXML private Label totalLogsLabel;
     @FXML private TableView<ActionLog> logsTable;
@@ -30,48 +37,48 @@ public class ActionLogsController implements Initializable {
     @FXML private TableColumn<ActionLog, ActionLog.ActionType> actionTypeColumn;
     @FXML private TableColumn<ActionLog, String> descriptionColumn;
     @FXML private TableColumn<ActionLog, String> detailsColumn;
-    @FXML private Button firstPageButton;
-    @FXML private Button prevPageButton;
-    @FXML private Label pageInfoLabel;
-    @FXML private Button nextPageButton;
-    @FXML private Button lastPageButton;
-    @FXML private ComboBox<Integer> itemsPerPageComboBox;
-    
+    @FXML private ComboBox<Staff> staffFilterComboBox;
+    @FXML private ComboBox<ActionLog.ActionType> actionTypeFilterComboBox;
+    @FXML private DatePicker fromDatePicker;
+    @FXML private DatePicker toDatePicker;
+
     // Data
-    private ObservableList<ActionLog> allLogs = FXCollections.observableArrayList();
-    
-    // Pagination
-    private int currentPage = 1;
-    private int itemsPerPage = 20;
-    private int totalPages = 1;
-    
+    private final Map<Long, String> staffNames = new HashMap<>();
+
     // Services
-    private ActionLogService actionLogService = new ActionLogService();
-    
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ViewLoader loader;
+
     // Current staff for context
     private Staff currentStaff;
-    
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(logsTable);
+        loader.showLoadingIn(logsTable);
         setupTable();
-        setupPagination();
+        setupFilters();
         loadData();
     }
-    
+
     /**
      * Set the current logged-in staff member for context
      */
     public void setCurrentStaff(Staff staff) {
         this.currentStaff = staff;
     }
-    
+
     private void setupTable() {
         System.out.println("Setting up action logs component...");
-        
+
         // Setup table columns
         actionTimeColumn.setCellValueFactory(cellData -> {
             ActionLog log = cellData.getValue();
-            if (log.getActionTime() != null) {
+            if (log != null && log.getActionTime() != null) {
                 return new javafx.beans.property.SimpleStringProperty(
                     log.getActionTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
                 );
@@ -80,129 +87,102 @@ public class ActionLogsController implements Initializable {
         });
         staffColumn.setCellValueFactory(cellData -> {
             ActionLog log = cellData.getValue();
-            // Get staff name from the joined data
-            return new javafx.beans.property.SimpleStringProperty(getStaffName(log));
+            return new javafx.beans.property.SimpleStringProperty(log != null ? getStaffName(log) : "");
         });
         actionTypeColumn.setCellValueFactory(new PropertyValueFactory<>("actionType"));
         descriptionColumn.setCellValueFactory(new PropertyValueFactory<>("actionDescription"));
         detailsColumn.setCellValueFactory(new PropertyValueFactory<>("details"));
-        
+
         // Set column widths for simplified layout (without ID column)
         actionTimeColumn.prefWidthProperty().bind(logsTable.widthProperty().multiply(0.20));
         staffColumn.prefWidthProperty().bind(logsTable.widthProperty().multiply(0.18));
         actionTypeColumn.prefWidthProperty().bind(logsTable.widthProperty().multiply(0.15));
         descriptionColumn.prefWidthProperty().bind(logsTable.widthProperty().multiply(0.30));
         detailsColumn.prefWidthProperty().bind(logsTable.widthProperty().multiply(0.17));
-        
+
         System.out.println("Action logs component setup complete");
     }
-    
+
     /**
-     * Get staff name from the joined data
+     * Get staff name for a log entry
      */
     private String getStaffName(ActionLog log) {
-        // For now, we'll show the staff ID since we don't have the joined staff data
-        // In a real implementation, you'd store the staff name in the ActionLog or join it
-        return log.getStaffId() != null ? "Staff ID: " + log.getStaffId() : "Unknown Staff";
+        if (log.getStaffId() == null) {
+            return "Unknown Staff";
+        }
+        return staffNames.getOrDefault(log.getStaffId(), "Staff ID: " + log.getStaffId());
     }
-    
+
     private void setupFilters() {
-        // Setup items per page combo box
-        itemsPerPageComboBox.setItems(FXCollections.observableArrayList(10, 20, 50, 100));
-        itemsPerPageComboBox.setValue(20);
-        itemsPerPageComboBox.setOnAction(e -> {
-            itemsPerPage = itemsPerPageComboBox.getValue();
-            currentPage = 1;
-            updatePagination();
+        staffFilterComboBox.setCellFactory(listView -> new StaffCell());
+        staffFilterComboBox.setButtonCell(new StaffCell());
+        actionTypeFilterComboBox.setItems(FXCollections.observableArrayList(ActionLog.ActionType.values()));
+
+        loader.load("staff", staffService::findAll, staffList -> {
+            for (Staff staff : staffList) {
+                staffNames.put(staff.getStaffId(), staff.getFullName());
+            }
+            staffFilterComboBox.setItems(FXCollections.observableArrayList(staffList));
+            logsTable.refresh();
         });
     }
-    
-    private void setupPagination() {
-        updatePagination();
-    }
-    
+
     private void loadData() {
-        try {
-            // Load all action logs
-            allLogs.clear();
-            List<ActionLog> logs = actionLogService.findAll();
-            allLogs.addAll(logs);
-            
-            // Update table and pagination
-            updatePagination();
-            
-            System.out.println("Loaded " + logs.size() + " action logs");
-            System.out.println("Action logs component loaded successfully");
-        } catch (Exception e) {
-            System.err.println("Error loading action logs: " + e.getMessage());
-            e.printStackTrace();
-            showError("Failed to load action logs: " + e.getMessage());
-        }
-    }
-    
-    
-    
-    private void updatePagination() {
-        totalPages = (int) Math.ceil((double) allLogs.size() / itemsPerPage);
-        if (totalPages == 0) totalPages = 1;
-        
-        if (currentPage > totalPages) {
-            currentPage = totalPages;
-        }
-        
-        // Update button states
-        firstPageButton.setDisable(currentPage == 1);
-        prevPageButton.setDisable(currentPage == 1);
-        nextPageButton.setDisable(currentPage == totalPages);
-        lastPageButton.setDisable(currentPage == totalPages);
-        
-        // Update page info
-        pageInfoLabel.setText("Page " + currentPage + " of " + totalPages);
-        totalLogsLabel.setText("Total: " + allLogs.size());
-        
-        updateTable();
-    }
-    
-    private void updateTable() {
-        int startIndex = (currentPage - 1) * itemsPerPage;
-        int endIndex = Math.min(startIndex + itemsPerPage, allLogs.size());
-        
-        ObservableList<ActionLog> pageData = FXCollections.observableArrayList();
-        for (int i = startIndex; i < endIndex; i++) {
-            pageData.add(allLogs.get(i));
-        }
-        
-        logsTable.setItems(pageData);
-    }
-    
-    @FXML
-    private void goToFirstPage() {
-        currentPage = 1;
-        updatePagination();
+        ActionLogService.LogFilter filter = buildFilter();
+        // Count and read the first page in the background; later pages are read as they scroll into view
+        loader.load("logs", () -> {
+            long total = actionLogService.countMatching(filter);
+
+            // Each page seeks past the last row of the page before it, and is read on the loader's threads
+            PagedWindowList<ActionLog> logs = new PagedWindowList<>(
+                (after, offset, limit) -> actionLogService.findPage(
+                    filter, after != null ? ActionLogService.PageKey.of(after) : null, offset, limit),
+                (page, fetch, loaded, failed) -> loader.load("logs page " + page, fetch, loaded, failed),
+                total, PAGE_SIZE, MAX_CACHED_PAGES);
+            logs.preload(0);
+            return logs;
+        }, logs -> {
+            logsTable.setItems(logs);
+            logsTable.scrollTo(0);
+            totalLogsLabel.setText("Total: " + logs.size());
+
+            System.out.println("Action logs component loaded successfully (" + logs.size() + " matching logs)");
+        }, error -> {
+            System.err.println("Error loading action logs: " + error.getMessage());
+            error.printStackTrace();
+            showError("Failed to load action logs: " + error.getMessage());
+        });
     }
-    
-    @FXML
-    private void goToPreviousPage() {
-        if (currentPage > 1) {
-            currentPage--;
-            updatePagination();
-        }
+
+    private ActionLogService.LogFilter buildFilter() {
+        ActionLogService.LogFilter filter = new ActionLogService.LogFilter();
+        Staff staff = staffFilterComboBox.getValue();
+        filter.setStaffId(staff != null ? staff.getStaffId() : null);
+        filter.setActionType(actionTypeFilterComboBox.getValue());
+        filter.setFromDate(fromDatePicker.getValue());
+        filter.setToDate(toDatePicker.getValue());
+        return filter;
     }
-    
+
     @FXML
-    private void goToNextPage() {
-        if (currentPage < totalPages) {
-            currentPage++;
-            updatePagination();
+    private void applyFilters() {
+        if (fromDatePicker.getValue() != null && toDatePicker.getValue() != null
+                && fromDatePicker.getValue().isAfter(toDatePicker.getValue())) {
+            showError("The start date must not be after the end date.");
+            return;
         }
+        loadData();
     }
-    
+
     @FXML
-    private void goToLastPage() {
-        currentPage = totalPages;
-        updatePagination();
+    private void clearFilters() {
+        staffFilterComboBox.setValue(null);
+        actionTypeFilterComboBox.setValue(null);
+        fromDatePicker.setValue(null);
+        toDatePicker.setValue(null);
+        loadData();
     }
-    
+
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -210,12 +190,16 @@ public class ActionLogsController implements Initializable {
         alert.setContentText(message);
         alert.showAndWait();
     }
-    
-    private void showSuccess(String message) {
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Success");
-        alert.setHeaderText(null);
-        alert.setContentText(message);
-        alert.showAndWait();
+
+    private static class StaffCell extends ListCell<Staff> {
+        @Override
+        protected void updateItem(Staff staff, boolean empty) {
+            super.updateItem(staff, empty);
+            if (empty || staff == null) {
+                setText(null);
+            } else {
+                setText(staff.getFullName() + " (" + staff.getRole() + ")");
+            }
+        }
     }
 }
@@ -5,9 +5,9 @@ import com.healthcare.model.Resident;
 import com.healthcare.model.Staff;
 import com.healthcare.model.BedTransfer;
 import com.healthcare.services.BedTransferService;
-import com.healthcare.services.BedTransferService.TransferStats;
 import com.healthcare.services.BedTransferService.TransferValidation;
 import com.healthcare.services.ResidentService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,6 +15,7 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.LocalDateTime;
@@ -72,9 +73,13 @@ public class BedTransferController implements Initializable {
     private Label validationLabel;
     
     // Services
-    private BedTransferService bedTransferService = new BedTransferService();
-    private ResidentService residentService = new ResidentService();
+    @Autowired
+    private BedTransferService bedTransferService;
+    @Autowired
+    private ResidentService residentService;
     private Staff currentNurse;
+    @Autowired
+    private ViewLoader loader;
     
     // Data
     private ObservableList<Resident> residentsData = FXCollections.observableArrayList();
@@ -84,6 +89,8 @@ public class BedTransferController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("BedTransferController: Initializing...");
+        loader.attachTo(mainContainer);
+        loader.showLoadingIn(transferHistoryTable);
         setupTableColumns();
         setupEventHandlers();
         loadData();
@@ -169,46 +176,43 @@ public class BedTransferController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            // Load statistics
-            TransferStats stats = bedTransferService.getTransferStats();
+        // Load statistics
+        loader.load("stats", bedTransferService::getTransferStats, stats -> {
             transfersTodayLabel.setText(String.valueOf(stats.getTransfersToday()));
             transfersThisWeekLabel.setText(String.valueOf(stats.getTransfersThisWeek()));
             pendingTransfersLabel.setText(String.valueOf(stats.getPendingTransfers()));
-            
-            // Load active residents
-            List<Resident> residents = residentService.findActiveResidents();
-            residentsData.clear();
-            residentsData.addAll(residents);
+        }, this::showLoadError);
+        
+        // Load active residents
+        loader.load("residents", residentService::findActiveResidents, residents -> {
+            residentsData.setAll(residents);
             residentComboBox.setItems(residentsData);
-            
-            // Load available beds
-            List<Bed> availableBeds = bedTransferService.getAvailableBeds();
-            availableBedsData.clear();
-            availableBedsData.addAll(availableBeds);
+            System.out.println("Loaded " + residents.size() + " residents");
+        }, this::showLoadError);
+        
+        // Load available beds
+        loader.load("beds", bedTransferService::getAvailableBeds, availableBeds -> {
+            availableBedsData.setAll(availableBeds);
             toBedComboBox.setItems(availableBedsData);
-            
-            // Load transfer history
-            loadTransferHistory();
-            
-            System.out.println("Loaded " + residents.size() + " residents, " + availableBeds.size() + " available beds");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading bed transfer data: " + e.getMessage());
-            showError("Failed to load bed transfer data: " + e.getMessage());
-        }
+            System.out.println("Loaded " + availableBeds.size() + " available beds");
+        }, this::showLoadError);
+        
+        // Load transfer history
+        loadTransferHistory();
+    }
+    
+    private void showLoadError(Throwable error) {
+        System.err.println("Error loading bed transfer data: " + error.getMessage());
+        showError("Failed to load bed transfer data: " + error.getMessage());
     }
     
     private void loadTransferHistory() {
-        try {
-            if (currentNurse != null) {
-                List<BedTransfer> transfers = bedTransferService.getRecentTransfersByNurse(currentNurse.getStaffId(), 20);
-                transferHistoryData.clear();
-                transferHistoryData.addAll(transfers);
+        if (currentNurse != null) {
+            Long nurseId = currentNurse.getStaffId();
+            loader.load("history", () -> bedTransferService.getRecentTransfersByNurse(nurseId, 20), transfers -> {
+                transferHistoryData.setAll(transfers);
                 transferHistoryTable.setItems(transferHistoryData);
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading transfer history: " + e.getMessage());
+            });
         }
     }
     
@@ -217,20 +221,17 @@ public class BedTransferController implements Initializable {
         System.out.println("updateAvailableBeds called with resident: " + (selectedResident != null ? selectedResident.getFirstName() + " " + selectedResident.getLastName() : "null"));
         
         if (selectedResident != null) {
-            try {
-                // Update "To Bed" options with suitable beds
-                List<Bed> suitableBeds = bedTransferService.getSuitableBedsForResident(selectedResident.getResidentId());
-                availableBedsData.clear();
-                availableBedsData.addAll(suitableBeds);
+            // Update "To Bed" options with suitable beds; a newer selection supersedes this one
+            loader.load("beds", () -> bedTransferService.getSuitableBedsForResident(selectedResident.getResidentId()), suitableBeds -> {
+                availableBedsData.setAll(suitableBeds);
                 toBedComboBox.setItems(availableBedsData);
-                
-                // Update "From Bed" field based on current bed assignment
-                updateFromBedField(selectedResident);
-                
-            } catch (Exception e) {
-                System.err.println("Error updating available beds: " + e.getMessage());
-                e.printStackTrace();
-            }
+            }, error -> {
+                System.err.println("Error updating available beds: " + error.getMessage());
+                error.printStackTrace();
+            });
+            
+            // Update "From Bed" field based on current bed assignment
+            updateFromBedField(selectedResident);
         }
     }
     
@@ -239,28 +240,26 @@ public class BedTransferController implements Initializable {
         System.out.println("Resident current bed ID: " + resident.getCurrentBedId());
         
         if (resident.getCurrentBedId() != null) {
-            try {
-                // Resident has a current bed - fetch bed details and display
-                Bed currentBed = bedTransferService.getBedById(resident.getCurrentBedId());
+            // Resident has a current bed - fetch bed details and display
+            Long bedId = resident.getCurrentBedId();
+            fromBedTextField.setDisable(true); // Make it read-only
+            loader.load("fromBed", () -> bedTransferService.getBedById(bedId), currentBed -> {
                 System.out.println("Fetched current bed: " + (currentBed != null ? currentBed.getBedNumber() : "null"));
                 
                 if (currentBed != null) {
                     System.out.println("Bed details - Number: " + currentBed.getBedNumber() + ", Code: " + currentBed.getBedCode());
                     String bedInfo = getBedDisplayText(currentBed);
                     fromBedTextField.setText(bedInfo);
-                    fromBedTextField.setDisable(true); // Make it read-only
                     System.out.println("Set current bed display: " + bedInfo);
                 } else {
                     // Bed not found - show error state
-                    fromBedTextField.setText("Bed not found (ID: " + resident.getCurrentBedId() + ")");
-                    fromBedTextField.setDisable(true);
-                    System.out.println("Bed not found for ID: " + resident.getCurrentBedId());
+                    fromBedTextField.setText("Bed not found (ID: " + bedId + ")");
+                    System.out.println("Bed not found for ID: " + bedId);
                 }
-            } catch (Exception e) {
-                System.err.println("Error fetching current bed: " + e.getMessage());
+            }, error -> {
+                System.err.println("Error fetching current bed: " + error.getMessage());
                 fromBedTextField.setText("Error loading current bed");
-                fromBedTextField.setDisable(true);
-            }
+            });
         } else {
             // No current bed assigned - show new admission state
             fromBedTextField.setText("No bed assigned - New admission");
@@ -316,12 +315,10 @@ public class BedTransferController implements Initializable {
             return;
         }
         
-        try {
-            TransferValidation validation = bedTransferService.validateTransfer(
+        loader.load("validate", () -> bedTransferService.validateTransfer(
                 selectedResident.getResidentId(), 
                 selectedToBed.getBedId()
-            );
-            
+            ), validation -> {
             if (validation.isValid()) {
                 showValidationMessage("Transfer is valid and can proceed.", true);
                 transferButton.setDisable(false);
@@ -329,11 +326,10 @@ public class BedTransferController implements Initializable {
                 showValidationMessage("Transfer validation failed: " + validation.getErrorMessage(), false);
                 transferButton.setDisable(true);
             }
-            
-        } catch (Exception e) {
-            showValidationMessage("Error validating transfer: " + e.getMessage(), false);
+        }, error -> {
+            showValidationMessage("Error validating transfer: " + error.getMessage(), false);
             transferButton.setDisable(true);
-        }
+        });
     }
     
     private void performTransfer() {
@@ -350,14 +346,14 @@ public class BedTransferController implements Initializable {
             reason = "Bed transfer by nurse";
         }
         
-        try {
-            boolean success = bedTransferService.transferResident(
+        String transferReason = reason;
+        Long nurseId = currentNurse.getStaffId();
+        loader.load("transfer", () -> bedTransferService.transferResident(
                 selectedResident.getResidentId(),
                 selectedToBed.getBedId(),
-                currentNurse.getStaffId(),
-                reason
-            );
-            
+                nurseId,
+                transferReason
+            ), success -> {
             if (success) {
                 showAlert("Resident transferred successfully!");
                 clearForm();
@@ -365,11 +361,10 @@ public class BedTransferController implements Initializable {
             } else {
                 showAlert("Failed to transfer resident. Please try again.");
             }
-            
-        } catch (Exception e) {
-            System.err.println("Error performing transfer: " + e.getMessage());
-            showAlert("Error performing transfer: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error performing transfer: " + error.getMessage());
+            showAlert("Error performing transfer: " + error.getMessage());
+        });
     }
     
     private void clearForm() {
@@ -3,8 +3,10 @@ package com.healthcare.controller.components;
 import com.healthcare.model.Prescription;
 import com.healthcare.model.Resident;
 import com.healthcare.model.Staff;
+import com.healthcare.services.DoctorReportService;
 import com.healthcare.services.PrescriptionService;
 import com.healthcare.services.ResidentService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,6 +14,7 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -19,6 +22,7 @@ import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
@@ -38,11 +42,18 @@ public class DoctorReportsController implements Initializable {
     private Staff currentDoctor;
     
     // Services
-    private PrescriptionService prescriptionService = new PrescriptionService();
-    private ResidentService residentService = new ResidentService();
+    @Autowired
+    private PrescriptionService prescriptionService;
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private DoctorReportService reports;
+    @Autowired
+    private ViewLoader loader;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(recentActivityList);
         setupReports();
         loadData();
     }
@@ -69,60 +80,36 @@ public class DoctorReportsController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            if (currentDoctor == null) {
-                System.out.println("No current doctor set, cannot load report data");
-                return;
-            }
-            
-            // Load patient count
-            List<Resident> residents = residentService.findAll();
-            long patientCount = residents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                       resident.getAssignedDoctorId().equals(currentDoctor.getStaffId()))
-                .count();
-            totalPatientsLabel.setText(String.valueOf(patientCount));
-            
-            // Load prescription count
-            List<Prescription> prescriptions = prescriptionService.findAll();
-            long prescriptionCount = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()))
-                .count();
-            totalPrescriptionsLabel.setText(String.valueOf(prescriptionCount));
-            
-            // Load this month's count
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
-            long thisMonthCount = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()) &&
-                       prescription.getPrescriptionDate().isAfter(startOfMonth.minusDays(1)))
-                .count();
-            thisMonthLabel.setText(String.valueOf(thisMonthCount));
+        if (currentDoctor == null) {
+            System.out.println("No current doctor set, cannot load report data");
+            return;
+        }
+        
+        Long doctorId = currentDoctor.getStaffId();
+        loader.load("summary", () -> reports.get(doctorId), report -> {
+            totalPatientsLabel.setText(String.valueOf(report.getPatients()));
+            totalPrescriptionsLabel.setText(String.valueOf(report.getPrescriptions()));
+            thisMonthLabel.setText(String.valueOf(report.getPrescriptionsThisMonth()));
             
             System.out.println("Doctor reports component loaded successfully");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading report data: " + e.getMessage());
+        }, error -> {
+            System.err.println("Error loading report data: " + error.getMessage());
             showError("Failed to load report data");
-        }
+        });
     }
     
     // Action methods
     @FXML
     private void generatePatientReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            List<Resident> residents = residentService.findAll();
-            List<Resident> myPatients = residents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                       resident.getAssignedDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(java.util.stream.Collectors.toList());
-            
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Staff doctor = currentDoctor;
+        loader.load("report", () -> residentService.findListRowsByDoctorId(doctor.getStaffId()), myPatients -> {
             StringBuilder report = new StringBuilder();
-            report.append("PATIENT REPORT FOR DR. ").append(currentDoctor.getFullName()).append("\n");
+            report.append("PATIENT REPORT FOR DR. ").append(doctor.getFullName()).append("\n");
             report.append("Generated on: ").append(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append("\n");
             report.append("=".repeat(50)).append("\n\n");
             
@@ -143,230 +130,184 @@ public class DoctorReportsController implements Initializable {
             }
             
             showReport("Patient Report", report.toString());
-            
-        } catch (Exception e) {
-            System.err.println("Error generating patient report: " + e.getMessage());
-            showError("Failed to generate patient report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error generating patient report: " + error.getMessage());
+            showError("Failed to generate patient report: " + error.getMessage());
+        });
     }
     
     @FXML
     private void generatePrescriptionReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            List<Prescription> prescriptions = prescriptionService.findAll();
-            List<Prescription> myPrescriptions = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(java.util.stream.Collectors.toList());
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Staff doctor = currentDoctor;
+        Long doctorId = doctor.getStaffId();
+        loader.load("report", () -> {
+            DoctorReportService.Report figures = reports.get(doctorId);
+            List<Prescription> recent = figures.getPrescriptions() > 0
+                    ? prescriptionService.findRecentByDoctorId(doctorId, 10) : List.of();
+            return Map.entry(figures, recent);
+        }, loaded -> {
+            DoctorReportService.Report figures = loaded.getKey();
             
             StringBuilder report = new StringBuilder();
-            report.append("PRESCRIPTION REPORT FOR DR. ").append(currentDoctor.getFullName()).append("\n");
+            report.append("PRESCRIPTION REPORT FOR DR. ").append(doctor.getFullName()).append("\n");
             report.append("Generated on: ").append(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append("\n");
             report.append("=".repeat(50)).append("\n\n");
             
-            if (myPrescriptions.isEmpty()) {
+            if (figures.getPrescriptions() == 0) {
                 report.append("No prescriptions found for this doctor.\n");
             } else {
-                report.append("Total Prescriptions: ").append(myPrescriptions.size()).append("\n\n");
+                report.append("Total Prescriptions: ").append(figures.getPrescriptions()).append("\n\n");
                 
-                long activeCount = myPrescriptions.stream()
-                    .filter(p -> p.getStatus() == Prescription.PrescriptionStatus.Active)
-                    .count();
-                long completedCount = myPrescriptions.stream()
-                    .filter(p -> p.getStatus() == Prescription.PrescriptionStatus.Completed)
-                    .count();
-                long pendingCount = myPrescriptions.stream()
-                    .filter(p -> p.getReviewStatus() == Prescription.ReviewStatus.Pending)
-                    .count();
+                report.append("Active Prescriptions: ").append(figures.getPrescriptions(Prescription.PrescriptionStatus.Active)).append("\n");
+                report.append("Completed Prescriptions: ").append(figures.getPrescriptions(Prescription.PrescriptionStatus.Completed)).append("\n");
+                report.append("Pending Reviews: ").append(figures.getPrescriptions(Prescription.ReviewStatus.Pending)).append("\n\n");
                 
-                report.append("Active Prescriptions: ").append(activeCount).append("\n");
-                report.append("Completed Prescriptions: ").append(completedCount).append("\n");
-                report.append("Pending Reviews: ").append(pendingCount).append("\n\n");
+                report.append("Prescriptions by Month:\n");
+                report.append("-".repeat(40)).append("\n");
+                figures.getPrescriptionsByMonth().forEach((month, count) ->
+                    report.append(month.format(DateTimeFormatter.ofPattern("MMM yyyy"))).append(": ").append(count).append("\n"));
+                report.append("\n");
+                
+                if (!figures.getTopMedicines().isEmpty()) {
+                    report.append("Most Prescribed Medicines:\n");
+                    report.append("-".repeat(40)).append("\n");
+                    for (DoctorReportService.MedicineCount medicine : figures.getTopMedicines()) {
+                        report.append(medicine.getName()).append(": ").append(medicine.getPrescriptions())
+                              .append(" prescriptions, ").append(medicine.getPatients()).append(" patients\n");
+                    }
+                    report.append("\n");
+                }
                 
                 report.append("Recent Prescriptions:\n");
                 report.append("-".repeat(40)).append("\n");
                 
-                myPrescriptions.stream()
-                    .sorted((p1, p2) -> p2.getPrescriptionDate().compareTo(p1.getPrescriptionDate()))
-                    .limit(10)
-                    .forEach(prescription -> {
-                        report.append("Date: ").append(prescription.getPrescriptionDate()).append("\n");
-                        report.append("Status: ").append(prescription.getStatus()).append("\n");
-                        report.append("Review Status: ").append(prescription.getReviewStatus()).append("\n");
-                        report.append("Notes: ").append(prescription.getNotes() != null ? prescription.getNotes() : "None").append("\n");
-                        report.append("-".repeat(40)).append("\n");
-                    });
+                for (Prescription prescription : loaded.getValue()) {
+                    report.append("Date: ").append(prescription.getPrescriptionDate()).append("\n");
+                    report.append("Status: ").append(prescription.getStatus()).append("\n");
+                    report.append("Review Status: ").append(prescription.getReviewStatus()).append("\n");
+                    report.append("Notes: ").append(prescription.getNotes() != null ? prescription.getNotes() : "None").append("\n");
+                    report.append("-".repeat(40)).append("\n");
+                }
             }
             
             showReport("Prescription Report", report.toString());
-            
-        } catch (Exception e) {
-            System.err.println("Error generating prescription report: " + e.getMessage());
-            showError("Failed to generate prescription report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error generating prescription report: " + error.getMessage());
+            showError("Failed to generate prescription report: " + error.getMessage());
+        });
     }
     
     @FXML
     private void generateMonthlyReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
-            LocalDate endOfMonth = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
-            
-            List<Prescription> prescriptions = prescriptionService.findAll();
-            List<Prescription> monthlyPrescriptions = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()) &&
-                       prescription.getPrescriptionDate().isAfter(startOfMonth.minusDays(1)) &&
-                       prescription.getPrescriptionDate().isBefore(endOfMonth.plusDays(1)))
-                .collect(java.util.stream.Collectors.toList());
-            
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Staff doctor = currentDoctor;
+        loader.load("report", () -> reports.get(doctor.getStaffId()), figures -> {
             StringBuilder report = new StringBuilder();
-            report.append("MONTHLY REPORT FOR DR. ").append(currentDoctor.getFullName()).append("\n");
-            report.append("Month: ").append(LocalDate.now().format(DateTimeFormatter.ofPattern("MMMM yyyy"))).append("\n");
+            report.append("MONTHLY REPORT FOR DR. ").append(doctor.getFullName()).append("\n");
+            report.append("Month: ").append(figures.getMonth().format(DateTimeFormatter.ofPattern("MMMM yyyy"))).append("\n");
             report.append("Generated on: ").append(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append("\n");
             report.append("=".repeat(50)).append("\n\n");
             
             report.append("Monthly Statistics:\n");
             report.append("-".repeat(20)).append("\n");
-            report.append("Total Prescriptions: ").append(monthlyPrescriptions.size()).append("\n");
-            
-            long activeCount = monthlyPrescriptions.stream()
-                .filter(p -> p.getStatus() == Prescription.PrescriptionStatus.Active)
-                .count();
-            long completedCount = monthlyPrescriptions.stream()
-                .filter(p -> p.getStatus() == Prescription.PrescriptionStatus.Completed)
-                .count();
-            
-            report.append("Active: ").append(activeCount).append("\n");
-            report.append("Completed: ").append(completedCount).append("\n");
+            report.append("Total Prescriptions: ").append(figures.getPrescriptionsThisMonth()).append("\n");
+            report.append("Active: ").append(figures.getPrescriptionsThisMonth(Prescription.PrescriptionStatus.Active)).append("\n");
+            report.append("Completed: ").append(figures.getPrescriptionsThisMonth(Prescription.PrescriptionStatus.Completed)).append("\n");
             
-            if (!monthlyPrescriptions.isEmpty()) {
+            if (!figures.getPrescriptionsThisMonthByDay().isEmpty()) {
                 report.append("\nDaily Breakdown:\n");
                 report.append("-".repeat(20)).append("\n");
                 
-                monthlyPrescriptions.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                        Prescription::getPrescriptionDate,
-                        java.util.stream.Collectors.counting()
-                    ))
-                    .entrySet()
-                    .stream()
-                    .sorted(java.util.Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        report.append(entry.getKey()).append(": ").append(entry.getValue()).append(" prescriptions\n");
-                    });
+                figures.getPrescriptionsThisMonthByDay().forEach((day, count) ->
+                    report.append(day).append(": ").append(count).append(" prescriptions\n"));
             }
             
             showReport("Monthly Report", report.toString());
-            
-        } catch (Exception e) {
-            System.err.println("Error generating monthly report: " + e.getMessage());
-            showError("Failed to generate monthly report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error generating monthly report: " + error.getMessage());
+            showError("Failed to generate monthly report: " + error.getMessage());
+        });
     }
     
     @FXML
     private void refreshReports() {
+        reports.invalidate();
         loadData();
         showSuccess("Reports refreshed successfully");
     }
     
     @FXML
     private void exportPatientReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            List<Resident> residents = residentService.findAll();
-            List<Resident> myPatients = residents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                       resident.getAssignedDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(java.util.stream.Collectors.toList());
-            
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Staff doctor = currentDoctor;
+        loader.load("export", () -> generatePatientCSV(residentService.findListRowsByDoctorId(doctor.getStaffId()), doctor), csvContent -> {
             String timestamp = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             String filename = "doctor_patient_report_" + timestamp + ".csv";
             
-            String csvContent = generatePatientCSV(myPatients);
-            boolean exported = exportToCSV(filename, csvContent);
-            
-            if (exported) {
+            if (exportToCSV(filename, csvContent)) {
                 showSuccess("Patient report exported successfully!");
             }
-        } catch (Exception e) {
-            System.err.println("Error exporting patient report: " + e.getMessage());
-            showError("Failed to export patient report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error exporting patient report: " + error.getMessage());
+            showError("Failed to export patient report: " + error.getMessage());
+        });
     }
     
     @FXML
     private void exportPrescriptionReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            List<Prescription> prescriptions = prescriptionService.findAll();
-            List<Prescription> myPrescriptions = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(java.util.stream.Collectors.toList());
-            
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Long doctorId = currentDoctor.getStaffId();
+        loader.load("export", () -> generatePrescriptionCSV(prescriptionService.findListRowsByDoctorId(doctorId)), csvContent -> {
             String timestamp = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             String filename = "doctor_prescription_report_" + timestamp + ".csv";
             
-            String csvContent = generatePrescriptionCSV(myPrescriptions);
-            boolean exported = exportToCSV(filename, csvContent);
-            
-            if (exported) {
+            if (exportToCSV(filename, csvContent)) {
                 showSuccess("Prescription report exported successfully!");
             }
-        } catch (Exception e) {
-            System.err.println("Error exporting prescription report: " + e.getMessage());
-            showError("Failed to export prescription report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error exporting prescription report: " + error.getMessage());
+            showError("Failed to export prescription report: " + error.getMessage());
+        });
     }
     
     @FXML
     private void exportMonthlyReport() {
-        try {
-            if (currentDoctor == null) {
-                showError("No doctor selected");
-                return;
-            }
-            
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
-            LocalDate endOfMonth = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
-            
-            List<Prescription> prescriptions = prescriptionService.findAll();
-            List<Prescription> monthlyPrescriptions = prescriptions.stream()
-                .filter(prescription -> prescription.getDoctorId().equals(currentDoctor.getStaffId()) &&
-                       prescription.getPrescriptionDate().isAfter(startOfMonth.minusDays(1)) &&
-                       prescription.getPrescriptionDate().isBefore(endOfMonth.plusDays(1)))
-                .collect(java.util.stream.Collectors.toList());
-            
+        if (currentDoctor == null) {
+            showError("No doctor selected");
+            return;
+        }
+        
+        Long doctorId = currentDoctor.getStaffId();
+        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
+        loader.load("export", () -> generatePrescriptionCSV(
+                prescriptionService.findListRowsByDoctorId(doctorId, startOfMonth, startOfMonth.plusMonths(1))), csvContent -> {
             String timestamp = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             String filename = "doctor_monthly_report_" + timestamp + ".csv";
             
-            String csvContent = generateMonthlyCSV(monthlyPrescriptions);
-            boolean exported = exportToCSV(filename, csvContent);
-            
-            if (exported) {
+            if (exportToCSV(filename, csvContent)) {
                 showSuccess("Monthly report exported successfully!");
             }
-        } catch (Exception e) {
-            System.err.println("Error exporting monthly report: " + e.getMessage());
-            showError("Failed to export monthly report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error exporting monthly report: " + error.getMessage());
+            showError("Failed to export monthly report: " + error.getMessage());
+        });
     }
     
     private void showReport(String title, String content) {
@@ -433,7 +374,7 @@ public class DoctorReportsController implements Initializable {
         return false; // User cancelled
     }
     
-    private String generatePatientCSV(List<Resident> patients) {
+    private String generatePatientCSV(List<Resident> patients, Staff doctor) {
         StringBuilder csv = new StringBuilder();
         csv.append("Patient ID,Name,Gender,Age,Admission Date,Medical Condition,Assigned Doctor\n");
         
@@ -444,41 +385,20 @@ public class DoctorReportsController implements Initializable {
             csv.append(patient.getAge()).append(",");
             csv.append(patient.getAdmissionDate()).append(",");
             csv.append(escapeCSV(patient.getMedicalCondition() != null ? patient.getMedicalCondition() : "N/A")).append(",");
-            csv.append(escapeCSV(currentDoctor.getFullName())).append("\n");
+            csv.append(escapeCSV(doctor.getFullName())).append("\n");
         }
         
         return csv.toString();
     }
     
+    // Used by both the prescription and the monthly export; rows carry the patient's name
     private String generatePrescriptionCSV(List<Prescription> prescriptions) {
         StringBuilder csv = new StringBuilder();
         csv.append("Prescription ID,Patient Name,Date,Status,Review Status,Notes\n");
         
         for (Prescription prescription : prescriptions) {
-            // Get patient name from database
-            String patientName = prescriptionService.getPatientNameByResidentId(prescription.getResidentId());
-            
-            csv.append(prescription.getPrescriptionId()).append(",");
-            csv.append(escapeCSV(patientName)).append(",");
-            csv.append(prescription.getPrescriptionDate()).append(",");
-            csv.append(prescription.getStatus()).append(",");
-            csv.append(prescription.getReviewStatus()).append(",");
-            csv.append(escapeCSV(prescription.getNotes() != null ? prescription.getNotes() : "")).append("\n");
-        }
-        
-        return csv.toString();
-    }
-    
-    private String generateMonthlyCSV(List<Prescription> prescriptions) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("Prescription ID,Patient Name,Date,Status,Review Status,Notes\n");
-        
-        for (Prescription prescription : prescriptions) {
-            // Get patient name from database
-            String patientName = prescriptionService.getPatientNameByResidentId(prescription.getResidentId());
-            
             csv.append(prescription.getPrescriptionId()).append(",");
-            csv.append(escapeCSV(patientName)).append(",");
+            csv.append(escapeCSV(prescription.getPatientName())).append(",");
             csv.append(prescription.getPrescriptionDate()).append(",");
             csv.append(prescription.getStatus()).append(",");
             csv.append(prescription.getReviewStatus()).append(",");
@@ -3,6 +3,7 @@ package com.healthcare.controller.components;
 import com.healthcare.model.Medicine;
 import com.healthcare.model.Staff;
 import com.healthcare.services.MedicineService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,6 +11,7 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.util.List;
@@ -55,10 +57,15 @@ public class MedicineManagementController implements Initializable {
     private Staff currentDoctor;
     
     // Services
-    private MedicineService medicineService = new MedicineService();
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private ViewLoader loader;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(medicinesTable);
+        loader.showLoadingIn(medicinesTable);
         setupTable();
         setupForm();
         setupFilters();
@@ -142,30 +149,21 @@ public class MedicineManagementController implements Initializable {
     private void setupFilters() {
         // Setup category filter
         categoryFilterComboBox.getItems().add("All Categories");
-        try {
-            List<String> categories = medicineService.getAllCategories();
-            categoryFilterComboBox.getItems().addAll(categories);
-        } catch (Exception e) {
-            System.err.println("Error loading categories: " + e.getMessage());
-        }
+        loader.load("categories", medicineService::getAllCategories,
+            categories -> categoryFilterComboBox.getItems().addAll(categories));
         categoryFilterComboBox.setValue("All Categories");
         categoryFilterComboBox.setOnAction(e -> filterMedicines());
         
         // Setup classification filter
         classificationFilterComboBox.getItems().add("All Classifications");
-        try {
-            List<String> classifications = medicineService.getAllClassifications();
-            classificationFilterComboBox.getItems().addAll(classifications);
-        } catch (Exception e) {
-            System.err.println("Error loading classifications: " + e.getMessage());
-        }
+        loader.load("classifications", medicineService::getAllClassifications,
+            classifications -> classificationFilterComboBox.getItems().addAll(classifications));
         classificationFilterComboBox.setValue("All Classifications");
         classificationFilterComboBox.setOnAction(e -> filterMedicines());
     }
     
     private void loadData() {
-        try {
-            List<Medicine> medicines = medicineService.findAll();
+        loader.load("medicines", medicineService::findAll, medicines -> {
             medicinesList.setAll(medicines);
             
             // Update statistics
@@ -187,11 +185,10 @@ public class MedicineManagementController implements Initializable {
             filterMedicines();
             
             System.out.println("Medicine management component loaded successfully");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading medicine data: " + e.getMessage());
+        }, error -> {
+            System.err.println("Error loading medicine data: " + error.getMessage());
             showError("Failed to load medicine data");
-        }
+        });
     }
     
     private void filterMedicines() {
@@ -276,26 +273,23 @@ public class MedicineManagementController implements Initializable {
             return;
         }
         
-        try {
-            Medicine medicine = new Medicine();
-            medicine.setName(name);
-            medicine.setCategory(category);
-            medicine.setClassification(classification);
-            medicine.setDosageUnit(dosageUnit);
-            medicine.setDescription(description.isEmpty() ? null : description);
-            medicine.setActive(true);
-            
-            medicineService.save(medicine);
-            
+        Medicine medicine = new Medicine();
+        medicine.setName(name);
+        medicine.setCategory(category);
+        medicine.setClassification(classification);
+        medicine.setDosageUnit(dosageUnit);
+        medicine.setDescription(description.isEmpty() ? null : description);
+        medicine.setActive(true);
+        
+        loader.load("save", () -> medicineService.save(medicine), saved -> {
             showSuccess("Medicine saved successfully");
             medicineFormContainer.setVisible(false);
             medicineFormContainer.setManaged(false);
             loadData();
-            
-        } catch (Exception e) {
-            System.err.println("Error saving medicine: " + e.getMessage());
-            showError("Failed to save medicine: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error saving medicine: " + error.getMessage());
+            showError("Failed to save medicine: " + error.getMessage());
+        });
     }
     
     @FXML
@@ -3,6 +3,7 @@ package com.healthcare.controller.components;
 import com.healthcare.model.Resident;
 import com.healthcare.model.Staff;
 import com.healthcare.services.ResidentService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,12 +11,12 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
 
 /**
  * Controller for My Patients component in Doctor Dashboard
@@ -54,13 +55,18 @@ public class MyPatientsController implements Initializable {
     private int totalPages = 1;
     
     // Services
-    private ResidentService residentService = new ResidentService();
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private ViewLoader loader;
     
     // Current doctor for filtering
     private Staff currentDoctor;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(patientsTable);
+        loader.showLoadingIn(patientsTable);
         setupTable();
         setupFilters();
         setupPagination();
@@ -111,9 +117,8 @@ public class MyPatientsController implements Initializable {
         
         bedColumn.setCellValueFactory(cellData -> {
             Resident resident = cellData.getValue();
-            // Get bed code from database using service
-            String bedCode = residentService.getBedCodeForResident(resident);
-            return new javafx.beans.property.SimpleStringProperty(bedCode);
+            String bedCode = resident.getBedCode();
+            return new javafx.beans.property.SimpleStringProperty(bedCode != null ? bedCode : "N/A");
         });
         
         statusColumn.setCellValueFactory(cellData -> {
@@ -188,33 +193,26 @@ public class MyPatientsController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            if (currentDoctor == null) {
-                System.out.println("No current doctor set, cannot load patients");
-                return;
-            }
-            
-            System.out.println("Loading patients for doctor: " + currentDoctor.getFullName() + " (ID: " + currentDoctor.getStaffId() + ")");
-            
-            // Load all patients assigned to this doctor
-            List<Resident> allResidents = residentService.findAll();
-            List<Resident> myPatients = allResidents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                        resident.getAssignedDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(Collectors.toList());
-            
-            allPatients.clear();
-            allPatients.addAll(myPatients);
+        if (currentDoctor == null) {
+            System.out.println("No current doctor set, cannot load patients");
+            return;
+        }
+        
+        System.out.println("Loading patients for doctor: " + currentDoctor.getFullName() + " (ID: " + currentDoctor.getStaffId() + ")");
+        
+        // Load all patients assigned to this doctor
+        Long doctorId = currentDoctor.getStaffId();
+        loader.load("patients", () -> residentService.findListRowsByDoctorId(doctorId), myPatients -> {
+            allPatients.setAll(myPatients);
             
             System.out.println("Found " + myPatients.size() + " patients for doctor " + currentDoctor.getFullName());
             
             // Apply current filters
             applyFilters();
-            
-        } catch (Exception e) {
-            System.err.println("Error loading patients data: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            System.err.println("Error loading patients data: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
     
     @FXML
@@ -326,8 +324,7 @@ public class MyPatientsController implements Initializable {
         details.append("Gender: ").append(patient.getGender()).append("\n");
         details.append("Admission Date: ").append(patient.getAdmissionDate()).append("\n");
         details.append("Medical Condition: ").append(patient.getMedicalCondition() != null ? patient.getMedicalCondition() : "N/A").append("\n");
-        String bedCode = residentService.getBedCodeForResident(patient);
-        details.append("Bed: ").append(bedCode).append("\n");
+        details.append("Bed: ").append(patient.getBedCode() != null ? patient.getBedCode() : "N/A").append("\n");
         details.append("Status: ").append(patient.isDischarged() ? "Discharged" : "Active").append("\n");
         details.append("Emergency Contact: ").append(patient.getEmergencyContact() != null ? patient.getEmergencyContact() : "N/A");
         
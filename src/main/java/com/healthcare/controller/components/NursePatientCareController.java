@@ -6,6 +6,10 @@ import com.healthcare.services.ResidentService;
 import com.healthcare.services.PrescriptionService;
 import com.healthcare.services.MedicationAdministrationService;
 import com.healthcare.services.MedicationAdministrationService.MedicationSchedule;
+import com.healthcare.services.OverdueDoseTracker;
+import com.healthcare.services.WardTopology;
+import com.healthcare.util.ViewLoader;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -13,12 +17,14 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Controller for Nurse Patient Care component
@@ -79,18 +85,30 @@ public class NursePatientCareController implements Initializable {
     private ComboBox<String> statusFilterComboBox;
     
     // Services
-    private ResidentService residentService = new ResidentService();
-    private PrescriptionService prescriptionService = new PrescriptionService();
-    private MedicationAdministrationService medicationService = new MedicationAdministrationService();
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private PrescriptionService prescriptionService;
+    @Autowired
+    private MedicationAdministrationService medicationService;
+    @Autowired
+    private OverdueDoseTracker overdueTracker;
+    @Autowired
+    private WardTopology wardTopology;
     private Staff currentNurse;
+    @Autowired
+    private ViewLoader loader;
     
     // Data
+    private List<Resident> activeResidents = List.of();
     private ObservableList<Resident> patientsData = FXCollections.observableArrayList();
     private ObservableList<MedicationSchedule> medicationsData = FXCollections.observableArrayList();
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("NursePatientCareController: Initializing...");
+        loader.attachTo(patientsTable);
+        loader.showLoadingIn(patientsTable);
         setupTableColumns();
         setupEventHandlers();
         setupFilters();
@@ -107,14 +125,14 @@ public class NursePatientCareController implements Initializable {
         
         bedColumn.setCellValueFactory(cellData -> {
             Resident resident = cellData.getValue();
-            String bedCode = residentService.getBedCodeForResident(resident);
-            return new javafx.beans.property.SimpleStringProperty(bedCode);
+            String bedCode = resident.getBedCode();
+            return new javafx.beans.property.SimpleStringProperty(bedCode != null ? bedCode : "N/A");
         });
         
         doctorColumn.setCellValueFactory(cellData -> {
             Resident resident = cellData.getValue();
-            // This would need to be implemented to get doctor name
-            return new javafx.beans.property.SimpleStringProperty("Dr. Smith");
+            String doctorName = resident.getAssignedDoctorName();
+            return new javafx.beans.property.SimpleStringProperty(doctorName != null ? "Dr. " + doctorName : "Unassigned");
         });
         
         conditionColumn.setCellValueFactory(cellData -> {
@@ -136,8 +154,16 @@ public class NursePatientCareController implements Initializable {
         medDosageColumn.setCellValueFactory(new PropertyValueFactory<>("dosage"));
         medFrequencyColumn.setCellValueFactory(new PropertyValueFactory<>("frequency"));
         medStatusColumn.setCellValueFactory(cellData -> {
-            // This would need to check if medication was administered today
-            return new javafx.beans.property.SimpleStringProperty("Pending");
+            MedicationSchedule medication = cellData.getValue();
+            String status;
+            if (overdueTracker.isOverdue(medication.getPrescriptionMedicineId())) {
+                status = "Overdue";
+            } else if (medication.getGivenCount() > 0) {
+                status = "Given";
+            } else {
+                status = "Pending";
+            }
+            return new javafx.beans.property.SimpleStringProperty(status);
         });
     }
     
@@ -152,6 +178,11 @@ public class NursePatientCareController implements Initializable {
         wardFilterComboBox.setOnAction(e -> filterPatients());
         statusFilterComboBox.setOnAction(e -> filterPatients());
         
+        // Doses that pass their deadline show as overdue without a refresh, for as long as the view is shown
+        Consumer<OverdueDoseTracker.OverdueDose> overdueListener = dose -> Platform.runLater(medicationsTable::refresh);
+        overdueTracker.addListener(overdueListener);
+        loader.onDetach(() -> overdueTracker.removeListener(overdueListener));
+        
         // Enable/disable buttons based on selection
         patientsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             boolean hasSelection = newVal != null;
@@ -161,7 +192,8 @@ public class NursePatientCareController implements Initializable {
     }
     
     private void setupFilters() {
-        wardFilterComboBox.getItems().addAll("All Wards", "Ward 1", "Ward 2");
+        wardFilterComboBox.getItems().add("All Wards");
+        wardFilterComboBox.getItems().addAll(wardTopology.getWardNames());
         wardFilterComboBox.setValue("All Wards");
         
         statusFilterComboBox.getItems().addAll("All Patients", "Active", "Discharged");
@@ -169,50 +201,32 @@ public class NursePatientCareController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            // Load all active residents
-            List<Resident> residents = residentService.findActiveResidents();
-            patientsData.clear();
-            patientsData.addAll(residents);
+        // Load all active residents
+        loader.load("patients", residentService::findActiveListRows, residents -> {
+            activeResidents = residents;
+            filterPatients();
             patientsTable.setItems(patientsData);
             
-            // Load today's medications
-            List<MedicationSchedule> medications = medicationService.getTodaysMedicationSchedule();
-            medicationsData.clear();
-            medicationsData.addAll(medications);
-            medicationsTable.setItems(medicationsData);
-            
-            // Update statistics
-            updateStatistics();
-            
-            System.out.println("Loaded " + residents.size() + " patients, " + medications.size() + " medications");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading patient care data: " + e.getMessage());
-            showError("Failed to load patient care data: " + e.getMessage());
-        }
-    }
-    
-    private void updateStatistics() {
-        try {
-            // Total patients
-            List<Resident> allResidents = residentService.findActiveResidents();
-            totalPatientsLabel.setText(String.valueOf(allResidents.size()));
-            
             // My patients (simplified - all patients for now)
-            myPatientsLabel.setText(String.valueOf(allResidents.size()));
-            
-            // Today's medications
-            List<MedicationSchedule> todaysMedications = medicationService.getTodaysMedicationSchedule();
-            todaysMedicationsLabel.setText(String.valueOf(todaysMedications.size()));
-            
-            // Pending tasks (simplified)
-            List<MedicationSchedule> pendingMedications = medicationService.getPendingMedications();
-            pendingTasksLabel.setText(String.valueOf(pendingMedications.size()));
-            
-        } catch (Exception e) {
-            System.err.println("Error updating statistics: " + e.getMessage());
-        }
+            totalPatientsLabel.setText(String.valueOf(residents.size()));
+            myPatientsLabel.setText(String.valueOf(residents.size()));
+            System.out.println("Loaded " + residents.size() + " patients");
+        }, error -> {
+            System.err.println("Error loading patient care data: " + error.getMessage());
+            showError("Failed to load patient care data: " + error.getMessage());
+        });
+        
+        // Load today's medications
+        loader.load("medications", medicationService::getTodaysMedicationSchedule, medications -> {
+            medicationsData.setAll(medications);
+            medicationsTable.setItems(medicationsData);
+            todaysMedicationsLabel.setText(String.valueOf(medications.size()));
+            System.out.println("Loaded " + medications.size() + " medications");
+        }, error -> System.err.println("Error loading today's medications: " + error.getMessage()));
+        
+        // Pending tasks (simplified)
+        loader.load("pending", medicationService::getPendingMedications,
+                pending -> pendingTasksLabel.setText(String.valueOf(pending.size())));
     }
     
     private void filterPatients() {
@@ -223,9 +237,7 @@ public class NursePatientCareController implements Initializable {
         patientsData.clear();
         
         try {
-            List<Resident> allResidents = residentService.findActiveResidents();
-            
-            for (Resident resident : allResidents) {
+            for (Resident resident : activeResidents) {
                 // Search filter
                 if (!searchText.isEmpty()) {
                     String fullName = resident.getFullName().toLowerCase();
@@ -234,10 +246,11 @@ public class NursePatientCareController implements Initializable {
                     }
                 }
                 
-                // Ward filter (simplified)
+                // Ward filter, by the ward of the resident's bed
                 if (!wardFilter.equals("All Wards")) {
-                    // This would need to be implemented based on bed location
-                    // For now, skip ward filtering
+                    if (!wardFilter.equals(resident.getWardName())) {
+                        continue;
+                    }
                 }
                 
                 // Status filter
@@ -274,7 +287,7 @@ public class NursePatientCareController implements Initializable {
         details.append("Birth Date: ").append(selectedPatient.getBirthDate() != null ? 
             selectedPatient.getBirthDate().format(DateTimeFormatter.ofPattern("MMM dd, yyyy")) : "N/A").append("\n");
         details.append("Admission Date: ").append(selectedPatient.getAdmissionDate().format(DateTimeFormatter.ofPattern("MMM dd, yyyy"))).append("\n");
-        details.append("Current Bed: ").append(residentService.getBedCodeForResident(selectedPatient)).append("\n");
+        details.append("Current Bed: ").append(selectedPatient.getBedCode() != null ? selectedPatient.getBedCode() : "N/A").append("\n");
         details.append("Medical Condition: ").append(selectedPatient.getMedicalCondition() != null ? selectedPatient.getMedicalCondition() : "N/A").append("\n");
         details.append("Requires Isolation: ").append(selectedPatient.isRequiresIsolation() ? "Yes" : "No").append("\n");
         details.append("Emergency Contact: ").append(selectedPatient.getEmergencyContact() != null ? selectedPatient.getEmergencyContact() : "N/A");
@@ -291,10 +304,8 @@ public class NursePatientCareController implements Initializable {
         }
         
         // Filter medications for selected patient
-        medicationsData.clear();
-        
-        try {
-            List<MedicationSchedule> allMedications = medicationService.getTodaysMedicationSchedule();
+        loader.load("medications", medicationService::getTodaysMedicationSchedule, allMedications -> {
+            medicationsData.clear();
             for (MedicationSchedule medication : allMedications) {
                 if (medication.getResidentId().equals(selectedPatient.getResidentId())) {
                     medicationsData.add(medication);
@@ -304,11 +315,10 @@ public class NursePatientCareController implements Initializable {
             if (medicationsData.isEmpty()) {
                 showAlert("No medications scheduled for this patient today.");
             }
-            
-        } catch (Exception e) {
-            System.err.println("Error loading patient medications: " + e.getMessage());
-            showError("Failed to load patient medications: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error loading patient medications: " + error.getMessage());
+            showError("Failed to load patient medications: " + error.getMessage());
+        });
     }
     
     private void showAlert(String message) {
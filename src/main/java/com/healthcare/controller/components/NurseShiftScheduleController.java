@@ -3,6 +3,7 @@ package com.healthcare.controller.components;
 import com.healthcare.model.Staff;
 import com.healthcare.services.ShiftManagementService;
 import com.healthcare.model.ShiftSchedule;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,6 +11,7 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.LocalDate;
@@ -65,15 +67,21 @@ public class NurseShiftScheduleController implements Initializable {
     private ComboBox<String> statusFilterComboBox;
     
     // Services
-    private ShiftManagementService shiftService = new ShiftManagementService();
+    @Autowired
+    private ShiftManagementService shiftService;
     private Staff currentNurse;
+    @Autowired
+    private ViewLoader loader;
     
     // Data
+    private List<ShiftSchedule> nurseShifts = List.of();
     private ObservableList<ShiftSchedule> shiftsData = FXCollections.observableArrayList();
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("NurseShiftScheduleController: Initializing...");
+        loader.attachTo(shiftsTable);
+        loader.showLoadingIn(shiftsTable);
         setupTableColumns();
         setupEventHandlers();
         setupFilters();
@@ -124,66 +132,58 @@ public class NurseShiftScheduleController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            if (currentNurse != null) {
-                // Load shifts for current nurse
-                List<ShiftSchedule> shifts = shiftService.findByStaffId(currentNurse.getStaffId());
-                shiftsData.clear();
-                shiftsData.addAll(shifts);
-                shiftsTable.setItems(shiftsData);
-                
-                // Update statistics
-                updateStatistics();
-                
-                System.out.println("Loaded " + shifts.size() + " shifts for nurse " + currentNurse.getFullName());
-            } else {
-                System.out.println("No current nurse set, cannot load shifts");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error loading shift schedule data: " + e.getMessage());
-            showError("Failed to load shift schedule data: " + e.getMessage());
+        if (currentNurse == null) {
+            System.out.println("No current nurse set, cannot load shifts");
+            return;
         }
+        
+        // Load shifts for current nurse
+        Staff nurse = currentNurse;
+        loader.load("shifts", () -> shiftService.findByStaffId(nurse.getStaffId()), shifts -> {
+            nurseShifts = shifts;
+            filterShifts();
+            shiftsTable.setItems(shiftsData);
+            
+            // Update statistics
+            updateStatistics();
+            
+            System.out.println("Loaded " + shifts.size() + " shifts for nurse " + nurse.getFullName());
+        }, error -> {
+            System.err.println("Error loading shift schedule data: " + error.getMessage());
+            showError("Failed to load shift schedule data: " + error.getMessage());
+        });
     }
     
     private void updateStatistics() {
-        try {
-            if (currentNurse != null) {
-                List<ShiftSchedule> allShifts = shiftService.findByStaffId(currentNurse.getStaffId());
-                
-                // Total shifts
-                totalShiftsLabel.setText(String.valueOf(allShifts.size()));
-                
-                // This week shifts
-                LocalDate today = LocalDate.now();
-                LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
-                LocalDate weekEnd = weekStart.plusDays(6);
-                
-                long thisWeekCount = allShifts.stream()
-                    .filter(shift -> !shift.getShiftDate().isBefore(weekStart) && !shift.getShiftDate().isAfter(weekEnd))
-                    .count();
-                thisWeekShiftsLabel.setText(String.valueOf(thisWeekCount));
-                
-                // Next week shifts
-                LocalDate nextWeekStart = weekStart.plusDays(7);
-                LocalDate nextWeekEnd = nextWeekStart.plusDays(6);
-                
-                long nextWeekCount = allShifts.stream()
-                    .filter(shift -> !shift.getShiftDate().isBefore(nextWeekStart) && !shift.getShiftDate().isAfter(nextWeekEnd))
-                    .count();
-                nextWeekShiftsLabel.setText(String.valueOf(nextWeekCount));
-                
-                // Completed shifts
-                long completedCount = allShifts.stream()
-                    .filter(shift -> "Completed".equals(shift.getStatus().name()))
-                    .count();
-                completedShiftsLabel.setText(String.valueOf(completedCount));
-                
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error updating shift statistics: " + e.getMessage());
-        }
+        List<ShiftSchedule> allShifts = nurseShifts;
+        
+        // Total shifts
+        totalShiftsLabel.setText(String.valueOf(allShifts.size()));
+        
+        // This week shifts
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        LocalDate weekEnd = weekStart.plusDays(6);
+        
+        long thisWeekCount = allShifts.stream()
+            .filter(shift -> !shift.getShiftDate().isBefore(weekStart) && !shift.getShiftDate().isAfter(weekEnd))
+            .count();
+        thisWeekShiftsLabel.setText(String.valueOf(thisWeekCount));
+        
+        // Next week shifts
+        LocalDate nextWeekStart = weekStart.plusDays(7);
+        LocalDate nextWeekEnd = nextWeekStart.plusDays(6);
+        
+        long nextWeekCount = allShifts.stream()
+            .filter(shift -> !shift.getShiftDate().isBefore(nextWeekStart) && !shift.getShiftDate().isAfter(nextWeekEnd))
+            .count();
+        nextWeekShiftsLabel.setText(String.valueOf(nextWeekCount));
+        
+        // Completed shifts
+        long completedCount = allShifts.stream()
+            .filter(shift -> "Completed".equals(shift.getStatus().name()))
+            .count();
+        completedShiftsLabel.setText(String.valueOf(completedCount));
     }
     
     private void viewThisWeek() {
@@ -210,7 +210,7 @@ public class NurseShiftScheduleController implements Initializable {
         
         try {
             if (currentNurse != null) {
-                List<ShiftSchedule> allShifts = shiftService.findByStaffId(currentNurse.getStaffId());
+                List<ShiftSchedule> allShifts = nurseShifts;
                 
                 for (ShiftSchedule shift : allShifts) {
                     // Week filter
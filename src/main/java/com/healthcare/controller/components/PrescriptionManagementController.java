@@ -7,6 +7,7 @@ import com.healthcare.model.Staff;
 import com.healthcare.services.PrescriptionService;
 import com.healthcare.services.ResidentService;
 import com.healthcare.services.MedicineService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,12 +16,12 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
 
 /**
  * Component Controller for Prescription Management
@@ -67,12 +68,19 @@ public class PrescriptionManagementController implements Initializable {
     private Staff currentDoctor;
     
     // Services
-    private PrescriptionService prescriptionService = new PrescriptionService();
-    private ResidentService residentService = new ResidentService();
-    private MedicineService medicineService = new MedicineService();
+    @Autowired
+    private PrescriptionService prescriptionService;
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private ViewLoader loader;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(prescriptionsTable);
+        loader.showLoadingIn(prescriptionsTable);
         setupTable();
         setupForm();
         loadData();
@@ -97,14 +105,8 @@ public class PrescriptionManagementController implements Initializable {
         // Setup table columns
         patientNameColumn.setCellValueFactory(cellData -> {
             Prescription prescription = cellData.getValue();
-            // Get patient name from database using prescription service
-            try {
-                String patientName = prescriptionService.getPatientNameByResidentId(prescription.getResidentId());
-                return new javafx.beans.property.SimpleStringProperty(patientName);
-            } catch (Exception e) {
-                System.err.println("Error getting patient name: " + e.getMessage());
-                return new javafx.beans.property.SimpleStringProperty("Unknown Patient");
-            }
+            // Patient name is joined in by the list query
+            return new javafx.beans.property.SimpleStringProperty(prescription.getPatientName());
         });
         
         prescriptionDateColumn.setCellValueFactory(new PropertyValueFactory<>("prescriptionDate"));
@@ -205,36 +207,33 @@ public class PrescriptionManagementController implements Initializable {
         });
         
         // Setup medicine combo box
-        try {
-            List<Medicine> medicines = medicineService.findAll();
-            medicineComboBox.setItems(FXCollections.observableArrayList(medicines));
-            medicineComboBox.setCellFactory(listView -> new ListCell<Medicine>() {
-                @Override
-                protected void updateItem(Medicine medicine, boolean empty) {
-                    super.updateItem(medicine, empty);
-                    if (empty || medicine == null) {
-                        setText(null);
-                    } else {
-                        setText(medicine.getName() + " (" + medicine.getDosageUnit() + ")");
-                    }
+        loader.load("medicines", medicineService::findAll,
+                medicines -> medicineComboBox.setItems(FXCollections.observableArrayList(medicines)),
+                error -> System.err.println("Error loading medicines: " + error.getMessage()));
+        medicineComboBox.setCellFactory(listView -> new ListCell<Medicine>() {
+            @Override
+            protected void updateItem(Medicine medicine, boolean empty) {
+                super.updateItem(medicine, empty);
+                if (empty || medicine == null) {
+                    setText(null);
+                } else {
+                    setText(medicine.getName() + " (" + medicine.getDosageUnit() + ")");
                 }
-            });
-            
-            // Set the button cell to show the selected medicine name
-            medicineComboBox.setButtonCell(new ListCell<Medicine>() {
-                @Override
-                protected void updateItem(Medicine medicine, boolean empty) {
-                    super.updateItem(medicine, empty);
-                    if (empty || medicine == null) {
-                        setText(null);
-                    } else {
-                        setText(medicine.getName() + " (" + medicine.getDosageUnit() + ")");
-                    }
+            }
+        });
+        
+        // Set the button cell to show the selected medicine name
+        medicineComboBox.setButtonCell(new ListCell<Medicine>() {
+            @Override
+            protected void updateItem(Medicine medicine, boolean empty) {
+                super.updateItem(medicine, empty);
+                if (empty || medicine == null) {
+                    setText(null);
+                } else {
+                    setText(medicine.getName() + " (" + medicine.getDosageUnit() + ")");
                 }
-            });
-        } catch (Exception e) {
-            System.err.println("Error loading medicines: " + e.getMessage());
-        }
+            }
+        });
         
         // Setup patient combo box - will be populated when doctor is set
         patientComboBox.setCellFactory(listView -> new ListCell<Resident>() {
@@ -264,24 +263,19 @@ public class PrescriptionManagementController implements Initializable {
     }
     
     private void loadDoctorPatients() {
-        try {
-            if (currentDoctor == null) {
-                System.out.println("No current doctor set, cannot load patients");
-                patientComboBox.setItems(FXCollections.observableArrayList());
-                return;
-            }
-            
-            // Load only patients assigned to this doctor
-            List<Resident> allResidents = residentService.findAll();
-            List<Resident> doctorPatients = allResidents.stream()
-                .filter(resident -> resident.getAssignedDoctorId() != null && 
-                        resident.getAssignedDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(Collectors.toList());
-            
+        if (currentDoctor == null) {
+            System.out.println("No current doctor set, cannot load patients");
+            patientComboBox.setItems(FXCollections.observableArrayList());
+            return;
+        }
+        
+        // Load only patients assigned to this doctor
+        Staff doctor = currentDoctor;
+        loader.load("patients", () -> residentService.findListRowsByDoctorId(doctor.getStaffId()), doctorPatients -> {
             patientComboBox.setItems(FXCollections.observableArrayList(doctorPatients));
             
             if (doctorPatients.isEmpty()) {
-                System.out.println("No patients assigned to Dr. " + currentDoctor.getFullName());
+                System.out.println("No patients assigned to Dr. " + doctor.getFullName());
                 // Add a placeholder item to show in the dropdown
                 Resident placeholder = new Resident();
                 placeholder.setFirstName("No patients assigned");
@@ -289,25 +283,20 @@ public class PrescriptionManagementController implements Initializable {
                 placeholder.setResidentId(-1L); // Use -1 as a special ID for placeholder
                 patientComboBox.getItems().add(placeholder);
             } else {
-                System.out.println("Loaded " + doctorPatients.size() + " patients for Dr. " + currentDoctor.getFullName());
+                System.out.println("Loaded " + doctorPatients.size() + " patients for Dr. " + doctor.getFullName());
             }
-            
-        } catch (Exception e) {
-            System.err.println("Error loading doctor's patients: " + e.getMessage());
+        }, error -> {
+            System.err.println("Error loading doctor's patients: " + error.getMessage());
             patientComboBox.setItems(FXCollections.observableArrayList());
-        }
+        });
     }
     
     private void loadData() {
-        try {
-            List<Prescription> allPrescriptions = prescriptionService.findAll();
-            
-            // Filter prescriptions to show only those created by the current doctor
-            List<Prescription> doctorPrescriptions = allPrescriptions.stream()
-                .filter(prescription -> currentDoctor != null && 
-                        prescription.getDoctorId().equals(currentDoctor.getStaffId()))
-                .collect(Collectors.toList());
-            
+        // Show only prescriptions created by the current doctor
+        Staff doctor = currentDoctor;
+        loader.load("prescriptions", () -> doctor != null
+                ? prescriptionService.findListRowsByDoctorId(doctor.getStaffId())
+                : List.<Prescription>of(), doctorPrescriptions -> {
             prescriptionsList.setAll(doctorPrescriptions);
             prescriptionsTable.setItems(prescriptionsList);
             
@@ -328,11 +317,10 @@ public class PrescriptionManagementController implements Initializable {
             completedTodayLabel.setText(String.valueOf(completedToday));
             
             System.out.println("Prescription management component loaded successfully");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading prescription data: " + e.getMessage());
+        }, error -> {
+            System.err.println("Error loading prescription data: " + error.getMessage());
             showError("Failed to load prescription data");
-        }
+        });
     }
     
     private void filterPrescriptions() {
@@ -459,19 +447,21 @@ public class PrescriptionManagementController implements Initializable {
             return;
         }
         
-        try {
-            Prescription prescription = new Prescription(
-                selectedPatient.getResidentId(),
-                currentDoctor.getStaffId(),
-                prescriptionDate,
-                notes
-            );
-            
+        Prescription prescription = new Prescription(
+            selectedPatient.getResidentId(),
+            currentDoctor.getStaffId(),
+            prescriptionDate,
+            notes
+        );
+        List<String> medicineEntries = new java.util.ArrayList<>(medicinesList);
+        
+        loader.load("save", () -> {
             // Save prescription first to get the prescription_id
             prescriptionService.save(prescription);
             
             // Now save each medicine to Prescription_Medicines table
-            for (String medicineEntry : medicinesList) {
+            List<Medicine> allMedicines = medicineService.findAll();
+            for (String medicineEntry : medicineEntries) {
                 // Parse the medicine entry: "Medicine Name | Dosage | Frequency"
                 String[] parts = medicineEntry.split(" \\| ");
                 if (parts.length == 3) {
@@ -480,7 +470,6 @@ public class PrescriptionManagementController implements Initializable {
                     String frequency = parts[2].trim();
                     
                     // Find the medicine by name
-                    List<Medicine> allMedicines = medicineService.findAll();
                     Medicine medicine = allMedicines.stream()
                         .filter(m -> m.getName().equals(medicineName))
                         .findFirst()
@@ -500,16 +489,16 @@ public class PrescriptionManagementController implements Initializable {
                     }
                 }
             }
-            
-            showSuccess("Prescription saved successfully with " + medicinesList.size() + " medicines");
+            return medicineEntries.size();
+        }, saved -> {
+            showSuccess("Prescription saved successfully with " + saved + " medicines");
             prescriptionFormContainer.setVisible(false);
             prescriptionFormContainer.setManaged(false);
             loadData();
-            
-        } catch (Exception e) {
-            System.err.println("Error saving prescription: " + e.getMessage());
-            showError("Failed to save prescription: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error saving prescription: " + error.getMessage());
+            showError("Failed to save prescription: " + error.getMessage());
+        });
     }
     
     @FXML
@@ -547,8 +536,7 @@ public class PrescriptionManagementController implements Initializable {
         alert.setTitle("Prescription Details");
         alert.setHeaderText("Prescription #" + prescription.getPrescriptionId());
         
-        // Get patient name from database
-        String patientName = prescriptionService.getPatientNameByResidentId(prescription.getResidentId());
+        String patientName = prescription.getPatientName();
         
         StringBuilder content = new StringBuilder();
         content.append("Patient: ").append(patientName).append("\n");
@@ -567,8 +555,7 @@ public class PrescriptionManagementController implements Initializable {
     }
     
     private void deletePrescription(Prescription prescription) {
-        // Get patient name from database
-        String patientName = prescriptionService.getPatientNameByResidentId(prescription.getResidentId());
+        String patientName = prescription.getPatientName();
         
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Delete Prescription");
@@ -576,13 +563,13 @@ public class PrescriptionManagementController implements Initializable {
         confirmAlert.setContentText("Prescription #" + prescription.getPrescriptionId() + " for " + patientName);
         
         if (confirmAlert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            try {
+            loader.load("delete", () -> {
                 prescriptionService.delete(prescription.getPrescriptionId());
+                return prescription;
+            }, deleted -> {
                 showSuccess("Prescription deleted successfully");
                 loadData();
-            } catch (Exception e) {
-                showError("Failed to delete prescription: " + e.getMessage());
-            }
+            }, error -> showError("Failed to delete prescription: " + error.getMessage()));
         }
     }
     
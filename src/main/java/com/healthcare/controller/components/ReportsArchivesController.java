@@ -2,6 +2,7 @@ package com.healthcare.controller.components;
 
 import com.healthcare.model.*;
 import com.healthcare.services.*;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,6 +11,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -17,9 +19,11 @@ import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
 
 /**
  * Controller for Reports and Archives page
@@ -32,6 +36,7 @@ public class ReportsArchivesController implements Initializable {
     @FXML private Button exportResidentButton;
     @FXML private Button exportAuditButton;
     @FXML private Button exportShiftButton;
+    @FXML private Button exportActivityButton;
     @FXML private Label archiveCountLabel;
     @FXML private TableView<Resident> archivesTable;
     @FXML private TableColumn<Resident, String> archivedNameColumn;
@@ -46,16 +51,26 @@ public class ReportsArchivesController implements Initializable {
     private ObservableList<Resident> archivedResidents = FXCollections.observableArrayList();
     
     // Services
-    private StaffService staffService = new StaffService();
-    private ResidentService residentService = new ResidentService();
-    private ActionLogService actionLogService = new ActionLogService();
-    private ShiftService shiftService = new ShiftService();
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private ShiftService shiftService;
+    @Autowired
+    private DailyRollupService rollups;
+    @Autowired
+    private ViewLoader loader;
     
     // Current staff for context
     private Staff currentStaff;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(archivesTable);
+        loader.showLoadingIn(archivesTable);
         setupTable();
         loadArchivedResidents();
     }
@@ -109,80 +124,67 @@ public class ReportsArchivesController implements Initializable {
     }
     
     private void loadArchivedResidents() {
-        try {
-            // Load archived residents (discharged residents)
-            archivedResidents.clear();
-            List<Resident> archived = residentService.findArchivedResidents();
-            archivedResidents.addAll(archived);
+        // Load archived residents (discharged residents)
+        loader.load("archives", residentService::findArchivedResidents, archived -> {
+            archivedResidents.setAll(archived);
             
             archiveCountLabel.setText("Total: " + archived.size());
             
             System.out.println("Loaded " + archived.size() + " archived residents");
-        } catch (Exception e) {
-            System.err.println("Error loading archived residents: " + e.getMessage());
-            e.printStackTrace();
-            showError("Failed to load archived residents: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error loading archived residents: " + error.getMessage());
+            error.printStackTrace();
+            showError("Failed to load archived residents: " + error.getMessage());
+        });
     }
     
     @FXML
     private void exportStaffReport() {
-        try {
-            List<Staff> staffList = staffService.findAll();
-            String fileName = "staff_report_" + getTimestamp() + ".csv";
-            boolean exported = exportToCSV(fileName, generateStaffCSV(staffList));
-            if (exported) {
-                showSuccess("Staff report exported successfully!");
-            }
-        } catch (Exception e) {
-            System.err.println("Error exporting staff report: " + e.getMessage());
-            showError("Failed to export staff report: " + e.getMessage());
-        }
+        exportReport("staff", "Staff report", "staff_report_", () -> generateStaffCSV(staffService.findAll()));
     }
     
     @FXML
     private void exportResidentReport() {
-        try {
-            List<Resident> residentList = residentService.findAll();
-            String fileName = "resident_report_" + getTimestamp() + ".csv";
-            boolean exported = exportToCSV(fileName, generateResidentCSV(residentList));
-            if (exported) {
-                showSuccess("Resident report exported successfully!");
-            }
-        } catch (Exception e) {
-            System.err.println("Error exporting resident report: " + e.getMessage());
-            showError("Failed to export resident report: " + e.getMessage());
-        }
+        exportReport("residents", "Resident report", "resident_report_", () -> generateResidentCSV(residentService.findAll()));
     }
     
     @FXML
     private void exportAuditReport() {
-        try {
-            List<ActionLog> auditList = actionLogService.findAll();
-            String fileName = "audit_report_" + getTimestamp() + ".csv";
-            boolean exported = exportToCSV(fileName, generateAuditCSV(auditList));
-            if (exported) {
-                showSuccess("Audit report exported successfully!");
-            }
-        } catch (Exception e) {
-            System.err.println("Error exporting audit report: " + e.getMessage());
-            showError("Failed to export audit report: " + e.getMessage());
-        }
+        exportReport("audit", "Audit report", "audit_report_", () -> generateAuditCSV(actionLogService.findAll()));
     }
     
     @FXML
     private void exportShiftReport() {
-        try {
-            List<ShiftSchedule> scheduleList = shiftService.findAll();
-            String fileName = "shift_schedule_report_" + getTimestamp() + ".csv";
-            boolean exported = exportToCSV(fileName, generateShiftScheduleCSV(scheduleList));
-            if (exported) {
-                showSuccess("Shift schedule report exported successfully!");
+        exportReport("shifts", "Shift schedule report", "shift_schedule_report_", () -> generateShiftScheduleCSV(shiftService.findAll()));
+    }
+    
+    @FXML
+    private void exportActivityReport() {
+        // Twelve months of ward and nurse activity, summed from the daily rollups
+        LocalDate from = YearMonth.now().minusMonths(11).atDay(1);
+        LocalDate until = LocalDate.now().plusDays(1);
+        exportReport("activity", "Activity report", "activity_report_", () -> generateActivityCSV(
+                rollups.findWardMonths(from, until), rollups.findAdministrationMonths(from, until)));
+    }
+    
+    /**
+     * Build a report's CSV in the background, then ask where to save it
+     */
+    private void exportReport(String slot, String title, String filePrefix, Callable<String> csv) {
+        String name = title.toLowerCase();
+        loader.load(slot, csv, content -> {
+            try {
+                if (exportToCSV(filePrefix + getTimestamp() + ".csv", content)) {
+                    showSuccess(title + " exported successfully!");
+                }
+            } catch (Exception e) {
+                System.err.println("Error exporting " + name + ": " + e.getMessage());
+                showError("Failed to export " + name + ": " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.err.println("Error exporting shift schedule report: " + e.getMessage());
-            showError("Failed to export shift schedule report: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error exporting " + name + ": " + error.getMessage());
+            showError("Failed to export " + name + ": " + error.getMessage());
+        });
     }
     
     private boolean exportToCSV(String fileName, String csvContent) {
@@ -280,6 +282,33 @@ public class ReportsArchivesController implements Initializable {
         return csv.toString();
     }
     
+    private String generateActivityCSV(List<DailyRollupService.WardMonth> wardMonths,
+                                       List<DailyRollupService.AdministrationMonth> administrationMonths) {
+        StringBuilder csv = new StringBuilder();
+        csv.append("Month,Ward,Admissions,Discharges,Transfers In,Transfers Out,Occupied Bed-Days\n");
+        
+        for (DailyRollupService.WardMonth month : wardMonths) {
+            csv.append(month.getMonth()).append(",");
+            csv.append(escapeCSV(month.getWardName())).append(",");
+            csv.append(month.getAdmissions()).append(",");
+            csv.append(month.getDischarges()).append(",");
+            csv.append(month.getTransfersIn()).append(",");
+            csv.append(month.getTransfersOut()).append(",");
+            csv.append(month.getOccupiedBedDays()).append("\n");
+        }
+        
+        csv.append("\nMonth,Nurse,Doses Given,Doses Missed,Doses Refused\n");
+        for (DailyRollupService.AdministrationMonth month : administrationMonths) {
+            csv.append(month.getMonth()).append(",");
+            csv.append(escapeCSV(month.getNurseName())).append(",");
+            csv.append(month.getGiven()).append(",");
+            csv.append(month.getMissed()).append(",");
+            csv.append(month.getRefused()).append("\n");
+        }
+        
+        return csv.toString();
+    }
+    
     private String escapeCSV(String value) {
         if (value == null) return "";
         if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
@@ -1,13 +1,16 @@
 package com.healthcare.controller.components;
 
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Bed;
 import com.healthcare.model.Resident;
 import com.healthcare.model.ActionLog;
 import com.healthcare.model.Staff;
 import com.healthcare.services.BedManagementService;
+import com.healthcare.services.BedReservationService;
 import com.healthcare.services.ResidentService;
 import com.healthcare.services.StaffService;
 import com.healthcare.services.ActionLogService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -17,11 +20,12 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.ResourceBundle;
 
 /**
@@ -71,16 +75,26 @@ public class ResidentManagementController implements Initializable {
     private Resident editingResident = null;
     
     // Services
-    private ResidentService residentService = new ResidentService();
-    private BedManagementService bedService = new BedManagementService();
-    private StaffService staffService = new StaffService();
-    private ActionLogService actionLogService = new ActionLogService();
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private BedManagementService bedService;
+    @Autowired
+    private BedReservationService reservationService;
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private ViewLoader loader;
     
     // Current staff for action logging
     private Staff currentStaff;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(residentsTable);
+        loader.showLoadingIn(residentsTable);
         setupTable();
         setupForm();
         setupSearch();
@@ -120,16 +134,9 @@ public class ResidentManagementController implements Initializable {
         bedColumn.setCellValueFactory(cellData -> {
             Resident resident = cellData.getValue();
             if (resident.getCurrentBedId() != null) {
-                try {
-                    // Get bed information to display bed code
-                    Optional<Bed> bed = bedService.findById(resident.getCurrentBedId());
-                    if (bed.isPresent()) {
-                        return new javafx.beans.property.SimpleStringProperty(bed.get().getBedCode());
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error getting bed info: " + e.getMessage());
-                }
-                return new javafx.beans.property.SimpleStringProperty("Bed " + resident.getCurrentBedId());
+                String bedCode = resident.getBedCode();
+                return new javafx.beans.property.SimpleStringProperty(
+                    bedCode != null ? bedCode : "Bed " + resident.getCurrentBedId());
             }
             return new javafx.beans.property.SimpleStringProperty("No Bed");
         });
@@ -334,55 +341,72 @@ public class ResidentManagementController implements Initializable {
                     newResident.setCurrentBedId(selectedBed.getBedId());
                 }
                 
-                Resident savedResident = residentService.save(newResident);
-                if (savedResident != null && selectedBed != null) {
-                    bedService.assignResidentToBed(selectedBed.getBedId(), savedResident.getResidentId());
-                }
-                
-                // Log the action
                 ActionLog actionLog = new ActionLog(
                     currentStaff != null ? currentStaff.getStaffId() : null,
                     ActionLog.ActionType.Admit,
                     "Admitted resident: " + newResident.getFullName(),
                     "Bed: " + (selectedBed != null ? selectedBed.getBedCode() : "Not assigned")
                 );
-                actionLogService.save(actionLog);
                 
-                showSuccess("Resident admitted successfully!");
+                // Save and assign the bed in one transaction; the log entry is queued once it commits
+                loader.load("save", () -> {
+                    UnitOfWork.run(() -> {
+                        Resident savedResident = residentService.save(newResident);
+                        if (savedResident == null) {
+                            throw new SQLException("Resident record could not be saved");
+                        }
+                        if (selectedBed != null && reservationService.claim(selectedBed, savedResident, selectedBed.getBedId())
+                                != BedReservationService.Outcome.CLAIMED) {
+                            throw new SQLException("Bed " + selectedBed.getBedCode() + " is no longer available");
+                        }
+                        actionLogService.append(actionLog);
+                    });
+                    return newResident;
+                }, saved -> residentSaved("Resident admitted successfully!"),
+                        error -> showError("Failed to save resident: " + error.getMessage()));
             } else {
-                // Update existing resident
-                editingResident.setFirstName(firstName);
-                editingResident.setLastName(lastName);
-                editingResident.setGender(gender);
-                editingResident.setBirthDate(birthDate);
-                editingResident.setAdmissionDate(admissionDate);
-                
-                if (selectedBed != null) {
-                    editingResident.setCurrentBedId(selectedBed.getBedId());
-                }
-                
-                residentService.update(editingResident);
-                
-                // Log the action
-                ActionLog actionLog = new ActionLog(
-                    currentStaff != null ? currentStaff.getStaffId() : null,
-                    ActionLog.ActionType.Update,
-                    "Updated resident: " + editingResident.getFullName(),
-                    "Resident details modified"
-                );
-                actionLogService.save(actionLog);
-                
-                showSuccess("Resident updated successfully!");
+                Long staffId = currentStaff != null ? currentStaff.getStaffId() : null;
+                Long residentId = editingResident.getResidentId();
+                loader.load("save", () -> {
+                    // Update existing resident; table rows are projections, so update the full record
+                    Resident resident = residentService.findById(residentId)
+                        .orElseThrow(() -> new SQLException("Resident no longer exists"));
+                    resident.setFirstName(firstName);
+                    resident.setLastName(lastName);
+                    resident.setGender(gender);
+                    resident.setBirthDate(birthDate);
+                    resident.setAdmissionDate(admissionDate);
+                    resident.setUpdatedAt(java.time.LocalDateTime.now());
+                    
+                    if (selectedBed != null) {
+                        resident.setCurrentBedId(selectedBed.getBedId());
+                    }
+                    
+                    residentService.update(resident);
+                    
+                    // Log the action
+                    actionLogService.append(new ActionLog(
+                        staffId,
+                        ActionLog.ActionType.Update,
+                        "Updated resident: " + resident.getFullName(),
+                        "Resident details modified"
+                    ));
+                    return resident;
+                }, updated -> residentSaved("Resident updated successfully!"),
+                        error -> showError("Failed to save resident: " + error.getMessage()));
             }
             
-            cancelResidentForm();
-            loadResidentsData();
-            
         } catch (Exception e) {
             showError("Failed to save resident: " + e.getMessage());
         }
     }
     
+    private void residentSaved(String message) {
+        showSuccess(message);
+        cancelResidentForm();
+        loadResidentsData();
+    }
+    
     @FXML
     private void cancelResidentForm() {
         editingResident = null;
@@ -401,20 +425,9 @@ public class ResidentManagementController implements Initializable {
         birthDatePicker.setValue(resident.getBirthDate());
         admissionDatePicker.setValue(resident.getAdmissionDate());
         
-        // Load available beds first
+        // Load available beds, selecting the resident's current bed once loaded
         loadAvailableBeds();
         
-        // Set current bed if assigned - do this after loading available beds
-        if (resident.getCurrentBedId() != null) {
-            bedService.findById(resident.getCurrentBedId()).ifPresent(bed -> {
-                // Add the current bed to the available beds list if it's not already there
-                if (!availableBedsList.contains(bed)) {
-                    availableBedsList.add(bed);
-                }
-                bedComboBox.setValue(bed);
-            });
-        }
-        
         residentFormContainer.setVisible(true);
         residentFormContainer.setManaged(true);
     }
@@ -427,34 +440,39 @@ public class ResidentManagementController implements Initializable {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    residentService.dischargeResident(resident.getResidentId());
-                    if (resident.getCurrentBedId() != null) {
-                        bedService.unassignBed(resident.getCurrentBedId());
-                    }
-                    
-                    // Log the action
-                    ActionLog actionLog = new ActionLog(
-                        currentStaff != null ? currentStaff.getStaffId() : null,
-                        ActionLog.ActionType.Discharge,
-                        "Discharged resident: " + resident.getFullName(),
-                        "Resident discharged from facility"
-                    );
-                    actionLogService.save(actionLog);
-                    
+                ActionLog actionLog = new ActionLog(
+                    currentStaff != null ? currentStaff.getStaffId() : null,
+                    ActionLog.ActionType.Discharge,
+                    "Discharged resident: " + resident.getFullName(),
+                    "Resident discharged from facility"
+                );
+                
+                // Discharge and free the bed in one transaction; the log entry is queued once it commits
+                loader.load("discharge", () -> {
+                    UnitOfWork.run(() -> {
+                        residentService.dischargeResident(resident.getResidentId());
+                        if (resident.getCurrentBedId() != null) {
+                            bedService.unassignBed(resident.getCurrentBedId());
+                        }
+                        actionLogService.append(actionLog);
+                    });
+                    return resident;
+                }, discharged -> {
                     showSuccess("Resident discharged successfully!");
                     loadResidentsData();
-                } catch (Exception e) {
-                    showError("Failed to discharge resident: " + e.getMessage());
-                }
+                }, error -> showError("Failed to discharge resident: " + error.getMessage()));
             }
         });
     }
     
     private void showBedAssignmentDialog(Resident resident) {
+        loader.load("assignBeds", bedService::findAvailableBeds,
+                availableBeds -> showBedAssignmentDialog(resident, availableBeds),
+                error -> showError("Failed to load available beds: " + error.getMessage()));
+    }
+    
+    private void showBedAssignmentDialog(Resident resident, List<Bed> availableBeds) {
         // Create a simple dialog for bed assignment
-        List<Bed> availableBeds = bedService.findAvailableBeds();
-        
         if (availableBeds.isEmpty()) {
             showError("No available beds found!");
             return;
@@ -524,62 +542,72 @@ public class ResidentManagementController implements Initializable {
         
         // Show dialog and handle result
         dialog.showAndWait().ifPresent(selectedBed -> {
-            try {
-                // Unassign current bed if any
-                if (resident.getCurrentBedId() != null) {
-                    bedService.unassignBed(resident.getCurrentBedId());
-                }
-                
-                // Assign new bed
-                resident.setCurrentBedId(selectedBed.getBedId());
-                residentService.update(resident);
-                bedService.assignResidentToBed(selectedBed.getBedId(), resident.getResidentId());
-                
+            Long previousBedId = resident.getCurrentBedId();
+            loader.load("assignBed", () -> {
+                UnitOfWork.run(() -> {
+                    // Unassign current bed if any
+                    if (previousBedId != null) {
+                        bedService.unassignBed(previousBedId);
+                    }
+                    
+                    // Claim the new bed; the resident row moves with it
+                    if (reservationService.claim(selectedBed, resident, previousBedId) != BedReservationService.Outcome.CLAIMED) {
+                        throw new SQLException("Bed " + selectedBed.getBedCode() + " is no longer available");
+                    }
+                });
+                return selectedBed;
+            }, assigned -> {
+                resident.setCurrentBedId(assigned.getBedId());
                 showSuccess("Bed assigned successfully!");
                 loadResidentsData();
-            } catch (Exception e) {
-                showError("Failed to assign bed: " + e.getMessage());
-            }
+            }, error -> {
+                resident.setCurrentBedId(previousBedId);
+                showError("Failed to assign bed: " + error.getMessage());
+            });
         });
     }
     
     private void loadResidentsData() {
-        try {
-            System.out.println("Loading residents data in component...");
-            residentsList.clear();
-            List<Resident> allResidents = residentService.findAll();
+        System.out.println("Loading residents data in component...");
+        loader.load("residents", residentService::findListRows, allResidents -> {
             System.out.println("Found " + allResidents.size() + " residents");
             
-            residentsList.addAll(allResidents);
+            residentsList.setAll(allResidents);
             residentsTable.refresh();
             updateResidentCounts();
             System.out.println("Residents table updated with " + residentsList.size() + " items");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading residents data: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            System.err.println("Error loading residents data: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
     
     private void loadAvailableBeds() {
-        try {
-            availableBedsList.clear();
-            List<Bed> vacantBeds = bedService.findAvailableBeds();
-            availableBedsList.addAll(vacantBeds);
+        Resident editing = editingResident;
+        loader.load("beds", () -> {
+            List<Bed> beds = new java.util.ArrayList<>(bedService.findAvailableBeds());
             
             // If editing a resident with an assigned bed, include that bed in the list
-            if (editingResident != null && editingResident.getCurrentBedId() != null) {
-                bedService.findById(editingResident.getCurrentBedId()).ifPresent(bed -> {
-                    if (!availableBedsList.contains(bed)) {
-                        availableBedsList.add(bed);
+            if (editing != null && editing.getCurrentBedId() != null) {
+                bedService.findById(editing.getCurrentBedId()).ifPresent(bed -> {
+                    if (!beds.contains(bed)) {
+                        beds.add(bed);
                     }
                 });
             }
-            
+            return beds;
+        }, beds -> {
+            availableBedsList.setAll(beds);
             bedComboBox.setItems(availableBedsList);
-        } catch (Exception e) {
-            System.err.println("Error loading available beds: " + e.getMessage());
-        }
+            
+            // Set current bed if assigned
+            if (editing != null && editing.getCurrentBedId() != null) {
+                beds.stream()
+                    .filter(bed -> editing.getCurrentBedId().equals(bed.getBedId()))
+                    .findFirst()
+                    .ifPresent(bedComboBox::setValue);
+            }
+        }, error -> System.err.println("Error loading available beds: " + error.getMessage()));
     }
     
     private void updateResidentCounts() {
@@ -591,12 +619,9 @@ public class ResidentManagementController implements Initializable {
             .filter(Resident::isDischarged)
             .count();
         
-        try {
-            long availableBedsCount = bedService.findAvailableBeds().size();
-            availableBedsCountLabel.setText(String.valueOf(availableBedsCount));
-        } catch (Exception e) {
-            availableBedsCountLabel.setText("0");
-        }
+        loader.load("bedCount", bedService::getAvailableBeds,
+                availableBedsCount -> availableBedsCountLabel.setText(String.valueOf(availableBedsCount)),
+                error -> availableBedsCountLabel.setText("0"));
         
         activeResidentsCountLabel.setText(String.valueOf(activeCount));
         dischargedResidentsCountLabel.setText(String.valueOf(dischargedCount));
@@ -647,56 +672,49 @@ public class ResidentManagementController implements Initializable {
     }
     
     private void loadDoctors() {
-        try {
-            List<Staff> allStaff = staffService.findAll();
-            List<Staff> doctors = allStaff.stream()
-                .filter(staff -> staff.getRole() == Staff.Role.Doctor)
-                .collect(java.util.stream.Collectors.toList());
-            
-            doctorComboBox.setItems(FXCollections.observableArrayList(doctors));
-            doctorComboBox.setCellFactory(listView -> new ListCell<Staff>() {
-                @Override
-                protected void updateItem(Staff staff, boolean empty) {
-                    super.updateItem(staff, empty);
-                    if (empty || staff == null) {
-                        setText(null);
-                    } else {
-                        setText(staff.getFullName() + " (" + staff.getUsername() + ")");
-                    }
+        doctorComboBox.setCellFactory(listView -> new ListCell<Staff>() {
+            @Override
+            protected void updateItem(Staff staff, boolean empty) {
+                super.updateItem(staff, empty);
+                if (empty || staff == null) {
+                    setText(null);
+                } else {
+                    setText(staff.getFullName() + " (" + staff.getUsername() + ")");
                 }
-            });
-            
-            doctorComboBox.setButtonCell(new ListCell<Staff>() {
-                @Override
-                protected void updateItem(Staff staff, boolean empty) {
-                    super.updateItem(staff, empty);
-                    if (empty || staff == null) {
-                        setText(null);
-                    } else {
-                        setText(staff.getFullName() + " (" + staff.getUsername() + ")");
-                    }
+            }
+        });
+        
+        doctorComboBox.setButtonCell(new ListCell<Staff>() {
+            @Override
+            protected void updateItem(Staff staff, boolean empty) {
+                super.updateItem(staff, empty);
+                if (empty || staff == null) {
+                    setText(null);
+                } else {
+                    setText(staff.getFullName() + " (" + staff.getUsername() + ")");
                 }
-            });
-            
-        } catch (Exception e) {
-            System.err.println("Error loading doctors: " + e.getMessage());
-            showError("Failed to load doctors");
-        }
+            }
+        });
+        
+        loader.load("doctors", () -> staffService.findAll().stream()
+                .filter(staff -> staff.getRole() == Staff.Role.Doctor)
+                .collect(java.util.stream.Collectors.toList()),
+                doctors -> doctorComboBox.setItems(FXCollections.observableArrayList(doctors)),
+                error -> {
+                    System.err.println("Error loading doctors: " + error.getMessage());
+                    showError("Failed to load doctors");
+                });
     }
     
     private void loadPatients() {
-        try {
-            List<Resident> residents = residentService.findAll();
-            List<String> patientNames = residents.stream()
+        loader.load("patients", () -> residentService.findListRows().stream()
                 .map(resident -> resident.getFirstName() + " " + resident.getLastName())
-                .collect(java.util.stream.Collectors.toList());
-            
-            patientComboBox.setItems(FXCollections.observableArrayList(patientNames));
-            
-        } catch (Exception e) {
-            System.err.println("Error loading patients: " + e.getMessage());
-            showError("Failed to load patients");
-        }
+                .collect(java.util.stream.Collectors.toList()),
+                patientNames -> patientComboBox.setItems(FXCollections.observableArrayList(patientNames)),
+                error -> {
+                    System.err.println("Error loading patients: " + error.getMessage());
+                    showError("Failed to load patients");
+                });
     }
     
     @FXML
@@ -709,7 +727,8 @@ public class ResidentManagementController implements Initializable {
             return;
         }
         
-        try {
+        Staff staff = currentStaff;
+        loader.load("assignDoctor", () -> {
             // Find the resident by name
             List<Resident> residents = residentService.findAll();
             Resident targetResident = residents.stream()
@@ -718,8 +737,7 @@ public class ResidentManagementController implements Initializable {
                 .orElse(null);
             
             if (targetResident == null) {
-                showError("Patient not found");
-                return;
+                return false;
             }
             
             // Update the resident's assigned doctor
@@ -727,15 +745,20 @@ public class ResidentManagementController implements Initializable {
             residentService.update(targetResident);
             
             // Log the action
-            if (currentStaff != null) {
-                actionLogService.save(new ActionLog(
-                    currentStaff.getStaffId(),
+            if (staff != null) {
+                actionLogService.append(new ActionLog(
+                    staff.getStaffId(),
                     ActionLog.ActionType.Update,
                     "Assigned doctor to patient",
                     "Assigned Dr. " + selectedDoctor.getFullName() + " to " + selectedPatient
                 ));
             }
-            
+            return true;
+        }, assigned -> {
+            if (!assigned) {
+                showError("Patient not found");
+                return;
+            }
             showSuccess("Successfully assigned Dr. " + selectedDoctor.getFullName() + " to " + selectedPatient);
             
             // Clear selections
@@ -744,11 +767,10 @@ public class ResidentManagementController implements Initializable {
             
             // Refresh the residents list to show updated assignments
             loadResidentsData();
-            
-        } catch (Exception e) {
-            System.err.println("Error assigning doctor: " + e.getMessage());
-            showError("Failed to assign doctor: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error assigning doctor: " + error.getMessage());
+            showError("Failed to assign doctor: " + error.getMessage());
+        });
     }
     
 }
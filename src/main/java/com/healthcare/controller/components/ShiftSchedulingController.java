@@ -4,9 +4,16 @@ import com.healthcare.model.Shift;
 import com.healthcare.model.ShiftSchedule;
 import com.healthcare.model.Staff;
 import com.healthcare.model.ActionLog;
+import com.healthcare.model.RosterPattern;
+import com.healthcare.services.ShiftComplianceEvaluator;
 import com.healthcare.services.ShiftManagementService;
 import com.healthcare.services.StaffService;
 import com.healthcare.services.ActionLogService;
+import com.healthcare.services.RosterGenerator;
+import com.healthcare.services.RosterPatternService;
+import com.healthcare.services.StaffAvailabilityIndex;
+import com.healthcare.services.WardTopology;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,12 +22,22 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 /**
  * Simplified Shift Scheduling Controller - MVP implementation
@@ -54,26 +71,50 @@ public class ShiftSchedulingController implements Initializable {
     @FXML private ComboBox<String> wardComboBox;
     @FXML private ComboBox<String> startTimeComboBox;
     @FXML private ComboBox<String> endTimeComboBox;
+    @FXML private HBox repeatDaysBox;
+    @FXML private DatePicker repeatUntilPicker;
     
     // Data
     private ObservableList<ShiftSchedule> shiftsList = FXCollections.observableArrayList();
     private ObservableList<Staff> allStaff = FXCollections.observableArrayList();
     private ShiftSchedule editingShift = null;
+    private RosterPattern editingPattern; // Pattern of the shift being edited, once loaded
+    private ShiftComplianceEvaluator compliance; // Running totals for the filtered date range
+    private Set<Long> freeStaff; // Staff free for the form's slot; null until its date and times are set
+    private List<Shift> templates = List.of(); // Active Shifts templates, for default times
+    private final Map<DayOfWeek, CheckBox> repeatDays = new EnumMap<>(DayOfWeek.class);
     private Staff currentStaff; // Current logged-in staff member
     
     // Services
-    private ShiftManagementService shiftService = new ShiftManagementService();
-    private StaffService staffService = new StaffService();
-    private ActionLogService actionLogService = new ActionLogService();
+    @Autowired
+    private ShiftManagementService shiftService;
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private RosterPatternService patternService;
+    @Autowired
+    private WardTopology wardTopology;
+    @Autowired
+    private StaffAvailabilityIndex availabilityIndex;
+    @Autowired
+    private ViewLoader loader;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(shiftsTable);
+        loader.showLoadingIn(shiftsTable);
         setupTable();
         setupForm();
         setupFilters();
         loadShiftsData();
+        extendPatterns();
     }
     
+    // Weeks ahead that recurring patterns are written into the schedule
+    private static final int PATTERN_HORIZON_WEEKS = 8;
+    
     /**
      * Set the current logged-in staff member for action logging
      */
@@ -181,7 +222,7 @@ public class ShiftSchedulingController implements Initializable {
                 if (empty || staff == null) {
                     setText(null);
                 } else {
-                    setText(staff.getFullName() + " (" + staff.getRole() + ")");
+                    setText(staffLabel(staff));
                 }
             }
         });
@@ -214,7 +255,7 @@ public class ShiftSchedulingController implements Initializable {
         });
         
         // Setup ward combo box
-        wardComboBox.setItems(FXCollections.observableArrayList("Ward 1", "Ward 2"));
+        wardComboBox.setItems(FXCollections.observableArrayList(wardTopology.getWardNames()));
         
         // Setup time combo boxes with common shift times
         ObservableList<String> timeOptions = FXCollections.observableArrayList(
@@ -225,6 +266,18 @@ public class ShiftSchedulingController implements Initializable {
         startTimeComboBox.setItems(timeOptions);
         endTimeComboBox.setItems(timeOptions);
         
+        // Repeat weekly on the checked days
+        for (DayOfWeek day : DayOfWeek.values()) {
+            CheckBox box = new CheckBox(day.name().charAt(0) + day.name().substring(1, 3).toLowerCase());
+            repeatDays.put(day, box);
+            repeatDaysBox.getChildren().add(box);
+        }
+        
+        // Default times from the shift templates when a type is picked
+        shiftTypeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> applyTemplate(newVal));
+        loader.load("templates", patternService::findTemplates, loaded -> templates = loaded,
+                error -> System.err.println("Error loading shift templates: " + error.getMessage()));
+        
         // Set default date to today
         shiftDatePicker.setValue(LocalDate.now());
         
@@ -243,6 +296,12 @@ public class ShiftSchedulingController implements Initializable {
     }
     
     private void setupRealTimeValidation() {
+        // Show who is free for the slot whenever it changes
+        shiftDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        startTimeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        endTimeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        wardComboBox.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        
         // Add listeners to form fields for real-time validation
         staffComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null && shiftDatePicker.getValue() != null && 
@@ -273,30 +332,104 @@ public class ShiftSchedulingController implements Initializable {
         });
     }
     
-    private void validateRealTime() {
-        if (editingShift != null) return; // Don't validate when editing existing shifts
+    private void refreshAvailability() {
+        LocalDate shiftDate = shiftDatePicker.getValue();
+        String startTime = startTimeComboBox.getValue();
+        String endTime = endTimeComboBox.getValue();
+        String ward = wardComboBox.getValue();
+        if (shiftDate == null || startTime == null || endTime == null) {
+            freeStaff = null;
+            return;
+        }
         
+        List<Long> staffIds = allStaff.stream().map(Staff::getStaffId).toList();
+        Long wardId = ward != null
+                ? wardTopology.findWardByName(ward).map(WardTopology.WardNode::getWardId).orElse(null)
+                : null;
+        Long editingId = editingShift != null ? editingShift.getScheduleId() : null;
+        Long editingStaffId = editingShift != null ? editingShift.getStaffId() : null;
+        loader.load("availability", () -> {
+            Set<Long> free = new HashSet<>(availabilityIndex.findFree(staffIds, wardId, shiftDate, startTime, endTime));
+            // The shift being edited does not make its own staff member busy
+            if (editingId != null
+                    && availabilityIndex.findConflict(editingStaffId, shiftDate, startTime, endTime, editingId).isEmpty()) {
+                free.add(editingStaffId);
+            }
+            return free;
+        }, free -> {
+            freeStaff = free;
+            // Redraw the list cells with everyone's availability
+            Staff selected = staffComboBox.getValue();
+            staffComboBox.setItems(null);
+            staffComboBox.setItems(allStaff);
+            staffComboBox.setValue(selected);
+        }, error -> System.err.println("Error loading staff availability: " + error.getMessage()));
+    }
+    
+    private String staffLabel(Staff staff) {
+        String label = staff.getFullName() + " (" + staff.getRole() + ")";
+        if (freeStaff == null) {
+            return label;
+        }
+        return label + (freeStaff.contains(staff.getStaffId()) ? " ✅ free" : " ⛔ busy");
+    }
+    
+    private void validateRealTime() {
         Staff selectedStaff = staffComboBox.getValue();
         LocalDate shiftDate = shiftDatePicker.getValue();
         String startTime = startTimeComboBox.getValue();
         String endTime = endTimeComboBox.getValue();
         
         if (selectedStaff != null && shiftDate != null && startTime != null && endTime != null) {
-            String conflictMessage = checkStaffAvailability(selectedStaff, shiftDate, startTime, endTime);
-            if (conflictMessage != null) {
-                // Show a warning but don't block the form
-                complianceStatusLabel.setText("⚠️ Scheduling conflict detected!");
-                complianceStatusLabel.setStyle("-fx-text-fill: #E74C3C; -fx-font-weight: bold;");
-            } else {
-                complianceStatusLabel.setText("✅ Staff is available for this time slot");
-                complianceStatusLabel.setStyle("-fx-text-fill: #2ECC71; -fx-font-weight: bold;");
-            }
+            // The shift being edited is left out of its own checks
+            ShiftSchedule proposed = proposedShift(editingShift != null ? editingShift.getScheduleId() : null);
+            ShiftComplianceEvaluator loaded = compliance;
+            loader.load("validation", () -> {
+                if (checkStaffAvailability(selectedStaff, proposed) != null) {
+                    return "Scheduling conflict detected!";
+                }
+                List<ShiftComplianceEvaluator.Violation> violations = checkCompliance(proposed, loaded);
+                return violations.isEmpty() ? null : violations.get(0).getMessage();
+            }, warning -> {
+                if (warning != null) {
+                    // Show a warning but don't block the form
+                    complianceStatusLabel.setText("⚠️ " + warning);
+                    complianceStatusLabel.setStyle("-fx-text-fill: #E74C3C; -fx-font-weight: bold;");
+                } else {
+                    complianceStatusLabel.setText("✅ Staff is available for this time slot");
+                    complianceStatusLabel.setStyle("-fx-text-fill: #2ECC71; -fx-font-weight: bold;");
+                }
+            }, error -> System.err.println("Error validating shift: " + error.getMessage()));
         }
     }
     
+    private void applyTemplate(Shift.ShiftType shiftType) {
+        if (shiftType == null || editingShift != null) {
+            return;
+        }
+        templates.stream()
+                .filter(template -> template.getShiftType() == shiftType)
+                .findFirst()
+                .ifPresent(template -> {
+                    startTimeComboBox.setValue(template.getStartTime().toString());
+                    endTimeComboBox.setValue(template.getEndTime().toString());
+                    if (template.getWardId() != null && wardComboBox.getValue() == null) {
+                        wardComboBox.setValue(wardTopology.findWard(template.getWardId())
+                                .map(WardTopology.WardNode::getWardName).orElse(null));
+                    }
+                });
+    }
+    
+    private void extendPatterns() {
+        loader.load("patterns", () -> patternService.extendAll(LocalDate.now().plusWeeks(PATTERN_HORIZON_WEEKS)), inserted -> {
+            if (inserted > 0) {
+                loadShiftsData();
+            }
+        }, error -> System.err.println("Error extending roster patterns: " + error.getMessage()));
+    }
+    
     private void loadStaff() {
-        try {
-            List<Staff> allStaffList = staffService.findAll();
+        loader.load("staff", staffService::findAll, allStaffList -> {
             allStaff.clear();
             
             // Filter out managers and only include nurses and doctors
@@ -305,43 +438,46 @@ public class ShiftSchedulingController implements Initializable {
                     allStaff.add(staff);
                 }
             }
-        } catch (Exception e) {
-            showError("Failed to load staff: " + e.getMessage());
-        }
+        }, error -> showError("Failed to load staff: " + error.getMessage()));
     }
     
     private void loadShiftsData() {
-        try {
-            System.out.println("Loading shifts data...");
-            shiftsList.clear();
-            
-            LocalDate startDate = startDatePicker.getValue();
-            LocalDate endDate = endDatePicker.getValue();
-            
-            if (startDate != null && endDate != null) {
-                List<ShiftSchedule> shifts = shiftService.findByDateRange(startDate, endDate);
-                shiftsList.addAll(shifts);
-            } else {
-                List<ShiftSchedule> allShifts = shiftService.findAll();
-                shiftsList.addAll(allShifts);
-            }
-            
+        System.out.println("Loading shifts data...");
+        
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        
+        loader.load("shifts", () -> startDate != null && endDate != null
+                ? shiftService.findByDateRange(startDate, endDate)
+                : shiftService.findAll(), shifts -> {
+            shiftsList.setAll(shifts);
+            compliance = startDate != null && endDate != null
+                    ? new ShiftComplianceEvaluator(startDate, endDate, shifts) : null;
             shiftsTable.refresh();
             updateComplianceStatus();
             System.out.println("Shifts table updated with " + shiftsList.size() + " items");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading shifts data: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            System.err.println("Error loading shifts data: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
     
     private void updateComplianceStatus() {
         try {
             // Simple compliance check - just show if we have any shifts
+            List<ShiftComplianceEvaluator.Violation> violations = compliance != null
+                    ? compliance.audit(compliance.getFrom(), compliance.getTo()) : List.of();
+            complianceStatusLabel.setTooltip(null);
             if (shiftsList.isEmpty()) {
                 complianceStatusLabel.setText("⚠️ No shifts scheduled");
                 complianceStatusLabel.setStyle("-fx-text-fill: #F39C12; -fx-font-weight: bold;");
+            } else if (!violations.isEmpty()) {
+                // Every violation in the range, one per line
+                complianceStatusLabel.setText("⚠️ " + shiftsList.size() + " shifts scheduled, " + violations.size() + " compliance issues");
+                complianceStatusLabel.setStyle("-fx-text-fill: #F39C12; -fx-font-weight: bold;");
+                complianceStatusLabel.setTooltip(new Tooltip(violations.stream()
+                        .map(ShiftComplianceEvaluator.Violation::getMessage)
+                        .collect(java.util.stream.Collectors.joining("\n"))));
             } else {
                 complianceStatusLabel.setText("✅ " + shiftsList.size() + " shifts scheduled");
                 complianceStatusLabel.setStyle("-fx-text-fill: #2ECC71; -fx-font-weight: bold;");
@@ -367,6 +503,56 @@ public class ShiftSchedulingController implements Initializable {
         shiftFormContainer.setManaged(true);
     }
     
+    @FXML
+    private void generateRoster() {
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            showError("Please choose the start and end dates to fill!");
+            return;
+        }
+        
+        List<Staff> staff = List.copyOf(allStaff);
+        List<Long> wardIds = wardTopology.getWards().stream()
+                .map(WardTopology.WardNode::getWardId)
+                .toList();
+        loader.load("roster", () -> shiftService.generateRoster(startDate, endDate, staff, wardIds, Duration.ofSeconds(2)), roster -> {
+            if (roster.getShifts().isEmpty()) {
+                showError(roster.isComplete()
+                        ? "Every day from " + startDate + " to " + endDate + " is already covered."
+                        : "No available staff can cover the " + roster.getUnfilled().size() + " open shifts.");
+                return;
+            }
+            
+            Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+            confirmAlert.setTitle("Generate Roster");
+            confirmAlert.setHeaderText("Add " + roster.getShifts().size() + " generated shifts?");
+            confirmAlert.setContentText(roster.isComplete()
+                    ? "Every day from " + startDate + " to " + endDate + " will be fully covered."
+                    : roster.getUnfilled().size() + " shifts could not be filled without going over 8 hours a day.");
+            confirmAlert.showAndWait().ifPresent(response -> {
+                if (response != ButtonType.OK) {
+                    return;
+                }
+                loader.load("save", () -> shiftService.saveAll(roster.getShifts()), saved -> {
+                    if (saved) {
+                        ActionLog actionLog = new ActionLog(
+                            currentStaff != null ? currentStaff.getStaffId() : null,
+                            ActionLog.ActionType.Assign_Shift,
+                            "Generated roster: " + roster.getShifts().size() + " shifts",
+                            startDate + " to " + endDate
+                        );
+                        actionLogService.append(actionLog);
+                        showSuccess("Roster generated successfully!");
+                        loadShiftsData();
+                    } else {
+                        showError("Failed to save the generated roster!");
+                    }
+                }, error -> showError("Failed to save the generated roster: " + error.getMessage()));
+            });
+        }, error -> showError("Failed to generate roster: " + error.getMessage()));
+    }
+    
     @FXML
     private void saveShift() {
         try {
@@ -383,86 +569,219 @@ public class ShiftSchedulingController implements Initializable {
                 return;
             }
             
-            // Check for scheduling conflicts
-            if (editingShift == null) { // Only check for new shifts, not when editing
-                String conflictMessage = checkStaffAvailability(selectedStaff, shiftDate, startTime, endTime);
-                if (conflictMessage != null) {
-                    showError(conflictMessage);
-                    return;
+            // Resolve ward ID by name
+            Long wardId = ward != null
+                    ? wardTopology.findWardByName(ward).map(WardTopology.WardNode::getWardId).orElse(null)
+                    : null;
+            
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            repeatDays.forEach((day, box) -> {
+                if (box.isSelected()) {
+                    days.add(day);
                 }
-            }
+            });
             
-            // Parse ward ID
-            Long wardId = null;
-            if (ward != null && ward.startsWith("Ward ")) {
-                wardId = Long.parseLong(ward.substring(5));
+            if (editingShift == null && !days.isEmpty()) {
+                saveRecurringShift(selectedStaff, shiftDate, shiftType, wardId, startTime, endTime, days);
+                return;
+            }
+            if (editingShift != null && editingShift.getPatternId() != null && confirmSeriesEdit()) {
+                updateRecurringShift(selectedStaff, shiftType, wardId, startTime, endTime, days);
+                return;
             }
             
-            if (editingShift == null) {
-                // Add new shift
-                ShiftSchedule newShift = new ShiftSchedule(
-                    selectedStaff.getStaffId(),
-                    shiftDate,
-                    shiftType,
-                    startTime,
-                    endTime
-                );
-                newShift.setWardId(wardId);
-                newShift.setStaff(selectedStaff);
-                
-                ShiftSchedule savedShift = shiftService.save(newShift);
+            // Check for scheduling conflicts and the hours and coverage rules in the background,
+            // then save; an edited shift is checked too, without counting against itself
+            ShiftSchedule proposed = proposedShift(editingShift != null ? editingShift.getScheduleId() : null);
+            ShiftComplianceEvaluator loaded = compliance;
+            loader.load("save", () -> {
+                String conflictMessage = checkStaffAvailability(selectedStaff, proposed);
+                if (conflictMessage != null) {
+                    return conflictMessage;
+                }
+                List<ShiftComplianceEvaluator.Violation> violations = checkCompliance(proposed, loaded);
+                return violations.isEmpty() ? null : "This shift breaks the scheduling rules:\n\n" + violations.stream()
+                        .map(ShiftComplianceEvaluator.Violation::getMessage)
+                        .collect(java.util.stream.Collectors.joining("\n"));
+            }, problem -> {
+                if (problem != null) {
+                    showError(problem);
+                } else {
+                    persistShift(selectedStaff, shiftDate, shiftType, wardId, startTime, endTime);
+                }
+            }, error -> showError("Failed to save shift: " + error.getMessage()));
+            
+        } catch (Exception e) {
+            showError("Failed to save shift: " + e.getMessage());
+        }
+    }
+    
+    private void persistShift(Staff selectedStaff, LocalDate shiftDate, Shift.ShiftType shiftType, Long wardId,
+                              String startTime, String endTime) {
+        Long staffId = currentStaff != null ? currentStaff.getStaffId() : null;
+        if (editingShift == null) {
+            // Add new shift
+            ShiftSchedule newShift = new ShiftSchedule(
+                selectedStaff.getStaffId(),
+                shiftDate,
+                shiftType,
+                startTime,
+                endTime
+            );
+            newShift.setWardId(wardId);
+            newShift.setStaff(selectedStaff);
+            
+            loader.load("save", () -> shiftService.save(newShift), savedShift -> {
                 if (savedShift != null) {
                     // Log the action
                     ActionLog actionLog = new ActionLog(
-                        currentStaff != null ? currentStaff.getStaffId() : null,
+                        staffId,
                         ActionLog.ActionType.Assign_Shift,
                         "Assigned shift to: " + selectedStaff.getFullName(),
                         shiftType.name() + " shift on " + shiftDate.toString()
                     );
-                    actionLogService.save(actionLog);
+                    actionLogService.append(actionLog);
                     showSuccess("Shift added successfully!");
                 } else {
                     showError("Failed to add shift!");
                 }
-            } else {
-                // Update existing shift
-                editingShift.setStaffId(selectedStaff.getStaffId());
-                editingShift.setShiftDate(shiftDate);
-                editingShift.setShiftType(shiftType);
-                editingShift.setStartTime(startTime);
-                editingShift.setEndTime(endTime);
-                editingShift.setWardId(wardId);
-                editingShift.setStaff(selectedStaff);
-                
-                // Note: We don't have an update method in the service, so we'll delete and recreate
-                shiftService.deleteById(editingShift.getScheduleId());
-                ShiftSchedule savedShift = shiftService.save(editingShift);
+                shiftSaved();
+            }, error -> showError("Failed to save shift: " + error.getMessage()));
+        } else {
+            // Update existing shift
+            ShiftSchedule shift = editingShift;
+            shift.setStaffId(selectedStaff.getStaffId());
+            shift.setShiftDate(shiftDate);
+            shift.setShiftType(shiftType);
+            shift.setStartTime(startTime);
+            shift.setEndTime(endTime);
+            shift.setWardId(wardId);
+            shift.setStaff(selectedStaff);
+            
+            // Note: We don't have an update method in the service, so we'll delete and recreate
+            loader.load("save", () -> {
+                shiftService.deleteById(shift.getScheduleId());
+                return shiftService.save(shift);
+            }, savedShift -> {
                 if (savedShift != null) {
                     // Log the action
                     ActionLog actionLog = new ActionLog(
-                        currentStaff != null ? currentStaff.getStaffId() : null,
+                        staffId,
                         ActionLog.ActionType.Update,
                         "Updated shift for: " + selectedStaff.getFullName(),
                         shiftType.name() + " shift on " + shiftDate.toString()
                     );
-                    actionLogService.save(actionLog);
+                    actionLogService.append(actionLog);
                     showSuccess("Shift updated successfully!");
                 } else {
                     showError("Failed to update shift!");
                 }
+                shiftSaved();
+            }, error -> showError("Failed to save shift: " + error.getMessage()));
+        }
+    }
+    
+    private void shiftSaved() {
+        cancelShiftForm();
+        loadShiftsData();
+    }
+    
+    /**
+     * Add a recurring pattern and schedule its shifts ahead; dates that would clash are left out and listed
+     */
+    private void saveRecurringShift(Staff selectedStaff, LocalDate shiftDate, Shift.ShiftType shiftType, Long wardId,
+                                    String startTime, String endTime, Set<DayOfWeek> days) {
+        RosterPattern pattern = new RosterPattern(selectedStaff.getStaffId(), shiftType, startTime, endTime, days, shiftDate);
+        pattern.setWardId(wardId);
+        pattern.setEndsOn(repeatUntilPicker.getValue());
+        pattern.setCreatedBy(currentStaff != null ? currentStaff.getStaffId() : null);
+        templates.stream()
+                .filter(t -> t.getShiftType() == shiftType && t.getStartTime().toString().equals(startTime)
+                        && t.getEndTime().toString().equals(endTime))
+                .findFirst()
+                .ifPresent(t -> pattern.setTemplateId(t.getShiftId()));
+        
+        LocalDate horizon = LocalDate.now().plusWeeks(PATTERN_HORIZON_WEEKS);
+        loader.load("save", () -> patternService.save(pattern, horizon), result -> {
+            if (result == null) {
+                showError("Failed to add recurring shift!");
+                return;
             }
-            
+            ActionLog actionLog = new ActionLog(
+                currentStaff != null ? currentStaff.getStaffId() : null,
+                ActionLog.ActionType.Assign_Shift,
+                "Assigned recurring shift to: " + selectedStaff.getFullName(),
+                pattern.getDisplayName() + " from " + shiftDate
+            );
+            actionLogService.append(actionLog);
+            showSuccess("Recurring shift added: " + result.getChanged() + " shifts scheduled over the next "
+                    + PATTERN_HORIZON_WEEKS + " weeks." + skippedDates(result));
             cancelShiftForm();
             loadShiftsData();
-            
-        } catch (Exception e) {
-            showError("Failed to save shift: " + e.getMessage());
+        }, error -> showError("Failed to add recurring shift: " + error.getMessage()));
+    }
+    
+    /**
+     * Update the whole pattern of the shift being edited; only its upcoming shifts that change are rewritten
+     */
+    private void updateRecurringShift(Staff selectedStaff, Shift.ShiftType shiftType, Long wardId,
+                                      String startTime, String endTime, Set<DayOfWeek> days) {
+        RosterPattern pattern = editingPattern;
+        if (pattern == null) {
+            showError("The recurring pattern for this shift no longer exists!");
+            return;
+        }
+        pattern.setStaffId(selectedStaff.getStaffId());
+        pattern.setShiftType(shiftType);
+        pattern.setStartTime(startTime);
+        pattern.setEndTime(endTime);
+        pattern.setWardId(wardId);
+        if (!days.isEmpty()) {
+            pattern.setDays(days);
+        }
+        if (repeatUntilPicker.getValue() != null) {
+            pattern.setEndsOn(repeatUntilPicker.getValue());
         }
+        
+        loader.load("save", () -> patternService.update(pattern), result -> {
+            if (result == null) {
+                showError("Failed to update recurring shift!");
+                return;
+            }
+            ActionLog actionLog = new ActionLog(
+                currentStaff != null ? currentStaff.getStaffId() : null,
+                ActionLog.ActionType.Update,
+                "Updated recurring shift for: " + selectedStaff.getFullName(),
+                pattern.getDisplayName()
+            );
+            actionLogService.append(actionLog);
+            showSuccess("Recurring shift updated: " + result.getChanged() + " upcoming shifts changed." + skippedDates(result));
+            cancelShiftForm();
+            loadShiftsData();
+        }, error -> showError("Failed to update recurring shift: " + error.getMessage()));
+    }
+    
+    private String skippedDates(RosterPatternService.Materialized result) {
+        if (result.getSkipped().isEmpty()) {
+            return "";
+        }
+        return "\n\n" + result.getSkipped().size() + " dates were skipped:\n" + result.getSkipped().stream()
+                .map(RosterPatternService.Skipped::toString)
+                .collect(java.util.stream.Collectors.joining("\n"));
+    }
+    
+    private boolean confirmSeriesEdit() {
+        Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION, null, ButtonType.YES, ButtonType.NO);
+        confirmAlert.setTitle("Recurring Shift");
+        confirmAlert.setHeaderText("This shift is part of a recurring pattern");
+        confirmAlert.setContentText("Apply the change to every upcoming shift in the pattern? Choose No to change only this shift.");
+        return confirmAlert.showAndWait().filter(response -> response == ButtonType.YES).isPresent();
     }
     
     @FXML
     private void cancelShiftForm() {
         editingShift = null;
+        editingPattern = null;
         clearForm();
         shiftFormContainer.setVisible(false);
         shiftFormContainer.setManaged(false);
@@ -484,12 +803,28 @@ public class ShiftSchedulingController implements Initializable {
         shiftTypeComboBox.setValue(shift.getShiftType());
         
         if (shift.getWardId() != null) {
-            wardComboBox.setValue("Ward " + shift.getWardId());
+            wardComboBox.setValue(wardTopology.findWard(shift.getWardId())
+                    .map(WardTopology.WardNode::getWardName).orElse(null));
         }
         
         startTimeComboBox.setValue(shift.getStartTime());
         endTimeComboBox.setValue(shift.getEndTime());
         
+        // Show the days and end of the pattern the shift comes from
+        repeatDays.values().forEach(box -> box.setSelected(false));
+        repeatUntilPicker.setValue(null);
+        editingPattern = null;
+        if (shift.getPatternId() != null) {
+            loader.load("pattern", () -> patternService.findById(shift.getPatternId()), stored -> stored.ifPresent(pattern -> {
+                if (editingShift != shift) {
+                    return;
+                }
+                editingPattern = pattern;
+                pattern.getDays().forEach(day -> repeatDays.get(day).setSelected(true));
+                repeatUntilPicker.setValue(pattern.getEndsOn());
+            }), error -> System.err.println("Error loading roster pattern: " + error.getMessage()));
+        }
+        
         shiftFormContainer.setVisible(true);
         shiftFormContainer.setManaged(true);
     }
@@ -502,8 +837,7 @@ public class ShiftSchedulingController implements Initializable {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    boolean deleted = shiftService.deleteById(shift.getScheduleId());
+                loader.load("delete", () -> shiftService.deleteById(shift.getScheduleId()), deleted -> {
                     if (deleted) {
                         // Log the action
                         ActionLog actionLog = new ActionLog(
@@ -512,15 +846,13 @@ public class ShiftSchedulingController implements Initializable {
                             "Deleted shift for: " + (shift.getStaff() != null ? shift.getStaff().getFullName() : "Unknown Staff"),
                             shift.getShiftType().name() + " shift on " + shift.getShiftDate().toString()
                         );
-                        actionLogService.save(actionLog);
+                        actionLogService.append(actionLog);
                         showSuccess("Shift deleted successfully!");
                         loadShiftsData();
                     } else {
                         showError("Failed to delete shift!");
                     }
-                } catch (Exception e) {
-                    showError("Failed to delete shift: " + e.getMessage());
-                }
+                }, error -> showError("Failed to delete shift: " + error.getMessage()));
             }
         });
     }
@@ -532,37 +864,43 @@ public class ShiftSchedulingController implements Initializable {
         wardComboBox.setValue(null);
         startTimeComboBox.setValue(null);
         endTimeComboBox.setValue(null);
+        repeatDays.values().forEach(box -> box.setSelected(false));
+        repeatUntilPicker.setValue(null);
     }
     
-    private String checkStaffAvailability(Staff staff, LocalDate shiftDate, String startTime, String endTime) {
+    /**
+     * A message describing the first shift the proposed one overlaps, or null; runs on the loader's threads
+     */
+    private String checkStaffAvailability(Staff staff, ShiftSchedule proposed) {
+        LocalDate shiftDate = proposed.getShiftDate();
+        String startTime = proposed.getStartTime();
+        String endTime = proposed.getEndTime();
         try {
-            // Get all existing shifts for this staff member on the same date
-            List<ShiftSchedule> existingShifts = shiftService.findByStaffAndDate(staff.getStaffId(), shiftDate);
+            // Look up overlapping shifts in the availability index, skipping the shift being edited
+            Long editingId = proposed.getScheduleId();
+            Optional<StaffAvailabilityIndex.Booking> conflict = availabilityIndex.findConflict(staff.getStaffId(),
+                    shiftDate, startTime, endTime, editingId);
             
-            for (ShiftSchedule existingShift : existingShifts) {
-                // Skip if this is the same shift we're editing
-                if (editingShift != null && existingShift.getScheduleId().equals(editingShift.getScheduleId())) {
-                    continue;
-                }
-                
-                // Check for time overlap
-                if (isTimeOverlap(startTime, endTime, existingShift.getStartTime(), existingShift.getEndTime())) {
-                    return String.format(
-                        "⚠️ CONFLICT DETECTED!\n\n" +
-                        "Staff: %s\n" +
-                        "Date: %s\n\n" +
-                        "❌ Requested Time: %s - %s\n" +
-                        "❌ Already Scheduled: %s - %s\n" +
-                        "📍 Ward: %s\n\n" +
-                        "✅ Staff will be FREE at: %s",
-                        staff.getFullName(),
-                        shiftDate.format(DateTimeFormatter.ofPattern("EEEE, MMMM dd, yyyy")),
-                        startTime, endTime,
-                        existingShift.getStartTime(), existingShift.getEndTime(),
-                        existingShift.getWardId() != null ? "Ward " + existingShift.getWardId() : "Not assigned",
-                        existingShift.getEndTime()
-                    );
-                }
+            if (conflict.isPresent()) {
+                StaffAvailabilityIndex.Booking existingShift = conflict.get();
+                LocalDateTime freeAt = availabilityIndex.nextFree(staff.getStaffId(), shiftDate, startTime, endTime, editingId);
+                return String.format(
+                    "⚠️ CONFLICT DETECTED!\n\n" +
+                    "Staff: %s\n" +
+                    "Date: %s\n\n" +
+                    "❌ Requested Time: %s - %s\n" +
+                    "❌ Already Scheduled: %s - %s\n" +
+                    "📍 Ward: %s\n\n" +
+                    "✅ Staff will be FREE at: %s",
+                    staff.getFullName(),
+                    shiftDate.format(DateTimeFormatter.ofPattern("EEEE, MMMM dd, yyyy")),
+                    startTime, endTime,
+                    existingShift.getStartTime(), existingShift.getEndTime(),
+                    existingShift.getWardId() != null ? "Ward " + existingShift.getWardId() : "Not assigned",
+                    freeAt.toLocalDate().equals(shiftDate)
+                        ? freeAt.toLocalTime().toString()
+                        : freeAt.format(DateTimeFormatter.ofPattern("EEE HH:mm"))
+                );
             }
             
             return null; // No conflicts found
@@ -573,28 +911,23 @@ public class ShiftSchedulingController implements Initializable {
         }
     }
     
-    private boolean isTimeOverlap(String start1, String end1, String start2, String end2) {
-        try {
-            // Parse times (assuming HH:MM format)
-            int start1Minutes = timeToMinutes(start1);
-            int end1Minutes = timeToMinutes(end1);
-            int start2Minutes = timeToMinutes(start2);
-            int end2Minutes = timeToMinutes(end2);
-            
-            // Check for overlap: two time ranges overlap if one starts before the other ends
-            return start1Minutes < end2Minutes && start2Minutes < end1Minutes;
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing times: " + e.getMessage());
-            return false;
-        }
+    private ShiftSchedule proposedShift(Long scheduleId) {
+        ShiftSchedule shift = new ShiftSchedule(staffComboBox.getValue().getStaffId(), shiftDatePicker.getValue(),
+                shiftTypeComboBox.getValue(), startTimeComboBox.getValue(), endTimeComboBox.getValue());
+        shift.setScheduleId(scheduleId);
+        return shift;
     }
     
-    private int timeToMinutes(String time) {
-        String[] parts = time.split(":");
-        int hours = Integer.parseInt(parts[0]);
-        int minutes = Integer.parseInt(parts[1]);
-        return hours * 60 + minutes;
+    /**
+     * Rule violations the shift would cause; a day outside the loaded range is loaded on its own,
+     * so this runs on the loader's threads
+     */
+    private List<ShiftComplianceEvaluator.Violation> checkCompliance(ShiftSchedule proposed, ShiftComplianceEvaluator loaded) {
+        LocalDate shiftDate = proposed.getShiftDate();
+        ShiftComplianceEvaluator evaluator = loaded != null && loaded.covers(shiftDate)
+                ? loaded
+                : shiftService.loadComplianceEvaluator(shiftDate, shiftDate);
+        return evaluator.check(proposed);
     }
     
     // Helper methods
@@ -6,12 +6,14 @@ import com.healthcare.model.AdministeredMedication;
 import com.healthcare.services.MedicationAdministrationService;
 import com.healthcare.services.ResidentService;
 import com.healthcare.services.MedicineService;
+import com.healthcare.util.ViewLoader;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.time.LocalDateTime;
@@ -63,9 +65,14 @@ public class SimplifiedMedicationController implements Initializable {
     private ObservableList<Medicine> medicinesData = FXCollections.observableArrayList();
     
     // Services
-    private MedicationAdministrationService medicationService = new MedicationAdministrationService();
-    private ResidentService residentService = new ResidentService();
-    private MedicineService medicineService = new MedicineService();
+    @Autowired
+    private MedicationAdministrationService medicationService;
+    @Autowired
+    private ResidentService residentService;
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private ViewLoader loader;
     
     // Current nurse (set by parent controller)
     private com.healthcare.model.Staff currentNurse;
@@ -74,6 +81,7 @@ public class SimplifiedMedicationController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("SimplifiedMedicationController: Initializing...");
         
+        loader.attachTo(medicationTable);
         setupTableColumns();
         setupEventHandlers();
         loadData();
@@ -108,43 +116,42 @@ public class SimplifiedMedicationController implements Initializable {
     }
     
     private void loadData() {
-        try {
-            // Load patients with custom display format
-            List<Resident> patients = residentService.findAll();
-            patientsData.clear();
-            patientsData.addAll(patients);
+        setupPatientComboBoxFormat();
+        setupMedicineComboBoxFormat();
+        
+        // Set up patient selection handler to filter medicines
+        patientComboBox.setOnAction(e -> {
+            Resident selectedPatient = patientComboBox.getSelectionModel().getSelectedItem();
+            if (selectedPatient != null) {
+                loadMedicinesForPatient(selectedPatient.getResidentId());
+            } else {
+                // Clear medicine dropdown if no patient selected
+                medicineComboBox.getItems().clear();
+            }
+        });
+        
+        // Load today's medications (simplified)
+        loadTodaysMedications();
+        
+        // Load patients with custom display format
+        loader.load("patients", residentService::findAll, patients -> {
+            patientsData.setAll(patients);
             patientComboBox.setItems(patientsData);
-            setupPatientComboBoxFormat();
-            
-            // Set up patient selection handler to filter medicines
-            patientComboBox.setOnAction(e -> {
-                Resident selectedPatient = patientComboBox.getSelectionModel().getSelectedItem();
-                if (selectedPatient != null) {
-                    loadMedicinesForPatient(selectedPatient.getResidentId());
-                } else {
-                    // Clear medicine dropdown if no patient selected
-                    medicineComboBox.getItems().clear();
-                }
-            });
-            
-            // Load all medicines initially (will be filtered when patient is selected)
-            List<Medicine> medicines = medicineService.findAll();
-            medicinesData.clear();
-            medicinesData.addAll(medicines);
-            setupMedicineComboBoxFormat();
-            
-            // Load today's medications (simplified)
-            loadTodaysMedications();
             
             // Update summary
             updateSummary();
             
-            System.out.println("Loaded " + patients.size() + " patients, " + medicines.size() + " medicines");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading medication data: " + e.getMessage());
-            showStatus("Error loading data: " + e.getMessage(), "error");
-        }
+            System.out.println("Loaded " + patients.size() + " patients");
+        }, error -> {
+            System.err.println("Error loading medication data: " + error.getMessage());
+            showStatus("Error loading data: " + error.getMessage(), "error");
+        });
+        
+        // Load all medicines initially (will be filtered when patient is selected)
+        loader.load("medicines", medicineService::findAll, medicines -> {
+            medicinesData.setAll(medicines);
+            System.out.println("Loaded " + medicines.size() + " medicines");
+        }, error -> System.err.println("Error loading medicines: " + error.getMessage()));
     }
     
     private void loadTodaysMedications() {
@@ -196,20 +203,20 @@ public class SimplifiedMedicationController implements Initializable {
             return;
         }
         
-        try {
+        Long nurseId = currentNurse.getStaffId();
+        loader.load("administer", () -> {
             // For now, we'll use a simplified approach since we need prescription_medicine_id
             // Find a valid prescription_medicine_id for this patient and medicine
             Long prescriptionMedicineId = findPrescriptionMedicineId(selectedPatient.getResidentId(), selectedMedicine.getMedicineId());
             
             if (prescriptionMedicineId == null) {
-                showStatus("No prescription found for this patient and medicine", "error");
-                return;
+                return false;
             }
             
             // Mark medication as administered using the service method
             boolean success = medicationService.markMedicationAsAdministered(
                 prescriptionMedicineId,
-                currentNurse.getStaffId(),
+                nurseId,
                 dosage,
                 notes
             );
@@ -217,15 +224,19 @@ public class SimplifiedMedicationController implements Initializable {
             if (!success) {
                 throw new Exception("Failed to record medication administration");
             }
-            
+            return true;
+        }, administered -> {
+            if (!administered) {
+                showStatus("No prescription found for this patient and medicine", "error");
+                return;
+            }
             showStatus("Medication administered successfully for " + selectedPatient.getFirstName() + " " + selectedPatient.getLastName(), "success");
             clearForm();
             loadData(); // Refresh the data
-            
-        } catch (Exception e) {
-            System.err.println("Error administering medication: " + e.getMessage());
-            showStatus("Error administering medication: " + e.getMessage(), "error");
-        }
+        }, error -> {
+            System.err.println("Error administering medication: " + error.getMessage());
+            showStatus("Error administering medication: " + error.getMessage(), "error");
+        });
     }
     
     private void markSelectedAsGiven() {
@@ -338,26 +349,21 @@ public class SimplifiedMedicationController implements Initializable {
     }
     
     private void loadMedicinesForPatient(Long residentId) {
-        try {
-            // Get medicines prescribed to this specific patient
-            List<Medicine> prescribedMedicines = medicationService.getMedicinesForPatient(residentId);
-            
+        // Get medicines prescribed to this specific patient
+        loader.load("patientMedicines", () -> medicationService.getMedicinesForPatient(residentId), prescribedMedicines -> {
             // Clear and populate medicine dropdown with prescribed medicines only
-            medicineComboBox.getItems().clear();
-            medicineComboBox.getItems().addAll(prescribedMedicines);
+            medicineComboBox.getItems().setAll(prescribedMedicines);
             
             // Clear any previous selection
             medicineComboBox.getSelectionModel().clearSelection();
             
             System.out.println("Loaded " + prescribedMedicines.size() + " prescribed medicines for patient ID: " + residentId);
-            
-        } catch (Exception e) {
-            System.err.println("Error loading medicines for patient: " + e.getMessage());
-            e.printStackTrace();
+        }, error -> {
+            System.err.println("Error loading medicines for patient: " + error.getMessage());
+            error.printStackTrace();
             // Fallback to showing all medicines if there's an error
-            medicineComboBox.getItems().clear();
-            medicineComboBox.getItems().addAll(medicinesData);
-        }
+            medicineComboBox.getItems().setAll(medicinesData);
+        });
     }
     
     private Long findPrescriptionMedicineId(Long residentId, Long medicineId) {
@@ -4,6 +4,7 @@ import com.healthcare.model.Staff;
 import com.healthcare.model.ActionLog;
 import com.healthcare.services.StaffService;
 import com.healthcare.services.ActionLogService;
+import com.healthcare.util.ViewLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -13,6 +14,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.util.List;
@@ -54,11 +56,17 @@ public class StaffManagementController implements Initializable {
     private Staff currentStaff; // Current logged-in staff member
     
     // Services
-    private StaffService staffService = new StaffService();
-    private ActionLogService actionLogService = new ActionLogService();
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private ViewLoader loader;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        loader.attachTo(staffTable);
+        loader.showLoadingIn(staffTable);
         setupTable();
         setupSearch();
         loadStaffData();
@@ -184,8 +192,6 @@ public class StaffManagementController implements Initializable {
             if (editingStaff == null) {
                 // Add new staff
                 Staff newStaff = new Staff(username, password, role, firstName, lastName, email, phone);
-                Staff savedStaff = staffService.save(newStaff);
-                staffList.add(savedStaff);
                 
                 // Log the action
                 ActionLog actionLog = new ActionLog(
@@ -194,9 +200,14 @@ public class StaffManagementController implements Initializable {
                     "Added new staff: " + newStaff.getFullName(),
                     "Role: " + role.name() + ", Username: " + username
                 );
-                actionLogService.save(actionLog);
-                
-                showSuccess("Staff member added successfully!");
+                loader.load("save", () -> {
+                    Staff savedStaff = staffService.save(newStaff);
+                    actionLogService.append(actionLog);
+                    return savedStaff;
+                }, savedStaff -> {
+                    staffList.add(savedStaff);
+                    staffSaved("Staff member added successfully!");
+                }, error -> showError("Failed to save staff: " + error.getMessage()));
             } else {
                 // Update existing staff
                 editingStaff.setUsername(username);
@@ -206,32 +217,34 @@ public class StaffManagementController implements Initializable {
                 editingStaff.setLastName(lastName.isEmpty() ? null : lastName);
                 editingStaff.setEmail(email.isEmpty() ? null : email);
                 editingStaff.setPhone(phone.isEmpty() ? null : phone);
-                try {
-                    staffService.update(editingStaff);
-                    
-                    // Log the action
-                    ActionLog actionLog = new ActionLog(
-                        currentStaff != null ? currentStaff.getStaffId() : null,
-                        ActionLog.ActionType.Update,
-                        "Updated staff: " + editingStaff.getFullName(),
-                        "Staff details modified"
-                    );
-                    actionLogService.save(actionLog);
-                    
-                    showSuccess("Staff member updated successfully!");
-                } catch (Exception e) {
-                    showError("Failed to update staff: " + e.getMessage());
-                }
+                Staff staff = editingStaff;
+                
+                // Log the action
+                ActionLog actionLog = new ActionLog(
+                    currentStaff != null ? currentStaff.getStaffId() : null,
+                    ActionLog.ActionType.Update,
+                    "Updated staff: " + staff.getFullName(),
+                    "Staff details modified"
+                );
+                loader.load("save", () -> {
+                    Staff updated = staffService.update(staff);
+                    actionLogService.append(actionLog);
+                    return updated;
+                }, updated -> staffSaved("Staff member updated successfully!"),
+                        error -> showError("Failed to update staff: " + error.getMessage()));
             }
             
-            cancelStaffForm();
-            loadStaffData();
-            
         } catch (Exception e) {
             showError("Failed to save staff: " + e.getMessage());
         }
     }
     
+    private void staffSaved(String message) {
+        showSuccess(message);
+        cancelStaffForm();
+        loadStaffData();
+    }
+    
     @FXML
     private void cancelStaffForm() {
         editingStaff = null;
@@ -264,37 +277,34 @@ public class StaffManagementController implements Initializable {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
+                // Log the action
+                ActionLog actionLog = new ActionLog(
+                    currentStaff != null ? currentStaff.getStaffId() : null,
+                    ActionLog.ActionType.Delete_Staff,
+                    "Deleted staff: " + staff.getFullName(),
+                    "Username: " + staff.getUsername() + ", Role: " + staff.getRole().name()
+                );
+                loader.load("delete", () -> {
                     staffService.deleteById(staff.getStaffId());
-                    staffList.remove(staff);
-                    
-                    // Log the action
-                    ActionLog actionLog = new ActionLog(
-                        currentStaff != null ? currentStaff.getStaffId() : null,
-                        ActionLog.ActionType.Delete_Staff,
-                        "Deleted staff: " + staff.getFullName(),
-                        "Username: " + staff.getUsername() + ", Role: " + staff.getRole().name()
-                    );
-                    actionLogService.save(actionLog);
-                    
+                    actionLogService.append(actionLog);
+                    return staff;
+                }, deleted -> {
+                    staffList.remove(deleted);
                     showSuccess("Staff member deleted successfully!");
-                } catch (Exception e) {
-                    showError("Failed to delete staff: " + e.getMessage());
-                }
+                }, error -> showError("Failed to delete staff: " + error.getMessage()));
             }
         });
     }
     
     private void loadStaffData() {
-        try {
-            System.out.println("Loading staff data in component...");
-            staffList.clear();
-            List<Staff> allStaff = staffService.findAll();
+        System.out.println("Loading staff data in component...");
+        Staff current = currentStaff;
+        loader.load("staff", staffService::findAll, allStaff -> {
             System.out.println("Found " + allStaff.size() + " staff members");
             
             // Filter out the current logged-in staff member
             List<Staff> filteredStaff = allStaff.stream()
-                .filter(staff -> currentStaff == null || !staff.getStaffId().equals(currentStaff.getStaffId()))
+                .filter(staff -> current == null || !staff.getStaffId().equals(current.getStaffId()))
                 .collect(java.util.stream.Collectors.toList());
             
             for (Staff staff : allStaff) {
@@ -304,15 +314,14 @@ public class StaffManagementController implements Initializable {
             }
             System.out.println("Filtered staff count: " + filteredStaff.size() + " (excluding current user)");
             
-            staffList.addAll(filteredStaff);
+            staffList.setAll(filteredStaff);
             staffTable.refresh();
             updateStaffCounts();
             System.out.println("Staff table updated with " + staffList.size() + " items");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading staff data: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            System.err.println("Error loading staff data: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
     
     private void updateStaffCounts() {
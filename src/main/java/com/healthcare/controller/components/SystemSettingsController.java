@@ -4,10 +4,12 @@ import com.healthcare.model.ActionLog;
 import com.healthcare.model.Staff;
 import com.healthcare.services.ActionLogService;
 import com.healthcare.services.StaffService;
+import com.healthcare.util.ViewLoader;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.net.URL;
 import java.util.ResourceBundle;
@@ -34,8 +36,12 @@ public class SystemSettingsController implements Initializable {
     @FXML private Button changePasswordButton;
 
     // Services
-    private StaffService staffService = new StaffService();
-    private ActionLogService actionLogService = new ActionLogService();
+    @Autowired
+    private StaffService staffService;
+    @Autowired
+    private ActionLogService actionLogService;
+    @Autowired
+    private ViewLoader loader;
 
     // Current staff for context
     private Staff currentStaff;
@@ -44,6 +50,7 @@ public class SystemSettingsController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("Setting up system settings component...");
+        loader.attachTo(usernameField);
         setupEventHandlers();
         System.out.println("System settings component setup complete");
     }
@@ -93,9 +100,9 @@ public class SystemSettingsController implements Initializable {
             return;
         }
 
-        try {
-            // Load current staff data
-            java.util.Optional<Staff> staffOpt = staffService.findById(currentStaff.getStaffId());
+        // Load current staff data
+        Long staffId = currentStaff.getStaffId();
+        loader.load("profile", () -> staffService.findById(staffId), staffOpt -> {
             if (staffOpt.isPresent()) {
                 Staff staff = staffOpt.get();
                 
@@ -125,10 +132,10 @@ public class SystemSettingsController implements Initializable {
             } else {
                 showError("Failed to load profile data");
             }
-        } catch (Exception e) {
-            System.err.println("Error loading profile: " + e.getMessage());
-            showError("Failed to load profile: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error loading profile: " + error.getMessage());
+            showError("Failed to load profile: " + error.getMessage());
+        });
     }
 
     @FXML
@@ -143,23 +150,24 @@ public class SystemSettingsController implements Initializable {
             return;
         }
 
-        try {
+        Long staffId = currentStaff.getStaffId();
+        String firstName = firstNameField.getText().trim();
+        String lastName = lastNameField.getText().trim();
+        String email = emailField.getText().trim();
+        String phone = phoneField.getText().trim();
+        loader.load("profile", () -> {
             // Get current staff data
-            java.util.Optional<Staff> staffOpt = staffService.findById(currentStaff.getStaffId());
-            if (!staffOpt.isPresent()) {
-                showError("Staff not found");
-                return;
-            }
-
-            Staff staff = staffOpt.get();
+            Staff staff = staffService.findById(staffId)
+                .orElseThrow(() -> new IllegalStateException("Staff not found"));
             // Update staff data (excluding username)
-            staff.setFirstName(firstNameField.getText().trim());
-            staff.setLastName(lastNameField.getText().trim());
-            staff.setEmail(emailField.getText().trim());
-            staff.setPhone(phoneField.getText().trim());
+            staff.setFirstName(firstName);
+            staff.setLastName(lastName);
+            staff.setEmail(email);
+            staff.setPhone(phone);
 
             // Save changes
-            Staff updatedStaff = staffService.update(staff);
+            return staffService.update(staff);
+        }, updatedStaff -> {
             if (updatedStaff != null) {
                 // Update current staff reference
                 currentStaff = updatedStaff;
@@ -182,16 +190,16 @@ public class SystemSettingsController implements Initializable {
                     "Updated profile information",
                     "Profile details modified"
                 );
-                actionLogService.save(actionLog);
+                actionLogService.append(actionLog);
                 
                 showSuccess("Profile updated successfully!");
             } else {
                 showError("Failed to update profile");
             }
-        } catch (Exception e) {
-            System.err.println("Error updating profile: " + e.getMessage());
-            showError("Failed to update profile: " + e.getMessage());
-        }
+        }, error -> {
+            System.err.println("Error updating profile: " + error.getMessage());
+            showError("Failed to update profile: " + error.getMessage());
+        });
     }
 
     @FXML
@@ -228,47 +236,49 @@ public class SystemSettingsController implements Initializable {
             return;
         }
 
-        try {
+        Long staffId = currentStaff.getStaffId();
+        String currentPassword = currentPasswordField.getText();
+        String newPassword = newPasswordField.getText();
+        loader.load("password", () -> {
             // Get current staff data
-            java.util.Optional<Staff> staffOpt = staffService.findById(currentStaff.getStaffId());
+            java.util.Optional<Staff> staffOpt = staffService.findById(staffId);
             if (!staffOpt.isPresent()) {
-                showError("Staff not found");
-                return;
+                return "Staff not found";
             }
 
             Staff staff = staffOpt.get();
             // Verify current password
-            if (!staff.getPassword().equals(currentPasswordField.getText())) {
-                showError("Current password is incorrect");
-                return;
+            if (!staff.getPassword().equals(currentPassword)) {
+                return "Current password is incorrect";
             }
 
             // Update password
-            staff.setPassword(newPasswordField.getText());
-            Staff updatedStaff = staffService.update(staff);
-            if (updatedStaff != null) {
-                // Clear password fields
-                currentPasswordField.clear();
-                newPasswordField.clear();
-                confirmPasswordField.clear();
-                
-                // Log the action
-                ActionLog actionLog = new ActionLog(
-                    currentStaff.getStaffId(),
-                    ActionLog.ActionType.Update,
-                    "Changed password",
-                    "Password updated successfully"
-                );
-                actionLogService.save(actionLog);
-                
-                showSuccess("Password changed successfully!");
-            } else {
-                showError("Failed to change password");
+            staff.setPassword(newPassword);
+            return staffService.update(staff) != null ? null : "Failed to change password";
+        }, problem -> {
+            if (problem != null) {
+                showError(problem);
+                return;
             }
-        } catch (Exception e) {
-            System.err.println("Error changing password: " + e.getMessage());
-            showError("Failed to change password: " + e.getMessage());
-        }
+            // Clear password fields
+            currentPasswordField.clear();
+            newPasswordField.clear();
+            confirmPasswordField.clear();
+            
+            // Log the action
+            ActionLog actionLog = new ActionLog(
+                staffId,
+                ActionLog.ActionType.Update,
+                "Changed password",
+                "Password updated successfully"
+            );
+            actionLogService.append(actionLog);
+            
+            showSuccess("Password changed successfully!");
+        }, error -> {
+            System.err.println("Error changing password: " + error.getMessage());
+            showError("Failed to change password: " + error.getMessage());
+        });
     }
 
     private boolean validateProfileInput() {
@@ -0,0 +1,15 @@
+package com.healthcare.exceptions;
+
+/**
+ * Exception thrown when a schema migration cannot be loaded or applied
+ */
+public class MigrationException extends Exception {
+    
+    public MigrationException(String message) {
+        super(message);
+    }
+    
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
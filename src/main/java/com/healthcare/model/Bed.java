@@ -55,6 +55,10 @@ public class Bed {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    @Version
+    @Column(name = "version")
+    private int version;
+    
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "room_id", insertable = false, updatable = false)
@@ -183,6 +187,9 @@ public class Bed {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    
     public Room getRoom() { return room; }
     public void setRoom(Room room) { this.room = room; }
     
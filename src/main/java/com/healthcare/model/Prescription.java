@@ -145,6 +145,9 @@ public class Prescription {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public Resident getResident() { return resident; }
+    public void setResident(Resident resident) { this.resident = resident; }
+    
     // Get patient name from resident relationship
     public String getPatientName() {
         if (resident != null) {
@@ -137,7 +137,23 @@ public class Resident {
     public boolean isCurrentlyAdmitted() {
         return dischargeDate == null;
     }
-    
+
+    // Display values from the bed and doctor relationships; null unless loaded with them
+    public String getBedCode() {
+        return currentBed != null ? currentBed.getBedCode() : null;
+    }
+
+    public String getWardName() {
+        if (currentBed == null || currentBed.getRoom() == null || currentBed.getRoom().getWard() == null) {
+            return null;
+        }
+        return currentBed.getRoom().getWard().getWardName();
+    }
+
+    public String getAssignedDoctorName() {
+        return assignedDoctor != null ? assignedDoctor.getFullName() : null;
+    }
+
     // Gender Enum
     public enum Gender {
         M, F
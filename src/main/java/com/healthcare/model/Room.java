@@ -49,6 +49,10 @@ public class Room {
     private LocalDateTime createdAt;
     
     // Relationships
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ward_id", insertable = false, updatable = false)
+    private Ward ward;
+    
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Bed> beds = new ArrayList<>();
     
@@ -121,6 +125,9 @@ public class Room {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public Ward getWard() { return ward; }
+    public void setWard(Ward ward) { this.ward = ward; }
+    
     public List<Bed> getBeds() { return beds; }
     public void setBeds(List<Bed> beds) { this.beds = beds; }
 }
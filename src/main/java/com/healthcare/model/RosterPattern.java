@@ -0,0 +1,165 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * RosterPattern Entity - Represents a recurring shift, such as
+ * "Nurse A on Morning shift in Ward 1 every Mon/Wed/Fri"
+ * Maps to the Roster_Patterns table; its shifts are materialized into Shift_Schedule
+ */
+@Entity
+@Table(name = "Roster_Patterns")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterPattern {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "pattern_id")
+    private Long patternId;
+
+    @Column(name = "staff_id", nullable = false)
+    private Long staffId;
+
+    @Column(name = "template_id")
+    private Long templateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "shift_type", nullable = false)
+    private Shift.ShiftType shiftType;
+
+    @Column(name = "start_time", nullable = false)
+    private String startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private String endTime;
+
+    @Column(name = "ward_id")
+    private Long wardId;
+
+    // Bit 0 is Monday, bit 6 Sunday
+    @Column(name = "days_mask", nullable = false)
+    private int daysMask;
+
+    @Column(name = "starts_on", nullable = false)
+    private LocalDate startsOn;
+
+    @Column(name = "ends_on")
+    private LocalDate endsOn;
+
+    @Column(name = "materialized_until")
+    private LocalDate materializedUntil;
+
+    @Column(name = "is_active")
+    private boolean isActive = true;
+
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Custom constructors for business logic
+
+    public RosterPattern(Long staffId, Shift.ShiftType shiftType, String startTime, String endTime,
+                         Set<DayOfWeek> days, LocalDate startsOn) {
+        this.staffId = staffId;
+        this.shiftType = shiftType;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.startsOn = startsOn;
+        this.isActive = true;
+        this.createdAt = LocalDateTime.now();
+        setDays(days);
+    }
+
+    // Utility methods
+    public Set<DayOfWeek> getDays() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (runsOn(day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    public void setDays(Set<DayOfWeek> days) {
+        daysMask = 0;
+        for (DayOfWeek day : days) {
+            daysMask |= 1 << (day.getValue() - 1);
+        }
+    }
+
+    public boolean runsOn(DayOfWeek day) {
+        return (daysMask & (1 << (day.getValue() - 1))) != 0;
+    }
+
+    /**
+     * Whether the pattern puts a shift on the given date
+     */
+    public boolean runsOn(LocalDate date) {
+        return !date.isBefore(startsOn) && (endsOn == null || !date.isAfter(endsOn)) && runsOn(date.getDayOfWeek());
+    }
+
+    public String getDisplayName() {
+        StringBuilder days = new StringBuilder();
+        for (DayOfWeek day : getDays()) {
+            days.append(days.length() > 0 ? "/" : "").append(day.name().charAt(0)).append(day.name().substring(1, 3).toLowerCase());
+        }
+        return shiftType + " Shift (" + startTime + " - " + endTime + ") every " + days;
+    }
+
+    // Manual getters and setters (since Lombok might not be working consistently)
+    public Long getPatternId() { return patternId; }
+    public void setPatternId(Long patternId) { this.patternId = patternId; }
+
+    public Long getStaffId() { return staffId; }
+    public void setStaffId(Long staffId) { this.staffId = staffId; }
+
+    public Long getTemplateId() { return templateId; }
+    public void setTemplateId(Long templateId) { this.templateId = templateId; }
+
+    public Shift.ShiftType getShiftType() { return shiftType; }
+    public void setShiftType(Shift.ShiftType shiftType) { this.shiftType = shiftType; }
+
+    public String getStartTime() { return startTime; }
+    public void setStartTime(String startTime) { this.startTime = startTime; }
+
+    public String getEndTime() { return endTime; }
+    public void setEndTime(String endTime) { this.endTime = endTime; }
+
+    public Long getWardId() { return wardId; }
+    public void setWardId(Long wardId) { this.wardId = wardId; }
+
+    public int getDaysMask() { return daysMask; }
+    public void setDaysMask(int daysMask) { this.daysMask = daysMask; }
+
+    public LocalDate getStartsOn() { return startsOn; }
+    public void setStartsOn(LocalDate startsOn) { this.startsOn = startsOn; }
+
+    public LocalDate getEndsOn() { return endsOn; }
+    public void setEndsOn(LocalDate endsOn) { this.endsOn = endsOn; }
+
+    public LocalDate getMaterializedUntil() { return materializedUntil; }
+    public void setMaterializedUntil(LocalDate materializedUntil) { this.materializedUntil = materializedUntil; }
+
+    public boolean isActive() { return isActive; }
+    public void setActive(boolean active) { isActive = active; }
+
+    public Long getCreatedBy() { return createdBy; }
+    public void setCreatedBy(Long createdBy) { this.createdBy = createdBy; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
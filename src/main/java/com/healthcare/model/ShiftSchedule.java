@@ -50,6 +50,9 @@ public class ShiftSchedule {
     @Column(name = "assigned_by")
     private Long assignedBy;
     
+    @Column(name = "pattern_id")
+    private Long patternId;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -120,6 +123,9 @@ public class ShiftSchedule {
     public Long getAssignedBy() { return assignedBy; }
     public void setAssignedBy(Long assignedBy) { this.assignedBy = assignedBy; }
     
+    public Long getPatternId() { return patternId; }
+    public void setPatternId(Long patternId) { this.patternId = patternId; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 /**
  * Ward Entity - Represents a ward in the healthcare facility
  * Maps to the Wards table in the database
- * Note: Only 2 fixed wards (Ward 1 & Ward 2) as per requirements
+ * Wards are not fixed; look them up through WardTopology rather than by name pattern
  */
 @Entity
 @Table(name = "Wards")
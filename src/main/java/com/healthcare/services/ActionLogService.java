@@ -1,8 +1,10 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.ActionLog;
 import com.healthcare.model.Staff;
+import com.healthcare.util.TimeWindow;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -15,9 +17,37 @@ import java.util.List;
  * Simplified to handle only essential action logging
  */
 public class ActionLogService {
-    
+
+    static final String FIND_BY_TIME_WINDOW_SQL = "SELECT al.*, s.first_name, s.last_name, s.role FROM Actions_Log al " +
+            "LEFT JOIN Staff s ON al.staff_id = s.staff_id " +
+            "WHERE " + TimeWindow.predicate("al.action_time") + " " +
+            "ORDER BY al.action_time DESC";
+
+    private final AuditAppender appender;
+
+    public ActionLogService() {
+        this(null);
+    }
+
     /**
-     * Save action log
+     * @param appender appender used by append(); null means the shared one
+     */
+    public ActionLogService(AuditAppender appender) {
+        this.appender = appender;
+    }
+
+    /**
+     * Record an action without waiting for the database.
+     * The entry is written by the background audit writer; inside a UnitOfWork it is
+     * queued only once the transaction commits.
+     */
+    public void append(ActionLog actionLog) {
+        AuditAppender target = appender != null ? appender : AuditAppender.getShared();
+        UnitOfWork.afterCommit(() -> target.append(actionLog));
+    }
+
+    /**
+     * Save action log synchronously and return it with its generated ID
      */
     public ActionLog save(ActionLog actionLog) {
         String sql = "INSERT INTO Actions_Log (staff_id, action_type, action_description, action_time, details) " +
@@ -44,11 +74,26 @@ public class ActionLogService {
             
         } catch (SQLException e) {
             System.err.println("Error saving action log: " + e.getMessage());
+            spoolIfUnreachable(actionLog, e);
         }
         
         return null;
     }
     
+    /**
+     * Keep an entry the database could not be reached for, so the spool replays it later.
+     * Not done inside a UnitOfWork: that transaction is rolled back, so the action never happened.
+     */
+    private void spoolIfUnreachable(ActionLog actionLog, SQLException e) {
+        if (UnitOfWork.isActive() || !AuditSpool.isConnectivityFailure(e)) {
+            return;
+        }
+        AuditSpool spool = AuditSpool.getShared();
+        if (spool != null && spool.append(actionLog)) {
+            System.err.println("Action log spooled for replay: " + actionLog.getActionDescription());
+        }
+    }
+
     /**
      * Find action log by ID
      */
@@ -59,10 +104,10 @@ public class ActionLogService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, id);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return mapResultSetToActionLog(rs);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToActionLog(rs);
+                }
             }
             
         } catch (SQLException e) {
@@ -99,22 +144,16 @@ public class ActionLogService {
      * Find action logs by date range
      */
     public List<ActionLog> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        String sql = "SELECT al.*, s.first_name, s.last_name, s.role FROM Actions_Log al " +
-                    "LEFT JOIN Staff s ON al.staff_id = s.staff_id " +
-                    "WHERE DATE(al.action_time) BETWEEN ? AND ? " +
-                    "ORDER BY al.action_time DESC";
-        
         List<ActionLog> actionLogs = new ArrayList<>();
         
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, Date.valueOf(startDate));
-            stmt.setDate(2, Date.valueOf(endDate));
-            ResultSet rs = stmt.executeQuery();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_TIME_WINDOW_SQL)) {
             
-            while (rs.next()) {
-                actionLogs.add(mapResultSetToActionLog(rs));
+            TimeWindow.days(startDate, endDate).bind(stmt, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    actionLogs.add(mapResultSetToActionLog(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -139,10 +178,10 @@ public class ActionLogService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, staffId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                actionLogs.add(mapResultSetToActionLog(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    actionLogs.add(mapResultSetToActionLog(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -167,10 +206,10 @@ public class ActionLogService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, actionType.name());
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                actionLogs.add(mapResultSetToActionLog(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    actionLogs.add(mapResultSetToActionLog(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -180,6 +219,109 @@ public class ActionLogService {
         return actionLogs;
     }
     
+    /**
+     * Find one page of action logs, newest first, using keyset pagination.
+     * Rows are located by seeking on (action_time, action_id) instead of scanning
+     * and discarding earlier pages, so the cost does not grow with the page number.
+     * @param after key of the last row already shown, or null to start from the newest
+     * @param offset rows to skip after the key; keep small, used only to jump ahead of a known key
+     * @param limit maximum rows to return
+     */
+    public List<ActionLog> findPage(LogFilter filter, PageKey after, int offset, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT action_id, staff_id, action_type, action_description, action_time, details FROM Actions_Log WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendFilter(sql, params, filter);
+        if (after != null) {
+            sql.append(" AND (action_time < ? OR (action_time = ? AND action_id < ?))");
+            params.add(Timestamp.valueOf(after.getActionTime()));
+            params.add(Timestamp.valueOf(after.getActionTime()));
+            params.add(after.getActionId());
+        }
+        sql.append(" ORDER BY action_time DESC, action_id DESC LIMIT ?");
+        params.add(limit);
+        if (offset > 0) {
+            sql.append(" OFFSET ?");
+            params.add(offset);
+        }
+
+        List<ActionLog> actionLogs = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    actionLogs.add(mapResultSetToActionLogSimple(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding action log page: " + e.getMessage());
+        }
+
+        return actionLogs;
+    }
+
+    /**
+     * Count action logs matching a filter
+     */
+    public long countMatching(LogFilter filter) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM Actions_Log WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendFilter(sql, params, filter);
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error counting action logs: " + e.getMessage());
+        }
+
+        return 0;
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> params, LogFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getStaffId() != null) {
+            sql.append(" AND staff_id = ?");
+            params.add(filter.getStaffId());
+        }
+        if (filter.getActionType() != null) {
+            sql.append(" AND action_type = ?");
+            params.add(filter.getActionType().name());
+        }
+        // Compare the raw column against a half-open range so the time index can be used
+        if (filter.getFromDate() != null && filter.getToDate() != null) {
+            TimeWindow window = TimeWindow.days(filter.getFromDate(), filter.getToDate());
+            sql.append(" AND ").append(TimeWindow.predicate("action_time"));
+            params.add(Timestamp.valueOf(window.getStart()));
+            params.add(Timestamp.valueOf(window.getEnd()));
+        } else if (filter.getFromDate() != null) {
+            sql.append(" AND action_time >= ?");
+            params.add(Timestamp.valueOf(filter.getFromDate().atStartOfDay()));
+        } else if (filter.getToDate() != null) {
+            sql.append(" AND action_time < ?");
+            params.add(Timestamp.valueOf(filter.getToDate().plusDays(1).atStartOfDay()));
+        }
+    }
+
+    private void bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
     /**
      * Delete action log by ID
      */
@@ -231,10 +373,10 @@ public class ActionLogService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, limit);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                actionLogs.add(mapResultSetToActionLogSimple(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    actionLogs.add(mapResultSetToActionLogSimple(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -267,4 +409,46 @@ public class ActionLogService {
         
         return actionLog;
     }
-}
\ No newline at end of file
+
+    /**
+     * Server-side filter for the audit log viewer; null fields are not filtered on
+     */
+    public static class LogFilter {
+        private Long staffId;
+        private ActionLog.ActionType actionType;
+        private LocalDate fromDate;
+        private LocalDate toDate;
+
+        public Long getStaffId() { return staffId; }
+        public void setStaffId(Long staffId) { this.staffId = staffId; }
+
+        public ActionLog.ActionType getActionType() { return actionType; }
+        public void setActionType(ActionLog.ActionType actionType) { this.actionType = actionType; }
+
+        public LocalDate getFromDate() { return fromDate; }
+        public void setFromDate(LocalDate fromDate) { this.fromDate = fromDate; }
+
+        public LocalDate getToDate() { return toDate; }
+        public void setToDate(LocalDate toDate) { this.toDate = toDate; }
+    }
+
+    /**
+     * Position of a row in (action_time, action_id) order
+     */
+    public static class PageKey {
+        private final LocalDateTime actionTime;
+        private final long actionId;
+
+        public PageKey(LocalDateTime actionTime, long actionId) {
+            this.actionTime = actionTime;
+            this.actionId = actionId;
+        }
+
+        public static PageKey of(ActionLog actionLog) {
+            return new PageKey(actionLog.getActionTime(), actionLog.getActionId());
+        }
+
+        public LocalDateTime getActionTime() { return actionTime; }
+        public long getActionId() { return actionId; }
+    }
+}
@@ -0,0 +1,301 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.ActionLog;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous audit writer
+ * Action logs are queued by the caller and written by a background thread that
+ * group-commits them: it waits up to the flush interval for a batch to fill,
+ * then inserts the whole batch with one JDBC batch and one commit.
+ *
+ * When the queue is full the caller waits up to the offer timeout and, if there
+ * is still no room, journals its entry to the AuditSpool (or, without a spool,
+ * writes it itself). Batches that fail because the database is unreachable go to
+ * the spool too, and while the spool holds entries new batches follow them there
+ * so the replayed order is preserved.
+ *
+ * Settings can be overridden with system properties:
+ * healthcare.audit.queueCapacity, healthcare.audit.batchSize,
+ * healthcare.audit.flushIntervalMillis, healthcare.audit.offerTimeoutMillis
+ */
+public class AuditAppender implements AutoCloseable {
+
+    static final String INSERT_SQL = "INSERT INTO Actions_Log (staff_id, action_type, action_description, action_time, details) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static volatile AuditAppender shared;
+
+    private final BlockingQueue<ActionLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private final AuditSpool spool;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+    private final AtomicLong failedEntries = new AtomicLong();
+    private final Object progress = new Object();
+    private long processed;
+    private volatile boolean running = true;
+
+    public AuditAppender(int queueCapacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis) {
+        this(queueCapacity, batchSize, flushIntervalMillis, offerTimeoutMillis, null);
+    }
+
+    /**
+     * @param spool journal for entries the database cannot take right now; may be null
+     */
+    public AuditAppender(int queueCapacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis,
+                         AuditSpool spool) {
+        if (queueCapacity < 1 || batchSize < 1 || flushIntervalMillis < 1 || offerTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid audit appender settings");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.spool = spool;
+        this.writer = new Thread(this::drainLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Appender shared by every ActionLogService, created on first use
+     */
+    public static AuditAppender getShared() {
+        AuditAppender current = shared;
+        if (current == null) {
+            synchronized (AuditAppender.class) {
+                current = shared;
+                if (current == null) {
+                    current = new AuditAppender(
+                            Integer.getInteger("healthcare.audit.queueCapacity", 1024),
+                            Integer.getInteger("healthcare.audit.batchSize", 50),
+                            Long.getLong("healthcare.audit.flushIntervalMillis", 200L),
+                            Long.getLong("healthcare.audit.offerTimeoutMillis", 50L),
+                            AuditSpool.getShared());
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Flush and stop the shared appender; called on application shutdown
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Queue an entry for writing
+     */
+    public void append(ActionLog actionLog) {
+        if (!running) {
+            writeDirect(actionLog);
+            return;
+        }
+        try {
+            if (queue.offer(actionLog, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.incrementAndGet();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queue is full: journal the entry, or write it on the caller's thread, rather than drop it
+        callerWrites.incrementAndGet();
+        if (spool == null || !spool.append(actionLog)) {
+            writeDirect(actionLog);
+        }
+    }
+
+    /**
+     * Wait until every entry queued before this call has been written
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = enqueued.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (progress) {
+            while (processed < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !writer.isAlive()) {
+                    return false;
+                }
+                try {
+                    progress.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entries waiting to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Entries spooled or written on the caller's thread because the queue was full
+     */
+    public long getCallerWriteCount() {
+        return callerWrites.get();
+    }
+
+    /**
+     * Entries that could not be written
+     */
+    public long getFailedCount() {
+        return failedEntries.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Entries that raced with shutdown are written here rather than lost
+        List<ActionLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (ActionLog actionLog : remaining) {
+            writeDirect(actionLog);
+        }
+    }
+
+    private void drainLoop() {
+        List<ActionLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ActionLog first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ActionLog next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } finally {
+                markProcessed(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void markProcessed(int count) {
+        if (count == 0) {
+            return;
+        }
+        synchronized (progress) {
+            processed += count;
+            progress.notifyAll();
+        }
+    }
+
+    private void writeBatch(List<ActionLog> batch) {
+        if (spool != null && spool.hasPending()) {
+            spoolAll(batch);
+            return;
+        }
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (ActionLog actionLog : batch) {
+                    bind(stmt, actionLog);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (spool != null && AuditSpool.isConnectivityFailure(e)) {
+                spoolAll(batch);
+                return;
+            }
+            failedEntries.addAndGet(batch.size());
+            System.err.println("Error writing audit batch of " + batch.size() + ": " + e.getMessage());
+        }
+    }
+
+    private void spoolAll(List<ActionLog> batch) {
+        for (ActionLog actionLog : batch) {
+            if (!spool.append(actionLog)) {
+                failedEntries.incrementAndGet();
+                System.err.println("Audit spool is full, entry lost: " + actionLog.getActionDescription());
+            }
+        }
+    }
+
+    private void writeDirect(ActionLog actionLog) {
+        if (spool != null && spool.hasPending() && spool.append(actionLog)) {
+            return;
+        }
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            bind(stmt, actionLog);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (spool != null && AuditSpool.isConnectivityFailure(e) && spool.append(actionLog)) {
+                return;
+            }
+            failedEntries.incrementAndGet();
+            System.err.println("Error writing audit entry: " + e.getMessage());
+        }
+    }
+
+    static void bind(PreparedStatement stmt, ActionLog actionLog) throws SQLException {
+        stmt.setObject(1, actionLog.getStaffId());
+        stmt.setString(2, actionLog.getActionType().name());
+        stmt.setString(3, actionLog.getActionDescription());
+        stmt.setTimestamp(4, Timestamp.valueOf(actionLog.getActionTime()));
+        stmt.setString(5, actionLog.getDetails());
+    }
+}
@@ -0,0 +1,527 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.ActionLog;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Local journal for audit entries that could not reach the database
+ *
+ * The spool is a single memory-mapped segment file. Appending copies a framed
+ * record into the mapping, so it costs no system call. A background replayer
+ * inserts spooled entries into Actions_Log in order, a batch at a time, and then
+ * moves the checkpoint past them.
+ *
+ * File layout: a 32-byte header (magic, version, checkpoint, in-doubt end),
+ * followed by records framed as [length][crc32][payload]. A zero length ends the
+ * log. On open, records after the checkpoint are scanned and the log is cut at
+ * the first record whose CRC does not match, i.e. a write torn by a crash.
+ *
+ * Every entry is spooled with an id, the spool's instance id and a sequence
+ * number, which replay writes to Actions_Log.spool_entry_id. Before a batch is
+ * committed, its end offset is stored as "in doubt". If the process dies between
+ * the commit and the checkpoint update, the next replay skips entries of that
+ * range whose id is already in the table, so nothing is inserted twice. A batch
+ * that failed before its commit was sent is not in doubt, and its range is
+ * cleared again.
+ *
+ * Location and size: healthcare.audit.spoolFile, healthcare.audit.spoolSizeBytes
+ */
+public class AuditSpool implements AutoCloseable {
+
+    private static final int MAGIC = 0x41554431;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int IN_DOUBT_OFFSET = 16;
+    private static final int FRAME_SIZE = 8;
+
+    static final String INSERT_SQL = "INSERT INTO Actions_Log (staff_id, action_type, action_description, action_time, details, " +
+            "spool_entry_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM Actions_Log WHERE spool_entry_id = ?";
+
+    private static volatile AuditSpool shared;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int replayBatchSize;
+    private final ScheduledExecutorService replayer;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private long sequence;
+    private int writePosition;
+    private int checkpoint;
+    private int inDoubtEnd;
+    private boolean replaying;
+    private boolean outageReported;
+    private long appendedCount;
+    private long replayedCount;
+    private long duplicatesSkipped;
+    private long rejectedCount;
+
+    /**
+     * Open (or create) a spool file and start replaying it
+     * @param replayIntervalMillis how often to retry the database; 0 disables the background replayer
+     */
+    public AuditSpool(Path file, int sizeBytes, int replayBatchSize, long replayIntervalMillis) throws IOException {
+        if (sizeBytes < HEADER_SIZE + 64 || replayBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid audit spool settings");
+        }
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // The mapping stays valid after the file is closed
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+             FileChannel channel = raf.getChannel()) {
+            long existing = channel.size();
+            this.capacity = (int) Math.max(existing, sizeBytes);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        this.replayBatchSize = replayBatchSize;
+        recover();
+
+        if (replayIntervalMillis > 0) {
+            this.replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "audit-replayer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.replayer.scheduleWithFixedDelay(this::replayInBackground, 0, replayIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.replayer = null;
+        }
+    }
+
+    /**
+     * Spool shared by the audit writer, opened on first use; null if the file cannot be opened
+     */
+    public static AuditSpool getShared() {
+        AuditSpool current = shared;
+        if (current == null) {
+            synchronized (AuditSpool.class) {
+                current = shared;
+                if (current == null) {
+                    String defaultFile = Paths.get(System.getProperty("user.home"), ".healthcare", "audit-spool.dat").toString();
+                    try {
+                        current = new AuditSpool(
+                                Paths.get(System.getProperty("healthcare.audit.spoolFile", defaultFile)),
+                                Integer.getInteger("healthcare.audit.spoolSizeBytes", 8 * 1024 * 1024),
+                                Integer.getInteger("healthcare.audit.replayBatchSize", 200),
+                                Long.getLong("healthcare.audit.replayIntervalMillis", 2_000L));
+                        shared = current;
+                    } catch (IOException e) {
+                        System.err.println("Error opening audit spool: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Stop the shared spool's replayer and sync the file; called on application shutdown
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Whether an exception means the database could not be reached, as opposed to a rejected statement
+     */
+    public static boolean isConnectivityFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientException
+                || e instanceof SQLRecoverableException
+                || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * Append an entry to the journal
+     * @return false if the spool is full
+     */
+    public synchronized boolean append(ActionLog actionLog) {
+        byte[] payload = encode(actionLog, instanceId + ":" + (++sequence));
+        int needed = FRAME_SIZE + payload.length + 4;
+        if (writePosition + needed > capacity && !compact(needed)) {
+            rejectedCount++;
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int start = writePosition;
+        int end = start + FRAME_SIZE + payload.length;
+
+        // The length is written last: until then the old zero length still ends the log
+        buffer.put(start + FRAME_SIZE, payload);
+        buffer.putInt(end, 0);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, payload.length);
+
+        writePosition = end;
+        appendedCount++;
+        return true;
+    }
+
+    /**
+     * Whether entries are waiting to be replayed; new entries should then be spooled too, to keep order
+     */
+    public synchronized boolean hasPending() {
+        return writePosition > checkpoint;
+    }
+
+    /**
+     * Replay everything currently spooled
+     * @return number of entries inserted
+     * @throws SQLException if the database is still unreachable
+     */
+    public int replayPending() throws SQLException {
+        int inserted = 0;
+        ReplayBatch batch;
+        while ((batch = beginReplay()) != null) {
+            try {
+                inserted += insertBatch(batch);
+            } catch (SQLException e) {
+                abortReplay(batch);
+                throw e;
+            }
+            completeReplay(batch);
+        }
+        return inserted;
+    }
+
+    public synchronized long getAppendedCount() { return appendedCount; }
+    public synchronized long getReplayedCount() { return replayedCount; }
+    public synchronized long getDuplicatesSkipped() { return duplicatesSkipped; }
+    public synchronized long getRejectedCount() { return rejectedCount; }
+
+    /**
+     * Whether a replayed range may already be in the table
+     */
+    synchronized boolean isInDoubt() {
+        return inDoubtEnd > checkpoint;
+    }
+
+    @Override
+    public void close() {
+        if (replayer != null) {
+            replayer.shutdown();
+            try {
+                replayer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Read the next batch after the checkpoint and mark its range as in doubt
+     */
+    synchronized ReplayBatch beginReplay() {
+        if (replaying || writePosition == checkpoint) {
+            return null;
+        }
+        ReplayBatch batch = new ReplayBatch(inDoubtEnd > checkpoint ? inDoubtEnd : checkpoint);
+        int position = checkpoint;
+        while (position < writePosition && batch.entries.size() < replayBatchSize) {
+            int length = buffer.getInt(position);
+            byte[] payload = new byte[length];
+            buffer.get(position + FRAME_SIZE, payload);
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            batch.entries.add(decode(in));
+            // Entries spooled before ids were written have none, and are never taken for duplicates
+            batch.ids.add(in.hasRemaining() ? getString(in) : null);
+            batch.offsets.add(position);
+            position += FRAME_SIZE + length;
+        }
+        batch.end = position;
+
+        inDoubtEnd = Math.max(inDoubtEnd, position);
+        buffer.putInt(IN_DOUBT_OFFSET, inDoubtEnd);
+        buffer.force();
+        replaying = true;
+        return batch;
+    }
+
+    /**
+     * Insert a batch in one transaction, skipping in-doubt entries that already made it
+     */
+    int insertBatch(ReplayBatch batch) throws SQLException {
+        int inserted = 0;
+        int skipped = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < batch.entries.size(); i++) {
+                    String id = batch.ids.get(i);
+                    if (batch.offsets.get(i) < batch.inDoubtEnd && alreadyInserted(conn, id)) {
+                        skipped++;
+                        continue;
+                    }
+                    AuditAppender.bind(stmt, batch.entries.get(i));
+                    stmt.setString(6, id);
+                    stmt.addBatch();
+                    inserted++;
+                }
+                stmt.executeBatch();
+                batch.committing = true;
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        synchronized (this) {
+            duplicatesSkipped += skipped;
+        }
+        return inserted;
+    }
+
+    /**
+     * Move the checkpoint past a committed batch
+     */
+    synchronized void completeReplay(ReplayBatch batch) {
+        checkpoint = batch.end;
+        if (inDoubtEnd <= checkpoint) {
+            inDoubtEnd = 0;
+        }
+        if (checkpoint == writePosition) {
+            // Drained: start again at the front of the segment
+            checkpoint = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+            inDoubtEnd = 0;
+            buffer.putInt(HEADER_SIZE, 0);
+        }
+        buffer.putInt(IN_DOUBT_OFFSET, inDoubtEnd);
+        buffer.putInt(CHECKPOINT_OFFSET, checkpoint);
+        buffer.force();
+        replayedCount += batch.entries.size();
+        replaying = false;
+    }
+
+    /**
+     * Give up on a batch; unless its commit was sent, none of it is in the table and the range is no longer in doubt
+     */
+    synchronized void abortReplay(ReplayBatch batch) {
+        if (!batch.committing) {
+            inDoubtEnd = batch.inDoubtEnd > checkpoint ? batch.inDoubtEnd : 0;
+            buffer.putInt(IN_DOUBT_OFFSET, inDoubtEnd);
+        }
+        replaying = false;
+    }
+
+    private void replayInBackground() {
+        try {
+            int inserted = replayPending();
+            if (outageReported && inserted > 0) {
+                System.out.println("Audit spool replayed " + inserted + " entries to the database");
+            }
+            outageReported = false;
+        } catch (SQLException e) {
+            if (!outageReported) {
+                System.err.println("Audit spool waiting for database: " + e.getMessage());
+                outageReported = true;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error replaying audit spool: " + e.getMessage());
+        }
+    }
+
+    private boolean alreadyInserted(Connection conn, String id) throws SQLException {
+        if (id == null) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(EXISTS_SQL)) {
+            stmt.setString(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Restore positions from the header and find the end of the valid log
+     */
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(CHECKPOINT_OFFSET, HEADER_SIZE);
+            buffer.putInt(IN_DOUBT_OFFSET, 0);
+            buffer.putInt(HEADER_SIZE, 0);
+            checkpoint = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+            inDoubtEnd = 0;
+            return;
+        }
+
+        checkpoint = buffer.getInt(CHECKPOINT_OFFSET);
+        inDoubtEnd = buffer.getInt(IN_DOUBT_OFFSET);
+        if (checkpoint < HEADER_SIZE || checkpoint > capacity - 4) {
+            System.err.println("Audit spool checkpoint is corrupt, discarding " + file);
+            checkpoint = HEADER_SIZE;
+            buffer.putInt(HEADER_SIZE, 0);
+        }
+
+        int position = checkpoint;
+        CRC32 crc = new CRC32();
+        while (position + FRAME_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + FRAME_SIZE + length + 4 > capacity) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + FRAME_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                System.err.println("Audit spool truncated at torn record, offset " + position);
+                break;
+            }
+            position += FRAME_SIZE + length;
+        }
+        writePosition = position;
+        if (position + 4 <= capacity) {
+            buffer.putInt(position, 0);
+        }
+        if (inDoubtEnd > writePosition) {
+            inDoubtEnd = writePosition;
+        }
+    }
+
+    /**
+     * Make room by moving unreplayed records to the front of the segment.
+     * Only done when the target range does not overlap the live records, so a
+     * crash mid-copy leaves the original records and checkpoint intact.
+     */
+    private boolean compact(int needed) {
+        if (replaying) {
+            return false;
+        }
+        int live = writePosition - checkpoint;
+        if (live > 0 && checkpoint - HEADER_SIZE < live) {
+            return false;
+        }
+        if (HEADER_SIZE + live + needed > capacity) {
+            return false;
+        }
+        if (live > 0) {
+            byte[] records = new byte[live];
+            buffer.get(checkpoint, records);
+            buffer.put(HEADER_SIZE, records);
+        }
+        int shift = checkpoint - HEADER_SIZE;
+        buffer.putInt(HEADER_SIZE + live, 0);
+        checkpoint = HEADER_SIZE;
+        writePosition = HEADER_SIZE + live;
+        inDoubtEnd = inDoubtEnd > 0 ? Math.max(HEADER_SIZE, inDoubtEnd - shift) : 0;
+        buffer.putInt(IN_DOUBT_OFFSET, inDoubtEnd);
+        buffer.putInt(CHECKPOINT_OFFSET, checkpoint);
+        return true;
+    }
+
+    private static byte[] encode(ActionLog actionLog, String id) {
+        byte[] type = actionLog.getActionType().name().getBytes(StandardCharsets.UTF_8);
+        byte[] description = bytes(actionLog.getActionDescription());
+        byte[] details = bytes(actionLog.getDetails());
+        byte[] entryId = bytes(id);
+        LocalDateTime time = actionLog.getActionTime() != null ? actionLog.getActionTime() : LocalDateTime.now();
+
+        ByteBuffer out = ByteBuffer.allocate(1 + 8 + 8 + 4 + 16 + type.length
+                + (description != null ? description.length : 0) + (details != null ? details.length : 0) + entryId.length);
+        out.put((byte) ((actionLog.getStaffId() != null ? 1 : 0)));
+        out.putLong(actionLog.getStaffId() != null ? actionLog.getStaffId() : 0L);
+        out.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.putInt(time.getNano());
+        putString(out, type);
+        putString(out, description);
+        putString(out, details);
+        putString(out, entryId);
+        return out.array();
+    }
+
+    private static ActionLog decode(ByteBuffer in) {
+        boolean hasStaff = in.get() == 1;
+        long staffId = in.getLong();
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        ActionLog actionLog = new ActionLog();
+        actionLog.setStaffId(hasStaff ? staffId : null);
+        actionLog.setActionTime(time);
+        actionLog.setActionType(ActionLog.ActionType.valueOf(getString(in)));
+        actionLog.setActionDescription(getString(in));
+        actionLog.setDetails(getString(in));
+        return actionLog;
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer out, byte[] value) {
+        out.putInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entries read from the spool for one replay transaction
+     */
+    static class ReplayBatch {
+        final List<ActionLog> entries = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        final List<Integer> offsets = new ArrayList<>();
+        final int inDoubtEnd;
+        int end;
+        boolean committing;
+
+        ReplayBatch(int inDoubtEnd) {
+            this.inDoubtEnd = inDoubtEnd;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.healthcare.services;
+
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import com.healthcare.model.Resident;
+import com.healthcare.model.Room;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places incoming residents in beds
+ *
+ * Works on one snapshot of the BedOccupancyIndex, without touching the database.
+ * A bed is a candidate when it is free, its gender restriction and its room's
+ * gender preference allow the resident, the room is below max_capacity, and (for
+ * residents needing isolation) the bed or its room provides isolation. Candidate
+ * sets are built once per plan from the index bitsets. Each candidate is then scored:
+ *   - room already holding only residents of the same gender       +20
+ *   - room holding a resident of the other gender                  -30
+ *   - isolation bed or room taken by a resident not needing it     -50
+ *   - electric bed / special bed for a high-care resident          +40 / +20
+ *   - electric or special bed for a resident who is not high care  -15
+ * The best score wins; ties go to the first bed in ward, room, bed order.
+ *
+ * A batch is placed most constrained first (isolation, then high care), and each
+ * placement is applied to the working state, so later residents in the same batch
+ * see the rooms filled before them.
+ */
+public class BedAllocationEngine {
+
+    static final int SAME_GENDER_ROOM = 20;
+    static final int MIXED_ROOM = -30;
+    static final int ISOLATION_RESERVED = -50;
+    static final int ELECTRIC_FOR_HIGH_CARE = 40;
+    static final int SPECIAL_FOR_HIGH_CARE = 20;
+    static final int EQUIPMENT_RESERVED = -15;
+
+    private final BedOccupancyIndex index;
+    private final BedReservationService reservations;
+
+    public BedAllocationEngine() {
+        this(BedOccupancyIndex.getShared());
+    }
+
+    public BedAllocationEngine(BedOccupancyIndex index) {
+        this(index, new BedReservationService(index));
+    }
+
+    public BedAllocationEngine(BedOccupancyIndex index, BedReservationService reservations) {
+        this.index = index;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Best bed for one resident, or null if none is suitable
+     */
+    public Placement place(Resident resident, boolean highCare) {
+        Plan plan = plan(List.of(new Request(resident, highCare)));
+        return plan.getPlacements().isEmpty() ? null : plan.getPlacements().get(0);
+    }
+
+    /**
+     * Every suitable bed for one resident, best first
+     */
+    public List<Bed> rank(Resident resident, boolean highCare) {
+        return new Working(index.snapshot()).rank(new Request(resident, highCare));
+    }
+
+    /**
+     * Reserve the best suitable bed for a resident without a bed, going down the ranking until a claim succeeds
+     * @return the bed reserved, or null if none could be
+     */
+    public Bed reserve(Resident resident, boolean highCare) {
+        return reservations.reserveFirst(resident, rank(resident, highCare));
+    }
+
+    /**
+     * Decide beds for a batch of residents without writing anything
+     */
+    public Plan plan(List<Request> requests) {
+        Working working = new Working(index.snapshot());
+
+        List<Request> ordered = new ArrayList<>(requests);
+        ordered.sort(Comparator
+                .comparing((Request r) -> !r.getResident().isRequiresIsolation())
+                .thenComparing(r -> !r.isHighCare()));
+
+        List<Placement> placements = new ArrayList<>();
+        List<Resident> unplaced = new ArrayList<>();
+        for (Request request : ordered) {
+            Placement placement = working.place(request);
+            if (placement != null) {
+                placements.add(placement);
+            } else {
+                unplaced.add(request.getResident());
+            }
+        }
+        return new Plan(placements, unplaced);
+    }
+
+    /**
+     * Plan a batch and claim every placed bed in one transaction, bed and resident
+     * rows together (see BedReservationService). If another client took one of the
+     * chosen beds meanwhile, the index is reloaded and the batch planned once more.
+     * @return the plan that was written; everyone is unplaced if it could not be
+     */
+    public Plan admit(List<Request> requests) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Plan plan = plan(requests);
+            try {
+                UnitOfWork.run(() -> {
+                    for (Placement placement : plan.getPlacements()) {
+                        Bed bed = placement.getBed();
+                        Resident resident = placement.getResident();
+                        BedReservationService.Outcome outcome = reservations.claim(bed, resident, resident.getCurrentBedId());
+                        if (outcome != BedReservationService.Outcome.CLAIMED) {
+                            throw new SQLException("Bed " + bed.getBedCode() + " could not be claimed: " + outcome);
+                        }
+                    }
+                });
+                for (Placement placement : plan.getPlacements()) {
+                    placement.getResident().setCurrentBedId(placement.getBed().getBedId());
+                }
+                return plan;
+            } catch (SQLException e) {
+                System.err.println("Error admitting residents: " + e.getMessage());
+                index.reconcile();
+            }
+        }
+        List<Resident> everyone = new ArrayList<>();
+        for (Request request : requests) {
+            everyone.add(request.getResident());
+        }
+        return new Plan(new ArrayList<>(), everyone);
+    }
+
+    /**
+     * Bed restriction matching a resident's gender
+     */
+    static Bed.GenderRestriction restrictionFor(Resident.Gender gender) {
+        if (gender == null) {
+            return Bed.GenderRestriction.None;
+        }
+        return gender == Resident.Gender.M ? Bed.GenderRestriction.Male : Bed.GenderRestriction.Female;
+    }
+
+    /**
+     * Whether the bed in a slot, and its room, may take the resident; occupancy and capacity are not checked
+     */
+    static boolean admits(BedOccupancyIndex.Snapshot snapshot, int slot, Resident resident) {
+        Bed.GenderRestriction restriction = restrictionFor(resident.getGender());
+        Bed.GenderRestriction own = snapshot.beds[slot].getGenderRestriction();
+        if (own != Bed.GenderRestriction.None && own != restriction) {
+            return false;
+        }
+        Room.GenderPreference preference = snapshot.roomPreferenceOfSlot[slot];
+        if (preference != Room.GenderPreference.Mixed && !preference.name().equals(restriction.name())) {
+            return false;
+        }
+        return !resident.isRequiresIsolation() || snapshot.isolationCapable.get(slot);
+    }
+
+    /**
+     * Occupancy of one snapshot plus the placements made so far in a plan
+     */
+    private static class Working {
+        private final BedOccupancyIndex.Snapshot snapshot;
+        private final BitSet taken;
+        private final Map<Long, RoomLoad> rooms = new HashMap<>();
+        private final Map<Bed.GenderRestriction, BitSet> allowed = new EnumMap<>(Bed.GenderRestriction.class);
+
+        Working(BedOccupancyIndex.Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.taken = (BitSet) snapshot.occupied.clone();
+            for (int slot = 0; slot < snapshot.beds.length; slot++) {
+                RoomLoad room = rooms.computeIfAbsent(snapshot.beds[slot].getRoomId(), RoomLoad::new);
+                if (snapshot.occupied.get(slot)) {
+                    room.add(snapshot.occupantGender[slot]);
+                }
+            }
+        }
+
+        Placement place(Request request) {
+            Resident resident = request.getResident();
+            BitSet candidates = candidates(request);
+            int bestSlot = -1;
+            int bestScore = Integer.MIN_VALUE;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                int score = score(slot, request);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestSlot = slot;
+                }
+            }
+            if (bestSlot < 0) {
+                return null;
+            }
+
+            taken.set(bestSlot);
+            rooms.get(snapshot.beds[bestSlot].getRoomId()).add(resident.getGender());
+            Bed bed = BedOccupancyIndex.copy(snapshot.beds[bestSlot]);
+            return new Placement(resident, bed, bestScore);
+        }
+
+        List<Bed> rank(Request request) {
+            BitSet candidates = candidates(request);
+            List<int[]> scored = new ArrayList<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                scored.add(new int[]{slot, score(slot, request)});
+            }
+            // Stable sort keeps ward, room, bed order among equal scores
+            scored.sort((a, b) -> Integer.compare(b[1], a[1]));
+            List<Bed> beds = new ArrayList<>(scored.size());
+            for (int[] entry : scored) {
+                beds.add(BedOccupancyIndex.copy(snapshot.beds[entry[0]]));
+            }
+            return beds;
+        }
+
+        /**
+         * Free beds the resident may take, in rooms that still have space
+         */
+        private BitSet candidates(Request request) {
+            Resident resident = request.getResident();
+            BitSet candidates = (BitSet) candidatesFor(resident.getGender()).clone();
+            if (resident.isRequiresIsolation()) {
+                candidates.and(snapshot.isolationCapable);
+            }
+            candidates.andNot(taken);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                RoomLoad room = rooms.get(snapshot.beds[slot].getRoomId());
+                if (room.occupants >= snapshot.roomCapacity.getOrDefault(room.roomId, Integer.MAX_VALUE)) {
+                    candidates.clear(slot);
+                }
+            }
+            return candidates;
+        }
+
+        private int score(int slot, Request request) {
+            Resident resident = request.getResident();
+            Bed bed = snapshot.beds[slot];
+            RoomLoad room = rooms.get(bed.getRoomId());
+            int score = 0;
+
+            if (resident.getGender() != null && room.occupants > 0) {
+                if (room.onlyGender(resident.getGender())) {
+                    score += SAME_GENDER_ROOM;
+                } else if (room.hasOtherThan(resident.getGender())) {
+                    score += MIXED_ROOM;
+                }
+            }
+            if (!resident.isRequiresIsolation() && snapshot.isolationCapable.get(slot)) {
+                score += ISOLATION_RESERVED;
+            }
+            boolean equipped = bed.getBedType() == Bed.BedType.Electric || bed.getBedType() == Bed.BedType.Special;
+            if (request.isHighCare()) {
+                if (bed.getBedType() == Bed.BedType.Electric) {
+                    score += ELECTRIC_FOR_HIGH_CARE;
+                } else if (bed.getBedType() == Bed.BedType.Special) {
+                    score += SPECIAL_FOR_HIGH_CARE;
+                }
+            } else if (equipped) {
+                score += EQUIPMENT_RESERVED;
+            }
+            return score;
+        }
+
+        /**
+         * Beds whose own restriction and room preference admit the gender; computed once per plan
+         */
+        private BitSet candidatesFor(Resident.Gender gender) {
+            Bed.GenderRestriction restriction = restrictionFor(gender);
+            return allowed.computeIfAbsent(restriction, r -> {
+                BitSet slots = (BitSet) snapshot.byRestriction.get(Bed.GenderRestriction.None).clone();
+                if (r != Bed.GenderRestriction.None) {
+                    slots.or(snapshot.byRestriction.get(r));
+                }
+                for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                    Room.GenderPreference preference = snapshot.roomPreferenceOfSlot[slot];
+                    boolean admits = preference == Room.GenderPreference.Mixed
+                            || (r != Bed.GenderRestriction.None && preference.name().equals(r.name()));
+                    if (!admits) {
+                        slots.clear(slot);
+                    }
+                }
+                return slots;
+            });
+        }
+    }
+
+    /**
+     * Residents in one room; occupants of unknown gender count towards capacity only
+     */
+    private static class RoomLoad {
+        private final Long roomId;
+        private int occupants;
+        private int male;
+        private int female;
+
+        RoomLoad(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        void add(Resident.Gender gender) {
+            occupants++;
+            if (gender == Resident.Gender.M) {
+                male++;
+            } else if (gender == Resident.Gender.F) {
+                female++;
+            }
+        }
+
+        boolean onlyGender(Resident.Gender gender) {
+            return gender == Resident.Gender.M ? male == occupants : female == occupants;
+        }
+
+        boolean hasOtherThan(Resident.Gender gender) {
+            return gender == Resident.Gender.M ? female > 0 : male > 0;
+        }
+    }
+
+    /**
+     * One resident to place
+     */
+    public static class Request {
+        private final Resident resident;
+        private final boolean highCare;
+
+        public Request(Resident resident, boolean highCare) {
+            this.resident = resident;
+            this.highCare = highCare;
+        }
+
+        public static Request of(Resident resident) {
+            return new Request(resident, false);
+        }
+
+        public Resident getResident() { return resident; }
+        public boolean isHighCare() { return highCare; }
+    }
+
+    /**
+     * Bed chosen for a resident
+     */
+    public static class Placement {
+        private final Resident resident;
+        private final Bed bed;
+        private final int score;
+
+        Placement(Resident resident, Bed bed, int score) {
+            this.resident = resident;
+            this.bed = bed;
+            this.score = score;
+        }
+
+        public Resident getResident() { return resident; }
+        public Bed getBed() { return bed; }
+        public int getScore() { return score; }
+    }
+
+    /**
+     * Outcome of placing a batch
+     */
+    public static class Plan {
+        private final List<Placement> placements;
+        private final List<Resident> unplaced;
+
+        Plan(List<Placement> placements, List<Resident> unplaced) {
+            this.placements = placements;
+            this.unplaced = unplaced;
+        }
+
+        public List<Placement> getPlacements() { return placements; }
+        public List<Resident> getUnplaced() { return unplaced; }
+        public boolean isComplete() { return unplaced.isEmpty(); }
+    }
+}
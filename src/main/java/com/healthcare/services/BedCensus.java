@@ -0,0 +1,492 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Historical bed census: who occupied which bed on any day
+ *
+ * Each resident's time in the facility is split into stays, one per bed, by
+ * replaying their admission, their Bed_Transfers and their discharge. A stay
+ * occupies its bed at the end of every day in [from, until).
+ *
+ * Stays are kept sorted by start with the latest end of every subtree
+ * (an implicit interval tree over the sorted array), so "who was in a bed on day
+ * X" visits only the stays that could overlap X. Per-ward Fenwick trees over days
+ * hold +1 at each stay's start and -1 at its end, so occupied beds in a ward on a
+ * day is a prefix sum and a year of daily counts one prefix plus a walk.
+ *
+ * Admissions, transfers and discharges are appended as they commit: the
+ * resident's open stay is closed and a new one opened. Appended stays sit in a
+ * short unsorted tail until it is worth re-sorting. The census reloads from the
+ * database when it is healthcare.census.ttlMillis old (default 10 min), to pick
+ * up other clients' changes.
+ */
+public class BedCensus {
+
+    static final String BEDS_SQL = "SELECT b.bed_id, rm.ward_id FROM Beds b JOIN Rooms rm ON rm.room_id = b.room_id";
+
+    static final String RESIDENTS_SQL =
+            "SELECT resident_id, admission_date, discharge_date, current_bed_id FROM Residents";
+
+    static final String TRANSFERS_SQL =
+            "SELECT resident_id, from_bed_id, to_bed_id, transfer_time FROM Bed_Transfers ORDER BY transfer_time, transfer_id";
+
+    // Open stays end here, after any day a query asks about
+    private static final int OPEN = Integer.MAX_VALUE;
+
+    // Spare days allocated past today, so appends rarely grow the day trees
+    private static final int SPARE_DAYS = 366;
+
+    private static volatile BedCensus shared;
+
+    private final long ttlMillis;
+    private Index index;  // guarded by this
+    private long loadedAt;
+
+    /**
+     * @param ttlMillis reload on the next read once the census is this old; 0 never reloads on age
+     */
+    public BedCensus(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Census shared by the report screens, created on first use
+     */
+    public static BedCensus getShared() {
+        BedCensus census = shared;
+        if (census == null) {
+            synchronized (BedCensus.class) {
+                census = shared;
+                if (census == null) {
+                    census = new BedCensus(Long.getLong("healthcare.census.ttlMillis", 600_000L));
+                    shared = census;
+                }
+            }
+        }
+        return census;
+    }
+
+    /**
+     * Apply a committed admission, transfer or discharge to the shared census, if it has been created
+     */
+    public static void updateShared(Consumer<BedCensus> change) {
+        BedCensus census = shared;
+        if (census != null) {
+            change.accept(census);
+        }
+    }
+
+    // Queries
+
+    /**
+     * Stays occupying a bed at the end of the given day, by bed
+     */
+    public synchronized List<Stay> findOccupants(LocalDate day) throws SQLException {
+        List<Stay> occupants = new ArrayList<>();
+        current().stab(toDay(day), occupants);
+        occupants.sort(Comparator.comparing(Stay::getBedId));
+        return occupants;
+    }
+
+    /**
+     * The stay occupying a bed at the end of the given day, if any
+     */
+    public synchronized Optional<Stay> findOccupant(Long bedId, LocalDate day) throws SQLException {
+        List<Stay> occupants = new ArrayList<>();
+        current().stab(toDay(day), occupants);
+        return occupants.stream().filter(stay -> bedId.equals(stay.bedId)).findFirst();
+    }
+
+    /**
+     * Beds occupied in a ward at the end of the given day
+     */
+    public synchronized int countOccupied(long wardId, LocalDate day) throws SQLException {
+        Index index = current();
+        WardDays ward = index.wards.get(wardId);
+        return ward != null ? ward.occupiedOn(index.offset(toDay(day))) : 0;
+    }
+
+    /**
+     * Beds occupied at the end of each day in [from, until), per ward; wards
+     * with no stays at all are left out
+     */
+    public synchronized Map<Long, int[]> countOccupiedByWard(LocalDate from, LocalDate until) throws SQLException {
+        Index index = current();
+        int first = index.offset(toDay(from));
+        int days = Math.max(0, toDay(until) - toDay(from));
+        Map<Long, int[]> counts = new HashMap<>();
+        index.wards.forEach((wardId, ward) -> counts.put(wardId, ward.occupiedOn(first, days)));
+        return counts;
+    }
+
+    // Appends; call once the change has committed
+
+    /**
+     * A resident was admitted, into the given bed or with none
+     */
+    public synchronized void admitted(Long residentId, Long bedId, LocalDate day) {
+        if (index != null && !index.open(residentId, bedId, toDay(day), true)) {
+            index = null;
+        }
+    }
+
+    /**
+     * A resident moved to another bed
+     */
+    public synchronized void transferred(Long residentId, Long toBedId, LocalDate day) {
+        if (index != null) {
+            int on = toDay(day);
+            index.close(residentId, on, false);
+            if (!index.open(residentId, toBedId, on, false)) {
+                index = null;
+            }
+        }
+    }
+
+    /**
+     * A resident was discharged
+     */
+    public synchronized void discharged(Long residentId, LocalDate day) {
+        if (index != null) {
+            index.close(residentId, toDay(day), true);
+        }
+    }
+
+    /**
+     * Reload from the database on the next read
+     */
+    public synchronized void invalidate() {
+        index = null;
+    }
+
+    private Index current() throws SQLException {
+        if (index == null || (ttlMillis > 0 && System.currentTimeMillis() - loadedAt > ttlMillis)) {
+            List<Stay> stays;
+            Map<Long, Long> wardOfBed;
+            try (Connection conn = DBConnection.getConnection()) {
+                wardOfBed = loadWards(conn);
+                stays = loadStays(conn, wardOfBed);
+            }
+            index = new Index(stays, wardOfBed);
+            loadedAt = System.currentTimeMillis();
+        }
+        return index;
+    }
+
+    // Loading; also used by DailyRollupService to backfill inside its own transaction
+
+    static Map<Long, Long> loadWards(Connection conn) throws SQLException {
+        Map<Long, Long> wardOfBed = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(BEDS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                wardOfBed.put(rs.getLong("bed_id"), rs.getLong("ward_id"));
+            }
+        }
+        return wardOfBed;
+    }
+
+    /**
+     * Every resident's stays. The first bed is the one they left on their first
+     * transfer, or their current bed if never moved; a resident discharged without
+     * ever being transferred no longer records a bed, so their stay has none.
+     * Stays without a bed, or in a bed no longer on a ward, are in ward 0.
+     */
+    static List<Stay> loadStays(Connection conn, Map<Long, Long> wardOfBed) throws SQLException {
+        Map<Long, List<Object[]>> transfersByResident = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(TRANSFERS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                transfersByResident.computeIfAbsent(rs.getLong("resident_id"), id -> new ArrayList<>()).add(new Object[]{
+                        rs.getObject("from_bed_id", Long.class), rs.getLong("to_bed_id"),
+                        toDay(rs.getTimestamp("transfer_time").toLocalDateTime().toLocalDate())});
+            }
+        }
+
+        List<Stay> stays = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(RESIDENTS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long residentId = rs.getLong("resident_id");
+                Date discharged = rs.getDate("discharge_date");
+                long currentBed = rs.getLong("current_bed_id");
+                List<Object[]> transfers = transfersByResident.getOrDefault(residentId, List.of());
+
+                Long bed = transfers.isEmpty() ? (currentBed > 0 ? currentBed : null) : (Long) transfers.get(0)[0];
+                int since = toDay(rs.getDate("admission_date").toLocalDate());
+                boolean admission = true;
+                for (Object[] transfer : transfers) {
+                    int on = (Integer) transfer[2];
+                    stays.add(new Stay(residentId, bed, wardOf(wardOfBed, bed), since, on, admission, false));
+                    bed = (Long) transfer[1];
+                    since = on;
+                    admission = false;
+                }
+                stays.add(new Stay(residentId, bed, wardOf(wardOfBed, bed), since,
+                        discharged != null ? toDay(discharged.toLocalDate()) : OPEN, admission, discharged != null));
+            }
+        }
+        return stays;
+    }
+
+    private static long wardOf(Map<Long, Long> wardOfBed, Long bed) {
+        return bed != null ? wardOfBed.getOrDefault(bed, 0L) : 0L;
+    }
+
+    private static int toDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    private static LocalDate toDate(int day) {
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Loaded stays with their interval tree and per-ward day trees
+     */
+    private static final class Index {
+        private final Map<Long, Long> wardOfBed;
+        private final List<Stay> all;
+        private final Map<Long, Stay> openByResident = new HashMap<>();
+        private Stay[] sorted;
+        private int[] maxEnd;
+        private final List<Stay> tail = new ArrayList<>();
+        private final int origin;
+        private final Map<Long, WardDays> wards = new HashMap<>();
+        private int capacity;
+
+        Index(List<Stay> stays, Map<Long, Long> wardOfBed) {
+            this.wardOfBed = wardOfBed;
+            this.all = new ArrayList<>(stays);
+            int today = toDay(LocalDate.now());
+            this.origin = stays.stream().mapToInt(stay -> stay.from).min().orElse(today);
+            this.capacity = today - origin + 1 + SPARE_DAYS;
+            for (Stay stay : stays) {
+                if (stay.until == OPEN) {
+                    openByResident.put(stay.residentId, stay);
+                }
+                count(stay);
+            }
+            sort();
+        }
+
+        int offset(int day) {
+            return day - origin;
+        }
+
+        /**
+         * Open a stay; false when it cannot be appended and the index must reload
+         * (an unknown bed, or a day before the first one indexed)
+         */
+        boolean open(Long residentId, Long bedId, int from, boolean admission) {
+            if (from < origin || (bedId != null && !wardOfBed.containsKey(bedId))) {
+                return false;
+            }
+            Stay stay = new Stay(residentId, bedId, wardOf(wardOfBed, bedId), from, OPEN, admission, false);
+            all.add(stay);
+            openByResident.put(residentId, stay);
+            tail.add(stay);
+            if (offset(from) >= capacity) {
+                capacity = offset(from) + 1 + SPARE_DAYS;
+                recount();
+            } else {
+                count(stay);
+            }
+            if (tail.size() > Math.max(64, sorted.length / 8)) {
+                sort();
+            }
+            return true;
+        }
+
+        /**
+         * Close a resident's open stay; its subtree end stays as an upper bound
+         */
+        void close(Long residentId, int until, boolean discharge) {
+            Stay stay = openByResident.remove(residentId);
+            if (stay != null) {
+                stay.until = Math.max(stay.from, until);
+                stay.discharged = discharge;
+                WardDays ward = stay.occupying() ? wards.get(stay.wardId) : null;
+                if (ward != null && offset(stay.until) < capacity) {
+                    ward.add(offset(stay.until), -1);
+                }
+            }
+        }
+
+        /**
+         * Add the stays occupying a bed at the end of the day to the list
+         */
+        void stab(int day, List<Stay> into) {
+            stab(0, sorted.length, day, into);
+            for (Stay stay : tail) {
+                if (stay.occupying() && stay.covers(day)) {
+                    into.add(stay.copy());
+                }
+            }
+        }
+
+        private void stab(int lo, int hi, int day, List<Stay> into) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] <= day) {
+                return;
+            }
+            stab(lo, mid, day, into);
+            Stay stay = sorted[mid];
+            if (stay.from <= day) {
+                if (stay.occupying() && stay.covers(day)) {
+                    into.add(stay.copy());
+                }
+                stab(mid + 1, hi, day, into);
+            }
+        }
+
+        private void sort() {
+            sorted = all.toArray(new Stay[0]);
+            Arrays.sort(sorted, Comparator.comparingInt((Stay stay) -> stay.from).thenComparingLong(stay -> stay.residentId));
+            maxEnd = new int[sorted.length];
+            buildMaxEnd(0, sorted.length);
+            tail.clear();
+        }
+
+        private int buildMaxEnd(int lo, int hi) {
+            if (lo >= hi) {
+                return Integer.MIN_VALUE;
+            }
+            int mid = (lo + hi) >>> 1;
+            maxEnd[mid] = Math.max(sorted[mid].until, Math.max(buildMaxEnd(lo, mid), buildMaxEnd(mid + 1, hi)));
+            return maxEnd[mid];
+        }
+
+        private void recount() {
+            wards.clear();
+            for (Stay stay : all) {
+                count(stay);
+            }
+        }
+
+        private void count(Stay stay) {
+            if (!stay.occupying()) {
+                return;
+            }
+            WardDays ward = wards.computeIfAbsent(stay.wardId, id -> new WardDays(capacity));
+            ward.add(offset(stay.from), 1);
+            if (stay.until != OPEN && offset(stay.until) < capacity) {
+                ward.add(offset(stay.until), -1);
+            }
+        }
+    }
+
+    /**
+     * One ward's occupancy changes per day, as a Fenwick tree with the plain deltas alongside
+     */
+    private static final class WardDays {
+        private final int[] tree;
+        private final int[] deltas;
+
+        WardDays(int days) {
+            this.tree = new int[days + 1];
+            this.deltas = new int[days];
+        }
+
+        void add(int day, int delta) {
+            deltas[day] += delta;
+            for (int i = day + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        int occupiedOn(int day) {
+            if (day < 0) {
+                return 0;
+            }
+            int sum = 0;
+            for (int i = Math.min(day + 1, deltas.length); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        int[] occupiedOn(int first, int days) {
+            int[] counts = new int[days];
+            int occupied = occupiedOn(first - 1);
+            for (int i = 0; i < days; i++) {
+                int day = first + i;
+                if (day >= 0 && day < deltas.length) {
+                    occupied += deltas[day];
+                }
+                counts[i] = occupied;
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * A resident's time in one bed, or with none; until is null while they are still there
+     */
+    public static final class Stay {
+        private final long residentId;
+        private final Long bedId;
+        private final long wardId;
+        private final int from;
+        private int until;
+        private final boolean admission;
+        private boolean discharged;
+
+        Stay(long residentId, Long bedId, long wardId, int from, int until, boolean admission, boolean discharged) {
+            this.residentId = residentId;
+            this.bedId = bedId;
+            this.wardId = wardId;
+            this.from = from;
+            this.until = until;
+            this.admission = admission;
+            this.discharged = discharged;
+        }
+
+        public long getResidentId() { return residentId; }
+        public Long getBedId() { return bedId; }
+        public long getWardId() { return wardId; }
+        public LocalDate getFrom() { return toDate(from); }
+        public LocalDate getUntil() { return until != OPEN ? toDate(until) : null; }
+
+        /**
+         * Whether the stay began with an admission rather than a transfer
+         */
+        public boolean isAdmission() { return admission; }
+
+        /**
+         * Whether the stay ended with a discharge rather than a transfer
+         */
+        public boolean isDischarged() { return discharged; }
+
+        boolean occupying() {
+            return bedId != null && wardId != 0;
+        }
+
+        boolean covers(int day) {
+            return from <= day && day < until;
+        }
+
+        Stay copy() {
+            return new Stay(residentId, bedId, wardId, from, until, admission, discharged);
+        }
+    }
+}
@@ -1,21 +1,44 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Bed;
 import com.healthcare.model.Resident;
 import com.healthcare.services.impl.IBedManagementService;
 
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Enhanced Bed Management Service Implementation
- * Handles complex bed assignment logic based on healthcare requirements
+ * Handles complex bed assignment logic based on healthcare requirements.
+ * Counts and availability lists are answered from the shared BedOccupancyIndex;
+ * single-bed lookups used while assigning still read the database.
  */
 public class BedManagementService implements IBedManagementService {
 
+    private final BedOccupancyIndex occupancy;
+    private final WardTopology topology;
+    private final DailyRollupService rollups;
+    private final BedAllocationEngine allocation;
+
+    public BedManagementService() {
+        this(BedOccupancyIndex.getShared());
+    }
+
+    public BedManagementService(BedOccupancyIndex occupancy) {
+        this(occupancy, WardTopology.getShared(), new DailyRollupService(), new BedAllocationEngine(occupancy));
+    }
+
+    public BedManagementService(BedOccupancyIndex occupancy, WardTopology topology, DailyRollupService rollups,
+                                BedAllocationEngine allocation) {
+        this.occupancy = occupancy;
+        this.topology = topology;
+        this.rollups = rollups;
+        this.allocation = allocation;
+    }
+
     @Override
     public Bed save(Bed bed) {
         String sql = "INSERT INTO Beds (room_id, bed_number, bed_code, bed_type, is_occupied, occupied_by, gender_restriction, isolation_required) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
@@ -34,10 +57,12 @@ public class BedManagementService implements IBedManagementService {
             
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
-                ResultSet generatedKeys = stmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    bed.setBedId(generatedKeys.getLong(1));
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        bed.setBedId(generatedKeys.getLong(1));
+                    }
                 }
+                UnitOfWork.afterCommit(this::topologyChanged);
             }
             return bed;
             
@@ -57,10 +82,10 @@ public class BedManagementService implements IBedManagementService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, id);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return Optional.of(mapResultSetToBed(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToBed(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -72,24 +97,7 @@ public class BedManagementService implements IBedManagementService {
 
     @Override
     public List<Bed> findAll() {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding all beds: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAll();
     }
 
     @Override
@@ -101,6 +109,7 @@ public class BedManagementService implements IBedManagementService {
             
             stmt.setLong(1, id);
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(this::topologyChanged);
             
         } catch (SQLException e) {
             System.err.println("Error deleting bed: " + e.getMessage());
@@ -110,7 +119,7 @@ public class BedManagementService implements IBedManagementService {
     @Override
     public Bed update(Bed bed) {
         String sql = "UPDATE Beds SET room_id = ?, bed_number = ?, bed_type = ?, is_occupied = ?, " +
-                    "occupied_by = ?, gender_restriction = ?, isolation_required = ? WHERE bed_id = ?";
+                    "occupied_by = ?, gender_restriction = ?, isolation_required = ?, version = version + 1 WHERE bed_id = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -125,6 +134,7 @@ public class BedManagementService implements IBedManagementService {
             stmt.setLong(8, bed.getBedId());
             
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(this::topologyChanged);
             return bed;
             
         } catch (SQLException e) {
@@ -135,207 +145,66 @@ public class BedManagementService implements IBedManagementService {
 
     @Override
     public List<Bed> findByWard(String wardName) {
-        // Since we only have 2 fixed wards, we'll use ward_id instead
-        int wardId = wardName.equals("Ward 1") ? 1 : 2;
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE r.ward_id = ? ORDER BY r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, wardId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding beds by ward: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findByWard(wardName);
     }
 
     @Override
     public List<Bed> findByRoom(Long roomId) {
-        String sql = "SELECT b.*, r.room_number, r.ward_id, w.ward_name FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "JOIN Wards w ON r.ward_id = w.ward_id " +
-                    "WHERE b.room_id = ? ORDER BY b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, roomId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding beds by room: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findByRoom(roomId);
     }
 
     @Override
     public List<Bed> findAvailableBeds() {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE b.is_occupied = FALSE ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding available beds: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailable();
     }
 
     @Override
     public List<Bed> findAvailableBedsByWard(String wardName) {
-        int wardId = wardName.equals("Ward 1") ? 1 : 2;
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE r.ward_id = ? AND b.is_occupied = FALSE " +
-                    "ORDER BY r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, wardId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding available beds by ward: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailableInWard(wardName);
     }
 
     @Override
     public List<Bed> findSuitableBeds(Resident resident) {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE b.is_occupied = FALSE " +
-                    "AND (b.gender_restriction = 'None' OR b.gender_restriction = ?) " +
-                    "AND (b.isolation_required = ? OR ? = FALSE) " +
-                    "ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, resident.getGender().name());
-            stmt.setBoolean(2, resident.isRequiresIsolation());
-            stmt.setBoolean(3, resident.isRequiresIsolation());
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding suitable beds: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailableFor(BedAllocationEngine.restrictionFor(resident.getGender()), resident.isRequiresIsolation());
     }
 
     @Override
     public List<Bed> findBedsForGender(Resident.Gender gender) {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE b.is_occupied = FALSE " +
-                    "AND (b.gender_restriction = 'None' OR b.gender_restriction = ?) " +
-                    "ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, gender.name());
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding beds for gender: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailableFor(BedAllocationEngine.restrictionFor(gender), false);
     }
 
     @Override
     public List<Bed> findIsolationBeds() {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE b.isolation_required = TRUE AND b.is_occupied = FALSE " +
-                    "ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding isolation beds: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailableIsolation();
     }
 
     @Override
     public List<Bed> findStandardBeds() {
-        String sql = "SELECT b.*, r.room_number, r.ward_id FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE b.bed_type = 'Standard' AND b.is_occupied = FALSE " +
-                    "ORDER BY r.ward_id, r.room_number, b.bed_number";
-        List<Bed> bedList = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                bedList.add(mapResultSetToBed(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error finding standard beds: " + e.getMessage());
-        }
-        
-        return bedList;
+        return occupancy.findAvailableOfType(Bed.BedType.Standard);
     }
 
     @Override
     public boolean assignResidentToBed(Long bedId, Long residentId) {
-        String sql = "UPDATE Beds SET is_occupied = TRUE, occupied_by = ? WHERE bed_id = ? AND is_occupied = FALSE";
+        return assign(bedId, residentId, null);
+    }
+
+    /**
+     * Assign a bed to a resident whose gender is known, so room cohesion is tracked without a reload
+     */
+    public boolean assignResidentToBed(Long bedId, Resident resident) {
+        return assign(bedId, resident.getResidentId(), resident.getGender());
+    }
+
+    /**
+     * Reserve the best suitable bed, updating the bed and the resident together
+     */
+    @Override
+    public boolean assignResidentToSuitableBed(Resident resident) {
+        return allocation.reserve(resident, false) != null;
+    }
+
+    private boolean assign(Long bedId, Long residentId, Resident.Gender gender) {
+        String sql = "UPDATE Beds SET is_occupied = TRUE, occupied_by = ?, version = version + 1 WHERE bed_id = ? AND is_occupied = FALSE";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -344,6 +213,11 @@ public class BedManagementService implements IBedManagementService {
             stmt.setLong(2, bedId);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                rollups.bedsChanged();
+                UnitOfWork.afterCommit(() -> occupancy.markOccupied(bedId, residentId, gender));
+                UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -352,28 +226,19 @@ public class BedManagementService implements IBedManagementService {
         }
     }
 
-    @Override
-    public boolean assignResidentToSuitableBed(Resident resident) {
-        List<Bed> suitableBeds = findSuitableBeds(resident);
-        
-        if (suitableBeds.isEmpty()) {
-            return false;
-        }
-        
-        // Assign to first suitable bed
-        Bed selectedBed = suitableBeds.get(0);
-        return assignResidentToBed(selectedBed.getBedId(), resident.getResidentId());
-    }
-
     @Override
     public void unassignBed(Long bedId) {
-        String sql = "UPDATE Beds SET is_occupied = FALSE, occupied_by = NULL WHERE bed_id = ?";
+        String sql = "UPDATE Beds SET is_occupied = FALSE, occupied_by = NULL, version = version + 1 WHERE bed_id = ?";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, bedId);
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                rollups.bedsChanged();
+                UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+            }
+            UnitOfWork.afterCommit(() -> occupancy.markVacant(bedId));
             
         } catch (SQLException e) {
             System.err.println("Error unassigning bed: " + e.getMessage());
@@ -411,10 +276,10 @@ public class BedManagementService implements IBedManagementService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, bedId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
             
         } catch (SQLException e) {
@@ -426,107 +291,35 @@ public class BedManagementService implements IBedManagementService {
 
     @Override
     public int getTotalBeds() {
-        String sql = "SELECT COUNT(*) FROM Beds";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting total beds: " + e.getMessage());
-        }
-        
-        return 0;
+        return occupancy.getTotalBeds();
     }
 
     @Override
     public int getAvailableBeds() {
-        String sql = "SELECT COUNT(*) FROM Beds WHERE is_occupied = FALSE";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting available beds: " + e.getMessage());
-        }
-        
-        return 0;
+        return occupancy.getAvailableBeds();
     }
 
     @Override
     public int getOccupiedBeds() {
-        String sql = "SELECT COUNT(*) FROM Beds WHERE is_occupied = TRUE";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting occupied beds: " + e.getMessage());
-        }
-        
-        return 0;
+        return occupancy.getOccupiedBeds();
     }
 
     @Override
     public int getBedsByWard(String wardName) {
-        int wardId = wardName.equals("Ward 1") ? 1 : 2;
-        String sql = "SELECT COUNT(*) FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE r.ward_id = ?";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, wardId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting beds by ward: " + e.getMessage());
-        }
-        
-        return 0;
+        return occupancy.getBedsInWard(wardName);
     }
 
     @Override
     public int getAvailableBedsByWard(String wardName) {
-        int wardId = wardName.equals("Ward 1") ? 1 : 2;
-        String sql = "SELECT COUNT(*) FROM Beds b " +
-                    "JOIN Rooms r ON b.room_id = r.room_id " +
-                    "WHERE r.ward_id = ? AND b.is_occupied = FALSE";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, wardId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting available beds by ward: " + e.getMessage());
-        }
-        
-        return 0;
+        return occupancy.getAvailableBedsInWard(wardName);
+    }
+
+    /**
+     * A bed was added, removed or edited (possibly moved to another room)
+     */
+    private void topologyChanged() {
+        occupancy.invalidate();
+        topology.invalidate();
     }
 
     private Bed mapResultSetToBed(ResultSet rs) throws SQLException {
@@ -543,6 +336,7 @@ public class BedManagementService implements IBedManagementService {
         
         bed.setGenderRestriction(Bed.GenderRestriction.valueOf(rs.getString("gender_restriction")));
         bed.setIsolationRequired(rs.getBoolean("isolation_required"));
+        bed.setVersion(rs.getInt("version"));
         
         // Set additional info from joins
         bed.setRoomNumber(rs.getString("room_number"));
@@ -0,0 +1,515 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.Bed;
+import com.healthcare.model.Resident;
+import com.healthcare.model.Room;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory index of beds and their occupancy
+ *
+ * Every bed gets a slot (in ward, room, bed number order). Per-ward and per-room
+ * bitsets of slots, a bitset of occupied slots and lookups by bed_id and bed_code
+ * make availability counts plain field reads; availability lists only visit the
+ * matching slots.
+ *
+ * The index is an immutable snapshot behind an AtomicReference, so dashboards
+ * read it without locking. BedManagementService publishes a new snapshot with the
+ * changed bit once an assignment or release commits. A background task reloads
+ * the index from the database to pick up changes made by other clients; a reload
+ * that raced with a local change is dropped and retried on the next run.
+ *
+ * Reconcile interval: healthcare.beds.reconcileIntervalMillis
+ */
+public class BedOccupancyIndex implements AutoCloseable {
+
+    static final String LOAD_SQL = "SELECT b.*, r.room_number, r.ward_id, r.room_type, r.gender_preference, r.max_capacity, " +
+            "w.ward_name, res.gender AS occupant_gender FROM Beds b " +
+            "JOIN Rooms r ON b.room_id = r.room_id " +
+            "JOIN Wards w ON r.ward_id = w.ward_id " +
+            "LEFT JOIN Residents res ON b.occupied_by = res.resident_id " +
+            "ORDER BY r.ward_id, r.room_number, b.bed_number";
+
+    private static final Snapshot EMPTY = new Snapshot(new Bed[0], new String[0], new Room.RoomType[0],
+            new Room.GenderPreference[0], new HashMap<>(), new Resident.Gender[0], new BitSet());
+
+    private static volatile BedOccupancyIndex shared;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService reconciler;
+    private volatile boolean stale;
+
+    /**
+     * Create an index; it loads on first read
+     * @param reconcileIntervalMillis how often to reload from the database; 0 disables the background reload
+     */
+    public BedOccupancyIndex(long reconcileIntervalMillis) {
+        if (reconcileIntervalMillis > 0) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bed-index-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.reconciler.scheduleWithFixedDelay(this::reconcile,
+                    reconcileIntervalMillis, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.reconciler = null;
+        }
+    }
+
+    /**
+     * Index shared by the bed services, created on first use
+     */
+    public static BedOccupancyIndex getShared() {
+        BedOccupancyIndex index = shared;
+        if (index == null) {
+            synchronized (BedOccupancyIndex.class) {
+                index = shared;
+                if (index == null) {
+                    index = new BedOccupancyIndex(Long.getLong("healthcare.beds.reconcileIntervalMillis", 60_000L));
+                    shared = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Stop the shared index's reconciler; called on application shutdown
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    // Counts
+
+    public int getTotalBeds() {
+        return snapshot().beds.length;
+    }
+
+    public int getOccupiedBeds() {
+        return snapshot().occupiedCount;
+    }
+
+    public int getAvailableBeds() {
+        Snapshot snapshot = snapshot();
+        return snapshot.beds.length - snapshot.occupiedCount;
+    }
+
+    public int getBedsInWard(String wardName) {
+        BitSet slots = snapshot().wardSlots.get(wardName);
+        return slots != null ? slots.cardinality() : 0;
+    }
+
+    public int getAvailableBedsInWard(String wardName) {
+        Snapshot snapshot = snapshot();
+        BitSet slots = snapshot.wardSlots.get(wardName);
+        return slots != null ? slots.cardinality() - snapshot.wardOccupied.getOrDefault(wardName, 0) : 0;
+    }
+
+    // Lookups; every call returns fresh copies the caller may modify
+
+    public List<Bed> findAll() {
+        Snapshot snapshot = snapshot();
+        List<Bed> beds = new ArrayList<>(snapshot.beds.length);
+        for (Bed bed : snapshot.beds) {
+            beds.add(copy(bed));
+        }
+        return beds;
+    }
+
+    public Optional<Bed> findById(Long bedId) {
+        Snapshot snapshot = snapshot();
+        Integer slot = snapshot.slotById.get(bedId);
+        return slot != null ? Optional.of(copy(snapshot.beds[slot])) : Optional.empty();
+    }
+
+    public Optional<Bed> findByCode(String bedCode) {
+        Snapshot snapshot = snapshot();
+        Integer slot = snapshot.slotByCode.get(bedCode);
+        return slot != null ? Optional.of(copy(snapshot.beds[slot])) : Optional.empty();
+    }
+
+    /**
+     * Bed a resident is in, as far as the index knows
+     */
+    public Optional<Bed> findByOccupant(Long residentId) {
+        Snapshot snapshot = snapshot();
+        Integer slot = snapshot.slotByOccupant.get(residentId);
+        return slot != null ? Optional.of(copy(snapshot.beds[slot])) : Optional.empty();
+    }
+
+    public List<Bed> findByWard(String wardName) {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.wardSlots.get(wardName), false);
+    }
+
+    public List<Bed> findByRoom(Long roomId) {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.roomSlots.get(roomId), false);
+    }
+
+    public List<Bed> findAvailable() {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.allSlots, true);
+    }
+
+    public List<Bed> findAvailableInWard(String wardName) {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.wardSlots.get(wardName), true);
+    }
+
+    /**
+     * Free beds a resident of the given gender may use: unrestricted ones and ones restricted to that gender
+     * @param isolationOnly only beds with isolation
+     */
+    public List<Bed> findAvailableFor(Bed.GenderRestriction gender, boolean isolationOnly) {
+        Snapshot snapshot = snapshot();
+        BitSet slots = (BitSet) snapshot.byRestriction.get(Bed.GenderRestriction.None).clone();
+        if (gender != null && gender != Bed.GenderRestriction.None) {
+            slots.or(snapshot.byRestriction.get(gender));
+        }
+        if (isolationOnly) {
+            slots.and(snapshot.isolation);
+        }
+        return collect(snapshot, slots, true);
+    }
+
+    public List<Bed> findAvailableIsolation() {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.isolation, true);
+    }
+
+    public List<Bed> findAvailableOfType(Bed.BedType bedType) {
+        Snapshot snapshot = snapshot();
+        return collect(snapshot, snapshot.byType.get(bedType), true);
+    }
+
+    // Updates
+
+    /**
+     * Record that a committed update put a resident in a bed
+     */
+    public void markOccupied(Long bedId, Long residentId) {
+        setOccupancy(bedId, residentId, null);
+    }
+
+    /**
+     * Record that a committed update put a resident of a known gender in a bed
+     */
+    public void markOccupied(Long bedId, Long residentId, Resident.Gender gender) {
+        setOccupancy(bedId, residentId, gender);
+    }
+
+    /**
+     * Record that a committed update freed a bed
+     */
+    public void markVacant(Long bedId) {
+        setOccupancy(bedId, null, null);
+    }
+
+    /**
+     * Drop the index so the next read reloads it, e.g. after beds are added, edited or removed
+     */
+    public void invalidate() {
+        synchronized (writeLock) {
+            modifications.incrementAndGet();
+            stale = true;
+        }
+    }
+
+    /**
+     * Reload from the database
+     * @return false if the load failed or a local change landed while it ran
+     */
+    public boolean reconcile() {
+        long seen = modifications.get();
+        Snapshot loaded;
+        try (Connection conn = DBConnection.getDetachedConnection();
+             PreparedStatement stmt = conn.prepareStatement(LOAD_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            loaded = load(rs);
+        } catch (SQLException e) {
+            System.err.println("Error loading bed occupancy index: " + e.getMessage());
+            return false;
+        }
+        synchronized (writeLock) {
+            if (modifications.get() != seen) {
+                return false;
+            }
+            current.set(loaded);
+            stale = false;
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * Current state, loading it if needed; never null
+     */
+    Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        // A reload can be dropped when it races with an update, so try a few times
+        for (int attempt = 0; (snapshot == null || stale) && attempt < 3; attempt++) {
+            reconcile();
+            snapshot = current.get();
+        }
+        return snapshot != null ? snapshot : EMPTY;
+    }
+
+    private void setOccupancy(Long bedId, Long residentId, Resident.Gender gender) {
+        synchronized (writeLock) {
+            modifications.incrementAndGet();
+            Snapshot snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+            Integer slot = snapshot.slotById.get(bedId);
+            if (slot == null) {
+                // A bed this index has not seen yet
+                stale = true;
+                return;
+            }
+            current.set(snapshot.withOccupancy(slot, residentId, gender));
+        }
+    }
+
+    private static List<Bed> collect(Snapshot snapshot, BitSet slots, boolean freeOnly) {
+        if (slots == null) {
+            return new ArrayList<>();
+        }
+        List<Bed> beds = new ArrayList<>();
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            if (!freeOnly || !snapshot.occupied.get(slot)) {
+                beds.add(copy(snapshot.beds[slot]));
+            }
+        }
+        return beds;
+    }
+
+    private static Snapshot load(ResultSet rs) throws SQLException {
+        List<Bed> beds = new ArrayList<>();
+        List<String> wards = new ArrayList<>();
+        List<Room.RoomType> roomTypes = new ArrayList<>();
+        List<Room.GenderPreference> roomPreferences = new ArrayList<>();
+        List<Resident.Gender> occupantGenders = new ArrayList<>();
+        Map<Long, Integer> roomCapacity = new HashMap<>();
+        BitSet occupied = new BitSet();
+        while (rs.next()) {
+            Bed bed = new Bed();
+            bed.setBedId(rs.getLong("bed_id"));
+            bed.setRoomId(rs.getLong("room_id"));
+            bed.setBedNumber(rs.getString("bed_number"));
+            bed.setBedCode(rs.getString("bed_code"));
+            bed.setBedType(Bed.BedType.valueOf(rs.getString("bed_type")));
+            bed.setOccupied(rs.getBoolean("is_occupied"));
+            long occupiedBy = rs.getLong("occupied_by");
+            bed.setOccupiedBy(occupiedBy > 0 ? occupiedBy : null);
+            bed.setGenderRestriction(Bed.GenderRestriction.valueOf(rs.getString("gender_restriction")));
+            bed.setIsolationRequired(rs.getBoolean("isolation_required"));
+            bed.setVersion(rs.getInt("version"));
+            if (rs.getTimestamp("last_cleaned") != null) {
+                bed.setLastCleaned(rs.getTimestamp("last_cleaned").toLocalDateTime());
+            }
+            if (bed.isOccupied()) {
+                occupied.set(beds.size());
+            }
+            beds.add(bed);
+            wards.add(rs.getString("ward_name"));
+            String roomType = rs.getString("room_type");
+            roomTypes.add(roomType != null ? Room.RoomType.valueOf(roomType) : Room.RoomType.Standard);
+            String preference = rs.getString("gender_preference");
+            roomPreferences.add(preference != null ? Room.GenderPreference.valueOf(preference) : Room.GenderPreference.Mixed);
+            String occupantGender = rs.getString("occupant_gender");
+            occupantGenders.add(bed.isOccupied() && occupantGender != null ? Resident.Gender.valueOf(occupantGender) : null);
+            int capacity = rs.getInt("max_capacity");
+            roomCapacity.put(bed.getRoomId(), rs.wasNull() ? Integer.MAX_VALUE : capacity);
+        }
+        return new Snapshot(beds.toArray(new Bed[0]), wards.toArray(new String[0]),
+                roomTypes.toArray(new Room.RoomType[0]), roomPreferences.toArray(new Room.GenderPreference[0]),
+                roomCapacity, occupantGenders.toArray(new Resident.Gender[0]), occupied);
+    }
+
+    static Bed copy(Bed bed) {
+        Bed copy = new Bed();
+        copy.setBedId(bed.getBedId());
+        copy.setRoomId(bed.getRoomId());
+        copy.setBedNumber(bed.getBedNumber());
+        copy.setBedCode(bed.getBedCode());
+        copy.setBedType(bed.getBedType());
+        copy.setOccupied(bed.isOccupied());
+        copy.setOccupiedBy(bed.getOccupiedBy());
+        copy.setGenderRestriction(bed.getGenderRestriction());
+        copy.setIsolationRequired(bed.isIsolationRequired());
+        copy.setLastCleaned(bed.getLastCleaned());
+        copy.setVersion(bed.getVersion());
+        return copy;
+    }
+
+    /**
+     * One immutable state of the index. Only occupancy changes between loads, so
+     * a new state shares the slot layout with the one it replaces.
+     */
+    static final class Snapshot {
+        final Bed[] beds;
+        final String[] wardOfSlot;
+        final Room.RoomType[] roomTypeOfSlot;
+        final Room.GenderPreference[] roomPreferenceOfSlot;
+        final Map<Long, Integer> roomCapacity;
+        final Resident.Gender[] occupantGender;
+        final BitSet occupied;
+        final int occupiedCount;
+        final Map<String, Integer> wardOccupied;
+        final Map<Long, Integer> slotByOccupant;
+
+        final BitSet allSlots;
+        final Map<Long, Integer> slotById;
+        final Map<String, Integer> slotByCode;
+        final Map<String, BitSet> wardSlots;
+        final Map<Long, BitSet> roomSlots;
+        final Map<Bed.GenderRestriction, BitSet> byRestriction;
+        final Map<Bed.BedType, BitSet> byType;
+        final BitSet isolation;
+        final BitSet isolationCapable;
+
+        Snapshot(Bed[] beds, String[] wardOfSlot, Room.RoomType[] roomTypeOfSlot,
+                 Room.GenderPreference[] roomPreferenceOfSlot, Map<Long, Integer> roomCapacity,
+                 Resident.Gender[] occupantGender, BitSet occupied) {
+            this.beds = beds;
+            this.wardOfSlot = wardOfSlot;
+            this.roomTypeOfSlot = roomTypeOfSlot;
+            this.roomPreferenceOfSlot = roomPreferenceOfSlot;
+            this.roomCapacity = Collections.unmodifiableMap(roomCapacity);
+            this.occupantGender = occupantGender;
+            this.occupied = occupied;
+            this.allSlots = new BitSet(beds.length);
+            this.slotById = new HashMap<>();
+            this.slotByCode = new HashMap<>();
+            this.wardSlots = new HashMap<>();
+            this.roomSlots = new HashMap<>();
+            this.byRestriction = new EnumMap<>(Bed.GenderRestriction.class);
+            this.byType = new EnumMap<>(Bed.BedType.class);
+            this.isolation = new BitSet(beds.length);
+            this.isolationCapable = new BitSet(beds.length);
+            for (Bed.GenderRestriction restriction : Bed.GenderRestriction.values()) {
+                byRestriction.put(restriction, new BitSet(beds.length));
+            }
+            for (Bed.BedType type : Bed.BedType.values()) {
+                byType.put(type, new BitSet(beds.length));
+            }
+
+            Map<String, Integer> occupiedPerWard = new HashMap<>();
+            Map<Long, Integer> occupants = new HashMap<>();
+            for (int slot = 0; slot < beds.length; slot++) {
+                Bed bed = beds[slot];
+                allSlots.set(slot);
+                slotById.put(bed.getBedId(), slot);
+                slotByCode.put(bed.getBedCode(), slot);
+                wardSlots.computeIfAbsent(wardOfSlot[slot], k -> new BitSet()).set(slot);
+                roomSlots.computeIfAbsent(bed.getRoomId(), k -> new BitSet()).set(slot);
+                byRestriction.get(bed.getGenderRestriction()).set(slot);
+                byType.get(bed.getBedType()).set(slot);
+                if (bed.isIsolationRequired()) {
+                    isolation.set(slot);
+                }
+                if (bed.isIsolationRequired() || roomTypeOfSlot[slot] == Room.RoomType.Isolation) {
+                    isolationCapable.set(slot);
+                }
+                if (occupied.get(slot)) {
+                    occupiedPerWard.merge(wardOfSlot[slot], 1, Integer::sum);
+                    if (bed.getOccupiedBy() != null) {
+                        occupants.put(bed.getOccupiedBy(), slot);
+                    }
+                }
+            }
+            this.occupiedCount = occupied.cardinality();
+            this.wardOccupied = Collections.unmodifiableMap(occupiedPerWard);
+            this.slotByOccupant = Collections.unmodifiableMap(occupants);
+        }
+
+        private Snapshot(Snapshot layout, Bed[] beds, Resident.Gender[] occupantGender, BitSet occupied,
+                         Map<String, Integer> wardOccupied, Map<Long, Integer> slotByOccupant) {
+            this.beds = beds;
+            this.wardOfSlot = layout.wardOfSlot;
+            this.roomTypeOfSlot = layout.roomTypeOfSlot;
+            this.roomPreferenceOfSlot = layout.roomPreferenceOfSlot;
+            this.roomCapacity = layout.roomCapacity;
+            this.occupantGender = occupantGender;
+            this.occupied = occupied;
+            this.occupiedCount = occupied.cardinality();
+            this.wardOccupied = wardOccupied;
+            this.slotByOccupant = slotByOccupant;
+            this.allSlots = layout.allSlots;
+            this.slotById = layout.slotById;
+            this.slotByCode = layout.slotByCode;
+            this.wardSlots = layout.wardSlots;
+            this.roomSlots = layout.roomSlots;
+            this.byRestriction = layout.byRestriction;
+            this.byType = layout.byType;
+            this.isolation = layout.isolation;
+            this.isolationCapable = layout.isolationCapable;
+        }
+
+        /**
+         * Copy of this state with one bed occupied by a resident, or freed if residentId is null
+         */
+        Snapshot withOccupancy(int slot, Long residentId, Resident.Gender gender) {
+            boolean nowOccupied = residentId != null;
+            Bed[] newBeds = beds.clone();
+            Bed bed = copy(beds[slot]);
+            bed.setOccupied(nowOccupied);
+            bed.setOccupiedBy(residentId);
+            // Same bump as the UPDATE that was committed
+            bed.setVersion(bed.getVersion() + 1);
+            newBeds[slot] = bed;
+            Resident.Gender[] newGenders = occupantGender.clone();
+            newGenders[slot] = gender;
+
+            BitSet newOccupied = (BitSet) occupied.clone();
+            newOccupied.set(slot, nowOccupied);
+            Map<String, Integer> newWardOccupied = new HashMap<>(wardOccupied);
+            if (occupied.get(slot) != nowOccupied) {
+                newWardOccupied.merge(wardOfSlot[slot], nowOccupied ? 1 : -1, Integer::sum);
+            }
+            Map<Long, Integer> newOccupants = new HashMap<>(slotByOccupant);
+            Long previous = beds[slot].getOccupiedBy();
+            if (previous != null) {
+                newOccupants.remove(previous, slot);
+            }
+            if (residentId != null) {
+                newOccupants.put(residentId, slot);
+            }
+            return new Snapshot(this, newBeds, newGenders, newOccupied, Collections.unmodifiableMap(newWardOccupied),
+                    Collections.unmodifiableMap(newOccupants));
+        }
+    }
+}
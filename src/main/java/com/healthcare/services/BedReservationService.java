@@ -0,0 +1,249 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import com.healthcare.model.Resident;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Optimistic bed reservations
+ *
+ * A claim moves a bed and a resident together, on one connection in one
+ * transaction: the Beds row is compare-and-set on its version and on being free,
+ * then the Residents row on still having the bed the caller expected. Nothing is
+ * locked in advance; a claim that lost a race sees zero rows updated.
+ *
+ * When the bed changed but is still free, the claim re-reads its version and
+ * tries again after a randomised back-off, a bounded number of times. When the
+ * bed has been taken, reserveFirst() falls back to the next-best candidate. If the
+ * resident was moved by someone else, the transaction is rolled back (the caller's
+ * unit of work, if it joined one, is left rollback-only) and the claim gives up.
+ *
+ * Retries: healthcare.beds.claimAttempts, healthcare.beds.claimBackoffMillis
+ */
+public class BedReservationService {
+
+    static final String CLAIM_BED_SQL = "UPDATE Beds SET is_occupied = TRUE, occupied_by = ?, version = version + 1 " +
+            "WHERE bed_id = ? AND version = ? AND is_occupied = FALSE";
+    static final String BED_STATE_SQL = "SELECT version, is_occupied FROM Beds WHERE bed_id = ?";
+
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    private static final int H2_CONCURRENT_UPDATE = 90131;
+
+    /**
+     * How a claim ended
+     */
+    public enum Outcome {
+        CLAIMED,
+        BED_TAKEN,
+        RESIDENT_MOVED,
+        CONTENDED
+    }
+
+    private final BedOccupancyIndex index;
+    private final DailyRollupService rollups;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public BedReservationService() {
+        this(BedOccupancyIndex.getShared());
+    }
+
+    public BedReservationService(BedOccupancyIndex index) {
+        this(index, new DailyRollupService());
+    }
+
+    public BedReservationService(BedOccupancyIndex index, DailyRollupService rollups) {
+        this(index, rollups, Integer.getInteger("healthcare.beds.claimAttempts", 4),
+                Long.getLong("healthcare.beds.claimBackoffMillis", 10L));
+    }
+
+    public BedReservationService(BedOccupancyIndex index, int maxAttempts, long backoffMillis) {
+        this(index, new DailyRollupService(), maxAttempts, backoffMillis);
+    }
+
+    public BedReservationService(BedOccupancyIndex index, DailyRollupService rollups, int maxAttempts, long backoffMillis) {
+        if (maxAttempts < 1 || backoffMillis < 0) {
+            throw new IllegalArgumentException("Invalid reservation retry settings");
+        }
+        this.index = index;
+        this.rollups = rollups;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Reserve the first of the candidate beds that can still be claimed
+     * @return the bed reserved, or null if none could be
+     */
+    public Bed reserveFirst(Resident resident, List<Bed> candidates) {
+        for (Bed bed : candidates) {
+            try {
+                Outcome outcome = claim(bed, resident, resident.getCurrentBedId());
+                if (outcome == Outcome.CLAIMED) {
+                    Bed reserved = BedOccupancyIndex.copy(bed);
+                    reserved.setOccupied(true);
+                    reserved.setOccupiedBy(resident.getResidentId());
+                    reserved.setVersion(bed.getVersion() + 1);
+                    resident.setCurrentBedId(bed.getBedId());
+                    return reserved;
+                }
+                if (outcome == Outcome.RESIDENT_MOVED) {
+                    return null;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reserving bed: " + e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Claim one bed for a resident, retrying version conflicts. Joins the caller's
+     * unit of work if there is one; otherwise every attempt is its own transaction.
+     * @param bed bed as last read, including its version
+     * @param expectedCurrentBedId bed the resident row should still point at (null for none)
+     */
+    public Outcome claim(Bed bed, Resident resident, Long expectedCurrentBedId) throws SQLException {
+        boolean joined = UnitOfWork.isActive();
+        int version = bed.getVersion();
+        for (int attempt = 1; ; attempt++) {
+            int expectedVersion = version;
+            Attempt result;
+            try {
+                result = UnitOfWork.execute(() -> claimOnce(bed, resident, expectedCurrentBedId, expectedVersion));
+            } catch (ResidentMovedException e) {
+                // The bed update went with the rollback, so its version was never spent
+                return Outcome.RESIDENT_MOVED;
+            } catch (SQLException e) {
+                // A caller's transaction is already marked for rollback; only a claim of our own can try again
+                if (joined || !isConflict(e)) {
+                    throw e;
+                }
+                result = new Attempt(Outcome.CONTENDED, expectedVersion);
+            }
+            if (result.outcome != Outcome.CONTENDED) {
+                return result.outcome;
+            }
+            if (attempt >= maxAttempts) {
+                return Outcome.CONTENDED;
+            }
+            version = result.currentVersion;
+            backOff(attempt);
+        }
+    }
+
+    private Attempt claimOnce(Bed bed, Resident resident, Long expectedCurrentBedId, int expectedVersion) throws SQLException {
+        Long bedId = bed.getBedId();
+        Long residentId = resident.getResidentId();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(CLAIM_BED_SQL)) {
+                stmt.setLong(1, residentId);
+                stmt.setLong(2, bedId);
+                stmt.setInt(3, expectedVersion);
+                if (stmt.executeUpdate() == 0) {
+                    return lostBed(conn, bedId);
+                }
+            }
+
+            // Only the resident's expected bed, or this one if it is already recorded, may be replaced
+            String sql = "UPDATE Residents SET current_bed_id = ? WHERE resident_id = ? AND (current_bed_id = ? OR " +
+                    (expectedCurrentBedId == null ? "current_bed_id IS NULL)" : "current_bed_id = ?)");
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, bedId);
+                stmt.setLong(2, residentId);
+                stmt.setLong(3, bedId);
+                if (expectedCurrentBedId != null) {
+                    stmt.setLong(4, expectedCurrentBedId);
+                }
+                if (stmt.executeUpdate() == 0) {
+                    throw new ResidentMovedException(residentId);
+                }
+            }
+        }
+        rollups.bedsChanged();
+        UnitOfWork.afterCommit(() -> index.markOccupied(bedId, residentId, resident.getGender()));
+        UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+        return new Attempt(Outcome.CLAIMED, expectedVersion + 1);
+    }
+
+    /**
+     * Thrown inside the claim's transaction so the bed update rolls back with it
+     */
+    private static class ResidentMovedException extends SQLException {
+        ResidentMovedException(Long residentId) {
+            super("Resident " + residentId + " was moved by someone else");
+        }
+    }
+
+    /**
+     * Why a compare-and-set on a bed matched no row
+     */
+    private Attempt lostBed(Connection conn, Long bedId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(BED_STATE_SQL)) {
+            stmt.setLong(1, bedId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getBoolean("is_occupied")) {
+                    return new Attempt(Outcome.BED_TAKEN, 0);
+                }
+                return new Attempt(Outcome.CONTENDED, rs.getInt("version"));
+            }
+        }
+    }
+
+    /**
+     * Whether the database gave up on the transaction because of a concurrent one (deadlock, lock wait, serialization)
+     */
+    static boolean isConflict(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sql = (SQLException) cause;
+                String state = sql.getSQLState();
+                int code = sql.getErrorCode();
+                if ((state != null && state.startsWith("40")) || code == MYSQL_LOCK_WAIT_TIMEOUT
+                        || code == MYSQL_DEADLOCK || code == H2_LOCK_TIMEOUT || code == H2_CONCURRENT_UPDATE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sleep a random time up to backoffMillis * 2^attempt, so contending clients spread out
+     */
+    private void backOff(int attempt) {
+        if (backoffMillis == 0) {
+            return;
+        }
+        long bound = backoffMillis << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Result of a single compare-and-set attempt
+     */
+    private static class Attempt {
+        private final Outcome outcome;
+        private final int currentVersion;
+
+        Attempt(Outcome outcome, int currentVersion) {
+            this.outcome = outcome;
+            this.currentVersion = currentVersion;
+        }
+    }
+}
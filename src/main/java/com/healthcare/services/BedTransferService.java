@@ -1,23 +1,63 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Bed;
 import com.healthcare.model.Resident;
 import com.healthcare.model.BedTransfer;
+import com.healthcare.util.TimeWindow;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for managing bed transfers by nurses
  */
 public class BedTransferService {
+
+    static final String COUNT_TRANSFERS_IN_WINDOW_SQL =
+            "SELECT COUNT(*) FROM Bed_Transfers WHERE " + TimeWindow.predicate("transfer_time");
+    static final String MOVE_BED_SQL = "UPDATE Beds SET is_occupied = ?, occupied_by = ?, version = version + 1 " +
+            "WHERE bed_id = ? AND version = ?";
+    static final String MOVE_RESIDENT_SQL = "UPDATE Residents SET current_bed_id = ? " +
+            "WHERE resident_id = ? AND COALESCE(current_bed_id, 0) = ?";
+    static final String LOG_TRANSFER_SQL = "INSERT INTO Bed_Transfers (resident_id, from_bed_id, to_bed_id, nurse_id, " +
+            "transfer_time, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
     
-    private BedManagementService bedManagementService = new BedManagementService();
-    private ResidentService residentService = new ResidentService();
+    private final BedOccupancyIndex occupancy;
+    private final BedManagementService bedManagementService;
+    private final BedReservationService reservationService;
+    private final ResidentService residentService;
+    private final DailyRollupService rollups;
+
+    public BedTransferService() {
+        this(BedOccupancyIndex.getShared());
+    }
+
+    public BedTransferService(BedOccupancyIndex occupancy) {
+        this(occupancy, new BedManagementService(occupancy), new BedReservationService(occupancy), new ResidentService(),
+                new DailyRollupService());
+    }
+
+    public BedTransferService(BedOccupancyIndex occupancy, BedManagementService bedManagementService,
+                              BedReservationService reservationService, ResidentService residentService,
+                              DailyRollupService rollups) {
+        this.occupancy = occupancy;
+        this.bedManagementService = bedManagementService;
+        this.reservationService = reservationService;
+        this.residentService = residentService;
+        this.rollups = rollups;
+    }
     
     /**
      * Get all available beds for transfer
@@ -53,12 +93,12 @@ public class BedTransferService {
     
     /**
      * Transfer resident to a new bed
+     * Runs as one unit of work: the lookups, both bed updates, the resident update
+     * and the transfer log share a single connection and commit together.
      */
     public boolean transferResident(Long residentId, Long newBedId, Long nurseId, String reason) {
-        try (Connection conn = DBConnection.getConnection()) {
-            conn.setAutoCommit(false);
-            
-            try {
+        try {
+            UnitOfWork.run(() -> {
                 // Get current resident info
                 Optional<Resident> residentOpt = residentService.findById(residentId);
                 if (!residentOpt.isPresent()) {
@@ -89,26 +129,17 @@ public class BedTransferService {
                     bedManagementService.unassignBed(currentBedId);
                 }
                 
-                // Assign new bed
-                boolean assigned = bedManagementService.assignResidentToBed(newBedId, residentId);
-                if (!assigned) {
-                    throw new RuntimeException("Failed to assign resident to new bed");
+                // Claim the new bed; the resident row moves with it
+                BedReservationService.Outcome outcome = reservationService.claim(newBed, resident, currentBedId);
+                if (outcome != BedReservationService.Outcome.CLAIMED) {
+                    throw new RuntimeException("Failed to assign resident to new bed (" + outcome + ")");
                 }
-                
-                // Update resident's current bed
                 resident.setCurrentBedId(newBedId);
-                residentService.update(resident);
                 
                 // Log the transfer
                 logBedTransfer(residentId, currentBedId, newBedId, nurseId, reason);
-                
-                conn.commit();
-                return true;
-                
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            }
+            });
+            return true;
             
         } catch (SQLException e) {
             System.err.println("Error transferring resident: " + e.getMessage());
@@ -116,6 +147,257 @@ public class BedTransferService {
         }
     }
     
+    /**
+     * Apply a whole move plan at once, e.g. to empty a room for deep cleaning.
+     * Moves may form swaps and cycles (A to B's bed while B goes to A's); a bed
+     * may be the target of a move when its occupant is moving out in the same plan.
+     *
+     * The plan is checked in memory against the occupancy index: residents, beds,
+     * gender and isolation rules, and room capacity once every move is made. If any
+     * move is rejected nothing is written. Otherwise every touched bed, every moved
+     * resident and the transfer log are written with one batched statement each, in
+     * one transaction. Bed rows are compare-and-set on their version; if another
+     * client changed one meanwhile, the index is reloaded and the plan checked and
+     * applied once more.
+     * @return one result per move, in the order given
+     */
+    public BatchTransferResult transferResidents(List<Move> moves, Long nurseId, String reason) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            BedOccupancyIndex.Snapshot snapshot = occupancy.snapshot();
+            Map<Long, Resident> residents;
+            try {
+                residents = loadResidents(moves);
+            } catch (SQLException e) {
+                System.err.println("Error loading residents for transfer: " + e.getMessage());
+                return BatchTransferResult.notApplied(moves, "Residents could not be loaded");
+            }
+
+            List<MoveResult> results = validate(moves, residents, snapshot);
+            if (results.stream().anyMatch(r -> r.getStatus() == MoveStatus.REJECTED)) {
+                return new BatchTransferResult(false, results);
+            }
+
+            try {
+                UnitOfWork.run(() -> applyMoves(results, residents, snapshot, nurseId, reason));
+                for (MoveResult result : results) {
+                    residents.get(result.getMove().getResidentId()).setCurrentBedId(result.getMove().getToBedId());
+                }
+                return new BatchTransferResult(true, results);
+            } catch (SQLException e) {
+                System.err.println("Error applying transfer plan: " + e.getMessage());
+                occupancy.reconcile();
+            }
+        }
+        return BatchTransferResult.notApplied(moves, "Beds changed while the plan was being applied");
+    }
+
+    private Map<Long, Resident> loadResidents(List<Move> moves) throws SQLException {
+        Map<Long, Resident> residents = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        for (Move move : moves) {
+            if (move.getResidentId() != null) {
+                ids.add(move.getResidentId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return residents;
+        }
+
+        String sql = "SELECT resident_id, gender, current_bed_id, requires_isolation, discharge_date FROM Residents " +
+                "WHERE resident_id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Long id : ids) {
+                stmt.setLong(i++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Resident resident = new Resident();
+                    resident.setResidentId(rs.getLong("resident_id"));
+                    String gender = rs.getString("gender");
+                    resident.setGender(gender != null ? Resident.Gender.valueOf(gender) : null);
+                    long currentBedId = rs.getLong("current_bed_id");
+                    resident.setCurrentBedId(rs.wasNull() ? null : currentBedId);
+                    resident.setRequiresIsolation(rs.getBoolean("requires_isolation"));
+                    Date dischargeDate = rs.getDate("discharge_date");
+                    resident.setDischargeDate(dischargeDate != null ? dischargeDate.toLocalDate() : null);
+                    residents.put(resident.getResidentId(), resident);
+                }
+            }
+        }
+        return residents;
+    }
+
+    /**
+     * Check every move against the snapshot as if the whole plan had been applied
+     */
+    private List<MoveResult> validate(List<Move> moves, Map<Long, Resident> residents, BedOccupancyIndex.Snapshot snapshot) {
+        List<MoveResult> results = new ArrayList<>();
+        Set<Long> seenResidents = new HashSet<>();
+        Set<Long> seenBeds = new HashSet<>();
+        for (Move move : moves) {
+            Resident resident = move.getResidentId() != null ? residents.get(move.getResidentId()) : null;
+            Long fromBedId = resident != null ? resident.getCurrentBedId() : null;
+            results.add(new MoveResult(move, fromBedId));
+        }
+
+        for (MoveResult result : results) {
+            Move move = result.getMove();
+            Resident resident = residents.get(move.getResidentId());
+            Integer slot = move.getToBedId() != null ? snapshot.slotById.get(move.getToBedId()) : null;
+
+            if (move.getResidentId() == null || move.getToBedId() == null) {
+                result.reject("Move is missing a resident or a bed");
+            } else if (!seenResidents.add(move.getResidentId())) {
+                result.reject("Resident appears in more than one move");
+            } else if (!seenBeds.add(move.getToBedId())) {
+                result.reject("Bed is the target of more than one move");
+            } else if (resident == null) {
+                result.reject("Resident not found");
+            } else if (resident.getDischargeDate() != null) {
+                result.reject("Cannot transfer discharged resident");
+            } else if (slot == null) {
+                result.reject("New bed not found");
+            } else if (move.getToBedId().equals(result.getFromBedId())) {
+                result.reject("Resident is already in this bed");
+            } else if (result.getFromBedId() != null && !snapshot.slotById.containsKey(result.getFromBedId())) {
+                result.reject("Current bed not found");
+            } else if (snapshot.occupied.get(slot) && !movesOut(snapshot.beds[slot].getOccupiedBy(), move.getToBedId(), results)) {
+                result.reject("New bed is occupied by a resident who is not moving out");
+            } else if (!BedAllocationEngine.admits(snapshot, slot, resident)) {
+                result.reject("New bed is not suitable for this resident");
+            }
+        }
+
+        // Room occupancy once every move has been made
+        Map<Long, Integer> before = new HashMap<>();
+        for (int slot = snapshot.occupied.nextSetBit(0); slot >= 0; slot = snapshot.occupied.nextSetBit(slot + 1)) {
+            before.merge(snapshot.beds[slot].getRoomId(), 1, Integer::sum);
+        }
+        Map<Long, Integer> after = new HashMap<>(before);
+        for (MoveResult result : results) {
+            if (result.getStatus() == MoveStatus.REJECTED) {
+                continue;
+            }
+            if (result.getFromBedId() != null) {
+                after.merge(snapshot.beds[snapshot.slotById.get(result.getFromBedId())].getRoomId(), -1, Integer::sum);
+            }
+            after.merge(snapshot.beds[snapshot.slotById.get(result.getMove().getToBedId())].getRoomId(), 1, Integer::sum);
+        }
+        for (MoveResult result : results) {
+            if (result.getStatus() == MoveStatus.REJECTED) {
+                continue;
+            }
+            Long roomId = snapshot.beds[snapshot.slotById.get(result.getMove().getToBedId())].getRoomId();
+            int occupants = after.get(roomId);
+            if (occupants > snapshot.roomCapacity.getOrDefault(roomId, Integer.MAX_VALUE) && occupants > before.getOrDefault(roomId, 0)) {
+                result.reject("Room would exceed its capacity");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Whether the occupant of a bed leaves it for another bed in the same plan
+     */
+    private boolean movesOut(Long occupantId, Long bedId, List<MoveResult> results) {
+        for (MoveResult result : results) {
+            if (result.getMove().getResidentId() != null && result.getMove().getResidentId().equals(occupantId)
+                    && bedId.equals(result.getFromBedId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyMoves(List<MoveResult> results, Map<Long, Resident> residents, BedOccupancyIndex.Snapshot snapshot,
+                            Long nurseId, String reason) throws SQLException {
+        // Final occupant of every bed touched by the plan; a bed left and entered in a cycle is written once
+        Map<Long, Long> bedOccupants = new LinkedHashMap<>();
+        for (MoveResult result : results) {
+            if (result.getFromBedId() != null) {
+                bedOccupants.put(result.getFromBedId(), null);
+            }
+        }
+        for (MoveResult result : results) {
+            bedOccupants.put(result.getMove().getToBedId(), result.getMove().getResidentId());
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(MOVE_BED_SQL)) {
+                for (Map.Entry<Long, Long> entry : bedOccupants.entrySet()) {
+                    stmt.setBoolean(1, entry.getValue() != null);
+                    stmt.setObject(2, entry.getValue());
+                    stmt.setLong(3, entry.getKey());
+                    stmt.setInt(4, snapshot.beds[snapshot.slotById.get(entry.getKey())].getVersion());
+                    stmt.addBatch();
+                }
+                requireAllUpdated(stmt.executeBatch(), "Bed changed since the plan was checked");
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(MOVE_RESIDENT_SQL)) {
+                for (MoveResult result : results) {
+                    stmt.setLong(1, result.getMove().getToBedId());
+                    stmt.setLong(2, result.getMove().getResidentId());
+                    stmt.setLong(3, result.getFromBedId() != null ? result.getFromBedId() : 0L);
+                    stmt.addBatch();
+                }
+                requireAllUpdated(stmt.executeBatch(), "Resident moved since the plan was checked");
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(LOG_TRANSFER_SQL)) {
+                for (MoveResult result : results) {
+                    stmt.setLong(1, result.getMove().getResidentId());
+                    stmt.setObject(2, result.getFromBedId());
+                    stmt.setLong(3, result.getMove().getToBedId());
+                    stmt.setLong(4, nurseId);
+                    stmt.setTimestamp(5, now);
+                    stmt.setString(6, reason);
+                    stmt.setTimestamp(7, now);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+        for (MoveResult result : results) {
+            rollups.transferred(now.toLocalDateTime().toLocalDate(), result.getFromBedId(), result.getMove().getToBedId());
+        }
+        rollups.bedsChanged();
+        UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+
+        UnitOfWork.afterCommit(() -> {
+            bedOccupants.forEach((bedId, residentId) -> {
+                if (residentId == null) {
+                    occupancy.markVacant(bedId);
+                }
+            });
+            bedOccupants.forEach((bedId, residentId) -> {
+                if (residentId != null) {
+                    occupancy.markOccupied(bedId, residentId, residents.get(residentId).getGender());
+                }
+            });
+            BedCensus.updateShared(census -> results.forEach(result -> census.transferred(
+                    result.getMove().getResidentId(), result.getMove().getToBedId(), now.toLocalDateTime().toLocalDate())));
+        });
+        for (MoveResult result : results) {
+            result.status = MoveStatus.MOVED;
+        }
+    }
+
+    /**
+     * A batched compare-and-set fails as a whole if any of its rows did not match; drivers that do not report
+     * per-row counts (SUCCESS_NO_INFO) are trusted
+     */
+    private static void requireAllUpdated(int[] counts, String message) throws SQLException {
+        for (int count : counts) {
+            if (count == 0) {
+                throw new SQLException(message);
+            }
+        }
+    }
+    
     /**
      * Get transfer history for a resident
      */
@@ -235,22 +517,10 @@ public class BedTransferService {
         
         try (Connection conn = DBConnection.getConnection()) {
             // Total transfers today
-            String todaySql = "SELECT COUNT(*) FROM Bed_Transfers WHERE DATE(transfer_time) = CURDATE()";
-            try (PreparedStatement stmt = conn.prepareStatement(todaySql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    stats.transfersToday = rs.getInt(1);
-                }
-            }
+            stats.transfersToday = countTransfers(conn, TimeWindow.today());
             
             // Total transfers this week
-            String weekSql = "SELECT COUNT(*) FROM Bed_Transfers WHERE transfer_time >= DATE_SUB(CURDATE(), INTERVAL 7 DAY)";
-            try (PreparedStatement stmt = conn.prepareStatement(weekSql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    stats.transfersThisWeek = rs.getInt(1);
-                }
-            }
+            stats.transfersThisWeek = countTransfers(conn, TimeWindow.lastDays(7));
             
             // Pending transfers (if any)
             stats.pendingTransfers = 0; // No pending transfers in current implementation
@@ -262,6 +532,15 @@ public class BedTransferService {
         return stats;
     }
     
+    private int countTransfers(Connection conn, TimeWindow window) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(COUNT_TRANSFERS_IN_WINDOW_SQL)) {
+            window.bind(stmt, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
     // Helper methods
     private void logBedTransfer(Long residentId, Long fromBedId, Long toBedId, Long nurseId, String reason) {
         String sql = "INSERT INTO Bed_Transfers (resident_id, from_bed_id, to_bed_id, nurse_id, transfer_time, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
@@ -278,6 +557,8 @@ public class BedTransferService {
             stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
             
             stmt.executeUpdate();
+            rollups.transferred(LocalDate.now(), fromBedId, toBedId);
+            UnitOfWork.afterCommit(() -> BedCensus.updateShared(census -> census.transferred(residentId, toBedId, LocalDate.now())));
             
         } catch (SQLException e) {
             System.err.println("Error logging bed transfer: " + e.getMessage());
@@ -305,6 +586,79 @@ public class BedTransferService {
     }
     
     
+    /**
+     * One resident to move, and the bed to move them to
+     */
+    public static class Move {
+        private final Long residentId;
+        private final Long toBedId;
+
+        public Move(Long residentId, Long toBedId) {
+            this.residentId = residentId;
+            this.toBedId = toBedId;
+        }
+
+        public Long getResidentId() { return residentId; }
+        public Long getToBedId() { return toBedId; }
+    }
+
+    public enum MoveStatus {
+        MOVED,
+        REJECTED,
+        NOT_APPLIED
+    }
+
+    /**
+     * What happened to one move of a plan
+     */
+    public static class MoveResult {
+        private final Move move;
+        private final Long fromBedId;
+        private MoveStatus status = MoveStatus.NOT_APPLIED;
+        private String message;
+
+        MoveResult(Move move, Long fromBedId) {
+            this.move = move;
+            this.fromBedId = fromBedId;
+        }
+
+        void reject(String message) {
+            this.status = MoveStatus.REJECTED;
+            this.message = message;
+        }
+
+        public Move getMove() { return move; }
+        public Long getFromBedId() { return fromBedId; }
+        public MoveStatus getStatus() { return status; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * Outcome of a move plan; either every move was made or none was
+     */
+    public static class BatchTransferResult {
+        private final boolean applied;
+        private final List<MoveResult> results;
+
+        BatchTransferResult(boolean applied, List<MoveResult> results) {
+            this.applied = applied;
+            this.results = results;
+        }
+
+        static BatchTransferResult notApplied(List<Move> moves, String message) {
+            List<MoveResult> results = new ArrayList<>();
+            for (Move move : moves) {
+                MoveResult result = new MoveResult(move, null);
+                result.message = message;
+                results.add(result);
+            }
+            return new BatchTransferResult(false, results);
+        }
+
+        public boolean isApplied() { return applied; }
+        public List<MoveResult> getResults() { return results; }
+    }
+
     public static class TransferValidation {
         private boolean valid = true;
         private List<String> errors = new ArrayList<>();
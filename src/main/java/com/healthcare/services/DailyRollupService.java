@@ -0,0 +1,493 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily rollups behind the report screens
+ *
+ * Daily_Prescription_Counts, Daily_Administration_Counts and Daily_Ward_Counts hold
+ * one row per day and doctor, nurse or ward. Reports sum a range of them instead of
+ * scanning prescriptions, doses, residents and transfers, so a year of history is a
+ * few hundred rows per doctor or ward.
+ *
+ * The writing services keep the rows current in their own transaction: a
+ * prescription is counted out before and back in after every change, a dose,
+ * admission, discharge or transfer adds one to its day, and any change to bed
+ * occupancy recounts today's occupied beds per ward. Occupied beds are an end of
+ * day census; Daily_Rollup_Census records the days counted, and a day with no bed
+ * changes copies the previous one forward.
+ *
+ * backfill() rebuilds every rollup from history. It runs on the first read when
+ * no census has been recorded, e.g. after upgrading; until then the census is
+ * left alone by writers.
+ */
+public class DailyRollupService {
+
+    // Counted out with -1 before a change and back in with +1 after it, from the row as stored
+    static final String PRESCRIPTION_DELTA_SQL =
+            "INSERT INTO Daily_Prescription_Counts (rollup_date, doctor_id, status, review_status, total) " +
+            "SELECT prescription_date, doctor_id, status, review_status, ? FROM Prescriptions WHERE prescription_id = ? " +
+            "ON DUPLICATE KEY UPDATE total = total + VALUES(total)";
+
+    static final String ADMINISTRATION_SQL =
+            "INSERT INTO Daily_Administration_Counts (rollup_date, nurse_id, status, total) VALUES (?, ?, ?, 1) " +
+            "ON DUPLICATE KEY UPDATE total = total + 1";
+
+    private static final String WARD_OF_BED =
+            "COALESCE((SELECT rm.ward_id FROM Beds b JOIN Rooms rm ON rm.room_id = b.room_id WHERE b.bed_id = ?), 0)";
+
+    static final String ADMISSION_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, admissions) VALUES (?, " + WARD_OF_BED + ", 1) " +
+            "ON DUPLICATE KEY UPDATE admissions = admissions + 1";
+
+    // The resident's bed is read before the discharge clears it
+    static final String DISCHARGE_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, discharges) " +
+            "SELECT ?, COALESCE(rm.ward_id, 0), 1 FROM Residents r " +
+            "LEFT JOIN Beds b ON b.bed_id = r.current_bed_id LEFT JOIN Rooms rm ON rm.room_id = b.room_id " +
+            "WHERE r.resident_id = ? " +
+            "ON DUPLICATE KEY UPDATE discharges = discharges + 1";
+
+    static final String TRANSFER_IN_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, transfers_in) VALUES (?, " + WARD_OF_BED + ", 1) " +
+            "ON DUPLICATE KEY UPDATE transfers_in = transfers_in + 1";
+
+    static final String TRANSFER_OUT_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, transfers_out) VALUES (?, " + WARD_OF_BED + ", 1) " +
+            "ON DUPLICATE KEY UPDATE transfers_out = transfers_out + 1";
+
+    static final String RECOUNT_OCCUPIED_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, occupied_beds) " +
+            "SELECT ?, rm.ward_id, SUM(CASE WHEN b.is_occupied THEN 1 ELSE 0 END) " +
+            "FROM Beds b JOIN Rooms rm ON rm.room_id = b.room_id GROUP BY rm.ward_id " +
+            "ON DUPLICATE KEY UPDATE occupied_beds = VALUES(occupied_beds)";
+
+    static final String COPY_OCCUPIED_SQL =
+            "INSERT INTO Daily_Ward_Counts (rollup_date, ward_id, occupied_beds) " +
+            "SELECT ?, ward_id, occupied_beds FROM Daily_Ward_Counts WHERE rollup_date = ? AND occupied_beds > 0 " +
+            "ON DUPLICATE KEY UPDATE occupied_beds = VALUES(occupied_beds)";
+
+    static final String RECORD_CENSUS_SQL =
+            "INSERT INTO Daily_Rollup_Census (rollup_date, recorded_at) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE recorded_at = VALUES(recorded_at)";
+
+    static final String WARD_MONTHS_SQL =
+            "SELECT YEAR(c.rollup_date) AS y, MONTH(c.rollup_date) AS m, c.ward_id, w.ward_name, " +
+            "SUM(c.admissions) AS admissions, SUM(c.discharges) AS discharges, " +
+            "SUM(c.transfers_in) AS transfers_in, SUM(c.transfers_out) AS transfers_out, " +
+            "SUM(c.occupied_beds) AS bed_days " +
+            "FROM Daily_Ward_Counts c LEFT JOIN Wards w ON w.ward_id = c.ward_id " +
+            "WHERE c.rollup_date >= ? AND c.rollup_date < ? " +
+            "GROUP BY YEAR(c.rollup_date), MONTH(c.rollup_date), c.ward_id, w.ward_name " +
+            "ORDER BY y, m, c.ward_id";
+
+    static final String ADMINISTRATION_MONTHS_SQL =
+            "SELECT YEAR(a.rollup_date) AS y, MONTH(a.rollup_date) AS m, a.nurse_id, s.first_name, s.last_name, a.status, SUM(a.total) AS total " +
+            "FROM Daily_Administration_Counts a LEFT JOIN Staff s ON s.staff_id = a.nurse_id " +
+            "WHERE a.rollup_date >= ? AND a.rollup_date < ? " +
+            "GROUP BY YEAR(a.rollup_date), MONTH(a.rollup_date), a.nurse_id, s.first_name, s.last_name, a.status " +
+            "ORDER BY y, m, s.last_name, s.first_name, a.nurse_id";
+
+    private static final String[] ROLLUP_TABLES = {
+            "Daily_Prescription_Counts", "Daily_Administration_Counts", "Daily_Ward_Counts", "Daily_Rollup_Census"
+    };
+
+    // Writes; call inside the transaction that made the change
+
+    /**
+     * Count a prescription out of (-1) or into (+1) its day as currently stored;
+     * call with -1 before an edit or delete and +1 after an insert or edit
+     */
+    public void prescriptionCounted(Long prescriptionId, int delta) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(PRESCRIPTION_DELTA_SQL)) {
+            stmt.setInt(1, delta);
+            stmt.setLong(2, prescriptionId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A dose was recorded as Given, Missed or Refused
+     */
+    public void administrationRecorded(LocalDate day, Long nurseId, String status) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ADMINISTRATION_SQL)) {
+            stmt.setDate(1, Date.valueOf(day));
+            stmt.setLong(2, nurseId);
+            stmt.setString(3, status);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A resident was admitted, into the ward of the given bed or with none (null or 0)
+     */
+    public void admitted(LocalDate day, Long bedId) throws SQLException {
+        wardEvent(ADMISSION_SQL, day, bedId);
+    }
+
+    /**
+     * A resident is being discharged; call before their bed is cleared
+     */
+    public void discharging(LocalDate day, Long residentId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DISCHARGE_SQL)) {
+            stmt.setDate(1, Date.valueOf(day));
+            stmt.setLong(2, residentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A resident moved from one bed (null when placed from none) to another
+     */
+    public void transferred(LocalDate day, Long fromBedId, Long toBedId) throws SQLException {
+        if (fromBedId != null && fromBedId > 0) {
+            wardEvent(TRANSFER_OUT_SQL, day, fromBedId);
+        }
+        wardEvent(TRANSFER_IN_SQL, day, toBedId);
+    }
+
+    /**
+     * Bed occupancy changed; recount today's occupied beds per ward once the census has started
+     */
+    public void bedsChanged() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            LocalDate last = lastCensus(conn);
+            if (last != null) {
+                recordCensus(conn, last, LocalDate.now());
+            }
+        }
+    }
+
+    private void wardEvent(String sql, LocalDate day, Long bedId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(day));
+            stmt.setLong(2, bedId != null ? bedId : 0L);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Copy the last counted day's occupancy over the days since, then recount today
+     */
+    private static void recordCensus(Connection conn, LocalDate last, LocalDate today) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement copy = conn.prepareStatement(COPY_OCCUPIED_SQL);
+             PreparedStatement mark = conn.prepareStatement(RECORD_CENSUS_SQL)) {
+            for (LocalDate day = last.plusDays(1); day.isBefore(today); day = day.plusDays(1)) {
+                copy.setDate(1, Date.valueOf(day));
+                copy.setDate(2, Date.valueOf(last));
+                copy.addBatch();
+                mark.setDate(1, Date.valueOf(day));
+                mark.setTimestamp(2, now);
+                mark.addBatch();
+            }
+            copy.executeBatch();
+            mark.executeBatch();
+        }
+        try (PreparedStatement recount = conn.prepareStatement(RECOUNT_OCCUPIED_SQL);
+             PreparedStatement mark = conn.prepareStatement(RECORD_CENSUS_SQL)) {
+            recount.setDate(1, Date.valueOf(today));
+            recount.executeUpdate();
+            mark.setDate(1, Date.valueOf(today));
+            mark.setTimestamp(2, now);
+            mark.executeUpdate();
+        }
+    }
+
+    private static LocalDate lastCensus(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT MAX(rollup_date) FROM Daily_Rollup_Census");
+             ResultSet rs = stmt.executeQuery()) {
+            Date day = rs.next() ? rs.getDate(1) : null;
+            return day != null ? day.toLocalDate() : null;
+        }
+    }
+
+    // Reads
+
+    /**
+     * Make the rollups current before a read: backfill them if the census has never
+     * been recorded, otherwise carry the census forward to today
+     */
+    public void ensureCurrent() throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate last;
+        try (Connection conn = DBConnection.getConnection()) {
+            last = lastCensus(conn);
+        }
+        if (last == null) {
+            backfill();
+        } else if (last.isBefore(today)) {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    recordCensus(conn, last, today);
+                }
+            });
+        }
+    }
+
+    /**
+     * Ward activity per month, for months starting in [from, until), by month and ward
+     */
+    public List<WardMonth> findWardMonths(LocalDate from, LocalDate until) throws SQLException {
+        ensureCurrent();
+        List<WardMonth> months = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(WARD_MONTHS_SQL)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(until));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long wardId = rs.getLong("ward_id");
+                    String wardName = rs.getString("ward_name");
+                    months.add(new WardMonth(YearMonth.of(rs.getInt("y"), rs.getInt("m")), wardId,
+                            wardName != null ? wardName : (wardId == 0 ? "No bed" : "Ward " + wardId),
+                            rs.getInt("admissions"), rs.getInt("discharges"), rs.getInt("transfers_in"),
+                            rs.getInt("transfers_out"), rs.getInt("bed_days")));
+                }
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Doses recorded per nurse per month, for days in [from, until), by month and nurse
+     */
+    public List<AdministrationMonth> findAdministrationMonths(LocalDate from, LocalDate until) throws SQLException {
+        ensureCurrent();
+        Map<String, AdministrationMonth> months = new LinkedHashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ADMINISTRATION_MONTHS_SQL)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(until));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    YearMonth month = YearMonth.of(rs.getInt("y"), rs.getInt("m"));
+                    long nurseId = rs.getLong("nurse_id");
+                    String nurseName = rs.getString("first_name") != null
+                            ? rs.getString("first_name") + " " + rs.getString("last_name") : "Staff " + nurseId;
+                    months.computeIfAbsent(month + "/" + nurseId, key -> new AdministrationMonth(month, nurseId, nurseName))
+                            .add(rs.getString("status"), rs.getInt("total"));
+                }
+            }
+        }
+        return new ArrayList<>(months.values());
+    }
+
+    // Backfill
+
+    /**
+     * Rebuild every rollup from history in one transaction
+     *
+     * Prescriptions and doses are grouped in the database. Ward rows replay the
+     * residents' stays as BedCensus reconstructs them: each stay starts with an
+     * admission or transfer in and ends with a discharge or transfer out, and
+     * occupies its bed up to today. Stays without a bed count under ward 0 and add
+     * no bed-days. Today's occupied beds are then recounted from Beds.
+     */
+    public void backfill() throws SQLException {
+        LocalDate today = LocalDate.now();
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (Statement stmt = conn.createStatement()) {
+                        for (String table : ROLLUP_TABLES) {
+                            stmt.executeUpdate("DELETE FROM " + table);
+                        }
+                        stmt.executeUpdate("INSERT INTO Daily_Prescription_Counts (rollup_date, doctor_id, status, review_status, total) " +
+                                "SELECT prescription_date, doctor_id, status, review_status, COUNT(*) FROM Prescriptions " +
+                                "GROUP BY prescription_date, doctor_id, status, review_status");
+                        stmt.executeUpdate("INSERT INTO Daily_Administration_Counts (rollup_date, nurse_id, status, total) " +
+                                "SELECT CAST(administered_time AS DATE), nurse_id, status, COUNT(*) FROM Administered_Medication " +
+                                "GROUP BY CAST(administered_time AS DATE), nurse_id, status");
+                    }
+
+                    TreeMap<LocalDate, Map<Long, int[]>> wardDays = replayStays(conn, today);
+                    writeWardDays(conn, wardDays);
+
+                    LocalDate first = wardDays.isEmpty() ? today : wardDays.firstKey();
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    try (PreparedStatement mark = conn.prepareStatement(RECORD_CENSUS_SQL)) {
+                        for (LocalDate day = first; day.isBefore(today); day = day.plusDays(1)) {
+                            mark.setDate(1, Date.valueOf(day));
+                            mark.setTimestamp(2, now);
+                            mark.addBatch();
+                        }
+                        mark.executeBatch();
+                    }
+                    try (PreparedStatement recount = conn.prepareStatement(RECOUNT_OCCUPIED_SQL);
+                         PreparedStatement mark = conn.prepareStatement(RECORD_CENSUS_SQL)) {
+                        recount.setDate(1, Date.valueOf(today));
+                        recount.executeUpdate();
+                        mark.setDate(1, Date.valueOf(today));
+                        mark.setTimestamp(2, now);
+                        mark.executeUpdate();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            // Another client backfilling at the same time wins; its rollups are as good as ours
+            try (Connection conn = DBConnection.getConnection()) {
+                if (lastCensus(conn) == null) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Column offsets in a replayed ward day
+    private static final int ADMISSIONS = 0, DISCHARGES = 1, TRANSFERS_IN = 2, TRANSFERS_OUT = 3, OCCUPIED = 4;
+
+    private static TreeMap<LocalDate, Map<Long, int[]>> replayStays(Connection conn, LocalDate today) throws SQLException {
+        TreeMap<LocalDate, Map<Long, int[]>> days = new TreeMap<>();
+        for (BedCensus.Stay stay : BedCensus.loadStays(conn, BedCensus.loadWards(conn))) {
+            add(days, stay.getFrom(), stay.getWardId(), stay.isAdmission() ? ADMISSIONS : TRANSFERS_IN);
+            LocalDate until = stay.getUntil();
+            if (until == null) {
+                occupy(days, stay, today.plusDays(1), today);
+            } else {
+                occupy(days, stay, until, today);
+                if (stay.isDischarged()) {
+                    add(days, until, stay.getWardId(), DISCHARGES);
+                } else if (stay.getBedId() != null) {
+                    add(days, until, stay.getWardId(), TRANSFERS_OUT);
+                }
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Count a bed as occupied at the end of each day in [from, until), up to today
+     */
+    private static void occupy(Map<LocalDate, Map<Long, int[]>> days, BedCensus.Stay stay, LocalDate until, LocalDate today) {
+        if (stay.getBedId() == null || stay.getWardId() == 0) {
+            return;
+        }
+        for (LocalDate day = stay.getFrom(); day.isBefore(until) && !day.isAfter(today); day = day.plusDays(1)) {
+            add(days, day, stay.getWardId(), OCCUPIED);
+        }
+    }
+
+    private static void add(Map<LocalDate, Map<Long, int[]>> days, LocalDate day, long wardId, int column) {
+        days.computeIfAbsent(day, d -> new HashMap<>()).computeIfAbsent(wardId, w -> new int[5])[column]++;
+    }
+
+    private static void writeWardDays(Connection conn, Map<LocalDate, Map<Long, int[]>> days) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO Daily_Ward_Counts " +
+                "(rollup_date, ward_id, admissions, discharges, transfers_in, transfers_out, occupied_beds) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Map.Entry<LocalDate, Map<Long, int[]>> day : days.entrySet()) {
+                for (Map.Entry<Long, int[]> ward : day.getValue().entrySet()) {
+                    int[] counts = ward.getValue();
+                    stmt.setDate(1, Date.valueOf(day.getKey()));
+                    stmt.setLong(2, ward.getKey());
+                    stmt.setInt(3, counts[ADMISSIONS]);
+                    stmt.setInt(4, counts[DISCHARGES]);
+                    stmt.setInt(5, counts[TRANSFERS_IN]);
+                    stmt.setInt(6, counts[TRANSFERS_OUT]);
+                    stmt.setInt(7, counts[OCCUPIED]);
+                    stmt.addBatch();
+                    if (++batched % 500 == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * One ward's activity over one month
+     */
+    public static class WardMonth {
+        private final YearMonth month;
+        private final long wardId;
+        private final String wardName;
+        private final int admissions;
+        private final int discharges;
+        private final int transfersIn;
+        private final int transfersOut;
+        private final int occupiedBedDays;
+
+        public WardMonth(YearMonth month, long wardId, String wardName, int admissions, int discharges,
+                         int transfersIn, int transfersOut, int occupiedBedDays) {
+            this.month = month;
+            this.wardId = wardId;
+            this.wardName = wardName;
+            this.admissions = admissions;
+            this.discharges = discharges;
+            this.transfersIn = transfersIn;
+            this.transfersOut = transfersOut;
+            this.occupiedBedDays = occupiedBedDays;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public long getWardId() { return wardId; }
+        public String getWardName() { return wardName; }
+        public int getAdmissions() { return admissions; }
+        public int getDischarges() { return discharges; }
+        public int getTransfersIn() { return transfersIn; }
+        public int getTransfersOut() { return transfersOut; }
+
+        /**
+         * Sum over the month's days of beds occupied at the end of the day
+         */
+        public int getOccupiedBedDays() { return occupiedBedDays; }
+    }
+
+    /**
+     * One nurse's recorded doses over one month, by status
+     */
+    public static class AdministrationMonth {
+        private final YearMonth month;
+        private final long nurseId;
+        private final String nurseName;
+        private int given;
+        private int missed;
+        private int refused;
+
+        public AdministrationMonth(YearMonth month, long nurseId, String nurseName) {
+            this.month = month;
+            this.nurseId = nurseId;
+            this.nurseName = nurseName;
+        }
+
+        void add(String status, int total) {
+            switch (status) {
+                case "Given": given += total; break;
+                case "Missed": missed += total; break;
+                case "Refused": refused += total; break;
+                default: break;
+            }
+        }
+
+        public YearMonth getMonth() { return month; }
+        public long getNurseId() { return nurseId; }
+        public String getNurseName() { return nurseName; }
+        public int getGiven() { return given; }
+        public int getMissed() { return missed; }
+        public int getRefused() { return refused; }
+    }
+}
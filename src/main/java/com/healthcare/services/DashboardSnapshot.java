@@ -0,0 +1,258 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.util.TimeWindow;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tile metrics for every dashboard, read in one query and shared
+ *
+ * The manager, doctor and nurse dashboards all show counts: residents, staff,
+ * occupied beds, today's audit actions, today's round, and per-doctor and
+ * per-nurse figures. Every one of them is computed by a single UNION ALL of
+ * COUNT queries, site totals and per-staff groups alike, so one round-trip
+ * answers all open dashboards whatever the role.
+ *
+ * The snapshot is kept until it is healthcare.dashboard.ttlMillis old (default 15s),
+ * the day changes, or a write the tiles depend on commits: residents, staff and
+ * prescriptions invalidate it through invalidateShared(), and doses through the
+ * medication round change listener. Audit actions are only refreshed on age.
+ */
+public class DashboardSnapshot {
+
+    // Site totals carry staff id 0; per-staff rows carry the doctor or nurse id
+    static final String SNAPSHOT_SQL =
+            "SELECT 'residents' AS metric, 0 AS staff_id, COUNT(*) AS total FROM Residents WHERE discharge_date IS NULL " +
+            "UNION ALL SELECT 'residents_in_beds', 0, COUNT(*) FROM Residents " +
+            "WHERE discharge_date IS NULL AND current_bed_id > 0 " +
+            "UNION ALL SELECT 'staff', 0, COUNT(*) FROM Staff " +
+            "UNION ALL SELECT 'occupied_beds', 0, COUNT(*) FROM Beds WHERE is_occupied = TRUE " +
+            "UNION ALL SELECT 'actions_today', 0, COUNT(*) FROM Actions_Log WHERE " + TimeWindow.predicate("action_time") + " " +
+            "UNION ALL SELECT 'round_scheduled', 0, COUNT(*) FROM Medication_Rounds WHERE round_date = ? " +
+            "UNION ALL SELECT 'round_pending', 0, COUNT(*) FROM Medication_Rounds WHERE round_date = ? AND given_count = 0 " +
+            "UNION ALL SELECT 'given_today', 0, COUNT(*) FROM Administered_Medication WHERE " +
+            TimeWindow.predicate("administered_time") + " AND status = 'Given' " +
+            "UNION ALL SELECT 'doctor_patients', assigned_doctor_id, COUNT(*) FROM Residents " +
+            "WHERE discharge_date IS NULL AND assigned_doctor_id IS NOT NULL GROUP BY assigned_doctor_id " +
+            "UNION ALL SELECT 'doctor_prescriptions_today', doctor_id, COUNT(*) FROM Prescriptions " +
+            "WHERE prescription_date = ? GROUP BY doctor_id " +
+            "UNION ALL SELECT 'doctor_pending_reviews', doctor_id, COUNT(*) FROM Prescriptions " +
+            "WHERE review_status = 'Pending' GROUP BY doctor_id " +
+            "UNION ALL SELECT 'nurse_given_today', nurse_id, COUNT(*) FROM Administered_Medication WHERE " +
+            TimeWindow.predicate("administered_time") + " AND status = 'Given' GROUP BY nurse_id";
+
+    private static final Metrics EMPTY = new Metrics(LocalDate.MIN, 0L);
+
+    private static volatile DashboardSnapshot shared;
+
+    private final MedicationRoundService rounds;
+    private final long ttlMillis;
+    private final Runnable changeListener = this::invalidate;
+    private volatile Metrics current;
+    private volatile boolean stale;
+    private LocalDate builtDay;
+
+    /**
+     * @param ttlMillis reload on the next read once the snapshot is this old; 0 never reloads on age
+     */
+    public DashboardSnapshot(MedicationRoundService rounds, long ttlMillis) {
+        this.rounds = rounds;
+        this.ttlMillis = ttlMillis;
+        MedicationRoundService.addChangeListener(changeListener);
+    }
+
+    /**
+     * Snapshot shared by every open dashboard, created on first use
+     */
+    public static DashboardSnapshot getShared() {
+        return getShared(null);
+    }
+
+    /**
+     * The shared snapshot, created on first use reading the given rounds (new ones if null);
+     * the application context creates it this way
+     */
+    public static DashboardSnapshot getShared(MedicationRoundService rounds) {
+        DashboardSnapshot snapshot = shared;
+        if (snapshot == null) {
+            synchronized (DashboardSnapshot.class) {
+                snapshot = shared;
+                if (snapshot == null) {
+                    snapshot = new DashboardSnapshot(rounds != null ? rounds : new MedicationRoundService(),
+                            Long.getLong("healthcare.dashboard.ttlMillis", 15_000L));
+                    shared = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reload the shared snapshot on its next read, if one has been created; call after a committed write
+     */
+    public static void invalidateShared() {
+        DashboardSnapshot snapshot = shared;
+        if (snapshot != null) {
+            snapshot.invalidate();
+        }
+    }
+
+    /**
+     * Current metrics, loading them if needed; never null
+     */
+    public Metrics get() {
+        Metrics metrics = current;
+        if (needsLoad(metrics)) {
+            // One dashboard reloads; the others wait for it rather than all querying at once
+            synchronized (this) {
+                metrics = current;
+                if (needsLoad(metrics)) {
+                    refresh();
+                    metrics = current;
+                }
+            }
+        }
+        return metrics != null ? metrics : EMPTY;
+    }
+
+    /**
+     * Reload on the next read
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Load the metrics now and swap them in
+     * @return false if the load failed; the previous metrics are kept
+     */
+    public synchronized boolean refresh() {
+        stale = false;
+        LocalDate today = LocalDate.now();
+        try {
+            if (!today.equals(builtDay)) {
+                rounds.ensureBuilt(today);
+                builtDay = today;
+            }
+            current = load(today);
+            return true;
+        } catch (SQLException e) {
+            stale = true;
+            System.err.println("Error loading dashboard snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stop following round changes
+     */
+    public void close() {
+        MedicationRoundService.removeChangeListener(changeListener);
+    }
+
+    private boolean needsLoad(Metrics metrics) {
+        return metrics == null || stale || !metrics.day.equals(LocalDate.now())
+                || (ttlMillis > 0 && System.currentTimeMillis() - metrics.loadedAt > ttlMillis);
+    }
+
+    private static Metrics load(LocalDate day) throws SQLException {
+        Metrics metrics = new Metrics(day, System.currentTimeMillis());
+        TimeWindow window = TimeWindow.day(day);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SNAPSHOT_SQL)) {
+            int index = window.bind(stmt, 1);
+            stmt.setDate(index++, Date.valueOf(day));
+            stmt.setDate(index++, Date.valueOf(day));
+            index = window.bind(stmt, index);
+            stmt.setDate(index++, Date.valueOf(day));
+            window.bind(stmt, index);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    metrics.put(rs.getString("metric"), rs.getLong("staff_id"), rs.getInt("total"));
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * One loaded set of tile metrics; never modified once published
+     */
+    public static final class Metrics {
+        private final LocalDate day;
+        private final long loadedAt;
+        private int residents;
+        private int residentsInBeds;
+        private int staff;
+        private int occupiedBeds;
+        private int actionsToday;
+        private int scheduledDoses;
+        private int pendingDoses;
+        private int givenToday;
+        private final Map<Long, Integer> patientsByDoctor = new HashMap<>();
+        private final Map<Long, Integer> prescriptionsTodayByDoctor = new HashMap<>();
+        private final Map<Long, Integer> pendingReviewsByDoctor = new HashMap<>();
+        private final Map<Long, Integer> givenTodayByNurse = new HashMap<>();
+
+        Metrics(LocalDate day, long loadedAt) {
+            this.day = day;
+            this.loadedAt = loadedAt;
+        }
+
+        private void put(String metric, long staffId, int total) {
+            switch (metric) {
+                case "residents": residents = total; break;
+                case "residents_in_beds": residentsInBeds = total; break;
+                case "staff": staff = total; break;
+                case "occupied_beds": occupiedBeds = total; break;
+                case "actions_today": actionsToday = total; break;
+                case "round_scheduled": scheduledDoses = total; break;
+                case "round_pending": pendingDoses = total; break;
+                case "given_today": givenToday = total; break;
+                case "doctor_patients": patientsByDoctor.put(staffId, total); break;
+                case "doctor_prescriptions_today": prescriptionsTodayByDoctor.put(staffId, total); break;
+                case "doctor_pending_reviews": pendingReviewsByDoctor.put(staffId, total); break;
+                case "nurse_given_today": givenTodayByNurse.put(staffId, total); break;
+                default: break;
+            }
+        }
+
+        /**
+         * Residents not discharged
+         */
+        public int getResidents() { return residents; }
+
+        /**
+         * Residents not discharged who have a bed
+         */
+        public int getResidentsInBeds() { return residentsInBeds; }
+
+        public int getStaff() { return staff; }
+        public int getOccupiedBeds() { return occupiedBeds; }
+        public int getActionsToday() { return actionsToday; }
+
+        /**
+         * Lines in today's medication round, and those with no dose given yet
+         */
+        public int getScheduledDoses() { return scheduledDoses; }
+        public int getPendingDoses() { return pendingDoses; }
+
+        public int getGivenToday() { return givenToday; }
+
+        public int getPatientsOfDoctor(Long doctorId) { return patientsByDoctor.getOrDefault(doctorId, 0); }
+        public int getPrescriptionsToday(Long doctorId) { return prescriptionsTodayByDoctor.getOrDefault(doctorId, 0); }
+        public int getPendingReviews(Long doctorId) { return pendingReviewsByDoctor.getOrDefault(doctorId, 0); }
+        public int getGivenTodayBy(Long nurseId) { return givenTodayByNurse.getOrDefault(nurseId, 0); }
+
+        public LocalDate getDay() { return day; }
+        public long getLoadedAt() { return loadedAt; }
+    }
+}
@@ -0,0 +1,293 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.Prescription;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-doctor report figures, aggregated by the database and cached
+ *
+ * A report is a handful of GROUP BY queries restricted to one doctor: patients
+ * assigned, the most prescribed medicines, and from the doctor's daily rollups
+ * (see DailyRollupService) prescriptions by status and review status, per month
+ * for the last year and per day this month. None of them reads other doctors'
+ * rows, so a report costs the same however many prescriptions the facility holds.
+ *
+ * Reports are kept per doctor until they are healthcare.reports.ttlMillis old
+ * (default 60s), the month changes, or a prescription or resident write commits
+ * and calls invalidateShared().
+ */
+public class DoctorReportService {
+
+    static final String PATIENTS_SQL =
+            "SELECT COUNT(*) AS total, " +
+            "SUM(CASE WHEN discharge_date IS NULL THEN 1 ELSE 0 END) AS current_total " +
+            "FROM Residents WHERE assigned_doctor_id = ?";
+
+    static final String STATUS_SQL =
+            "SELECT status, review_status, SUM(total) AS total FROM Daily_Prescription_Counts " +
+            "WHERE doctor_id = ? GROUP BY status, review_status";
+
+    static final String MONTHS_SQL =
+            "SELECT YEAR(rollup_date) AS y, MONTH(rollup_date) AS m, SUM(total) AS total " +
+            "FROM Daily_Prescription_Counts WHERE doctor_id = ? AND rollup_date >= ? " +
+            "GROUP BY YEAR(rollup_date), MONTH(rollup_date)";
+
+    static final String DAYS_SQL =
+            "SELECT rollup_date, status, SUM(total) AS total FROM Daily_Prescription_Counts " +
+            "WHERE doctor_id = ? AND rollup_date >= ? AND rollup_date < ? " +
+            "GROUP BY rollup_date, status HAVING SUM(total) > 0";
+
+    static final String TOP_MEDICINES_SQL =
+            "SELECT m.name, COUNT(*) AS total, COUNT(DISTINCT p.resident_id) AS patients " +
+            "FROM Prescription_Medicines pm " +
+            "JOIN Prescriptions p ON p.prescription_id = pm.prescription_id " +
+            "JOIN Medicines m ON m.medicine_id = pm.medicine_id " +
+            "WHERE p.doctor_id = ? GROUP BY m.medicine_id, m.name " +
+            "ORDER BY total DESC, m.name LIMIT ?";
+
+    // Months shown in the per-month counts, including the current one
+    static final int MONTHS = 12;
+    static final int TOP_MEDICINES = 5;
+
+    private static volatile DoctorReportService shared;
+
+    private final long ttlMillis;
+    private final DailyRollupService rollups;
+    private final Map<Long, Report> reports = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlMillis reload a doctor's report on the next read once it is this old; 0 never reloads on age
+     */
+    public DoctorReportService(long ttlMillis) {
+        this(ttlMillis, new DailyRollupService());
+    }
+
+    public DoctorReportService(long ttlMillis, DailyRollupService rollups) {
+        this.ttlMillis = ttlMillis;
+        this.rollups = rollups;
+    }
+
+    /**
+     * Report cache shared by every open reports screen, created on first use
+     */
+    public static DoctorReportService getShared() {
+        return getShared(null);
+    }
+
+    /**
+     * The shared report cache, created on first use with the given rollups (new ones if null);
+     * the application context creates it this way
+     */
+    public static DoctorReportService getShared(DailyRollupService rollups) {
+        DoctorReportService service = shared;
+        if (service == null) {
+            synchronized (DoctorReportService.class) {
+                service = shared;
+                if (service == null) {
+                    service = new DoctorReportService(Long.getLong("healthcare.reports.ttlMillis", 60_000L),
+                            rollups != null ? rollups : new DailyRollupService());
+                    shared = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Drop the shared cached reports, if the cache has been created; call after a committed write
+     */
+    public static void invalidateShared() {
+        DoctorReportService service = shared;
+        if (service != null) {
+            service.invalidate();
+        }
+    }
+
+    /**
+     * A doctor's report, loading it if needed
+     * @throws SQLException if it had to be loaded and the load failed
+     */
+    public Report get(Long doctorId) throws SQLException {
+        Report report = reports.get(doctorId);
+        if (needsLoad(report)) {
+            // Screens opened together for one doctor share a single load
+            synchronized (this) {
+                report = reports.get(doctorId);
+                if (needsLoad(report)) {
+                    report = load(doctorId, YearMonth.now());
+                    reports.put(doctorId, report);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Reload every doctor's report on its next read
+     */
+    public void invalidate() {
+        reports.clear();
+    }
+
+    private boolean needsLoad(Report report) {
+        return report == null || !report.month.equals(YearMonth.now())
+                || (ttlMillis > 0 && System.currentTimeMillis() - report.loadedAt > ttlMillis);
+    }
+
+    Report load(Long doctorId, YearMonth month) throws SQLException {
+        rollups.ensureCurrent();
+        Report report = new Report(doctorId, month, System.currentTimeMillis());
+        LocalDate monthStart = month.atDay(1);
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(PATIENTS_SQL)) {
+                stmt.setLong(1, doctorId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        report.patients = rs.getInt("total");
+                        report.currentPatients = rs.getInt("current_total");
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(STATUS_SQL)) {
+                stmt.setLong(1, doctorId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int total = rs.getInt("total");
+                        report.prescriptions += total;
+                        report.byStatus.merge(Prescription.PrescriptionStatus.valueOf(rs.getString("status")), total, Integer::sum);
+                        report.byReviewStatus.merge(Prescription.ReviewStatus.valueOf(rs.getString("review_status")), total, Integer::sum);
+                    }
+                }
+            }
+
+            YearMonth firstMonth = month.minusMonths(MONTHS - 1);
+            for (int i = 0; i < MONTHS; i++) {
+                report.byMonth.put(firstMonth.plusMonths(i), 0);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(MONTHS_SQL)) {
+                stmt.setLong(1, doctorId);
+                stmt.setDate(2, Date.valueOf(firstMonth.atDay(1)));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        report.byMonth.put(YearMonth.of(rs.getInt("y"), rs.getInt("m")), rs.getInt("total"));
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(DAYS_SQL)) {
+                stmt.setLong(1, doctorId);
+                stmt.setDate(2, Date.valueOf(monthStart));
+                stmt.setDate(3, Date.valueOf(monthStart.plusMonths(1)));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int total = rs.getInt("total");
+                        report.monthByDay.merge(rs.getDate("rollup_date").toLocalDate(), total, Integer::sum);
+                        report.monthByStatus.merge(Prescription.PrescriptionStatus.valueOf(rs.getString("status")), total, Integer::sum);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(TOP_MEDICINES_SQL)) {
+                stmt.setLong(1, doctorId);
+                stmt.setInt(2, TOP_MEDICINES);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        report.topMedicines.add(new MedicineCount(rs.getString("name"), rs.getInt("total"), rs.getInt("patients")));
+                    }
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * One doctor's loaded report figures; never modified once published
+     */
+    public static final class Report {
+        private final Long doctorId;
+        private final YearMonth month;
+        private final long loadedAt;
+        private int patients;
+        private int currentPatients;
+        private int prescriptions;
+        private final Map<Prescription.PrescriptionStatus, Integer> byStatus = new EnumMap<>(Prescription.PrescriptionStatus.class);
+        private final Map<Prescription.ReviewStatus, Integer> byReviewStatus = new EnumMap<>(Prescription.ReviewStatus.class);
+        private final SortedMap<YearMonth, Integer> byMonth = new TreeMap<>();
+        private final SortedMap<LocalDate, Integer> monthByDay = new TreeMap<>();
+        private final Map<Prescription.PrescriptionStatus, Integer> monthByStatus = new EnumMap<>(Prescription.PrescriptionStatus.class);
+        private final List<MedicineCount> topMedicines = new ArrayList<>();
+
+        Report(Long doctorId, YearMonth month, long loadedAt) {
+            this.doctorId = doctorId;
+            this.month = month;
+            this.loadedAt = loadedAt;
+        }
+
+        public Long getDoctorId() { return doctorId; }
+        public YearMonth getMonth() { return month; }
+        public long getLoadedAt() { return loadedAt; }
+
+        /**
+         * Residents assigned to the doctor, and those of them not discharged
+         */
+        public int getPatients() { return patients; }
+        public int getCurrentPatients() { return currentPatients; }
+
+        public int getPrescriptions() { return prescriptions; }
+        public int getPrescriptions(Prescription.PrescriptionStatus status) { return byStatus.getOrDefault(status, 0); }
+        public int getPrescriptions(Prescription.ReviewStatus reviewStatus) { return byReviewStatus.getOrDefault(reviewStatus, 0); }
+
+        /**
+         * Prescriptions written in each of the last twelve months, oldest first, including months with none
+         */
+        public SortedMap<YearMonth, Integer> getPrescriptionsByMonth() { return Collections.unmodifiableSortedMap(byMonth); }
+
+        /**
+         * This month's prescriptions, in total, per day written and by status
+         */
+        public int getPrescriptionsThisMonth() { return byMonth.getOrDefault(month, 0); }
+        public SortedMap<LocalDate, Integer> getPrescriptionsThisMonthByDay() { return Collections.unmodifiableSortedMap(monthByDay); }
+        public int getPrescriptionsThisMonth(Prescription.PrescriptionStatus status) { return monthByStatus.getOrDefault(status, 0); }
+
+        /**
+         * Most prescribed medicines, by prescription lines, most first
+         */
+        public List<MedicineCount> getTopMedicines() { return Collections.unmodifiableList(topMedicines); }
+    }
+
+    /**
+     * A medicine with the number of prescription lines and distinct patients it appears on
+     */
+    public static final class MedicineCount {
+        private final String name;
+        private final int prescriptions;
+        private final int patients;
+
+        MedicineCount(String name, int prescriptions, int patients) {
+            this.name = name;
+            this.prescriptions = prescriptions;
+            this.patients = patients;
+        }
+
+        public String getName() { return name; }
+        public int getPrescriptions() { return prescriptions; }
+        public int getPatients() { return patients; }
+    }
+}
@@ -1,57 +1,63 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.AdministeredMedication;
+import com.healthcare.util.TimeWindow;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Service for managing medication administration by nurses
+ *
+ * Schedules, pending lists and counts are read from the day's materialized
+ * round (see MedicationRoundService); recording a dose updates it and the
+ * nurse's daily rollup in the same transaction. Overdue doses come from the OverdueDoseTracker.
  */
 public class MedicationAdministrationService {
+
+    static final String RECORD_ADMINISTRATION_SQL = "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, " +
+            "administered_time, dosage_given, notes, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    static final String NURSE_ADMINISTRATIONS_IN_WINDOW_SQL = "SELECT * FROM Administered_Medication WHERE nurse_id = ? AND " +
+            TimeWindow.predicate("administered_time") + " ORDER BY administered_time DESC";
+
+    static final String GIVEN_IN_WINDOW_SQL = "SELECT COUNT(*) FROM Administered_Medication WHERE " +
+            TimeWindow.predicate("administered_time") + " AND status = 'Given'";
+
+    private final MedicationRoundService rounds;
+    private final OverdueDoseTracker overdueTracker;
+    private final DailyRollupService rollups;
+
+    public MedicationAdministrationService() {
+        this(new MedicationRoundService(), OverdueDoseTracker.getShared());
+    }
+
+    public MedicationAdministrationService(MedicationRoundService rounds, OverdueDoseTracker overdueTracker) {
+        this(rounds, overdueTracker, new DailyRollupService());
+    }
+
+    public MedicationAdministrationService(MedicationRoundService rounds, OverdueDoseTracker overdueTracker,
+                                           DailyRollupService rollups) {
+        this.rounds = rounds;
+        this.overdueTracker = overdueTracker;
+        this.rollups = rollups;
+    }
     
     /**
      * Get all scheduled medications for today that need to be administered
      */
     public List<MedicationSchedule> getTodaysMedicationSchedule() {
-        String sql = """
-            SELECT pm.id, pm.prescription_id, pm.medicine_id, pm.dosage, pm.frequency, 
-                   pm.start_date, pm.end_date, pm.instructions, pm.is_active,
-                   p.resident_id, p.doctor_id, p.prescription_date,
-                   r.first_name, r.last_name, r.current_bed_id,
-                   m.name as medicine_name, m.dosage_unit,
-                   s.first_name as doctor_first_name, s.last_name as doctor_last_name
-            FROM Prescription_Medicines pm
-            JOIN Prescriptions p ON pm.prescription_id = p.prescription_id
-            JOIN Residents r ON p.resident_id = r.resident_id
-            JOIN Medicines m ON pm.medicine_id = m.medicine_id
-            JOIN Staff s ON p.doctor_id = s.staff_id
-            WHERE pm.is_active = TRUE 
-            AND pm.start_date <= CURDATE() 
-            AND (pm.end_date IS NULL OR pm.end_date >= CURDATE())
-            AND p.status = 'Active'
-            AND r.discharge_date IS NULL
-            ORDER BY r.first_name, r.last_name, m.name
-            """;
-        
-        List<MedicationSchedule> schedules = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                schedules.add(mapResultSetToMedicationSchedule(rs));
-            }
-            
+        try {
+            return rounds.findRound(LocalDate.now());
         } catch (SQLException e) {
             System.err.println("Error getting today's medication schedule: " + e.getMessage());
+            return new ArrayList<>();
         }
-        
-        return schedules;
     }
     
     /**
@@ -67,47 +73,12 @@ public class MedicationAdministrationService {
      * Get pending medications (not yet administered today)
      */
     public List<MedicationSchedule> getPendingMedications() {
-        String sql = """
-            SELECT pm.id, pm.prescription_id, pm.medicine_id, pm.dosage, pm.frequency, 
-                   pm.start_date, pm.end_date, pm.instructions, pm.is_active,
-                   p.resident_id, p.doctor_id, p.prescription_date,
-                   r.first_name, r.last_name, r.current_bed_id,
-                   m.name as medicine_name, m.dosage_unit,
-                   s.first_name as doctor_first_name, s.last_name as doctor_last_name
-            FROM Prescription_Medicines pm
-            JOIN Prescriptions p ON pm.prescription_id = p.prescription_id
-            JOIN Residents r ON p.resident_id = r.resident_id
-            JOIN Medicines m ON pm.medicine_id = m.medicine_id
-            JOIN Staff s ON p.doctor_id = s.staff_id
-            WHERE pm.is_active = TRUE 
-            AND pm.start_date <= CURDATE() 
-            AND (pm.end_date IS NULL OR pm.end_date >= CURDATE())
-            AND p.status = 'Active'
-            AND r.discharge_date IS NULL
-            AND NOT EXISTS (
-                SELECT 1 FROM Administered_Medication am 
-                WHERE am.prescription_medicine_id = pm.id 
-                AND DATE(am.administered_time) = CURDATE()
-                AND am.status = 'Given'
-            )
-            ORDER BY r.first_name, r.last_name, m.name
-            """;
-        
-        List<MedicationSchedule> schedules = new ArrayList<>();
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                schedules.add(mapResultSetToMedicationSchedule(rs));
-            }
-            
+        try {
+            return rounds.findPending(LocalDate.now());
         } catch (SQLException e) {
             System.err.println("Error getting pending medications: " + e.getMessage());
+            return new ArrayList<>();
         }
-        
-        return schedules;
     }
     
     /**
@@ -115,22 +86,8 @@ public class MedicationAdministrationService {
      */
     public boolean markMedicationAsAdministered(Long prescriptionMedicineId, Long nurseId, 
                                                String dosageGiven, String notes) {
-        String sql = "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, administered_time, dosage_given, notes, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescriptionMedicineId);
-            stmt.setLong(2, nurseId);
-            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setString(4, dosageGiven);
-            stmt.setString(5, notes);
-            stmt.setString(6, "Given");
-            stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-            
+        try {
+            return recordAdministration(prescriptionMedicineId, nurseId, dosageGiven, notes, "Given");
         } catch (SQLException e) {
             System.err.println("Error marking medication as administered: " + e.getMessage());
             return false;
@@ -141,22 +98,8 @@ public class MedicationAdministrationService {
      * Mark medication as missed
      */
     public boolean markMedicationAsMissed(Long prescriptionMedicineId, Long nurseId, String notes) {
-        String sql = "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, administered_time, dosage_given, notes, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescriptionMedicineId);
-            stmt.setLong(2, nurseId);
-            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setString(4, "0"); // No dosage given
-            stmt.setString(5, notes);
-            stmt.setString(6, "Missed");
-            stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-            
+        try {
+            return recordAdministration(prescriptionMedicineId, nurseId, "0", notes, "Missed"); // No dosage given
         } catch (SQLException e) {
             System.err.println("Error marking medication as missed: " + e.getMessage());
             return false;
@@ -167,28 +110,41 @@ public class MedicationAdministrationService {
      * Mark medication as refused by patient
      */
     public boolean markMedicationAsRefused(Long prescriptionMedicineId, Long nurseId, String notes) {
-        String sql = "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, administered_time, dosage_given, notes, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescriptionMedicineId);
-            stmt.setLong(2, nurseId);
-            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-            stmt.setString(4, "0"); // No dosage given
-            stmt.setString(5, notes);
-            stmt.setString(6, "Refused");
-            stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-            
+        try {
+            return recordAdministration(prescriptionMedicineId, nurseId, "0", notes, "Refused"); // No dosage given
         } catch (SQLException e) {
             System.err.println("Error marking medication as refused: " + e.getMessage());
             return false;
         }
     }
     
+    private boolean recordAdministration(Long prescriptionMedicineId, Long nurseId, String dosageGiven,
+                                         String notes, String status) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return UnitOfWork.execute(() -> {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(RECORD_ADMINISTRATION_SQL)) {
+                
+                stmt.setLong(1, prescriptionMedicineId);
+                stmt.setLong(2, nurseId);
+                stmt.setTimestamp(3, Timestamp.valueOf(now));
+                stmt.setString(4, dosageGiven);
+                stmt.setString(5, notes);
+                stmt.setString(6, status);
+                stmt.setTimestamp(7, Timestamp.valueOf(now));
+                
+                if (stmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            rollups.administrationRecorded(now.toLocalDate(), nurseId, status);
+            if (status.equals("Given")) {
+                rounds.doseGiven(prescriptionMedicineId, now);
+            }
+            return true;
+        });
+    }
+    
     /**
      * Get administration history for a specific medication
      */
@@ -218,18 +174,17 @@ public class MedicationAdministrationService {
      * Get today's administration records for a nurse
      */
     public List<AdministeredMedication> getTodaysAdministrations(Long nurseId) {
-        String sql = "SELECT * FROM Administered_Medication WHERE nurse_id = ? AND DATE(administered_time) = CURDATE() ORDER BY administered_time DESC";
-        
         List<AdministeredMedication> administrations = new ArrayList<>();
         
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(NURSE_ADMINISTRATIONS_IN_WINDOW_SQL)) {
             
             stmt.setLong(1, nurseId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                administrations.add(mapResultSetToAdministeredMedication(rs));
+            TimeWindow.today().bind(stmt, 2);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    administrations.add(mapResultSetToAdministeredMedication(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -240,12 +195,14 @@ public class MedicationAdministrationService {
     }
     
     /**
-     * Get overdue medications (scheduled but not administered)
+     * Get overdue medications: lines with a dose not given by its time plus the grace period
      */
     public List<MedicationSchedule> getOverdueMedications() {
-        // This would typically check against scheduled times
-        // For now, return pending medications as overdue
-        return getPendingMedications();
+        List<MedicationSchedule> overdue = new ArrayList<>();
+        for (OverdueDoseTracker.OverdueDose dose : overdueTracker.getOverdue()) {
+            overdue.add(dose.getSchedule());
+        }
+        return overdue;
     }
     
     /**
@@ -254,44 +211,27 @@ public class MedicationAdministrationService {
     public MedicationStats getMedicationStats() {
         MedicationStats stats = new MedicationStats();
         
-        try (Connection conn = DBConnection.getConnection()) {
-            // Total scheduled medications for today
-            String totalSql = """
-                SELECT COUNT(*) FROM Prescription_Medicines pm
-                JOIN Prescriptions p ON pm.prescription_id = p.prescription_id
-                JOIN Residents r ON p.resident_id = r.resident_id
-                WHERE pm.is_active = TRUE 
-                AND pm.start_date <= CURDATE() 
-                AND (pm.end_date IS NULL OR pm.end_date >= CURDATE())
-                AND p.status = 'Active'
-                AND r.discharge_date IS NULL
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(totalSql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    stats.totalScheduled = rs.getInt(1);
-                }
-            }
+        TimeWindow today = TimeWindow.today();
+        
+        try {
+            // Scheduled and still pending lines of today's round
+            int[] round = rounds.countRound(today.getStartDate());
+            stats.totalScheduled = round[0];
+            stats.pending = round[1];
             
             // Administered today
-            String administeredSql = """
-                SELECT COUNT(*) FROM Administered_Medication 
-                WHERE DATE(administered_time) = CURDATE() AND status = 'Given'
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(administeredSql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    stats.administeredToday = rs.getInt(1);
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GIVEN_IN_WINDOW_SQL)) {
+                today.bind(stmt, 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        stats.administeredToday = rs.getInt(1);
+                    }
                 }
             }
             
-            // Pending
-            stats.pending = stats.totalScheduled - stats.administeredToday;
-            
-            // Overdue (simplified - just pending for now)
-            stats.overdue = stats.pending;
+            // Overdue
+            stats.overdue = overdueTracker.getOverdue().size();
             
         } catch (SQLException e) {
             System.err.println("Error getting medication stats: " + e.getMessage());
@@ -301,33 +241,6 @@ public class MedicationAdministrationService {
     }
     
     // Helper methods
-    private MedicationSchedule mapResultSetToMedicationSchedule(ResultSet rs) throws SQLException {
-        MedicationSchedule schedule = new MedicationSchedule();
-        
-        schedule.setPrescriptionMedicineId(rs.getLong("id"));
-        schedule.setPrescriptionId(rs.getLong("prescription_id"));
-        schedule.setMedicineId(rs.getLong("medicine_id"));
-        schedule.setDosage(rs.getString("dosage"));
-        schedule.setFrequency(rs.getString("frequency"));
-        schedule.setStartDate(rs.getDate("start_date").toLocalDate());
-        
-        Date endDate = rs.getDate("end_date");
-        schedule.setEndDate(endDate != null ? endDate.toLocalDate() : null);
-        
-        schedule.setInstructions(rs.getString("instructions"));
-        schedule.setIsActive(rs.getBoolean("is_active"));
-        schedule.setResidentId(rs.getLong("resident_id"));
-        schedule.setDoctorId(rs.getLong("doctor_id"));
-        schedule.setPrescriptionDate(rs.getDate("prescription_date").toLocalDate());
-        schedule.setPatientName(rs.getString("first_name") + " " + rs.getString("last_name"));
-        schedule.setBedId(rs.getLong("current_bed_id"));
-        schedule.setMedicineName(rs.getString("medicine_name"));
-        schedule.setDosageUnit(rs.getString("dosage_unit"));
-        schedule.setDoctorName(rs.getString("doctor_first_name") + " " + rs.getString("doctor_last_name"));
-        
-        return schedule;
-    }
-    
     private AdministeredMedication mapResultSetToAdministeredMedication(ResultSet rs) throws SQLException {
         AdministeredMedication admin = new AdministeredMedication();
         
@@ -364,6 +277,7 @@ public class MedicationAdministrationService {
         private String medicineName;
         private String dosageUnit;
         private String doctorName;
+        private int givenCount;
         
         // Getters and setters
         public Long getPrescriptionMedicineId() { return prescriptionMedicineId; }
@@ -417,6 +331,12 @@ public class MedicationAdministrationService {
         public String getDoctorName() { return doctorName; }
         public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
         
+        /**
+         * Doses given on the round's day
+         */
+        public int getGivenCount() { return givenCount; }
+        public void setGivenCount(int givenCount) { this.givenCount = givenCount; }
+        
         public String getFullDescription() {
             return medicineName + " " + dosage + " " + dosageUnit + " - " + frequency;
         }
@@ -0,0 +1,332 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import com.healthcare.services.MedicationAdministrationService.MedicationSchedule;
+import com.healthcare.util.TimeWindow;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Materialized daily medication rounds
+ *
+ * Medication_Rounds holds one row per active prescription line per day, with the
+ * resident, medicine and doctor names copied in and the number of doses given that
+ * day. A day's schedule, its pending lines and its counts are then reads of one
+ * table over one index, instead of a five-table join with a probe into
+ * Administered_Medication per line.
+ *
+ * A day is built the first time it is read; Medication_Round_Days records which
+ * days exist. After that it is maintained incrementally in the writer's
+ * transaction: the services that change prescriptions, residents, medicines or
+ * staff re-derive the affected lines for today and later built days, and recording
+ * a dose bumps its line's count. Past days are left as they were.
+ *
+ * Beds are not copied: residents move often, so the bed is taken from the
+ * occupancy index when a round is read.
+ *
+ * Change listeners (see addChangeListener) are told after each maintenance
+ * change commits, so in-memory views of a round can reload it.
+ */
+public class MedicationRoundService {
+
+    private static final String ROUND_COLUMNS = "round_date, prescription_medicine_id, prescription_id, medicine_id, " +
+            "resident_id, doctor_id, dosage, frequency, start_date, end_date, instructions, prescription_date, " +
+            "patient_first_name, patient_last_name, medicine_name, dosage_unit, doctor_name, given_count, last_given_time";
+
+    // Doses given on the day are counted through the (prescription_medicine_id, administered_time) index
+    static final String BUILD_SQL = "INSERT INTO Medication_Rounds (" + ROUND_COLUMNS + ") " +
+            "SELECT CAST(? AS DATE), pm.id, pm.prescription_id, pm.medicine_id, p.resident_id, p.doctor_id, " +
+            "pm.dosage, pm.frequency, pm.start_date, pm.end_date, pm.instructions, p.prescription_date, " +
+            "r.first_name, r.last_name, m.name, m.dosage_unit, CONCAT(s.first_name, ' ', s.last_name), " +
+            "(SELECT COUNT(*) FROM Administered_Medication am WHERE am.prescription_medicine_id = pm.id " +
+            "AND am.administered_time >= ? AND am.administered_time < ? AND am.status = 'Given'), " +
+            "(SELECT MAX(am.administered_time) FROM Administered_Medication am WHERE am.prescription_medicine_id = pm.id " +
+            "AND am.administered_time >= ? AND am.administered_time < ? AND am.status = 'Given') " +
+            "FROM Prescription_Medicines pm " +
+            "JOIN Prescriptions p ON pm.prescription_id = p.prescription_id " +
+            "JOIN Residents r ON p.resident_id = r.resident_id " +
+            "JOIN Medicines m ON pm.medicine_id = m.medicine_id " +
+            "JOIN Staff s ON p.doctor_id = s.staff_id " +
+            "WHERE pm.is_active = TRUE " +
+            "AND pm.start_date <= ? " +
+            "AND (pm.end_date IS NULL OR pm.end_date >= ?) " +
+            "AND p.status = 'Active' " +
+            "AND r.discharge_date IS NULL";
+
+    static final String FIND_ROUND_SQL = "SELECT * FROM Medication_Rounds WHERE round_date = ? " +
+            "ORDER BY patient_first_name, patient_last_name, medicine_name";
+
+    static final String FIND_PENDING_SQL = "SELECT * FROM Medication_Rounds WHERE round_date = ? AND given_count = 0 " +
+            "ORDER BY patient_first_name, patient_last_name, medicine_name";
+
+    static final String COUNT_ROUND_SQL = "SELECT COUNT(*), COALESCE(SUM(CASE WHEN given_count = 0 THEN 1 ELSE 0 END), 0) " +
+            "FROM Medication_Rounds WHERE round_date = ?";
+
+    static final String RECORD_GIVEN_SQL = "UPDATE Medication_Rounds SET given_count = given_count + 1, last_given_time = ? " +
+            "WHERE round_date = ? AND prescription_medicine_id = ?";
+
+    /**
+     * What a change touched; each names the round column and the source column holding the changed id
+     */
+    private enum Scope {
+        PRESCRIPTION_MEDICINE("prescription_medicine_id", "pm.id"),
+        PRESCRIPTION("prescription_id", "pm.prescription_id"),
+        RESIDENT("resident_id", "p.resident_id"),
+        MEDICINE("medicine_id", "pm.medicine_id"),
+        DOCTOR("doctor_id", "p.doctor_id");
+
+        private final String roundColumn;
+        private final String sourceColumn;
+
+        Scope(String roundColumn, String sourceColumn) {
+            this.roundColumn = roundColumn;
+            this.sourceColumn = sourceColumn;
+        }
+    }
+
+    private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final BedOccupancyIndex occupancy;
+
+    public MedicationRoundService() {
+        this(BedOccupancyIndex.getShared());
+    }
+
+    public MedicationRoundService(BedOccupancyIndex occupancy) {
+        this.occupancy = occupancy;
+    }
+
+    /**
+     * Run an action after every committed change to built rounds
+     */
+    public static void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    private static void roundsChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    // Reads
+
+    /**
+     * Every line of a day's round, by patient and medicine
+     */
+    public List<MedicationSchedule> findRound(LocalDate day) throws SQLException {
+        return query(day, FIND_ROUND_SQL);
+    }
+
+    /**
+     * Lines of a day's round with no dose given yet
+     */
+    public List<MedicationSchedule> findPending(LocalDate day) throws SQLException {
+        return query(day, FIND_PENDING_SQL);
+    }
+
+    /**
+     * Lines in a day's round and how many of them are still pending
+     * @return {scheduled, pending}
+     */
+    public int[] countRound(LocalDate day) throws SQLException {
+        ensureBuilt(day);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_ROUND_SQL)) {
+            stmt.setDate(1, Date.valueOf(day));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new int[]{rs.getInt(1), rs.getInt(2)};
+            }
+        }
+    }
+
+    private List<MedicationSchedule> query(LocalDate day, String sql) throws SQLException {
+        ensureBuilt(day);
+        List<MedicationSchedule> schedules = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(day));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapResultSetToMedicationSchedule(rs));
+                }
+            }
+        }
+        return schedules;
+    }
+
+    /**
+     * Build a day's round unless it already exists. The day's marker row is
+     * inserted first, so of two clients building the same day one waits for the
+     * other and then finds the day built.
+     */
+    public void ensureBuilt(LocalDate day) throws SQLException {
+        if (isBuilt(day)) {
+            return;
+        }
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO Medication_Round_Days (round_date, built_at) VALUES (?, ?)")) {
+                        stmt.setDate(1, Date.valueOf(day));
+                        stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                        stmt.executeUpdate();
+                    }
+                    build(conn, day, null, null);
+                }
+            });
+        } catch (SQLException e) {
+            if (!isBuilt(day)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean isBuilt(LocalDate day) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM Medication_Round_Days WHERE round_date = ?")) {
+            stmt.setDate(1, Date.valueOf(day));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Incremental maintenance; call inside the transaction that made the change
+
+    /**
+     * A prescription line was added or edited
+     */
+    public void prescriptionMedicineChanged(Long prescriptionMedicineId) throws SQLException {
+        rederive(Scope.PRESCRIPTION_MEDICINE, prescriptionMedicineId);
+    }
+
+    /**
+     * A prescription was edited, cancelled, completed or deleted
+     */
+    public void prescriptionChanged(Long prescriptionId) throws SQLException {
+        rederive(Scope.PRESCRIPTION, prescriptionId);
+    }
+
+    /**
+     * A resident was renamed or discharged
+     */
+    public void residentChanged(Long residentId) throws SQLException {
+        rederive(Scope.RESIDENT, residentId);
+    }
+
+    /**
+     * A medicine was renamed or its unit changed
+     */
+    public void medicineChanged(Long medicineId) throws SQLException {
+        rederive(Scope.MEDICINE, medicineId);
+    }
+
+    /**
+     * A doctor was renamed
+     */
+    public void doctorChanged(Long doctorId) throws SQLException {
+        rederive(Scope.DOCTOR, doctorId);
+    }
+
+    /**
+     * A dose was given; updates the line in that day's round if the day is built
+     */
+    public void doseGiven(Long prescriptionMedicineId, LocalDateTime administeredTime) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RECORD_GIVEN_SQL)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(administeredTime));
+            stmt.setDate(2, Date.valueOf(administeredTime.toLocalDate()));
+            stmt.setLong(3, prescriptionMedicineId);
+            stmt.executeUpdate();
+        }
+        UnitOfWork.afterCommit(MedicationRoundService::roundsChanged);
+    }
+
+    /**
+     * Replace the lines a change touched, in today's and later built rounds, with freshly derived ones
+     */
+    private void rederive(Scope scope, Long id) throws SQLException {
+        LocalDate today = LocalDate.now();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM Medication_Rounds WHERE " + scope.roundColumn + " = ? AND round_date >= ?")) {
+                stmt.setLong(1, id);
+                stmt.setDate(2, Date.valueOf(today));
+                stmt.executeUpdate();
+            }
+
+            List<LocalDate> days = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT round_date FROM Medication_Round_Days WHERE round_date >= ? ORDER BY round_date")) {
+                stmt.setDate(1, Date.valueOf(today));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        days.add(rs.getDate(1).toLocalDate());
+                    }
+                }
+            }
+            for (LocalDate day : days) {
+                build(conn, day, scope, id);
+            }
+        }
+        UnitOfWork.afterCommit(MedicationRoundService::roundsChanged);
+    }
+
+    private static void build(Connection conn, LocalDate day, Scope scope, Long id) throws SQLException {
+        String sql = scope == null ? BUILD_SQL : BUILD_SQL + " AND " + scope.sourceColumn + " = ?";
+        TimeWindow window = TimeWindow.day(day);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(day));
+            int index = window.bind(stmt, 2);
+            index = window.bind(stmt, index);
+            stmt.setDate(index++, Date.valueOf(day));
+            stmt.setDate(index++, Date.valueOf(day));
+            if (scope != null) {
+                stmt.setLong(index, id);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private MedicationSchedule mapResultSetToMedicationSchedule(ResultSet rs) throws SQLException {
+        MedicationSchedule schedule = new MedicationSchedule();
+
+        schedule.setPrescriptionMedicineId(rs.getLong("prescription_medicine_id"));
+        schedule.setPrescriptionId(rs.getLong("prescription_id"));
+        schedule.setMedicineId(rs.getLong("medicine_id"));
+        schedule.setDosage(rs.getString("dosage"));
+        schedule.setFrequency(rs.getString("frequency"));
+        schedule.setStartDate(rs.getDate("start_date").toLocalDate());
+
+        Date endDate = rs.getDate("end_date");
+        schedule.setEndDate(endDate != null ? endDate.toLocalDate() : null);
+
+        schedule.setInstructions(rs.getString("instructions"));
+        schedule.setIsActive(true);
+        schedule.setResidentId(rs.getLong("resident_id"));
+        schedule.setDoctorId(rs.getLong("doctor_id"));
+        schedule.setPrescriptionDate(rs.getDate("prescription_date").toLocalDate());
+        schedule.setPatientName(rs.getString("patient_first_name") + " " + rs.getString("patient_last_name"));
+        schedule.setBedId(occupancy.findByOccupant(schedule.getResidentId()).map(Bed::getBedId).orElse(0L));
+        schedule.setMedicineName(rs.getString("medicine_name"));
+        schedule.setDosageUnit(rs.getString("dosage_unit"));
+        schedule.setDoctorName(rs.getString("doctor_name"));
+        schedule.setGivenCount(rs.getInt("given_count"));
+
+        return schedule;
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Medicine;
 
 import java.sql.*;
@@ -14,6 +15,17 @@ import java.util.Optional;
  */
 public class MedicineService {
     
+    // Renames and unit changes are applied to the materialized medication rounds
+    private final MedicationRoundService rounds;
+    
+    public MedicineService() {
+        this(new MedicationRoundService());
+    }
+    
+    public MedicineService(MedicationRoundService rounds) {
+        this.rounds = rounds;
+    }
+    
     /**
      * Save a new medicine
      */
@@ -273,29 +285,31 @@ public class MedicineService {
     public Medicine update(Medicine medicine) {
         String sql = "UPDATE Medicines SET name = ?, description = ?, dosage_unit = ?, category = ?, classification = ?, is_active = ? WHERE medicine_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, medicine.getName());
-            stmt.setString(2, medicine.getDescription());
-            stmt.setString(3, medicine.getDosageUnit());
-            stmt.setString(4, medicine.getCategory());
-            stmt.setString(5, medicine.getClassification());
-            stmt.setBoolean(6, medicine.isActive());
-            stmt.setLong(7, medicine.getMedicineId());
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows > 0) {
+        try {
+            return UnitOfWork.execute(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setString(1, medicine.getName());
+                    stmt.setString(2, medicine.getDescription());
+                    stmt.setString(3, medicine.getDosageUnit());
+                    stmt.setString(4, medicine.getCategory());
+                    stmt.setString(5, medicine.getClassification());
+                    stmt.setBoolean(6, medicine.isActive());
+                    stmt.setLong(7, medicine.getMedicineId());
+                    
+                    if (stmt.executeUpdate() == 0) {
+                        return null;
+                    }
+                }
+                rounds.medicineChanged(medicine.getMedicineId());
                 return medicine;
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating medicine: " + e.getMessage());
             throw new RuntimeException("Failed to update medicine", e);
         }
-        
-        return null;
     }
     
     /**
@@ -0,0 +1,308 @@
+package com.healthcare.services;
+
+import com.healthcare.services.MedicationAdministrationService.MedicationSchedule;
+import com.healthcare.util.DoseFrequency;
+import com.healthcare.util.TimingWheel;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks every dose due today and reports the ones not given in time
+ *
+ * Today's round is loaded once and each line's frequency compiled into dose
+ * times (see DoseFrequency). Every dose goes into a timing wheel with its deadline,
+ * the dose time plus a grace period. When a deadline passes and the line has fewer
+ * doses given than have come due, the line is overdue and listeners are told.
+ * Between loads nothing touches the database.
+ *
+ * The round is reloaded, and the wheel rebuilt, after a committed change to it
+ * (a dose recorded, a prescription changed; see MedicationRoundService) and when
+ * the day changes. The reload reads the database without holding the tracker's
+ * lock and swaps the new wheel in, so isOverdue() keeps answering from the old one
+ * meanwhile; a change made during the reload leaves the tracker stale. Lines with as-needed or unrecognized frequencies are never overdue.
+ *
+ * Grace period: healthcare.medication.overdueGraceMinutes (default 60)
+ */
+public class OverdueDoseTracker implements AutoCloseable {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final Duration RETRY_AFTER_FAILURE = Duration.ofSeconds(30);
+
+    private static volatile OverdueDoseTracker shared;
+
+    private final MedicationRoundService rounds;
+    private final Duration grace;
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker;
+    private final Runnable changeListener = this::invalidate;
+    private final List<Consumer<OverdueDose>> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private TimingWheel<DueDose> wheel;
+    private Map<Long, MedicationSchedule> lines = new HashMap<>();
+    private final Map<Long, OverdueDose> overdue = new LinkedHashMap<>();
+    private LocalDate loadedDay;
+    private LocalDateTime retryAt;
+    private long changes;  // invalidations, to spot ones made during a reload
+    private boolean reloading;
+    private volatile boolean stale = true;
+
+    /**
+     * @param tickMillis how often the wheel advances on its own; 0 leaves advancing to the caller
+     */
+    public OverdueDoseTracker(MedicationRoundService rounds, Duration grace, long tickMillis) {
+        this.rounds = rounds;
+        this.grace = grace;
+        this.tickMillis = tickMillis > 0 ? tickMillis : 1000L;
+        MedicationRoundService.addChangeListener(changeListener);
+        if (tickMillis > 0) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "medication-overdue-wheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.ticker.scheduleAtFixedRate(() -> advance(LocalDateTime.now()), 0, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * Tracker shared by the medication service and the nurse screens, created on first use
+     */
+    public static OverdueDoseTracker getShared() {
+        return getShared(null);
+    }
+
+    /**
+     * The shared tracker, created on first use reading the given rounds (new ones if null);
+     * the application context creates it this way
+     */
+    public static OverdueDoseTracker getShared(MedicationRoundService rounds) {
+        OverdueDoseTracker tracker = shared;
+        if (tracker == null) {
+            synchronized (OverdueDoseTracker.class) {
+                tracker = shared;
+                if (tracker == null) {
+                    tracker = new OverdueDoseTracker(rounds != null ? rounds : new MedicationRoundService(),
+                            Duration.ofMinutes(Long.getLong("healthcare.medication.overdueGraceMinutes", 60L)), 1000L);
+                    shared = tracker;
+                }
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * Stop the shared tracker's ticker; called on application shutdown
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Be told about each line as it becomes overdue; called on the tracker's thread
+     */
+    public void addListener(Consumer<OverdueDose> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<OverdueDose> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Lines overdue now, oldest first
+     */
+    public List<OverdueDose> getOverdue() {
+        if (stale) {
+            advance(LocalDateTime.now());
+        }
+        List<OverdueDose> doses;
+        synchronized (this) {
+            doses = new ArrayList<>(overdue.values());
+        }
+        doses.sort(Comparator.comparing(OverdueDose::getDueAt));
+        return doses;
+    }
+
+    public synchronized boolean isOverdue(Long prescriptionMedicineId) {
+        return overdue.containsKey(prescriptionMedicineId);
+    }
+
+    /**
+     * Reload the round on the next advance
+     */
+    public synchronized void invalidate() {
+        changes++;
+        stale = true;
+    }
+
+    /**
+     * Fire every deadline up to the given time, reloading first if the round changed or the day turned
+     */
+    public void advance(LocalDateTime now) {
+        List<OverdueDose> events = new ArrayList<>();
+        long changesAtStart = -1;
+        synchronized (this) {
+            boolean due = stale || !now.toLocalDate().equals(loadedDay);
+            if (due && !reloading && (retryAt == null || !now.isBefore(retryAt))) {
+                reloading = true;
+                changesAtStart = changes;
+            } else if (wheel != null) {
+                wheel.advanceTo(toMillis(now), dose -> expire(dose, events));
+            }
+        }
+        if (changesAtStart >= 0) {
+            reload(now, changesAtStart, events);
+        }
+        for (OverdueDose event : events) {
+            for (Consumer<OverdueDose> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+    }
+
+    /**
+     * Doses scheduled and not yet past their deadline
+     */
+    synchronized int getScheduledCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    private void reload(LocalDateTime now, long changesAtStart, List<OverdueDose> events) {
+        LocalDate day = now.toLocalDate();
+        List<MedicationSchedule> round;
+        try {
+            round = rounds.findRound(day);
+        } catch (SQLException | RuntimeException e) {
+            // Keep firing the wheel already loaded and try again shortly
+            synchronized (this) {
+                reloading = false;
+                retryAt = now.plus(RETRY_AFTER_FAILURE);
+            }
+            System.err.println("Error loading medication round for overdue tracking: " + e.getMessage());
+            return;
+        }
+
+        Map<Long, MedicationSchedule> loadedLines = new HashMap<>();
+        Map<Long, OverdueDose> loadedOverdue = new LinkedHashMap<>();
+        TimingWheel<DueDose> loadedWheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, toMillis(now));
+        for (MedicationSchedule line : round) {
+            loadedLines.put(line.getPrescriptionMedicineId(), line);
+            List<LocalTime> slots = DoseFrequency.compile(line.getFrequency()).getSlots();
+            int due = 0;
+            for (int i = 0; i < slots.size(); i++) {
+                LocalDateTime deadline = day.atTime(slots.get(i)).plus(grace);
+                if (deadline.isAfter(now)) {
+                    loadedWheel.schedule(toMillis(deadline), new DueDose(line.getPrescriptionMedicineId(), i + 1));
+                } else {
+                    due = i + 1;
+                }
+            }
+            if (due > line.getGivenCount()) {
+                loadedOverdue.put(line.getPrescriptionMedicineId(), overdueDose(line, slots, day));
+            }
+        }
+
+        synchronized (this) {
+            for (OverdueDose dose : loadedOverdue.values()) {
+                if (!overdue.containsKey(dose.getPrescriptionMedicineId())) {
+                    events.add(dose);
+                }
+            }
+            overdue.clear();
+            overdue.putAll(loadedOverdue);
+            lines = loadedLines;
+            wheel = loadedWheel;
+            loadedDay = day;
+            retryAt = null;
+            reloading = false;
+            // A change committed while the round was read may be missing from it
+            stale = changes != changesAtStart;
+        }
+        events.sort(Comparator.comparing(OverdueDose::getDueAt));
+    }
+
+    private void expire(DueDose dose, List<OverdueDose> events) {
+        MedicationSchedule line = lines.get(dose.prescriptionMedicineId);
+        if (line == null || dose.dueCount <= line.getGivenCount() || overdue.containsKey(dose.prescriptionMedicineId)) {
+            return;
+        }
+        OverdueDose overdueDose = overdueDose(line, DoseFrequency.compile(line.getFrequency()).getSlots(), loadedDay);
+        overdue.put(dose.prescriptionMedicineId, overdueDose);
+        events.add(overdueDose);
+    }
+
+    /**
+     * The first dose time of the day not covered by the doses given
+     */
+    private OverdueDose overdueDose(MedicationSchedule line, List<LocalTime> slots, LocalDate day) {
+        LocalDateTime dueAt = day.atTime(slots.get(Math.min(line.getGivenCount(), slots.size() - 1)));
+        return new OverdueDose(line, dueAt, dueAt.plus(grace));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void close() {
+        MedicationRoundService.removeChangeListener(changeListener);
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * The n-th dose of a line's day, n counted from 1
+     */
+    private static final class DueDose {
+        private final Long prescriptionMedicineId;
+        private final int dueCount;
+
+        DueDose(Long prescriptionMedicineId, int dueCount) {
+            this.prescriptionMedicineId = prescriptionMedicineId;
+            this.dueCount = dueCount;
+        }
+    }
+
+    /**
+     * A line whose dose was not given by its deadline
+     */
+    public static final class OverdueDose {
+        private final MedicationSchedule schedule;
+        private final LocalDateTime dueAt;
+        private final LocalDateTime deadline;
+
+        OverdueDose(MedicationSchedule schedule, LocalDateTime dueAt, LocalDateTime deadline) {
+            this.schedule = schedule;
+            this.dueAt = dueAt;
+            this.deadline = deadline;
+        }
+
+        public MedicationSchedule getSchedule() { return schedule; }
+        public Long getPrescriptionMedicineId() { return schedule.getPrescriptionMedicineId(); }
+        public LocalDateTime getDueAt() { return dueAt; }
+        public LocalDateTime getDeadline() { return deadline; }
+    }
+}
@@ -1,8 +1,11 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Prescription;
+import com.healthcare.model.Resident;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -10,42 +13,69 @@ import java.util.Optional;
 
 /**
  * Service for managing prescriptions
+ *
+ * Changes to prescriptions and their lines are applied to the materialized
+ * medication rounds and the daily rollups in the same transaction.
  */
 public class PrescriptionService {
     
+    private final MedicationRoundService rounds;
+    private final DailyRollupService rollups;
+    
+    public PrescriptionService() {
+        this(new MedicationRoundService());
+    }
+    
+    public PrescriptionService(MedicationRoundService rounds) {
+        this(rounds, new DailyRollupService());
+    }
+    
+    public PrescriptionService(MedicationRoundService rounds, DailyRollupService rollups) {
+        this.rounds = rounds;
+        this.rollups = rollups;
+    }
+    
     /**
      * Save a new prescription
      */
     public Prescription save(Prescription prescription) {
         String sql = "INSERT INTO Prescriptions (resident_id, doctor_id, prescription_date, notes, status, review_status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setLong(1, prescription.getResidentId());
-            stmt.setLong(2, prescription.getDoctorId());
-            stmt.setDate(3, Date.valueOf(prescription.getPrescriptionDate()));
-            stmt.setString(4, prescription.getNotes());
-            stmt.setString(5, prescription.getStatus().name());
-            stmt.setString(6, prescription.getReviewStatus().name());
-            stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        prescription.setPrescriptionId(generatedKeys.getLong(1));
+        try {
+            return UnitOfWork.execute(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    
+                    stmt.setLong(1, prescription.getResidentId());
+                    stmt.setLong(2, prescription.getDoctorId());
+                    stmt.setDate(3, Date.valueOf(prescription.getPrescriptionDate()));
+                    stmt.setString(4, prescription.getNotes());
+                    stmt.setString(5, prescription.getStatus().name());
+                    stmt.setString(6, prescription.getReviewStatus().name());
+                    stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+                    
+                    int affectedRows = stmt.executeUpdate();
+                    
+                    if (affectedRows > 0) {
+                        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                prescription.setPrescriptionId(generatedKeys.getLong(1));
+                            }
+                        }
                     }
                 }
-            }
+                if (prescription.getPrescriptionId() != null) {
+                    rollups.prescriptionCounted(prescription.getPrescriptionId(), 1);
+                }
+                UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+                UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
+                return prescription;
+            });
             
         } catch (SQLException e) {
             System.err.println("Error saving prescription: " + e.getMessage());
             throw new RuntimeException("Failed to save prescription", e);
         }
-        
-        return prescription;
     }
     
     /**
@@ -97,7 +127,104 @@ public class PrescriptionService {
         
         return prescriptions;
     }
-    
+
+    /**
+     * Find a doctor's most recent prescriptions, newest first
+     */
+    public List<Prescription> findRecentByDoctorId(Long doctorId, int limit) {
+        String sql = "SELECT * FROM Prescriptions WHERE doctor_id = ? ORDER BY prescription_date DESC, prescription_id DESC LIMIT ?";
+
+        List<Prescription> prescriptions = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, doctorId);
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    prescriptions.add(mapResultSetToPrescription(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding recent prescriptions by doctor: " + e.getMessage());
+        }
+
+        return prescriptions;
+    }
+
+    /**
+     * A doctor's prescriptions for the prescription table in one query, newest first, with the
+     * patient's name joined in; review notes are not selected
+     */
+    public List<Prescription> findListRowsByDoctorId(Long doctorId) {
+        return findListRowsByDoctorId(doctorId, null, null);
+    }
+
+    /**
+     * As findListRowsByDoctorId(Long), limited to prescriptions dated from (inclusive) until
+     * (exclusive); a null bound is open
+     */
+    public List<Prescription> findListRowsByDoctorId(Long doctorId, LocalDate from, LocalDate until) {
+        String sql = "SELECT p.prescription_id, p.resident_id, p.doctor_id, p.prescription_date, p.notes, " +
+                    "p.status, p.review_status, p.reviewed_by, p.reviewed_at, p.created_at, " +
+                    "r.first_name, r.last_name " +
+                    "FROM Prescriptions p LEFT JOIN Residents r ON r.resident_id = p.resident_id " +
+                    "WHERE p.doctor_id = ?" +
+                    (from != null ? " AND p.prescription_date >= ?" : "") +
+                    (until != null ? " AND p.prescription_date < ?" : "") +
+                    " ORDER BY p.prescription_date DESC, p.prescription_id DESC";
+
+        List<Prescription> prescriptions = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setLong(index++, doctorId);
+            if (from != null) {
+                stmt.setDate(index++, Date.valueOf(from));
+            }
+            if (until != null) {
+                stmt.setDate(index, Date.valueOf(until));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Prescription prescription = new Prescription();
+                    prescription.setPrescriptionId(rs.getLong("prescription_id"));
+                    prescription.setResidentId(rs.getLong("resident_id"));
+                    prescription.setDoctorId(rs.getLong("doctor_id"));
+                    prescription.setPrescriptionDate(rs.getDate("prescription_date").toLocalDate());
+                    prescription.setNotes(rs.getString("notes"));
+                    prescription.setStatus(Prescription.PrescriptionStatus.valueOf(rs.getString("status")));
+                    prescription.setReviewStatus(Prescription.ReviewStatus.valueOf(rs.getString("review_status")));
+                    prescription.setReviewedBy(rs.getObject("reviewed_by", Long.class));
+                    Timestamp reviewedAt = rs.getTimestamp("reviewed_at");
+                    prescription.setReviewedAt(reviewedAt != null ? reviewedAt.toLocalDateTime() : null);
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    prescription.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+
+                    if (rs.getString("first_name") != null) {
+                        Resident resident = new Resident();
+                        resident.setResidentId(prescription.getResidentId());
+                        resident.setFirstName(rs.getString("first_name"));
+                        resident.setLastName(rs.getString("last_name"));
+                        prescription.setResident(resident);
+                    }
+                    prescriptions.add(prescription);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding prescription list rows by doctor: " + e.getMessage());
+        }
+
+        return prescriptions;
+    }
+
     /**
      * Find all prescriptions for a specific resident
      */
@@ -231,32 +358,38 @@ public class PrescriptionService {
     public Prescription update(Prescription prescription) {
         String sql = "UPDATE Prescriptions SET resident_id = ?, doctor_id = ?, prescription_date = ?, notes = ?, status = ?, review_status = ?, review_notes = ?, reviewed_by = ?, reviewed_at = ? WHERE prescription_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescription.getResidentId());
-            stmt.setLong(2, prescription.getDoctorId());
-            stmt.setDate(3, Date.valueOf(prescription.getPrescriptionDate()));
-            stmt.setString(4, prescription.getNotes());
-            stmt.setString(5, prescription.getStatus().name());
-            stmt.setString(6, prescription.getReviewStatus().name());
-            stmt.setString(7, prescription.getReviewNotes());
-            stmt.setObject(8, prescription.getReviewedBy());
-            stmt.setTimestamp(9, prescription.getReviewedAt() != null ? Timestamp.valueOf(prescription.getReviewedAt()) : null);
-            stmt.setLong(10, prescription.getPrescriptionId());
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows > 0) {
+        try {
+            return UnitOfWork.execute(() -> {
+                rollups.prescriptionCounted(prescription.getPrescriptionId(), -1);
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setLong(1, prescription.getResidentId());
+                    stmt.setLong(2, prescription.getDoctorId());
+                    stmt.setDate(3, Date.valueOf(prescription.getPrescriptionDate()));
+                    stmt.setString(4, prescription.getNotes());
+                    stmt.setString(5, prescription.getStatus().name());
+                    stmt.setString(6, prescription.getReviewStatus().name());
+                    stmt.setString(7, prescription.getReviewNotes());
+                    stmt.setObject(8, prescription.getReviewedBy());
+                    stmt.setTimestamp(9, prescription.getReviewedAt() != null ? Timestamp.valueOf(prescription.getReviewedAt()) : null);
+                    stmt.setLong(10, prescription.getPrescriptionId());
+                    
+                    if (stmt.executeUpdate() == 0) {
+                        return null;
+                    }
+                }
+                rollups.prescriptionCounted(prescription.getPrescriptionId(), 1);
+                rounds.prescriptionChanged(prescription.getPrescriptionId());
+                UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+                UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
                 return prescription;
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating prescription: " + e.getMessage());
             throw new RuntimeException("Failed to update prescription", e);
         }
-        
-        return null;
     }
     
     /**
@@ -265,13 +398,23 @@ public class PrescriptionService {
     public boolean deleteById(Long prescriptionId) {
         String sql = "DELETE FROM Prescriptions WHERE prescription_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescriptionId);
-            
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+        try {
+            return UnitOfWork.execute(() -> {
+                rollups.prescriptionCounted(prescriptionId, -1);
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setLong(1, prescriptionId);
+                    
+                    if (stmt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+                rounds.prescriptionChanged(prescriptionId);
+                UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+                UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
+                return true;
+            });
             
         } catch (SQLException e) {
             System.err.println("Error deleting prescription: " + e.getMessage());
@@ -379,20 +522,30 @@ public class PrescriptionService {
                                        java.time.LocalDate endDate, String instructions) {
         String sql = "INSERT INTO Prescription_Medicines (prescription_id, medicine_id, dosage, frequency, start_date, end_date, instructions, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, prescriptionId);
-            stmt.setLong(2, medicineId);
-            stmt.setString(3, dosage);
-            stmt.setString(4, frequency);
-            stmt.setDate(5, startDate != null ? Date.valueOf(startDate) : null);
-            stmt.setDate(6, endDate != null ? Date.valueOf(endDate) : null);
-            stmt.setString(7, instructions);
-            stmt.setBoolean(8, true);
-            stmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
-            
-            stmt.executeUpdate();
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    
+                    stmt.setLong(1, prescriptionId);
+                    stmt.setLong(2, medicineId);
+                    stmt.setString(3, dosage);
+                    stmt.setString(4, frequency);
+                    stmt.setDate(5, startDate != null ? Date.valueOf(startDate) : null);
+                    stmt.setDate(6, endDate != null ? Date.valueOf(endDate) : null);
+                    stmt.setString(7, instructions);
+                    stmt.setBoolean(8, true);
+                    stmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
+                    
+                    stmt.executeUpdate();
+                    
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            rounds.prescriptionMedicineChanged(keys.getLong(1));
+                        }
+                    }
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error saving prescription medicine: " + e.getMessage());
@@ -1,7 +1,12 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
 import com.healthcare.model.Resident;
+import com.healthcare.model.Room;
+import com.healthcare.model.Staff;
+import com.healthcare.model.Ward;
 import com.healthcare.services.impl.IResidentService;
 
 import java.sql.*;
@@ -15,6 +20,24 @@ import java.util.Optional;
  */
 public class ResidentService implements IResidentService {
 
+    // Renames and discharges are applied to the materialized medication rounds
+    private final MedicationRoundService rounds;
+    // Admissions and discharges are counted in the daily ward rollups
+    private final DailyRollupService rollups;
+
+    public ResidentService() {
+        this(new MedicationRoundService());
+    }
+
+    public ResidentService(MedicationRoundService rounds) {
+        this(rounds, new DailyRollupService());
+    }
+
+    public ResidentService(MedicationRoundService rounds, DailyRollupService rollups) {
+        this.rounds = rounds;
+        this.rollups = rollups;
+    }
+
     @Override
     public Resident save(Resident resident) {
         String sql = "INSERT INTO Residents (first_name, last_name, gender, birth_date, admission_date, discharge_date, current_bed_id, medical_condition, requires_isolation, emergency_contact, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
@@ -51,7 +74,12 @@ public class ResidentService implements IResidentService {
                 if (generatedKeys.next()) {
                     resident.setResidentId(generatedKeys.getLong(1));
                 }
+                rollups.admitted(resident.getAdmissionDate(), resident.getCurrentBedId());
+                UnitOfWork.afterCommit(() -> BedCensus.updateShared(census -> census.admitted(
+                        resident.getResidentId(), resident.getCurrentBedId(), resident.getAdmissionDate())));
             }
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+            UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
             return resident;
             
         } catch (SQLException e) {
@@ -110,6 +138,8 @@ public class ResidentService implements IResidentService {
             
             stmt.setLong(1, id);
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
+            UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
             
         } catch (SQLException e) {
             System.err.println("Error deleting resident: " + e.getMessage());
@@ -120,23 +150,29 @@ public class ResidentService implements IResidentService {
     public Resident update(Resident resident) {
         String sql = "UPDATE Residents SET first_name = ?, last_name = ?, gender = ?, birth_date = ?, admission_date = ?, discharge_date = ?, current_bed_id = ?, medical_condition = ?, requires_isolation = ?, emergency_contact = ?, updated_at = ? WHERE resident_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, resident.getFirstName());
-            stmt.setString(2, resident.getLastName());
-            stmt.setString(3, resident.getGender().name());
-            stmt.setDate(4, resident.getBirthDate() != null ? Date.valueOf(resident.getBirthDate()) : null);
-            stmt.setDate(5, Date.valueOf(resident.getAdmissionDate()));
-            stmt.setDate(6, resident.getDischargeDate() != null ? Date.valueOf(resident.getDischargeDate()) : null);
-            stmt.setLong(7, resident.getCurrentBedId() != null ? resident.getCurrentBedId() : 0);
-            stmt.setString(8, resident.getMedicalCondition());
-            stmt.setBoolean(9, resident.isRequiresIsolation());
-            stmt.setString(10, resident.getEmergencyContact());
-            stmt.setTimestamp(11, Timestamp.valueOf(resident.getUpdatedAt()));
-            stmt.setLong(12, resident.getResidentId());
-            
-            stmt.executeUpdate();
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setString(1, resident.getFirstName());
+                    stmt.setString(2, resident.getLastName());
+                    stmt.setString(3, resident.getGender().name());
+                    stmt.setDate(4, resident.getBirthDate() != null ? Date.valueOf(resident.getBirthDate()) : null);
+                    stmt.setDate(5, Date.valueOf(resident.getAdmissionDate()));
+                    stmt.setDate(6, resident.getDischargeDate() != null ? Date.valueOf(resident.getDischargeDate()) : null);
+                    stmt.setLong(7, resident.getCurrentBedId() != null ? resident.getCurrentBedId() : 0);
+                    stmt.setString(8, resident.getMedicalCondition());
+                    stmt.setBoolean(9, resident.isRequiresIsolation());
+                    stmt.setString(10, resident.getEmergencyContact());
+                    stmt.setTimestamp(11, Timestamp.valueOf(resident.getUpdatedAt()));
+                    stmt.setLong(12, resident.getResidentId());
+                    
+                    stmt.executeUpdate();
+                }
+                rounds.residentChanged(resident.getResidentId());
+                UnitOfWork.afterCommit(DoctorReportService::invalidateShared);
+            });
             return resident;
             
         } catch (SQLException e) {
@@ -200,12 +236,19 @@ public class ResidentService implements IResidentService {
     public void dischargeResident(Long residentId) {
         String sql = "UPDATE Residents SET discharge_date = ?, current_bed_id = NULL WHERE resident_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, Date.valueOf(LocalDate.now()));
-            stmt.setLong(2, residentId);
-            stmt.executeUpdate();
+        try {
+            UnitOfWork.run(() -> {
+                rollups.discharging(LocalDate.now(), residentId);
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setDate(1, Date.valueOf(LocalDate.now()));
+                    stmt.setLong(2, residentId);
+                    stmt.executeUpdate();
+                }
+                rounds.residentChanged(residentId);
+                UnitOfWork.afterCommit(() -> BedCensus.updateShared(census -> census.discharged(residentId, LocalDate.now())));
+            });
             
             // Also update the bed to be vacant
             unassignBed(residentId);
@@ -225,6 +268,7 @@ public class ResidentService implements IResidentService {
             stmt.setLong(1, bedId);
             stmt.setLong(2, residentId);
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
             
         } catch (SQLException e) {
             System.err.println("Error assigning bed: " + e.getMessage());
@@ -240,6 +284,7 @@ public class ResidentService implements IResidentService {
             
             stmt.setLong(1, residentId);
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
             
         } catch (SQLException e) {
             System.err.println("Error unassigning bed: " + e.getMessage());
@@ -304,6 +349,128 @@ public class ResidentService implements IResidentService {
         return residents;
     }
     
+    /**
+     * All residents for the resident management table, newest admission first
+     */
+    public List<Resident> findListRows() {
+        return findListRows("", false, null);
+    }
+
+    /**
+     * Current residents for the nurse's patient list, with medical condition and emergency contact
+     */
+    public List<Resident> findActiveListRows() {
+        return findListRows("WHERE r.discharge_date IS NULL", true, null);
+    }
+
+    /**
+     * A doctor's patients for the doctor's patient list, with medical condition and emergency contact
+     */
+    public List<Resident> findListRowsByDoctorId(Long doctorId) {
+        return findListRows("WHERE r.assigned_doctor_id = ?", true, doctorId);
+    }
+
+    /**
+     * List rows in one query, with the bed, room, ward and assigned doctor joined in
+     *
+     * Rows are read-only projections: only the columns list views show are selected, so the
+     * medical notes are left out unless withNotes is set and the timestamps are never read.
+     * Re-read a resident with findById before updating it.
+     */
+    private List<Resident> findListRows(String where, boolean withNotes, Long param) {
+        String sql = "SELECT r.resident_id, r.first_name, r.last_name, r.gender, r.birth_date, r.admission_date, " +
+                    "r.discharge_date, r.current_bed_id, r.assigned_doctor_id, r.requires_isolation, " +
+                    (withNotes ? "r.medical_condition, r.emergency_contact, " : "") +
+                    "b.bed_code, b.room_id, rm.room_number, rm.ward_id, w.ward_name, " +
+                    "d.first_name AS doctor_first_name, d.last_name AS doctor_last_name " +
+                    "FROM Residents r " +
+                    "LEFT JOIN Beds b ON b.bed_id = r.current_bed_id " +
+                    "LEFT JOIN Rooms rm ON rm.room_id = b.room_id " +
+                    "LEFT JOIN Wards w ON w.ward_id = rm.ward_id " +
+                    "LEFT JOIN Staff d ON d.staff_id = r.assigned_doctor_id " +
+                    where + " ORDER BY r.admission_date DESC, r.resident_id DESC";
+        List<Resident> residents = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (param != null) {
+                stmt.setLong(1, param);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    residents.add(mapListRow(rs, withNotes));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding resident list rows: " + e.getMessage());
+        }
+
+        return residents;
+    }
+
+    private Resident mapListRow(ResultSet rs, boolean withNotes) throws SQLException {
+        Resident resident = new Resident();
+        resident.setResidentId(rs.getLong("resident_id"));
+        resident.setFirstName(rs.getString("first_name"));
+        resident.setLastName(rs.getString("last_name"));
+        resident.setGender(Resident.Gender.valueOf(rs.getString("gender")));
+
+        Date birthDate = rs.getDate("birth_date");
+        resident.setBirthDate(birthDate != null ? birthDate.toLocalDate() : null);
+        resident.setAdmissionDate(rs.getDate("admission_date").toLocalDate());
+        Date dischargeDate = rs.getDate("discharge_date");
+        resident.setDischargeDate(dischargeDate != null ? dischargeDate.toLocalDate() : null);
+        resident.setRequiresIsolation(rs.getBoolean("requires_isolation"));
+
+        if (withNotes) {
+            resident.setMedicalCondition(rs.getString("medical_condition"));
+            resident.setEmergencyContact(rs.getString("emergency_contact"));
+        }
+
+        long currentBedId = rs.getLong("current_bed_id");
+        if (currentBedId > 0) {
+            resident.setCurrentBedId(currentBedId);
+            String bedCode = rs.getString("bed_code");
+            if (bedCode != null) {
+                Bed bed = new Bed();
+                bed.setBedId(currentBedId);
+                bed.setBedCode(bedCode);
+                bed.setRoomId(rs.getLong("room_id"));
+
+                Room room = new Room();
+                room.setRoomId(bed.getRoomId());
+                room.setRoomNumber(rs.getString("room_number"));
+                room.setWardId(rs.getLong("ward_id"));
+                Ward ward = new Ward();
+                ward.setWardId(room.getWardId());
+                ward.setWardName(rs.getString("ward_name"));
+                room.setWard(ward);
+                bed.setRoom(room);
+
+                resident.setCurrentBed(bed);
+            }
+        }
+
+        long assignedDoctorId = rs.getLong("assigned_doctor_id");
+        if (assignedDoctorId > 0) {
+            resident.setAssignedDoctorId(assignedDoctorId);
+            String doctorFirstName = rs.getString("doctor_first_name");
+            String doctorLastName = rs.getString("doctor_last_name");
+            if (doctorFirstName != null || doctorLastName != null) {
+                Staff doctor = new Staff();
+                doctor.setStaffId(assignedDoctorId);
+                doctor.setFirstName(doctorFirstName);
+                doctor.setLastName(doctorLastName);
+                resident.setAssignedDoctor(doctor);
+            }
+        }
+
+        return resident;
+    }
+
     /**
      * Get bed code for a resident by their current bed ID
      */
@@ -0,0 +1,585 @@
+package com.healthcare.services;
+
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+import com.healthcare.model.Staff;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the gaps in a roster with compliant, evenly shared shifts
+ *
+ * The open slots are whatever a ShiftComplianceEvaluator over the range says
+ * is missing: nurse shifts below 2 and doctor shifts below 1 per day. Each slot
+ * goes to an active nurse or doctor who stays within 8 hours that day and is
+ * not already working at that time, in a saved shift or a generated one. Saved
+ * shifts on the day before the range count for overlaps and quick returns when
+ * the evaluator holds them.
+ *
+ * The search runs restarts in parallel on a fork/join pool. A restart fills
+ * the days in order, giving each slot to the candidate with the fewest shifts
+ * so far (ties broken by its own random seed), then swaps slots between staff
+ * while that lowers the penalty: uneven shift counts within a role, a Morning
+ * straight after an Afternoon, and more than 5 days in a row. Every finished
+ * restart is offered as the best so far; when the time budget runs out the best
+ * roster found is returned, however many restarts completed.
+ */
+public class RosterGenerator {
+
+    /**
+     * Default shift times, from the Shifts templates
+     */
+    public static final List<Slot> DEFAULT_SLOTS = List.of(
+            new Slot(Shift.ShiftType.Morning, "08:00", "16:00"),
+            new Slot(Shift.ShiftType.Afternoon, "14:00", "22:00"),
+            new Slot(Shift.ShiftType.Doctor, "09:00", "10:00"));
+
+    static final int MAX_CONSECUTIVE_DAYS = 5;
+    static final int QUICK_RETURN_PENALTY = 4;
+    static final int LONG_RUN_PENALTY = 2;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final ForkJoinPool pool;
+    private final int restarts;
+
+    /**
+     * A generator trying a restart per core, on the common pool
+     */
+    public RosterGenerator() {
+        this(ForkJoinPool.commonPool(), Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public RosterGenerator(ForkJoinPool pool, int restarts) {
+        this.pool = pool;
+        this.restarts = restarts;
+    }
+
+    /**
+     * Best roster found within the budget for the open slots of [from, to]
+     * @param existing the evaluator over the saved shifts of [from, to], and of the day before if
+     *                 its late shifts should be worked around; not modified
+     * @param staff candidates; only active nurses and doctors are rostered
+     * @param wardIds wards assigned to the new shifts in turn; may be empty
+     */
+    public Roster generate(LocalDate from, LocalDate to, ShiftComplianceEvaluator existing, List<Staff> staff,
+                           List<Long> wardIds, List<Slot> slots, Duration budget, long seed) {
+        Problem problem = new Problem(from, to, existing, staff, wardIds, slots);
+        long deadline = System.nanoTime() + budget.toNanos();
+        Best best = new Best();
+        if (problem.open.length > 0) {
+            pool.invoke(new Restarts(problem, seed, 0, restarts, deadline, best));
+        }
+        return best.roster != null ? best.roster : problem.toRoster(new long[problem.open.length], Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Splits the restarts in halves until one is left, then runs it
+     */
+    private static final class Restarts extends RecursiveAction {
+        private final Problem problem;
+        private final long seed;
+        private final int lo;
+        private final int hi;
+        private final long deadline;
+        private final Best best;
+
+        Restarts(Problem problem, long seed, int lo, int hi, long deadline, Best best) {
+            this.problem = problem;
+            this.seed = seed;
+            this.lo = lo;
+            this.hi = hi;
+            this.deadline = deadline;
+            this.best = best;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Restarts(problem, seed, lo, mid, deadline, best),
+                        new Restarts(problem, seed, mid, hi, deadline, best));
+                return;
+            }
+            // The first restart always runs, so there is a roster to return
+            if (lo > 0 && System.nanoTime() >= deadline) {
+                return;
+            }
+            Search search = new Search(problem, new SplittableRandom(seed + lo * 0x9E3779B97F4A7C15L));
+            search.construct();
+            best.offer(problem, search.assigned, search.penalty());
+            search.improve(deadline);
+            best.offer(problem, search.assigned, search.penalty());
+        }
+    }
+
+    /**
+     * The best roster offered so far; restarts offer theirs as they go
+     */
+    private static final class Best {
+        private Roster roster;
+        private final AtomicInteger offers = new AtomicInteger();
+
+        synchronized void offer(Problem problem, long[] assigned, long penalty) {
+            int offered = offers.incrementAndGet();
+            if (roster == null || penalty < roster.getPenalty()) {
+                roster = problem.toRoster(assigned.clone(), penalty, offered);
+            } else {
+                roster.candidates = offered;
+            }
+        }
+    }
+
+    /**
+     * The fixed inputs shared by every restart
+     */
+    private static final class Problem {
+        private final LocalDate from;
+        private final int days;
+        private final Slot[] open;       // open slots, by day
+        private final int[] openDay;     // day index of each open slot
+        private final Long[] openWard;
+        private final long[][] candidates;  // by role: 0 nurses, 1 doctors
+        private final Map<Long, Integer> indexOf = new HashMap<>();
+        private final long[] staffIds;           // by staff index
+        private final int[] existingShifts;      // days with saved shifts in the range, per staff index
+        private final int[][] existingMinutes;   // per staff index and day
+        private final int[][][] existingBusy;    // saved [start, end) pairs touching each day, in minutes from `from`
+        private final boolean[][] existingAfternoon;
+        private final boolean[] afternoonBefore; // an Afternoon saved on the day before the range
+        private final int[] openFirst;           // first open slot of each day, and open.length at the end
+
+        Problem(LocalDate from, LocalDate to, ShiftComplianceEvaluator existing, List<Staff> staff,
+                List<Long> wardIds, List<Slot> slots) {
+            this.from = from;
+            this.days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+
+            List<Long> nurses = new ArrayList<>();
+            List<Long> doctors = new ArrayList<>();
+            for (Staff member : staff) {
+                if (!member.isActive() || indexOf.containsKey(member.getStaffId())) {
+                    continue;
+                }
+                if (member.getRole() == Staff.Role.Nurse) {
+                    nurses.add(member.getStaffId());
+                } else if (member.getRole() == Staff.Role.Doctor) {
+                    doctors.add(member.getStaffId());
+                } else {
+                    continue;
+                }
+                indexOf.put(member.getStaffId(), indexOf.size());
+            }
+            this.candidates = new long[][]{
+                    nurses.stream().mapToLong(Long::longValue).toArray(),
+                    doctors.stream().mapToLong(Long::longValue).toArray()};
+
+            this.staffIds = new long[indexOf.size()];
+            this.existingShifts = new int[indexOf.size()];
+            this.existingMinutes = new int[indexOf.size()][days];
+            this.existingBusy = new int[indexOf.size()][days][];
+            this.existingAfternoon = new boolean[indexOf.size()][days];
+            this.afternoonBefore = new boolean[indexOf.size()];
+            for (Map.Entry<Long, Integer> entry : indexOf.entrySet()) {
+                int s = entry.getValue();
+                staffIds[s] = entry.getKey();
+                Arrays.fill(existingBusy[s], new int[0]);
+                for (int day = 0; day < days; day++) {
+                    int minutes = existing.getMinutes(entry.getKey(), from.plusDays(day));
+                    existingMinutes[s][day] = minutes;
+                    existingShifts[s] += minutes > 0 ? 1 : 0;
+                }
+                for (int day = -1; day < days; day++) {
+                    for (ShiftSchedule shift : existing.getShifts(entry.getKey(), from.plusDays(day))) {
+                        seed(s, day, shift);
+                    }
+                }
+            }
+
+            List<Slot> openSlots = new ArrayList<>();
+            List<Integer> openDays = new ArrayList<>();
+            for (int day = 0; day < days; day++) {
+                LocalDate date = from.plusDays(day);
+                int nursesMissing = ShiftComplianceEvaluator.NURSE_SHIFTS_PER_DAY - existing.getNurseShifts(date);
+                int doctorsMissing = ShiftComplianceEvaluator.DOCTOR_SHIFTS_PER_DAY - existing.getDoctorShifts(date);
+                for (Slot slot : slots) {
+                    boolean doctor = slot.getShiftType() == Shift.ShiftType.Doctor;
+                    if (doctor ? doctorsMissing-- > 0 : nursesMissing-- > 0) {
+                        openSlots.add(slot);
+                        openDays.add(day);
+                    }
+                }
+            }
+            this.open = openSlots.toArray(new Slot[0]);
+            this.openDay = openDays.stream().mapToInt(Integer::intValue).toArray();
+            this.openFirst = new int[days + 1];
+            for (int day = 0, i = 0; day <= days; day++) {
+                while (i < openDay.length && openDay[i] < day) {
+                    i++;
+                }
+                openFirst[day] = i;
+            }
+            this.openWard = new Long[open.length];
+            for (int i = 0; i < open.length; i++) {
+                openWard[i] = wardIds.isEmpty() ? null : wardIds.get(i % wardIds.size());
+            }
+        }
+
+        /**
+         * Record a saved shift of the day with the given index (-1 for the day before the range)
+         */
+        private void seed(int s, int day, ShiftSchedule shift) {
+            int startMinute = ShiftComplianceEvaluator.minuteOfDay(shift.getStartTime());
+            int length = ShiftComplianceEvaluator.minutes(shift);
+            if (shift.getShiftType() == Shift.ShiftType.Afternoon) {
+                if (day < 0) {
+                    afternoonBefore[s] = true;
+                } else {
+                    existingAfternoon[s][day] = true;
+                }
+            }
+            if (startMinute < 0 || length == 0) {
+                return;
+            }
+            int start = day * MINUTES_PER_DAY + startMinute;
+            int end = start + length;
+            // A shift touches its own day and, past midnight, the next
+            for (int touched = Math.max(day, 0); touched < days && touched * MINUTES_PER_DAY < end; touched++) {
+                int[] busy = Arrays.copyOf(existingBusy[s][touched], existingBusy[s][touched].length + 2);
+                busy[busy.length - 2] = start;
+                busy[busy.length - 1] = end;
+                existingBusy[s][touched] = busy;
+            }
+        }
+
+        int role(Slot slot) {
+            return slot.getShiftType() == Shift.ShiftType.Doctor ? 1 : 0;
+        }
+
+        Roster toRoster(long[] assigned, long penalty, int candidates) {
+            List<ShiftSchedule> shifts = new ArrayList<>();
+            List<Unfilled> unfilled = new ArrayList<>();
+            for (int i = 0; i < open.length; i++) {
+                LocalDate date = from.plusDays(openDay[i]);
+                if (assigned[i] == 0) {
+                    unfilled.add(new Unfilled(date, open[i]));
+                    continue;
+                }
+                ShiftSchedule shift = new ShiftSchedule(assigned[i], date, open[i].getShiftType(),
+                        open[i].getStartTime(), open[i].getEndTime());
+                shift.setWardId(openWard[i]);
+                shifts.add(shift);
+            }
+            Roster roster = new Roster(shifts, unfilled, penalty);
+            roster.candidates = candidates;
+            return roster;
+        }
+    }
+
+    /**
+     * One restart's roster and the per-staff totals it is scored on
+     */
+    private static final class Search {
+        private final Problem problem;
+        private final SplittableRandom random;
+        private final long[] assigned;   // staff id per open slot, 0 if none could take it
+        private final int[] shifts;      // per staff index
+        private final int[][] minutes;   // per staff index and day
+        private final boolean[][] afternoon;
+
+        Search(Problem problem, SplittableRandom random) {
+            this.problem = problem;
+            this.random = random;
+            this.assigned = new long[problem.open.length];
+            this.shifts = problem.existingShifts.clone();
+            this.minutes = new int[shifts.length][];
+            this.afternoon = new boolean[shifts.length][];
+            for (int i = 0; i < shifts.length; i++) {
+                minutes[i] = problem.existingMinutes[i].clone();
+                afternoon[i] = problem.existingAfternoon[i].clone();
+            }
+        }
+
+        /**
+         * Give each slot, day by day, to a feasible candidate with the fewest shifts
+         */
+        void construct() {
+            for (int i = 0; i < assigned.length; i++) {
+                Slot slot = problem.open[i];
+                int day = problem.openDay[i];
+                long[] candidates = problem.candidates[problem.role(slot)];
+                long chosen = 0;
+                int fewest = Integer.MAX_VALUE;
+                int ties = 0;
+                int offset = candidates.length > 0 ? random.nextInt(candidates.length) : 0;
+                for (int k = 0; k < candidates.length; k++) {
+                    long staffId = candidates[(offset + k) % candidates.length];
+                    int s = problem.indexOf.get(staffId);
+                    if (!fits(s, day, slot)) {
+                        continue;
+                    }
+                    int load = shifts[s] * 4 + (quickReturn(s, day, slot) ? 2 : 0) + (day > 0 && minutes[s][day - 1] > 0 ? 1 : 0);
+                    if (load < fewest) {
+                        fewest = load;
+                        chosen = staffId;
+                        ties = 1;
+                    } else if (load == fewest && random.nextInt(++ties) == 0) {
+                        chosen = staffId;
+                    }
+                }
+                if (chosen != 0) {
+                    place(i, chosen, 1);
+                }
+            }
+        }
+
+        /**
+         * Swap slots between staff of the same role while a swap lowers the penalty
+         */
+        void improve(long deadline) {
+            long current = penalty();
+            int stale = 0;
+            while (stale < assigned.length * 20 && System.nanoTime() < deadline) {
+                int i = random.nextInt(assigned.length);
+                int j = random.nextInt(assigned.length);
+                if (problem.role(problem.open[i]) != problem.role(problem.open[j])) {
+                    stale++;
+                    continue;
+                }
+                // Either swap two slots' staff, or hand slot i to the least loaded candidate
+                long a = assigned[i];
+                long b = i == j ? leastLoaded(problem.role(problem.open[i])) : assigned[j];
+                if (a == 0 || b == 0 || a == b) {
+                    stale++;
+                    continue;
+                }
+                place(i, a, -1);
+                if (i != j) {
+                    place(j, b, -1);
+                }
+                int sa = problem.indexOf.get(a);
+                int sb = problem.indexOf.get(b);
+                boolean feasible = fits(sb, problem.openDay[i], problem.open[i])
+                        && (i == j || fits(sa, problem.openDay[j], problem.open[j]));
+                if (feasible) {
+                    place(i, b, 1);
+                    if (i != j) {
+                        place(j, a, 1);
+                    }
+                    long next = penalty();
+                    if (next < current) {
+                        current = next;
+                        stale = 0;
+                        continue;
+                    }
+                    place(i, b, -1);
+                    if (i != j) {
+                        place(j, a, -1);
+                    }
+                }
+                place(i, a, 1);
+                if (i != j) {
+                    place(j, b, 1);
+                }
+                stale++;
+            }
+        }
+
+        private long leastLoaded(int role) {
+            long chosen = 0;
+            int fewest = Integer.MAX_VALUE;
+            for (long staffId : problem.candidates[role]) {
+                int s = problem.indexOf.get(staffId);
+                if (shifts[s] < fewest) {
+                    fewest = shifts[s];
+                    chosen = staffId;
+                }
+            }
+            return chosen;
+        }
+
+        /**
+         * Whether the slot keeps the staff member within 8 hours that day and
+         * overlaps none of their saved or placed shifts
+         */
+        private boolean fits(int s, int day, Slot slot) {
+            if (minutes[s][day] + slot.getMinutes() > ShiftComplianceEvaluator.MAX_DAILY_MINUTES) {
+                return false;
+            }
+            if (slot.getStartMinute() < 0) {
+                return true;
+            }
+            int start = day * MINUTES_PER_DAY + slot.getStartMinute();
+            int end = start + slot.getMinutes();
+            for (int touched = day; touched < problem.days && touched * MINUTES_PER_DAY < end; touched++) {
+                int[] busy = problem.existingBusy[s][touched];
+                for (int k = 0; k < busy.length; k += 2) {
+                    if (busy[k] < end && start < busy[k + 1]) {
+                        return false;
+                    }
+                }
+            }
+            // Placed slots can only overlap from the day before to the day after
+            long staffId = problem.staffIds[s];
+            int last = problem.openFirst[Math.min(problem.days, day + 2)];
+            for (int j = problem.openFirst[Math.max(0, day - 1)]; j < last; j++) {
+                Slot other = problem.open[j];
+                if (assigned[j] != staffId || other.getStartMinute() < 0) {
+                    continue;
+                }
+                int otherStart = problem.openDay[j] * MINUTES_PER_DAY + other.getStartMinute();
+                if (otherStart < end && start < otherStart + other.getMinutes()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean afternoonBefore(int s, int day) {
+            return day > 0 ? afternoon[s][day - 1] : problem.afternoonBefore[s];
+        }
+
+        private boolean quickReturn(int s, int day, Slot slot) {
+            return slot.getShiftType() == Shift.ShiftType.Morning && afternoonBefore(s, day);
+        }
+
+        private void place(int i, long staffId, int sign) {
+            int s = problem.indexOf.get(staffId);
+            int day = problem.openDay[i];
+            Slot slot = problem.open[i];
+            assigned[i] = sign > 0 ? staffId : 0;
+            shifts[s] += sign;
+            minutes[s][day] += sign * slot.getMinutes();
+            if (slot.getShiftType() == Shift.ShiftType.Afternoon) {
+                afternoon[s][day] = sign > 0 || problem.existingAfternoon[s][day];
+            }
+        }
+
+        /**
+         * Squared spread of shift counts within each role, plus quick returns
+         * and days past the longest allowed run; unfilled slots outweigh the rest
+         */
+        long penalty() {
+            long penalty = 0;
+            for (long[] role : problem.candidates) {
+                if (role.length == 0) {
+                    continue;
+                }
+                long total = 0;
+                for (long staffId : role) {
+                    total += shifts[problem.indexOf.get(staffId)];
+                }
+                for (long staffId : role) {
+                    long deviation = shifts[problem.indexOf.get(staffId)] * (long) role.length - total;
+                    penalty += deviation * deviation / ((long) role.length * role.length);
+                }
+            }
+            for (int s = 0; s < shifts.length; s++) {
+                int run = 0;
+                for (int day = 0; day < problem.days; day++) {
+                    if (minutes[s][day] > 0) {
+                        run++;
+                        if (run > MAX_CONSECUTIVE_DAYS) {
+                            penalty += LONG_RUN_PENALTY;
+                        }
+                        if (afternoonBefore(s, day) && !afternoon[s][day]) {
+                            penalty += QUICK_RETURN_PENALTY;
+                        }
+                    } else {
+                        run = 0;
+                    }
+                }
+            }
+            for (long staffId : assigned) {
+                if (staffId == 0) {
+                    penalty += 1_000_000L;
+                }
+            }
+            return penalty;
+        }
+    }
+
+    /**
+     * A shift to fill every day: type and "HH:mm" times
+     */
+    public static final class Slot {
+        private final Shift.ShiftType shiftType;
+        private final String startTime;
+        private final String endTime;
+        private final int minutes;
+        private final int startMinute;
+
+        public Slot(Shift.ShiftType shiftType, String startTime, String endTime) {
+            this.shiftType = shiftType;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.minutes = ShiftComplianceEvaluator.minutes(new ShiftSchedule(null, null, shiftType, startTime, endTime));
+            this.startMinute = ShiftComplianceEvaluator.minuteOfDay(startTime);
+        }
+
+        public Shift.ShiftType getShiftType() { return shiftType; }
+        public String getStartTime() { return startTime; }
+        public String getEndTime() { return endTime; }
+        public int getMinutes() { return minutes; }
+
+        /**
+         * Minutes since midnight the slot starts at; -1 if the start is not "HH:mm"
+         */
+        public int getStartMinute() { return startMinute; }
+    }
+
+    /**
+     * A slot nobody could take without going over their hours or overlapping a shift
+     */
+    public static final class Unfilled {
+        private final LocalDate date;
+        private final Slot slot;
+
+        Unfilled(LocalDate date, Slot slot) {
+            this.date = date;
+            this.slot = slot;
+        }
+
+        public LocalDate getDate() { return date; }
+        public Slot getSlot() { return slot; }
+    }
+
+    /**
+     * Generated shifts, not yet saved, with the slots left open
+     */
+    public static final class Roster {
+        private final List<ShiftSchedule> shifts;
+        private final List<Unfilled> unfilled;
+        private final long penalty;
+        private int candidates;
+
+        Roster(List<ShiftSchedule> shifts, List<Unfilled> unfilled, long penalty) {
+            this.shifts = shifts;
+            this.unfilled = unfilled;
+            this.penalty = penalty;
+        }
+
+        public List<ShiftSchedule> getShifts() { return Collections.unmodifiableList(shifts); }
+        public List<Unfilled> getUnfilled() { return Collections.unmodifiableList(unfilled); }
+        public boolean isComplete() { return unfilled.isEmpty(); }
+
+        /**
+         * Lower is fairer; see the class comment
+         */
+        public long getPenalty() { return penalty; }
+
+        /**
+         * Rosters compared before this one was returned
+         */
+        public int getCandidates() { return candidates; }
+    }
+}
@@ -0,0 +1,625 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.RosterPattern;
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Recurring roster patterns, materialized into Shift_Schedule
+ *
+ * A pattern's shifts are written as ordinary Shift_Schedule rows tagged with its
+ * pattern_id, up to the pattern's materialized_until date, so week views read a
+ * date range like any other shifts. Rows go in as multi-row INSERTs in the same
+ * transaction as the pattern change. Editing a pattern works out which upcoming
+ * dates it gains, loses or keeps: lost dates are deleted, gained dates inserted
+ * and kept dates updated in one statement, only if the shift itself changed.
+ * Past shifts and shifts that are no longer Scheduled are never touched; a
+ * materialized shift edited or deleted on its own stays that way.
+ *
+ * Every date is checked before it is written: a shift that would overlap the
+ * staff member's other shifts, or break the daily hours or coverage rules, is
+ * left out and reported as skipped. Inserts skip dates the pattern already has
+ * a row for (unique on pattern_id and shift_date), so two clients extending the
+ * same pattern never write a date twice.
+ */
+public class RosterPatternService {
+
+    private static final String PATTERN_COLUMNS =
+            "staff_id, template_id, shift_type, start_time, end_time, ward_id, days_mask, starts_on, ends_on, " +
+            "materialized_until, is_active, created_by, created_at";
+
+    private static final String SHIFT_COLUMNS =
+            "staff_id, shift_date, shift_type, start_time, end_time, ward_id, status, assigned_by, created_at, pattern_id";
+
+    // Rows per multi-row INSERT
+    static final int INSERT_CHUNK = 100;
+
+    private final StaffAvailabilityIndex availability;
+    private final ShiftManagementService shiftService;
+
+    public RosterPatternService() {
+        this(StaffAvailabilityIndex.getShared(), new ShiftManagementService());
+    }
+
+    public RosterPatternService(StaffAvailabilityIndex availability, ShiftManagementService shiftService) {
+        this.availability = availability;
+        this.shiftService = shiftService;
+    }
+
+    /**
+     * Active shift templates from the Shifts table, by type and start
+     */
+    public List<Shift> findTemplates() {
+        String sql = "SELECT * FROM Shifts WHERE is_active = TRUE ORDER BY shift_type, start_time";
+        List<Shift> templates = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                Shift template = new Shift();
+                template.setShiftId(rs.getLong("shift_id"));
+                template.setShiftName(rs.getString("shift_name"));
+                template.setShiftType(Shift.ShiftType.valueOf(rs.getString("shift_type")));
+                template.setStartTime(rs.getObject("start_time", LocalTime.class));
+                template.setEndTime(rs.getObject("end_time", LocalTime.class));
+                long wardId = rs.getLong("ward_id");
+                template.setWardId(rs.wasNull() ? null : wardId);
+                template.setActive(true);
+                templates.add(template);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding shift templates: " + e.getMessage());
+        }
+
+        return templates;
+    }
+
+    /**
+     * Find roster pattern by ID
+     */
+    public Optional<RosterPattern> findById(Long patternId) {
+        String sql = "SELECT * FROM Roster_Patterns WHERE pattern_id = ?";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, patternId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToPattern(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding roster pattern: " + e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Active roster patterns, by staff member
+     */
+    public List<RosterPattern> findActive() {
+        String sql = "SELECT * FROM Roster_Patterns WHERE is_active = TRUE ORDER BY staff_id, pattern_id";
+        List<RosterPattern> patterns = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                patterns.add(mapResultSetToPattern(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding roster patterns: " + e.getMessage());
+        }
+
+        return patterns;
+    }
+
+    /**
+     * Save a new pattern and materialize its shifts from today (or its start) to the horizon
+     * @return the shifts scheduled and the dates skipped, or null if nothing was saved
+     */
+    public Materialized save(RosterPattern pattern, LocalDate horizon) {
+        String sql = "INSERT INTO Roster_Patterns (" + PATTERN_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try {
+            List<Skipped> skipped = new ArrayList<>();
+            List<LocalDate> dates = new DateChecks(firstDay(pattern), horizon)
+                    .accept(pattern, datesBetween(pattern, null, firstDay(pattern), horizon), Map.of(), Set.of(), skipped);
+            return UnitOfWork.execute(() -> {
+                pattern.setMaterializedUntil(horizon);
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    setPatternParameters(stmt, pattern);
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            pattern.setPatternId(keys.getLong(1));
+                        }
+                    }
+                    int inserted = insertShifts(conn, pattern, dates);
+                    UnitOfWork.afterCommit(availability::invalidate);
+                    return new Materialized(inserted, skipped);
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("Error saving roster pattern: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Save changes to a pattern and re-materialize only the upcoming shifts they affect.
+     * A kept date whose changed shift fails the checks keeps its shift as it was
+     * @return the shifts inserted, updated or deleted and the dates skipped, or null if nothing was saved
+     */
+    public Materialized update(RosterPattern pattern) {
+        Optional<RosterPattern> stored = findById(pattern.getPatternId());
+        if (stored.isEmpty()) {
+            return null;
+        }
+        RosterPattern previous = stored.get();
+        LocalDate from = LocalDate.now();
+        LocalDate until = previous.getMaterializedUntil();
+        pattern.setMaterializedUntil(until);
+        boolean materialized = until != null && !until.isBefore(from);
+
+        String updatePattern = "UPDATE Roster_Patterns SET staff_id = ?, template_id = ?, shift_type = ?, start_time = ?, " +
+                "end_time = ?, ward_id = ?, days_mask = ?, starts_on = ?, ends_on = ?, materialized_until = ?, is_active = ?, " +
+                "created_by = ?, created_at = ? WHERE pattern_id = ?";
+        String deleteShift = "DELETE FROM Shift_Schedule WHERE pattern_id = ? AND shift_date = ? AND status = 'Scheduled'";
+        String updateShifts = "UPDATE Shift_Schedule SET staff_id = ?, shift_type = ?, start_time = ?, end_time = ?, ward_id = ? " +
+                "WHERE shift_id = ?";
+
+        try {
+            // Check the changed shifts on kept dates and the shifts on gained dates; the pattern's
+            // own upcoming rows are all deleted or rewritten, so they block nothing
+            List<Skipped> skipped = new ArrayList<>();
+            List<Long> keptIds = new ArrayList<>();
+            List<LocalDate> gained = List.of();
+            if (materialized) {
+                Map<LocalDate, Long> upcoming = findScheduledRows(pattern.getPatternId(), from, until);
+                Map<LocalDate, Long> kept = new HashMap<>();
+                upcoming.forEach((date, id) -> {
+                    if (pattern.runsOn(date) && previous.runsOn(date)) {
+                        kept.put(date, id);
+                    }
+                });
+                DateChecks checks = new DateChecks(from, until);
+                if (!sameShift(previous, pattern)) {
+                    List<LocalDate> keptDates = new ArrayList<>(kept.keySet());
+                    keptDates.sort(null);
+                    for (LocalDate date : checks.accept(pattern, keptDates, kept, upcoming.values(), skipped)) {
+                        keptIds.add(kept.get(date));
+                    }
+                }
+                gained = checks.accept(pattern, datesBetween(pattern, previous, from, until), Map.of(),
+                        upcoming.values(), skipped);
+            }
+            List<LocalDate> toInsert = gained;
+
+            return UnitOfWork.execute(() -> {
+                int changed = 0;
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(updatePattern)) {
+                        setPatternParameters(stmt, pattern);
+                        stmt.setLong(14, pattern.getPatternId());
+                        stmt.executeUpdate();
+                    }
+                    if (!materialized) {
+                        return new Materialized(0, skipped);
+                    }
+
+                    // Dates the edit drops
+                    List<LocalDate> lost = datesBetween(previous, pattern, from, until);
+                    if (!lost.isEmpty()) {
+                        try (PreparedStatement stmt = conn.prepareStatement(deleteShift)) {
+                            for (LocalDate date : lost) {
+                                stmt.setLong(1, pattern.getPatternId());
+                                stmt.setDate(2, Date.valueOf(date));
+                                stmt.addBatch();
+                            }
+                            for (int rows : stmt.executeBatch()) {
+                                changed += Math.max(rows, 0);
+                            }
+                        }
+                    }
+
+                    // Dates it keeps, if the shift itself changed and still passes the checks
+                    if (!keptIds.isEmpty()) {
+                        try (PreparedStatement stmt = conn.prepareStatement(updateShifts)) {
+                            for (Long shiftId : keptIds) {
+                                stmt.setLong(1, pattern.getStaffId());
+                                stmt.setString(2, pattern.getShiftType().name());
+                                stmt.setString(3, pattern.getStartTime());
+                                stmt.setString(4, pattern.getEndTime());
+                                setNullableLong(stmt, 5, pattern.getWardId());
+                                stmt.setLong(6, shiftId);
+                                stmt.addBatch();
+                            }
+                            for (int rows : stmt.executeBatch()) {
+                                changed += Math.max(rows, 0);
+                            }
+                        }
+                    }
+
+                    // Dates it adds
+                    changed += insertShifts(conn, pattern, toInsert);
+                }
+                UnitOfWork.afterCommit(availability::invalidate);
+                return new Materialized(changed, skipped);
+            });
+        } catch (SQLException e) {
+            System.err.println("Error updating roster pattern: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stop a pattern and delete its upcoming scheduled shifts
+     */
+    public boolean deactivate(Long patternId) {
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE Roster_Patterns SET is_active = FALSE WHERE pattern_id = ?")) {
+                        stmt.setLong(1, patternId);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "DELETE FROM Shift_Schedule WHERE pattern_id = ? AND shift_date >= ? AND status = 'Scheduled'")) {
+                        stmt.setLong(1, patternId);
+                        stmt.setDate(2, Date.valueOf(LocalDate.now()));
+                        stmt.executeUpdate();
+                    }
+                }
+                UnitOfWork.afterCommit(availability::invalidate);
+            });
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error deactivating roster pattern: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Materialize every active pattern up to the horizon; patterns already that far are skipped,
+     * and dates failing the checks are logged and left out
+     * @return the number of shifts scheduled
+     */
+    public int extendAll(LocalDate horizon) {
+        List<RosterPattern> behind = new ArrayList<>();
+        for (RosterPattern pattern : findActive()) {
+            if (pattern.getMaterializedUntil() == null || pattern.getMaterializedUntil().isBefore(horizon)) {
+                behind.add(pattern);
+            }
+        }
+        if (behind.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            // One set of checks for every pattern, so patterns extended together cannot clash either
+            DateChecks checks = new DateChecks(LocalDate.now(), horizon);
+            Map<Long, List<LocalDate>> dates = new HashMap<>();
+            for (RosterPattern pattern : behind) {
+                LocalDate from = firstDay(pattern);
+                if (pattern.getMaterializedUntil() != null && !pattern.getMaterializedUntil().isBefore(from)) {
+                    from = pattern.getMaterializedUntil().plusDays(1);
+                }
+                List<Skipped> skipped = new ArrayList<>();
+                dates.put(pattern.getPatternId(), checks.accept(pattern, datesBetween(pattern, null, from, horizon),
+                        Map.of(), Set.of(), skipped));
+                for (Skipped date : skipped) {
+                    System.err.println("Skipped roster pattern " + pattern.getPatternId() + " on " + date.getDate()
+                            + ": " + date.getReason());
+                }
+            }
+
+            return UnitOfWork.execute(() -> {
+                int inserted = 0;
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(
+                             "UPDATE Roster_Patterns SET materialized_until = ? WHERE pattern_id = ?")) {
+                    for (RosterPattern pattern : behind) {
+                        inserted += insertShifts(conn, pattern, dates.get(pattern.getPatternId()));
+                        pattern.setMaterializedUntil(horizon);
+                        stmt.setDate(1, Date.valueOf(horizon));
+                        stmt.setLong(2, pattern.getPatternId());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                if (inserted > 0) {
+                    UnitOfWork.afterCommit(availability::invalidate);
+                }
+                return inserted;
+            });
+        } catch (SQLException e) {
+            System.err.println("Error extending roster patterns: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Dates in [from, until] the pattern runs on and the other pattern, if given, does not
+     */
+    static List<LocalDate> datesBetween(RosterPattern pattern, RosterPattern except, LocalDate from, LocalDate until) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(until); date = date.plusDays(1)) {
+            if (pattern.runsOn(date) && (except == null || !except.runsOn(date))) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * The pattern's Scheduled rows in [from, until], by date
+     */
+    private Map<LocalDate, Long> findScheduledRows(Long patternId, LocalDate from, LocalDate until) throws SQLException {
+        String sql = "SELECT shift_id, shift_date FROM Shift_Schedule WHERE pattern_id = ? AND shift_date BETWEEN ? AND ? " +
+                "AND status = 'Scheduled'";
+        Map<LocalDate, Long> rows = new HashMap<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, patternId);
+            stmt.setDate(2, Date.valueOf(from));
+            stmt.setDate(3, Date.valueOf(until));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.put(rs.getDate("shift_date").toLocalDate(), rs.getLong("shift_id"));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static LocalDate firstDay(RosterPattern pattern) {
+        LocalDate today = LocalDate.now();
+        return pattern.getStartsOn().isAfter(today) ? pattern.getStartsOn() : today;
+    }
+
+    private static boolean sameShift(RosterPattern a, RosterPattern b) {
+        return Objects.equals(a.getStaffId(), b.getStaffId()) && a.getShiftType() == b.getShiftType()
+                && Objects.equals(a.getStartTime(), b.getStartTime()) && Objects.equals(a.getEndTime(), b.getEndTime())
+                && Objects.equals(a.getWardId(), b.getWardId());
+    }
+
+    /**
+     * Insert the pattern's shift on each date, INSERT_CHUNK rows per statement;
+     * dates the pattern already has a row for are skipped (with the driver's
+     * default found-rows count, such a date still counts as written)
+     */
+    private int insertShifts(Connection conn, RosterPattern pattern, List<LocalDate> dates) throws SQLException {
+        int inserted = 0;
+        PreparedStatement full = null;
+        try {
+            for (int start = 0; start < dates.size(); start += INSERT_CHUNK) {
+                List<LocalDate> chunk = dates.subList(start, Math.min(dates.size(), start + INSERT_CHUNK));
+                PreparedStatement stmt;
+                if (chunk.size() == INSERT_CHUNK) {
+                    if (full == null) {
+                        full = conn.prepareStatement(multiRowInsert(INSERT_CHUNK));
+                    }
+                    stmt = full;
+                } else {
+                    stmt = conn.prepareStatement(multiRowInsert(chunk.size()));
+                }
+                try {
+                    Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+                    int index = 1;
+                    for (LocalDate date : chunk) {
+                        stmt.setLong(index++, pattern.getStaffId());
+                        stmt.setDate(index++, Date.valueOf(date));
+                        stmt.setString(index++, pattern.getShiftType().name());
+                        stmt.setString(index++, pattern.getStartTime());
+                        stmt.setString(index++, pattern.getEndTime());
+                        setNullableLong(stmt, index++, pattern.getWardId());
+                        stmt.setString(index++, ShiftSchedule.ScheduleStatus.Scheduled.name());
+                        setNullableLong(stmt, index++, pattern.getCreatedBy());
+                        stmt.setTimestamp(index++, createdAt);
+                        stmt.setLong(index++, pattern.getPatternId());
+                    }
+                    inserted += stmt.executeUpdate();
+                } finally {
+                    if (stmt != full) {
+                        stmt.close();
+                    }
+                }
+            }
+        } finally {
+            if (full != null) {
+                full.close();
+            }
+        }
+        return inserted;
+    }
+
+    private static String multiRowInsert(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO Shift_Schedule (" + SHIFT_COLUMNS + ") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i > 0 ? ", " : "").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        // Only a date the pattern already has is skipped; any other error still fails the insert
+        return sql.append(" ON DUPLICATE KEY UPDATE shift_id = shift_id").toString();
+    }
+
+    private static void setPatternParameters(PreparedStatement stmt, RosterPattern pattern) throws SQLException {
+        stmt.setLong(1, pattern.getStaffId());
+        setNullableLong(stmt, 2, pattern.getTemplateId());
+        stmt.setString(3, pattern.getShiftType().name());
+        stmt.setString(4, pattern.getStartTime());
+        stmt.setString(5, pattern.getEndTime());
+        setNullableLong(stmt, 6, pattern.getWardId());
+        stmt.setInt(7, pattern.getDaysMask());
+        stmt.setDate(8, Date.valueOf(pattern.getStartsOn()));
+        stmt.setDate(9, pattern.getEndsOn() != null ? Date.valueOf(pattern.getEndsOn()) : null);
+        stmt.setDate(10, pattern.getMaterializedUntil() != null ? Date.valueOf(pattern.getMaterializedUntil()) : null);
+        stmt.setBoolean(11, pattern.isActive());
+        setNullableLong(stmt, 12, pattern.getCreatedBy());
+        stmt.setTimestamp(13, Timestamp.valueOf(pattern.getCreatedAt() != null ? pattern.getCreatedAt() : LocalDateTime.now()));
+    }
+
+    private static void setNullableLong(PreparedStatement stmt, int index, Long value) throws SQLException {
+        if (value != null) {
+            stmt.setLong(index, value);
+        } else {
+            stmt.setNull(index, java.sql.Types.INTEGER);
+        }
+    }
+
+    /**
+     * Map ResultSet to RosterPattern object
+     */
+    private RosterPattern mapResultSetToPattern(ResultSet rs) throws SQLException {
+        RosterPattern pattern = new RosterPattern();
+        pattern.setPatternId(rs.getLong("pattern_id"));
+        pattern.setStaffId(rs.getLong("staff_id"));
+        long templateId = rs.getLong("template_id");
+        pattern.setTemplateId(rs.wasNull() ? null : templateId);
+        pattern.setShiftType(Shift.ShiftType.valueOf(rs.getString("shift_type")));
+        pattern.setStartTime(rs.getString("start_time"));
+        pattern.setEndTime(rs.getString("end_time"));
+        long wardId = rs.getLong("ward_id");
+        pattern.setWardId(rs.wasNull() ? null : wardId);
+        pattern.setDaysMask(rs.getInt("days_mask"));
+        pattern.setStartsOn(rs.getDate("starts_on").toLocalDate());
+        Date endsOn = rs.getDate("ends_on");
+        pattern.setEndsOn(endsOn != null ? endsOn.toLocalDate() : null);
+        Date materializedUntil = rs.getDate("materialized_until");
+        pattern.setMaterializedUntil(materializedUntil != null ? materializedUntil.toLocalDate() : null);
+        pattern.setActive(rs.getBoolean("is_active"));
+        long createdBy = rs.getLong("created_by");
+        pattern.setCreatedBy(rs.wasNull() ? null : createdBy);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        pattern.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return pattern;
+    }
+
+    /**
+     * Checks a pattern's dates before they are written: the shift must not overlap
+     * the staff member's other shifts, or shifts accepted earlier by the same checks,
+     * nor break the daily hours or coverage rules
+     */
+    private final class DateChecks {
+        private final ShiftComplianceEvaluator compliance;
+        private final Map<Long, List<long[]>> accepted = new HashMap<>();
+
+        DateChecks(LocalDate from, LocalDate until) {
+            this.compliance = shiftService.loadComplianceEvaluator(from, until.isBefore(from) ? from : until);
+        }
+
+        /**
+         * The dates whose shift passes, in order; the others are added to skipped
+         * @param replacing the pattern's row on a date, which the date's shift rewrites
+         * @param ignore rows being deleted or rewritten, which block nothing
+         */
+        List<LocalDate> accept(RosterPattern pattern, List<LocalDate> dates, Map<LocalDate, Long> replacing,
+                               Collection<Long> ignore, List<Skipped> skipped) throws SQLException {
+            Set<Long> ignored = new HashSet<>(ignore);
+            List<LocalDate> passed = new ArrayList<>();
+            for (LocalDate date : dates) {
+                ShiftSchedule shift = new ShiftSchedule(pattern.getStaffId(), date, pattern.getShiftType(),
+                        pattern.getStartTime(), pattern.getEndTime());
+                shift.setWardId(pattern.getWardId());
+                shift.setScheduleId(replacing.get(date));
+                String reason = problem(shift, ignored);
+                if (reason == null) {
+                    passed.add(date);
+                } else {
+                    skipped.add(new Skipped(date, reason));
+                }
+            }
+            return passed;
+        }
+
+        private String problem(ShiftSchedule shift, Set<Long> ignored) throws SQLException {
+            Optional<StaffAvailabilityIndex.Booking> conflict = availability.findConflictIgnoring(shift.getStaffId(),
+                    shift.getShiftDate(), shift.getStartTime(), shift.getEndTime(), ignored);
+            if (conflict.isPresent()) {
+                return "overlaps the " + conflict.get().getStartTime() + " - " + conflict.get().getEndTime()
+                        + " shift on " + conflict.get().getDate();
+            }
+            long[] slot = StaffAvailabilityIndex.toInterval(shift.getShiftDate(), shift.getStartTime(), shift.getEndTime());
+            List<long[]> taken = accepted.computeIfAbsent(shift.getStaffId(), id -> new ArrayList<>());
+            for (long[] other : taken) {
+                if (slot != null && other[0] < slot[1] && slot[0] < other[1]) {
+                    return "overlaps another recurring shift";
+                }
+            }
+            List<ShiftComplianceEvaluator.Violation> violations = compliance.check(shift);
+            if (!violations.isEmpty()) {
+                return violations.get(0).getMessage();
+            }
+            compliance.add(shift);
+            if (slot != null) {
+                taken.add(slot);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * What a save or update wrote, and the dates it left out
+     */
+    public static final class Materialized {
+        private final int changed;
+        private final List<Skipped> skipped;
+
+        Materialized(int changed, List<Skipped> skipped) {
+            this.changed = changed;
+            this.skipped = List.copyOf(skipped);
+        }
+
+        /** Shifts inserted, updated or deleted */
+        public int getChanged() { return changed; }
+        public List<Skipped> getSkipped() { return skipped; }
+    }
+
+    /**
+     * A date whose shift was not written, and why
+     */
+    public static final class Skipped {
+        private final LocalDate date;
+        private final String reason;
+
+        Skipped(LocalDate date, String reason) {
+            this.date = date;
+            this.reason = reason;
+        }
+
+        public LocalDate getDate() { return date; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return date + ": " + reason;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.healthcare.services;
+
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shift compliance rules kept as running totals over a roster
+ *
+ * Each day keeps its nurse (Morning and Afternoon) and doctor shift counts and
+ * the minutes every staff member works, updated as shifts are added and
+ * removed. Checking a proposed shift reads one day and one staff total, and an
+ * audit walks the days once and reports every violation instead of stopping at
+ * the first.
+ *
+ * Rules: at most 8 hours per staff member per day, exactly 2 nurse shifts and 1
+ * doctor shift per day. Cancelled shifts count for nothing; a shift ending at or
+ * before its start runs past midnight and counts on its start day.
+ *
+ * Not thread-safe; an evaluator belongs to one screen or one audit.
+ */
+public class ShiftComplianceEvaluator {
+
+    static final int MAX_DAILY_MINUTES = 8 * 60;
+    static final int NURSE_SHIFTS_PER_DAY = 2;
+    static final int DOCTOR_SHIFTS_PER_DAY = 1;
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Map<LocalDate, DayTotals> days = new HashMap<>();
+    private final Map<Long, ShiftSchedule> shiftsById = new HashMap<>();
+
+    /**
+     * An evaluator holding the shifts of [from, to], inclusive
+     */
+    public ShiftComplianceEvaluator(LocalDate from, LocalDate to, List<ShiftSchedule> shifts) {
+        this.from = from;
+        this.to = to;
+        for (ShiftSchedule shift : shifts) {
+            add(shift);
+        }
+    }
+
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+
+    /**
+     * Whether the evaluator holds every shift of the given day
+     */
+    public boolean covers(LocalDate date) {
+        return !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    /**
+     * Count a saved shift; a shift with the id of one already counted replaces it
+     */
+    public void add(ShiftSchedule shift) {
+        if (shift.getScheduleId() != null) {
+            ShiftSchedule previous = shiftsById.put(shift.getScheduleId(), shift);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        }
+        apply(shift, 1);
+    }
+
+    /**
+     * Stop counting a deleted shift
+     */
+    public void remove(ShiftSchedule shift) {
+        ShiftSchedule counted = shift.getScheduleId() != null ? shiftsById.remove(shift.getScheduleId()) : shift;
+        if (counted != null) {
+            apply(counted, -1);
+        }
+    }
+
+    /**
+     * Violations the shift would cause if saved; a shift with the id of one
+     * already counted is checked as an edit of it. Coverage is only checked for
+     * too many shifts, since a roster is filled in one shift at a time.
+     */
+    public List<Violation> check(ShiftSchedule proposed) {
+        if (!counts(proposed)) {
+            return List.of();
+        }
+        ShiftSchedule previous = proposed.getScheduleId() != null ? shiftsById.get(proposed.getScheduleId()) : null;
+        DayTotals day = days.getOrDefault(proposed.getShiftDate(), DayTotals.EMPTY);
+        LocalDate date = proposed.getShiftDate();
+
+        int minutes = day.minutesOf(proposed.getStaffId()) + minutes(proposed);
+        int nurseShifts = day.nurseShifts + (isNurseShift(proposed) ? 1 : 0);
+        int doctorShifts = day.doctorShifts + (isDoctorShift(proposed) ? 1 : 0);
+        if (previous != null && counts(previous) && previous.getShiftDate().equals(date)) {
+            minutes -= previous.getStaffId().equals(proposed.getStaffId()) ? minutes(previous) : 0;
+            nurseShifts -= isNurseShift(previous) ? 1 : 0;
+            doctorShifts -= isDoctorShift(previous) ? 1 : 0;
+        }
+
+        List<Violation> violations = new ArrayList<>();
+        if (minutes > MAX_DAILY_MINUTES) {
+            violations.add(Violation.dailyHours(date, proposed.getStaffId(), minutes));
+        }
+        if (isNurseShift(proposed) && nurseShifts > NURSE_SHIFTS_PER_DAY) {
+            violations.add(Violation.coverage(Violation.Type.NURSE_COVERAGE, date, nurseShifts));
+        }
+        if (isDoctorShift(proposed) && doctorShifts > DOCTOR_SHIFTS_PER_DAY) {
+            violations.add(Violation.coverage(Violation.Type.DOCTOR_COVERAGE, date, doctorShifts));
+        }
+        return violations;
+    }
+
+    /**
+     * Every violation on the days of [start, end] within the evaluator's range, by day
+     */
+    public List<Violation> audit(LocalDate start, LocalDate end) {
+        List<Violation> violations = new ArrayList<>();
+        LocalDate last = end.isAfter(to) ? to : end;
+        for (LocalDate date = start.isBefore(from) ? from : start; !date.isAfter(last); date = date.plusDays(1)) {
+            DayTotals day = days.getOrDefault(date, DayTotals.EMPTY);
+            if (day.nurseShifts != NURSE_SHIFTS_PER_DAY) {
+                violations.add(Violation.coverage(Violation.Type.NURSE_COVERAGE, date, day.nurseShifts));
+            }
+            if (day.doctorShifts != DOCTOR_SHIFTS_PER_DAY) {
+                violations.add(Violation.coverage(Violation.Type.DOCTOR_COVERAGE, date, day.doctorShifts));
+            }
+            for (Map.Entry<Long, Integer> staff : day.minutesByStaff.entrySet()) {
+                if (staff.getValue() > MAX_DAILY_MINUTES) {
+                    violations.add(Violation.dailyHours(date, staff.getKey(), staff.getValue()));
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Minutes the staff member works on the day
+     */
+    public int getMinutes(Long staffId, LocalDate date) {
+        return days.getOrDefault(date, DayTotals.EMPTY).minutesOf(staffId);
+    }
+
+    /**
+     * Shifts the staff member works on the day, in the order they were added
+     */
+    public List<ShiftSchedule> getShifts(Long staffId, LocalDate date) {
+        return days.getOrDefault(date, DayTotals.EMPTY).shiftsByStaff.getOrDefault(staffId, List.of());
+    }
+
+    public int getNurseShifts(LocalDate date) {
+        return days.getOrDefault(date, DayTotals.EMPTY).nurseShifts;
+    }
+
+    public int getDoctorShifts(LocalDate date) {
+        return days.getOrDefault(date, DayTotals.EMPTY).doctorShifts;
+    }
+
+    private void apply(ShiftSchedule shift, int sign) {
+        if (!counts(shift)) {
+            return;
+        }
+        DayTotals day = days.computeIfAbsent(shift.getShiftDate(), date -> new DayTotals());
+        day.minutesByStaff.merge(shift.getStaffId(), sign * minutes(shift), Integer::sum);
+        day.minutesByStaff.remove(shift.getStaffId(), 0);
+        if (sign > 0) {
+            day.shiftsByStaff.computeIfAbsent(shift.getStaffId(), id -> new ArrayList<>()).add(shift);
+        } else {
+            List<ShiftSchedule> shifts = day.shiftsByStaff.getOrDefault(shift.getStaffId(), new ArrayList<>());
+            shifts.remove(shift);
+            if (shifts.isEmpty()) {
+                day.shiftsByStaff.remove(shift.getStaffId());
+            }
+        }
+        day.nurseShifts += isNurseShift(shift) ? sign : 0;
+        day.doctorShifts += isDoctorShift(shift) ? sign : 0;
+    }
+
+    private static boolean counts(ShiftSchedule shift) {
+        return shift.getStatus() != ShiftSchedule.ScheduleStatus.Cancelled && shift.getShiftDate() != null;
+    }
+
+    private static boolean isNurseShift(ShiftSchedule shift) {
+        return shift.getShiftType() == Shift.ShiftType.Morning || shift.getShiftType() == Shift.ShiftType.Afternoon;
+    }
+
+    private static boolean isDoctorShift(ShiftSchedule shift) {
+        return shift.getShiftType() == Shift.ShiftType.Doctor;
+    }
+
+    /**
+     * Length of a shift in minutes; 0 if either time is not "HH:mm"
+     */
+    static int minutes(ShiftSchedule shift) {
+        int start = minuteOfDay(shift.getStartTime());
+        int end = minuteOfDay(shift.getEndTime());
+        if (start < 0 || end < 0) {
+            return 0;
+        }
+        return end > start ? end - start : end + 24 * 60 - start;
+    }
+
+    /**
+     * Minutes since midnight of an "H:mm" or "HH:mm" time; -1 if it is not one
+     */
+    static int minuteOfDay(String time) {
+        if (time == null) {
+            return -1;
+        }
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon != time.length() - 3) {
+            return -1;
+        }
+        int hours = 0;
+        for (int i = 0; i < colon; i++) {
+            int digit = time.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            hours = hours * 10 + digit;
+        }
+        int tens = time.charAt(colon + 1) - '0';
+        int units = time.charAt(colon + 2) - '0';
+        if (hours > 23 || tens < 0 || tens > 5 || units < 0 || units > 9) {
+            return -1;
+        }
+        return hours * 60 + tens * 10 + units;
+    }
+
+    private static final class DayTotals {
+        static final DayTotals EMPTY = new DayTotals();
+
+        private int nurseShifts;
+        private int doctorShifts;
+        private final Map<Long, Integer> minutesByStaff = new TreeMap<>();
+        private final Map<Long, List<ShiftSchedule>> shiftsByStaff = new HashMap<>();
+
+        int minutesOf(Long staffId) {
+            return minutesByStaff.getOrDefault(staffId, 0);
+        }
+    }
+
+    /**
+     * One broken rule on one day
+     */
+    public static final class Violation {
+
+        public enum Type { DAILY_HOURS, NURSE_COVERAGE, DOCTOR_COVERAGE }
+
+        private final Type type;
+        private final LocalDate date;
+        private final Long staffId;
+        private final String message;
+
+        private Violation(Type type, LocalDate date, Long staffId, String message) {
+            this.type = type;
+            this.date = date;
+            this.staffId = staffId;
+            this.message = message;
+        }
+
+        static Violation dailyHours(LocalDate date, Long staffId, int minutes) {
+            return new Violation(Type.DAILY_HOURS, date, staffId, "Staff member " + staffId + " has more than 8 hours on "
+                    + date + " (" + (minutes / 60) + "h" + (minutes % 60 != 0 ? " " + (minutes % 60) + "m" : "") + ")");
+        }
+
+        static Violation coverage(Type type, LocalDate date, int shifts) {
+            boolean nurses = type == Type.NURSE_COVERAGE;
+            return new Violation(type, date, null, (nurses ? "Nurse" : "Doctor") + " shifts on " + date
+                    + " must be exactly " + (nurses ? NURSE_SHIFTS_PER_DAY : DOCTOR_SHIFTS_PER_DAY) + ". Found: " + shifts);
+        }
+
+        public Type getType() { return type; }
+        public LocalDate getDate() { return date; }
+
+        /**
+         * The staff member over their hours; null for coverage violations
+         */
+        public Long getStaffId() { return staffId; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Shift;
 import com.healthcare.model.ShiftSchedule;
 import com.healthcare.model.Staff;
 import com.healthcare.exceptions.ShiftComplianceException;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -20,6 +22,16 @@ import java.util.Optional;
  */
 public class ShiftManagementService {
     
+    private final RosterGenerator rosterGenerator;
+    
+    public ShiftManagementService() {
+        this(new RosterGenerator());
+    }
+    
+    public ShiftManagementService(RosterGenerator rosterGenerator) {
+        this.rosterGenerator = rosterGenerator;
+    }
+    
     /**
      * Save a new shift schedule
      */
@@ -53,6 +65,7 @@ public class ShiftManagementService {
                 if (generatedKeys.next()) {
                     schedule.setScheduleId(generatedKeys.getLong(1));
                 }
+                UnitOfWork.afterCommit(() -> StaffAvailabilityIndex.updateShared(index -> index.added(schedule)));
             }
             return schedule;
             
@@ -62,6 +75,67 @@ public class ShiftManagementService {
         }
     }
     
+    /**
+     * Save several shift schedules in one transaction, as a single batch
+     * @return true if every schedule was saved; on failure none are
+     */
+    public boolean saveAll(List<ShiftSchedule> schedules) {
+        String sql = "INSERT INTO Shift_Schedule (staff_id, shift_date, shift_type, start_time, end_time, ward_id, status, assigned_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        if (schedules.isEmpty()) {
+            return true;
+        }
+        
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    
+                    for (ShiftSchedule schedule : schedules) {
+                        stmt.setLong(1, schedule.getStaffId());
+                        stmt.setDate(2, Date.valueOf(schedule.getShiftDate()));
+                        stmt.setString(3, schedule.getShiftType().name());
+                        stmt.setString(4, schedule.getStartTime());
+                        stmt.setString(5, schedule.getEndTime());
+                        if (schedule.getWardId() != null) {
+                            stmt.setLong(6, schedule.getWardId());
+                        } else {
+                            stmt.setNull(6, java.sql.Types.INTEGER);
+                        }
+                        stmt.setString(7, schedule.getStatus().name());
+                        if (schedule.getAssignedBy() != null) {
+                            stmt.setLong(8, schedule.getAssignedBy());
+                        } else {
+                            stmt.setNull(8, java.sql.Types.INTEGER);
+                        }
+                        stmt.setTimestamp(9, Timestamp.valueOf(schedule.getCreatedAt()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    ResultSet generatedKeys = stmt.getGeneratedKeys();
+                    for (int i = 0; i < schedules.size() && generatedKeys.next(); i++) {
+                        schedules.get(i).setScheduleId(generatedKeys.getLong(1));
+                    }
+                }
+                UnitOfWork.afterCommit(() -> StaffAvailabilityIndex.updateShared(index -> schedules.forEach(index::added)));
+            });
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error saving shift schedules: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Generate shifts filling the open slots of [from, to] from active staff, not saved;
+     * the day before is loaded too, so its late shifts are worked around
+     */
+    public RosterGenerator.Roster generateRoster(LocalDate from, LocalDate to, List<Staff> staff,
+                                                 List<Long> wardIds, Duration budget) {
+        return rosterGenerator.generate(from, to, loadComplianceEvaluator(from.minusDays(1), to), staff, wardIds,
+            RosterGenerator.DEFAULT_SLOTS, budget, System.nanoTime());
+    }
+    
     /**
      * Find shift schedule by ID
      */
@@ -232,6 +306,9 @@ public class ShiftManagementService {
             
             stmt.setLong(1, id);
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                UnitOfWork.afterCommit(() -> StaffAvailabilityIndex.updateShared(index -> index.removed(id)));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -266,76 +343,28 @@ public class ShiftManagementService {
     }
     
     /**
-     * Simple compliance check - throws exception if rules are violated
+     * Compliance evaluator over the shifts of [from, to], inclusive
      */
-    public void checkCompliance(LocalDate weekStart) throws ShiftComplianceException {
-        LocalDate weekEnd = weekStart.plusDays(6);
-        List<ShiftSchedule> weekShifts = findByDateRange(weekStart, weekEnd);
-        
-        // Check nurse shifts (should be 14 per week - 2 per day)
-        long nurseShifts = weekShifts.stream()
-            .filter(s -> s.getShiftType() == Shift.ShiftType.Morning || s.getShiftType() == Shift.ShiftType.Afternoon)
-            .count();
-        
-        if (nurseShifts != 14) {
-            throw new ShiftComplianceException("Nurse shifts must be exactly 14 per week (2 per day). Found: " + nurseShifts);
-        }
-        
-        // Check doctor shifts (should be 7 per week - 1 per day)
-        long doctorShifts = weekShifts.stream()
-            .filter(s -> s.getShiftType() == Shift.ShiftType.Doctor)
-            .count();
-        
-        if (doctorShifts != 7) {
-            throw new ShiftComplianceException("Doctor shifts must be exactly 7 per week (1 per day). Found: " + doctorShifts);
-        }
-        
-        // Check daily hours for each staff member
-        for (LocalDate date = weekStart; !date.isAfter(weekEnd); date = date.plusDays(1)) {
-            checkDailyHours(date, weekShifts);
-        }
+    public ShiftComplianceEvaluator loadComplianceEvaluator(LocalDate from, LocalDate to) {
+        return new ShiftComplianceEvaluator(from, to, findByDateRange(from, to));
     }
     
     /**
-     * Check daily hours for a specific date
+     * Every compliance violation between two dates, inclusive, by day
      */
-    private void checkDailyHours(LocalDate date, List<ShiftSchedule> allShifts) {
-        List<ShiftSchedule> dayShifts = allShifts.stream()
-            .filter(s -> s.getShiftDate().equals(date))
-            .toList();
-        
-        // Group by staff member
-        dayShifts.stream()
-            .collect(java.util.stream.Collectors.groupingBy(ShiftSchedule::getStaffId))
-            .forEach((staffId, shifts) -> {
-                int totalHours = shifts.stream()
-                    .mapToInt(s -> calculateShiftHours(s.getStartTime(), s.getEndTime()))
-                    .sum();
-                
-                if (totalHours > 8) {
-                    try {
-                        throw new ShiftComplianceException("Staff member " + staffId + " has more than 8 hours on " + date);
-                    } catch (ShiftComplianceException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            });
+    public List<ShiftComplianceEvaluator.Violation> auditCompliance(LocalDate from, LocalDate to) {
+        return loadComplianceEvaluator(from, to).audit(from, to);
     }
     
     /**
-     * Calculate shift hours from time strings
+     * Week compliance check - throws exception listing every rule violated
      */
-    private int calculateShiftHours(String startTime, String endTime) {
-        try {
-            String[] startParts = startTime.split(":");
-            String[] endParts = endTime.split(":");
-            
-            int startHour = Integer.parseInt(startParts[0]);
-            int endHour = Integer.parseInt(endParts[0]);
-            
-            return endHour - startHour;
-        } catch (Exception e) {
-            return 0;
+    public void checkCompliance(LocalDate weekStart) throws ShiftComplianceException {
+        List<ShiftComplianceEvaluator.Violation> violations = auditCompliance(weekStart, weekStart.plusDays(6));
+        if (!violations.isEmpty()) {
+            throw new ShiftComplianceException(violations.stream()
+                .map(ShiftComplianceEvaluator.Violation::getMessage)
+                .collect(java.util.stream.Collectors.joining("\n")));
         }
     }
     
@@ -353,6 +382,8 @@ public class ShiftManagementService {
         schedule.setWardId(rs.getLong("ward_id"));
         schedule.setStatus(ShiftSchedule.ScheduleStatus.valueOf(rs.getString("status")));
         schedule.setAssignedBy(rs.getLong("assigned_by"));
+        long patternId = rs.getLong("pattern_id");
+        schedule.setPatternId(rs.wasNull() ? null : patternId);
         schedule.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
         
         // Set staff info if available
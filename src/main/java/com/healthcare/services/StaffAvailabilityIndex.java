@@ -0,0 +1,442 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.ShiftSchedule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * When each staff member is booked, for "who is free" questions about a slot
+ *
+ * Every scheduled shift becomes an interval of absolute minutes (days since the
+ * epoch times 1440 plus the minute of the day), ending on the next day when it
+ * runs past midnight. Each staff member's intervals are kept sorted by start,
+ * along with the longest one, so the intervals overlapping [start, end) are the
+ * ones starting in [start - longest, end): one tree lookup plus the few shifts
+ * in that window. A shift lasts at most a day, so that window is at most a day
+ * and a slot.
+ *
+ * Saves and deletes are applied as they commit. The index reloads from the
+ * database when it is healthcare.availability.ttlMillis old (default 10 min), to
+ * pick up other clients' changes. The reload reads the database without holding
+ * the index's lock and swaps the new maps in, so other readers keep answering
+ * from the old ones meanwhile; a change applied during the reload marks the new
+ * maps stale, to be read again on the next query. Cancelled shifts, and shifts
+ * whose times are not "HH:mm", book nothing.
+ */
+public class StaffAvailabilityIndex {
+
+    static final String SHIFTS_SQL =
+            "SELECT shift_id, staff_id, shift_date, start_time, end_time, ward_id FROM Shift_Schedule WHERE status <> 'Cancelled'";
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private static volatile StaffAvailabilityIndex shared;
+
+    private final long ttlMillis;
+    // Guarded by this; byStaff is null until loaded
+    private Map<Long, StaffBookings> byStaff;
+    private Map<Long, Booking> byScheduleId = new HashMap<>();
+    private long loadedAt;
+    private long changes;  // changes applied, to spot ones made during a reload
+    private boolean stale;
+
+    /**
+     * @param ttlMillis reload on the next read once the index is this old; 0 never reloads on age
+     */
+    public StaffAvailabilityIndex(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Index shared by the scheduling screens, created on first use
+     */
+    public static StaffAvailabilityIndex getShared() {
+        StaffAvailabilityIndex index = shared;
+        if (index == null) {
+            synchronized (StaffAvailabilityIndex.class) {
+                index = shared;
+                if (index == null) {
+                    index = new StaffAvailabilityIndex(Long.getLong("healthcare.availability.ttlMillis", 600_000L));
+                    shared = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Apply a committed save or delete to the shared index, if it has been created
+     */
+    public static void updateShared(Consumer<StaffAvailabilityIndex> change) {
+        StaffAvailabilityIndex index = shared;
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+
+    // Queries
+
+    /**
+     * Whether the staff member has no shift overlapping the slot; an end at or
+     * before the start runs past midnight
+     */
+    public boolean isFree(Long staffId, LocalDate date, String startTime, String endTime) throws SQLException {
+        return findConflict(staffId, date, startTime, endTime, null).isEmpty();
+    }
+
+    /**
+     * The earliest of the staff member's shifts overlapping the slot, ignoring
+     * the shift being edited, if any
+     */
+    public Optional<Booking> findConflict(Long staffId, LocalDate date, String startTime, String endTime,
+                                          Long ignoreScheduleId) throws SQLException {
+        return findConflictIgnoring(staffId, date, startTime, endTime,
+                ignoreScheduleId != null ? Set.of(ignoreScheduleId) : Set.of());
+    }
+
+    /**
+     * The earliest of the staff member's shifts overlapping the slot, ignoring
+     * the given shifts, e.g. ones about to be rewritten
+     */
+    public Optional<Booking> findConflictIgnoring(Long staffId, LocalDate date, String startTime, String endTime,
+                                                  Collection<Long> ignoreScheduleIds) throws SQLException {
+        long[] slot = toInterval(date, startTime, endTime);
+        Map<Long, StaffBookings> index = current();
+        synchronized (this) {
+            StaffBookings bookings = index.get(staffId);
+            if (slot == null || bookings == null) {
+                return Optional.empty();
+            }
+            for (Booking booking : bookings.startingIn(slot[0], slot[1])) {
+                if (booking.end > slot[0] && !booking.isScheduleIn(ignoreScheduleIds)) {
+                    return Optional.of(booking);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The given staff free for the slot, in the given order. With a ward, anyone
+     * already working another ward that day is left out too
+     */
+    public List<Long> findFree(Collection<Long> staffIds, Long wardId, LocalDate date,
+                               String startTime, String endTime) throws SQLException {
+        long[] slot = toInterval(date, startTime, endTime);
+        if (slot == null) {
+            return List.of();
+        }
+        Map<Long, StaffBookings> index = current();
+        long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+        List<Long> free = new ArrayList<>();
+        synchronized (this) {
+            for (Long staffId : staffIds) {
+                StaffBookings bookings = index.get(staffId);
+                if (bookings == null) {
+                    free.add(staffId);
+                    continue;
+                }
+                boolean available = true;
+                for (Booking booking : bookings.startingIn(Math.min(slot[0], dayStart), Math.max(slot[1], dayStart + MINUTES_PER_DAY))) {
+                    boolean overlaps = booking.end > slot[0] && booking.start < slot[1];
+                    boolean otherWard = wardId != null && booking.wardId != null && !wardId.equals(booking.wardId)
+                            && booking.date.equals(date);
+                    if (overlaps || otherWard) {
+                        available = false;
+                        break;
+                    }
+                }
+                if (available) {
+                    free.add(staffId);
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * The first time at or after from when the staff member is free for the given minutes
+     */
+    public LocalDateTime nextFree(Long staffId, LocalDateTime from, int minutes) throws SQLException {
+        return toDateTime(nextFree(staffId, toMinute(from), minutes, null));
+    }
+
+    /**
+     * The first time at or after the slot's start when the staff member is free
+     * for as long as the slot, ignoring the shift being edited, if any; null if
+     * either time is not "HH:mm"
+     */
+    public LocalDateTime nextFree(Long staffId, LocalDate date, String startTime, String endTime,
+                                  Long ignoreScheduleId) throws SQLException {
+        long[] slot = toInterval(date, startTime, endTime);
+        return slot != null ? toDateTime(nextFree(staffId, slot[0], (int) (slot[1] - slot[0]), ignoreScheduleId)) : null;
+    }
+
+    private long nextFree(Long staffId, long candidate, int minutes, Long ignoreScheduleId) throws SQLException {
+        Map<Long, StaffBookings> index = current();
+        synchronized (this) {
+            StaffBookings bookings = index.get(staffId);
+            if (bookings != null) {
+                // Walk the shifts that could still be running at the candidate time, pushing it past each overlap
+                for (Booking booking : bookings.startingIn(candidate, Long.MAX_VALUE)) {
+                    if (booking.start >= candidate + minutes) {
+                        break;
+                    }
+                    if (booking.isSchedule(ignoreScheduleId)) {
+                        continue;
+                    }
+                    candidate = Math.max(candidate, booking.end);
+                }
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Shifts booked for the staff member on the day, by start
+     */
+    public List<Booking> findBookings(Long staffId, LocalDate date) throws SQLException {
+        Map<Long, StaffBookings> index = current();
+        synchronized (this) {
+            StaffBookings bookings = index.get(staffId);
+            if (bookings == null) {
+                return List.of();
+            }
+            List<Booking> onDay = new ArrayList<>();
+            for (Booking booking : bookings.startingIn(date.toEpochDay() * MINUTES_PER_DAY, (date.toEpochDay() + 1) * MINUTES_PER_DAY)) {
+                if (booking.date.equals(date)) {
+                    onDay.add(booking);
+                }
+            }
+            return onDay;
+        }
+    }
+
+    /**
+     * Load the index now if it is missing or stale, e.g. on a background thread before the screen asks
+     */
+    public void refresh() throws SQLException {
+        current();
+    }
+
+    // Changes; call once they have committed
+
+    /**
+     * A shift was saved; a shift with the id of one already indexed replaces it
+     */
+    public synchronized void added(ShiftSchedule shift) {
+        changes++;
+        if (byStaff == null) {
+            return;
+        }
+        if (shift.getScheduleId() != null) {
+            removed(shift.getScheduleId());
+        }
+        if (shift.getStatus() != ShiftSchedule.ScheduleStatus.Cancelled) {
+            index(byStaff, byScheduleId, new Booking(shift.getScheduleId(), shift.getStaffId(), shift.getWardId(), shift.getShiftDate(),
+                    shift.getStartTime(), shift.getEndTime()));
+        }
+    }
+
+    /**
+     * A shift was deleted
+     */
+    public synchronized void removed(Long scheduleId) {
+        changes++;
+        if (byStaff == null) {
+            return;
+        }
+        Booking booking = byScheduleId.remove(scheduleId);
+        if (booking != null) {
+            byStaff.get(booking.staffId).remove(booking);
+        }
+    }
+
+    /**
+     * Reload from the database on the next read
+     */
+    public synchronized void invalidate() {
+        changes++;
+        byStaff = null;
+    }
+
+    /**
+     * The bookings by staff member, reloaded first if missing, stale or past the TTL.
+     * Read them while holding this index's lock
+     */
+    private Map<Long, StaffBookings> current() throws SQLException {
+        long changesAtStart;
+        synchronized (this) {
+            if (byStaff != null && !stale && (ttlMillis <= 0 || System.currentTimeMillis() - loadedAt <= ttlMillis)) {
+                return byStaff;
+            }
+            changesAtStart = changes;
+        }
+
+        Map<Long, StaffBookings> index = new HashMap<>();
+        Map<Long, Booking> bySchedule = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SHIFTS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long ward = rs.getLong("ward_id");
+                Long wardId = rs.wasNull() ? null : ward;
+                index(index, bySchedule, new Booking(rs.getLong("shift_id"), rs.getLong("staff_id"), wardId,
+                        rs.getDate("shift_date").toLocalDate(), rs.getString("start_time"), rs.getString("end_time")));
+            }
+        }
+
+        synchronized (this) {
+            byStaff = index;
+            byScheduleId = bySchedule;
+            loadedAt = System.currentTimeMillis();
+            // A change committed while the rows were read may be missing from them
+            stale = changes != changesAtStart;
+            return index;
+        }
+    }
+
+    private static void index(Map<Long, StaffBookings> index, Map<Long, Booking> bySchedule, Booking booking) {
+        if (booking.start < 0) {
+            return;
+        }
+        index.computeIfAbsent(booking.staffId, id -> new StaffBookings()).add(booking);
+        if (booking.scheduleId != null) {
+            bySchedule.put(booking.scheduleId, booking);
+        }
+    }
+
+    /**
+     * [start, end) in absolute minutes, or null if either time is not "HH:mm"
+     */
+    static long[] toInterval(LocalDate date, String startTime, String endTime) {
+        int start = ShiftComplianceEvaluator.minuteOfDay(startTime);
+        int end = ShiftComplianceEvaluator.minuteOfDay(endTime);
+        if (date == null || start < 0 || end < 0) {
+            return null;
+        }
+        long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+        return new long[]{dayStart + start, dayStart + (end > start ? end : end + MINUTES_PER_DAY)};
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60L + time.getMinute();
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY)).atStartOfDay()
+                .plusMinutes(Math.floorMod(minute, MINUTES_PER_DAY));
+    }
+
+    /**
+     * One staff member's shifts by start, and the longest of them
+     */
+    private static final class StaffBookings {
+        private final NavigableSet<Booking> byStart = new TreeSet<>(Booking.BY_START);
+        private long longest;
+
+        void add(Booking booking) {
+            byStart.add(booking);
+            longest = Math.max(longest, booking.end - booking.start);
+        }
+
+        void remove(Booking booking) {
+            // longest stays as an upper bound; it only widens the search window
+            byStart.remove(booking);
+        }
+
+        /**
+         * Every shift that could overlap [from, until), by start
+         */
+        NavigableSet<Booking> startingIn(long from, long until) {
+            long low = from - longest;
+            return byStart.subSet(Booking.probe(low, Long.MIN_VALUE), true, Booking.probe(until, Long.MIN_VALUE), false);
+        }
+    }
+
+    /**
+     * A staff member's shift as an interval of absolute minutes
+     */
+    public static final class Booking {
+        static final Comparator<Booking> BY_START = Comparator.comparingLong((Booking b) -> b.start)
+                .thenComparingLong(b -> b.order);
+
+        private static long nextOrder;
+
+        private final Long scheduleId;
+        private final Long staffId;
+        private final Long wardId;
+        private final LocalDate date;
+        private final String startTime;
+        private final String endTime;
+        private final long start;
+        private final long end;
+        private final long order;  // tie-break for shifts starting together
+
+        Booking(Long scheduleId, Long staffId, Long wardId, LocalDate date, String startTime, String endTime) {
+            this.scheduleId = scheduleId;
+            this.staffId = staffId;
+            this.wardId = wardId;
+            this.date = date;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            long[] interval = toInterval(date, startTime, endTime);
+            this.start = interval != null ? interval[0] : -1;
+            this.end = interval != null ? interval[1] : -1;
+            synchronized (Booking.class) {
+                this.order = ++nextOrder;
+            }
+        }
+
+        private Booking(long start, long order) {
+            this.scheduleId = null;
+            this.staffId = null;
+            this.wardId = null;
+            this.date = null;
+            this.startTime = null;
+            this.endTime = null;
+            this.start = start;
+            this.end = start;
+            this.order = order;
+        }
+
+        static Booking probe(long start, long order) {
+            return new Booking(start, order);
+        }
+
+        boolean isSchedule(Long id) {
+            return id != null && id.equals(scheduleId);
+        }
+
+        boolean isScheduleIn(Collection<Long> ids) {
+            return scheduleId != null && ids.contains(scheduleId);
+        }
+
+        public Long getScheduleId() { return scheduleId; }
+        public Long getStaffId() { return staffId; }
+        public Long getWardId() { return wardId; }
+        public LocalDate getDate() { return date; }
+        public String getStartTime() { return startTime; }
+        public String getEndTime() { return endTime; }
+
+        public LocalDateTime getStart() { return toDateTime(start); }
+        public LocalDateTime getEnd() { return toDateTime(end); }
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthcare.services;
 
 import com.healthcare.config.DBConnection;
+import com.healthcare.config.UnitOfWork;
 import com.healthcare.model.Staff;
 import com.healthcare.services.impl.IStaffService;
 
@@ -14,6 +15,17 @@ import java.util.Optional;
  */
 public class StaffService implements IStaffService {
 
+    // Doctor renames are applied to the materialized medication rounds
+    private final MedicationRoundService rounds;
+
+    public StaffService() {
+        this(new MedicationRoundService());
+    }
+
+    public StaffService(MedicationRoundService rounds) {
+        this.rounds = rounds;
+    }
+
     @Override
     public Staff save(Staff staff) {
         String sql = "INSERT INTO Staff (username, password, role, first_name, last_name, email, phone, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
@@ -43,6 +55,7 @@ public class StaffService implements IStaffService {
                     staff.setStaffId(generatedKeys.getLong(1));
                 }
             }
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
             return staff;
             
         } catch (SQLException e) {
@@ -101,6 +114,7 @@ public class StaffService implements IStaffService {
             
             stmt.setLong(1, id);
             stmt.executeUpdate();
+            UnitOfWork.afterCommit(DashboardSnapshot::invalidateShared);
             
         } catch (SQLException e) {
             System.err.println("Error deleting staff: " + e.getMessage());
@@ -141,19 +155,26 @@ public class StaffService implements IStaffService {
     public Staff update(Staff staff) {
         String sql = "UPDATE Staff SET username = ?, password = ?, role = ?, first_name = ?, last_name = ?, email = ?, phone = ?, is_active = ? WHERE staff_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, staff.getUsername());
-            stmt.setString(2, staff.getPassword());
-            stmt.setString(3, staff.getRole().toString());
-            stmt.setString(4, staff.getFirstName());
-            stmt.setString(5, staff.getLastName());
-            stmt.setString(6, staff.getEmail());
-            stmt.setString(7, staff.getPhone());
-            stmt.setBoolean(8, staff.isActive());
-            stmt.setLong(9, staff.getStaffId());
-            stmt.executeUpdate();
+        try {
+            UnitOfWork.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    
+                    stmt.setString(1, staff.getUsername());
+                    stmt.setString(2, staff.getPassword());
+                    stmt.setString(3, staff.getRole().toString());
+                    stmt.setString(4, staff.getFirstName());
+                    stmt.setString(5, staff.getLastName());
+                    stmt.setString(6, staff.getEmail());
+                    stmt.setString(7, staff.getPhone());
+                    stmt.setBoolean(8, staff.isActive());
+                    stmt.setLong(9, staff.getStaffId());
+                    stmt.executeUpdate();
+                }
+                if (staff.getRole() == Staff.Role.Doctor) {
+                    rounds.doctorChanged(staff.getStaffId());
+                }
+            });
             return staff;
         } catch (SQLException e) {
             System.err.println("Error updating staff: " + e.getMessage());
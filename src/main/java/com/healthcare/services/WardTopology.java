@@ -0,0 +1,335 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.model.Room;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of wards, their rooms and their beds
+ *
+ * Wards, Rooms and Beds are read once, in one transaction, into an immutable
+ * hierarchy with lookups by ward id and name, room id and bed id, and bed and
+ * capacity totals per room, per ward and for the site. Every lookup is a map read;
+ * nothing here touches the database after the load.
+ *
+ * A refresh builds a whole new hierarchy and swaps it in, so readers see either
+ * the old topology or the new one. BedManagementService invalidates the registry
+ * when beds are added or removed; changes made elsewhere are picked up once the
+ * topology is older than healthcare.topology.maxAgeMillis.
+ */
+public class WardTopology {
+
+    static final String WARDS_SQL = "SELECT ward_id, ward_name FROM Wards ORDER BY ward_id";
+    static final String ROOMS_SQL = "SELECT room_id, ward_id, room_number, room_type, max_capacity, gender_preference " +
+            "FROM Rooms ORDER BY ward_id, room_number";
+    static final String BEDS_SQL = "SELECT bed_id, room_id FROM Beds ORDER BY room_id, bed_number";
+
+    private static final Topology EMPTY = new Topology(new ArrayList<>(), 0L);
+
+    private static volatile WardTopology shared;
+
+    private final AtomicReference<Topology> current = new AtomicReference<>();
+    private final long maxAgeMillis;
+    private volatile boolean stale;
+
+    /**
+     * @param maxAgeMillis reload on the next read once the topology is this old; 0 never reloads on age
+     */
+    public WardTopology(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Registry shared by the services and screens, created on first use
+     */
+    public static WardTopology getShared() {
+        WardTopology topology = shared;
+        if (topology == null) {
+            synchronized (WardTopology.class) {
+                topology = shared;
+                if (topology == null) {
+                    topology = new WardTopology(Long.getLong("healthcare.topology.maxAgeMillis", 300_000L));
+                    shared = topology;
+                }
+            }
+        }
+        return topology;
+    }
+
+    // Wards
+
+    public List<WardNode> getWards() {
+        return topology().wards;
+    }
+
+    public List<String> getWardNames() {
+        return topology().wardNames;
+    }
+
+    public Optional<WardNode> findWard(Long wardId) {
+        return Optional.ofNullable(topology().wardById.get(wardId));
+    }
+
+    public Optional<WardNode> findWardByName(String wardName) {
+        return Optional.ofNullable(topology().wardByName.get(wardName));
+    }
+
+    public Optional<WardNode> findWardOfBed(Long bedId) {
+        Topology topology = topology();
+        RoomNode room = topology.roomByBed.get(bedId);
+        return room != null ? Optional.ofNullable(topology.wardById.get(room.wardId)) : Optional.empty();
+    }
+
+    // Rooms
+
+    public Optional<RoomNode> findRoom(Long roomId) {
+        return Optional.ofNullable(topology().roomById.get(roomId));
+    }
+
+    public Optional<RoomNode> findRoomOfBed(Long bedId) {
+        return Optional.ofNullable(topology().roomByBed.get(bedId));
+    }
+
+    public List<RoomNode> getRooms(Long wardId) {
+        WardNode ward = topology().wardById.get(wardId);
+        return ward != null ? ward.rooms : Collections.emptyList();
+    }
+
+    // Site totals
+
+    public int getTotalBeds() {
+        return topology().bedCount;
+    }
+
+    public int getTotalCapacity() {
+        return topology().capacity;
+    }
+
+    /**
+     * Reload on the next read, e.g. after wards, rooms or beds are added or removed
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Load the topology now and swap it in
+     * @return false if the load failed; the previous topology is kept
+     */
+    public boolean refresh() {
+        stale = false;
+        try {
+            current.set(load());
+            return true;
+        } catch (SQLException e) {
+            stale = true;
+            System.err.println("Error loading ward topology: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Current topology, loading it if needed; never null
+     */
+    Topology topology() {
+        Topology topology = current.get();
+        if (needsLoad(topology)) {
+            // One reader reloads; the others wait for it rather than all querying at once
+            synchronized (this) {
+                topology = current.get();
+                if (needsLoad(topology)) {
+                    refresh();
+                    topology = current.get();
+                }
+            }
+        }
+        return topology != null ? topology : EMPTY;
+    }
+
+    private boolean needsLoad(Topology topology) {
+        return topology == null || stale
+                || (maxAgeMillis > 0 && System.currentTimeMillis() - topology.loadedAt > maxAgeMillis);
+    }
+
+    private static Topology load() throws SQLException {
+        Map<Long, String> wardNames = new LinkedHashMap<>();
+        Map<Long, List<RoomBuilder>> roomsByWard = new HashMap<>();
+        Map<Long, RoomBuilder> roomsById = new HashMap<>();
+
+        // Never inside the caller's transaction: the shared topology only holds committed rows
+        try (Connection conn = DBConnection.getDetachedConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(WARDS_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    wardNames.put(rs.getLong("ward_id"), rs.getString("ward_name"));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(ROOMS_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    RoomBuilder room = new RoomBuilder();
+                    room.roomId = rs.getLong("room_id");
+                    room.wardId = rs.getLong("ward_id");
+                    room.roomNumber = rs.getString("room_number");
+                    String roomType = rs.getString("room_type");
+                    room.roomType = roomType != null ? Room.RoomType.valueOf(roomType) : Room.RoomType.Standard;
+                    int capacity = rs.getInt("max_capacity");
+                    room.maxCapacity = rs.wasNull() ? 0 : capacity;
+                    String preference = rs.getString("gender_preference");
+                    room.genderPreference = preference != null ? Room.GenderPreference.valueOf(preference) : Room.GenderPreference.Mixed;
+                    roomsById.put(room.roomId, room);
+                    roomsByWard.computeIfAbsent(room.wardId, k -> new ArrayList<>()).add(room);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(BEDS_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    RoomBuilder room = roomsById.get(rs.getLong("room_id"));
+                    if (room != null) {
+                        room.bedIds.add(rs.getLong("bed_id"));
+                    }
+                }
+            }
+        }
+
+        List<WardNode> wards = new ArrayList<>(wardNames.size());
+        for (Map.Entry<Long, String> entry : wardNames.entrySet()) {
+            List<RoomNode> rooms = new ArrayList<>();
+            for (RoomBuilder room : roomsByWard.getOrDefault(entry.getKey(), Collections.emptyList())) {
+                rooms.add(room.build());
+            }
+            wards.add(new WardNode(entry.getKey(), entry.getValue(), rooms));
+        }
+        return new Topology(wards, System.currentTimeMillis());
+    }
+
+    /**
+     * One loaded topology; never modified
+     */
+    static final class Topology {
+        final List<WardNode> wards;
+        final List<String> wardNames;
+        final Map<Long, WardNode> wardById = new HashMap<>();
+        final Map<String, WardNode> wardByName = new HashMap<>();
+        final Map<Long, RoomNode> roomById = new HashMap<>();
+        final Map<Long, RoomNode> roomByBed = new HashMap<>();
+        final int bedCount;
+        final int capacity;
+        final long loadedAt;
+
+        Topology(List<WardNode> wards, long loadedAt) {
+            this.wards = Collections.unmodifiableList(wards);
+            List<String> names = new ArrayList<>(wards.size());
+            int beds = 0;
+            int capacity = 0;
+            for (WardNode ward : wards) {
+                names.add(ward.wardName);
+                wardById.put(ward.wardId, ward);
+                wardByName.put(ward.wardName, ward);
+                for (RoomNode room : ward.rooms) {
+                    roomById.put(room.roomId, room);
+                    for (Long bedId : room.bedIds) {
+                        roomByBed.put(bedId, room);
+                    }
+                }
+                beds += ward.bedCount;
+                capacity += ward.capacity;
+            }
+            this.wardNames = Collections.unmodifiableList(names);
+            this.bedCount = beds;
+            this.capacity = capacity;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A ward with its rooms and totals
+     */
+    public static final class WardNode {
+        private final Long wardId;
+        private final String wardName;
+        private final List<RoomNode> rooms;
+        private final int bedCount;
+        private final int capacity;
+
+        WardNode(Long wardId, String wardName, List<RoomNode> rooms) {
+            this.wardId = wardId;
+            this.wardName = wardName;
+            this.rooms = Collections.unmodifiableList(rooms);
+            int beds = 0;
+            int capacity = 0;
+            for (RoomNode room : rooms) {
+                beds += room.getBedCount();
+                capacity += room.maxCapacity;
+            }
+            this.bedCount = beds;
+            this.capacity = capacity;
+        }
+
+        public Long getWardId() { return wardId; }
+        public String getWardName() { return wardName; }
+        public List<RoomNode> getRooms() { return rooms; }
+        public int getRoomCount() { return rooms.size(); }
+        public int getBedCount() { return bedCount; }
+        public int getCapacity() { return capacity; }
+    }
+
+    /**
+     * A room with the ids of its beds
+     */
+    public static final class RoomNode {
+        private final Long roomId;
+        private final Long wardId;
+        private final String roomNumber;
+        private final Room.RoomType roomType;
+        private final int maxCapacity;
+        private final Room.GenderPreference genderPreference;
+        private final List<Long> bedIds;
+
+        RoomNode(Long roomId, Long wardId, String roomNumber, Room.RoomType roomType, int maxCapacity,
+                 Room.GenderPreference genderPreference, List<Long> bedIds) {
+            this.roomId = roomId;
+            this.wardId = wardId;
+            this.roomNumber = roomNumber;
+            this.roomType = roomType;
+            this.maxCapacity = maxCapacity;
+            this.genderPreference = genderPreference;
+            this.bedIds = Collections.unmodifiableList(bedIds);
+        }
+
+        public Long getRoomId() { return roomId; }
+        public Long getWardId() { return wardId; }
+        public String getRoomNumber() { return roomNumber; }
+        public Room.RoomType getRoomType() { return roomType; }
+        public int getMaxCapacity() { return maxCapacity; }
+        public Room.GenderPreference getGenderPreference() { return genderPreference; }
+        public List<Long> getBedIds() { return bedIds; }
+        public int getBedCount() { return bedIds.size(); }
+    }
+
+    private static class RoomBuilder {
+        private Long roomId;
+        private Long wardId;
+        private String roomNumber;
+        private Room.RoomType roomType;
+        private int maxCapacity;
+        private Room.GenderPreference genderPreference;
+        private final List<Long> bedIds = new ArrayList<>();
+
+        RoomNode build() {
+            return new RoomNode(roomId, wardId, roomNumber, roomType, maxCapacity, genderPreference, new ArrayList<>(bedIds));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.healthcare.util;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A prescription line's free-text frequency compiled into the times of day its doses are due
+ *
+ * Understands the wordings and abbreviations used on the ward:
+ *   "Once daily", "Daily", "OD", "Every morning"          08:00
+ *   "Twice daily", "BID", "2 times a day"                 08:00, 20:00
+ *   "Three times daily", "TID", "TDS"                     08:00, 14:00, 20:00
+ *   "Four times daily", "QID", "QDS"                      08:00, 12:00, 16:00, 20:00
+ *   "Every 8 hours", "q6h"                                from 06:00, every N hours
+ *   "With meals"                                          08:00, 12:00, 18:00
+ *   "In the evening" / "At bedtime", "Nightly", "HS"      18:00 / 21:00
+ *   "08:00 and 20:00", "at 9:30"                          the times given
+ *   "As needed", "PRN"                                    no fixed times
+ * Anything else compiles to an unrecognized frequency with no times, so it is
+ * never reported overdue. Compiled frequencies are cached by their text.
+ *
+ * Usage:
+ *   List<LocalTime> slots = DoseFrequency.compile(schedule.getFrequency()).getSlots();
+ */
+public final class DoseFrequency {
+
+    private static final LocalTime FIRST_INTERVAL_DOSE = LocalTime.of(6, 0);
+
+    private static final Pattern AS_NEEDED = Pattern.compile("\\b(as needed|as required|when required|prn)\\b");
+    private static final Pattern CLOCK_TIME = Pattern.compile("\\b([01]?\\d|2[0-3])[:.]([0-5]\\d)\\b");
+    private static final Pattern EVERY_HOURS = Pattern.compile("\\b(?:every|q)\\s*(\\d{1,2})\\s*(?:h|hr|hrs|hour|hours|hourly)\\b");
+    private static final Pattern TIMES_DAILY = Pattern.compile(
+            "\\b(once|twice|one|two|three|four|five|six|\\d)\\s*(?:times?|x)?\\s*(?:daily|a day|per day|each day|/day|/d)\\b");
+
+    private static final Map<String, Integer> NUMBERS = Map.of(
+            "once", 1, "one", 1, "twice", 2, "two", 2, "three", 3, "four", 4, "five", 5, "six", 6);
+
+    private static final Map<String, DoseFrequency> CACHE = new ConcurrentHashMap<>();
+
+    private final String text;
+    private final List<LocalTime> slots;
+    private final boolean recognized;
+    private final boolean asNeeded;
+
+    private DoseFrequency(String text, List<LocalTime> slots, boolean recognized, boolean asNeeded) {
+        this.text = text;
+        this.slots = Collections.unmodifiableList(slots);
+        this.recognized = recognized;
+        this.asNeeded = asNeeded;
+    }
+
+    /**
+     * Compile a frequency; never null, null text compiles to unrecognized
+     */
+    public static DoseFrequency compile(String text) {
+        String normalized = text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return CACHE.computeIfAbsent(normalized, DoseFrequency::parse);
+    }
+
+    private static DoseFrequency parse(String text) {
+        if (AS_NEEDED.matcher(text).find()) {
+            return new DoseFrequency(text, new ArrayList<>(), true, true);
+        }
+
+        TreeSet<LocalTime> times = new TreeSet<>();
+        Matcher clock = CLOCK_TIME.matcher(text);
+        while (clock.find()) {
+            times.add(LocalTime.of(Integer.parseInt(clock.group(1)), Integer.parseInt(clock.group(2))));
+        }
+        if (times.isEmpty()) {
+            addDailyTimes(text, times);
+        }
+        return new DoseFrequency(text, new ArrayList<>(times), !times.isEmpty(), false);
+    }
+
+    private static void addDailyTimes(String text, TreeSet<LocalTime> times) {
+        Matcher every = EVERY_HOURS.matcher(text);
+        if (every.find()) {
+            int hours = Integer.parseInt(every.group(1));
+            if (hours > 0 && hours <= 24) {
+                for (int offset = 0; offset < 24; offset += hours) {
+                    times.add(FIRST_INTERVAL_DOSE.plusHours(offset));
+                }
+            }
+            return;
+        }
+
+        Matcher daily = TIMES_DAILY.matcher(text);
+        int doses = 0;
+        if (daily.find()) {
+            String count = daily.group(1);
+            doses = NUMBERS.containsKey(count) ? NUMBERS.get(count) : Integer.parseInt(count);
+        } else if (hasWord(text, "qid", "qds")) {
+            doses = 4;
+        } else if (hasWord(text, "tid", "tds")) {
+            doses = 3;
+        } else if (hasWord(text, "bid", "bd")) {
+            doses = 2;
+        } else if (hasWord(text, "with meals")) {
+            times.add(LocalTime.of(8, 0));
+            times.add(LocalTime.of(12, 0));
+            times.add(LocalTime.of(18, 0));
+            return;
+        } else if (hasWord(text, "daily", "od", "qd", "every day", "once a day", "every morning", "in the morning", "mane")) {
+            doses = 1;
+        }
+
+        switch (doses) {
+            case 0:
+                break;
+            case 1:
+                times.add(LocalTime.of(8, 0));
+                break;
+            case 2:
+                times.add(LocalTime.of(8, 0));
+                times.add(LocalTime.of(20, 0));
+                break;
+            case 3:
+                times.add(LocalTime.of(8, 0));
+                times.add(LocalTime.of(14, 0));
+                times.add(LocalTime.of(20, 0));
+                break;
+            case 4:
+                times.add(LocalTime.of(8, 0));
+                times.add(LocalTime.of(12, 0));
+                times.add(LocalTime.of(16, 0));
+                times.add(LocalTime.of(20, 0));
+                break;
+            default:
+                // Five or more doses a day are spread evenly from the first interval dose
+                for (int i = 0; i < doses && i < 24; i++) {
+                    times.add(FIRST_INTERVAL_DOSE.plusMinutes(i * 24L * 60 / doses));
+                }
+        }
+
+        // An evening or bedtime dose replaces the default 08:00 one unless a morning dose is named too
+        if (doses <= 1) {
+            boolean morning = hasWord(text, "morning", "mane");
+            if (morning) {
+                times.add(LocalTime.of(8, 0));
+            }
+            if (hasWord(text, "evening")) {
+                times.add(LocalTime.of(18, 0));
+            }
+            if (hasWord(text, "bedtime", "at night", "nightly", "hs", "nocte")) {
+                times.add(LocalTime.of(21, 0));
+            }
+            if (times.size() > 1 && !morning) {
+                times.remove(LocalTime.of(8, 0));
+            }
+        }
+    }
+
+    private static boolean hasWord(String text, String... words) {
+        for (String word : words) {
+            if (Pattern.compile("\\b" + Pattern.quote(word) + "\\b").matcher(text).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Times of day doses are due, earliest first; empty for as-needed and unrecognized frequencies
+     */
+    public List<LocalTime> getSlots() { return slots; }
+
+    public int getDosesPerDay() { return slots.size(); }
+
+    /**
+     * False when the text could not be understood; such lines are never reported overdue
+     */
+    public boolean isRecognized() { return recognized; }
+
+    public boolean isAsNeeded() { return asNeeded; }
+
+    public String getText() { return text; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoseFrequency)) return false;
+        DoseFrequency that = (DoseFrequency) o;
+        return text.equals(that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(text);
+    }
+
+    @Override
+    public String toString() {
+        return text + " " + slots;
+    }
+}
@@ -0,0 +1,191 @@
+package com.healthcare.util;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Read-only list for a TableView over a large keyset-paginated query
+ *
+ * The list reports the full row count, but rows are only fetched when the table
+ * asks for them (i.e. when they scroll into view), a page at a time. At most
+ * maxPages pages stay in memory; the least recently used one is dropped first.
+ *
+ * The last row of every page fetched is kept as a seek key, so a page is loaded
+ * by seeking past the nearest known key rather than with a large OFFSET. Only a
+ * jump past pages that have never been loaded needs an offset, counted from the
+ * nearest key.
+ *
+ * Given a PageLoader, a page the table asks for is fetched in the background:
+ * its rows read as null until it arrives, then are replaced, which redraws them.
+ * Without one, pages are fetched on the calling thread.
+ *
+ * The contents are a snapshot: build a new list to refresh or change filters.
+ */
+public class PagedWindowList<T> extends ObservableListBase<T> {
+
+    /**
+     * Query behind the list
+     */
+    public interface PageSource<T> {
+        /**
+         * Rows after the given one in list order
+         * @param after last row of an earlier page, or null to start at the first row
+         * @param offset rows to skip after it
+         * @param limit maximum rows to return
+         */
+        List<T> fetch(T after, int offset, int limit);
+    }
+
+    /**
+     * Runs page fetches off the FX thread, e.g. through the view's ViewLoader
+     */
+    public interface PageLoader<T> {
+        /**
+         * Run the fetch in the background and hand its rows, or its failure, back on the FX thread
+         */
+        void load(int pageIndex, Callable<List<T>> fetch, Consumer<List<T>> loaded, Consumer<Throwable> failed);
+    }
+
+    private final PageSource<T> source;
+    private final PageLoader<T> loader;
+    private final Set<Integer> requested = new HashSet<>();
+    private final int size;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;
+    private final TreeMap<Integer, T> lastRowOfPage = new TreeMap<>();
+    private int fetchCount;
+
+    public PagedWindowList(PageSource<T> source, long totalRows, int pageSize, int maxPages) {
+        this(source, null, totalRows, pageSize, maxPages);
+    }
+
+    /**
+     * @param loader fetches pages the table asks for in the background; null to fetch them on the calling thread
+     */
+    public PagedWindowList(PageSource<T> source, PageLoader<T> loader, long totalRows, int pageSize, int maxPages) {
+        if (pageSize < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("pageSize and maxPages must be positive");
+        }
+        this.source = source;
+        this.loader = loader;
+        this.size = (int) Math.min(Math.max(totalRows, 0), Integer.MAX_VALUE);
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Row at the given position; null while its page is being fetched in the
+     * background, or if the table has shrunk since it was counted
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int pageIndex = index / pageSize;
+        List<T> page = loader != null ? pages.get(pageIndex) : loadPage(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int slot = index % pageSize;
+        return slot < page.size() ? page.get(slot) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Fetch the page holding a row now, on the calling thread, rather than when the
+     * table first asks for it, e.g. to read the first page in the background before
+     * the list is shown
+     */
+    public void preload(int index) {
+        if (index >= 0 && index < size) {
+            loadPage(index / pageSize);
+        }
+    }
+
+    /**
+     * Pages currently held in memory
+     */
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Queries issued so far
+     */
+    public int getFetchCount() {
+        return fetchCount;
+    }
+
+    private List<T> loadPage(int pageIndex) {
+        List<T> page = pages.get(pageIndex);
+        if (page != null) {
+            return page;
+        }
+        page = fetchFor(pageIndex).get();
+        store(pageIndex, page);
+        return page;
+    }
+
+    /**
+     * Ask the loader for a page once; its rows replace the nulls when it arrives
+     */
+    private void requestPage(int pageIndex) {
+        if (!requested.add(pageIndex)) {
+            return;
+        }
+        loader.load(pageIndex, fetchFor(pageIndex)::get, page -> {
+            requested.remove(pageIndex);
+            store(pageIndex, page);
+            int from = pageIndex * pageSize;
+            int to = Math.min(size, from + pageSize);
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }, error -> {
+            // Asked for again the next time the table reads one of its rows
+            requested.remove(pageIndex);
+            System.err.println("Error fetching page " + pageIndex + ": " + error.getMessage());
+        });
+    }
+
+    /**
+     * The fetch for a page, seeking past the nearest page whose last row is known
+     */
+    private Supplier<List<T>> fetchFor(int pageIndex) {
+        Map.Entry<Integer, T> nearest = lastRowOfPage.floorEntry(pageIndex - 1);
+        T after = nearest != null ? nearest.getValue() : null;
+        int firstUnknownPage = nearest != null ? nearest.getKey() + 1 : 0;
+        int offset = (pageIndex - firstUnknownPage) * pageSize;
+
+        fetchCount++;
+        return () -> source.fetch(after, offset, pageSize);
+    }
+
+    private void store(int pageIndex, List<T> page) {
+        if (!page.isEmpty()) {
+            lastRowOfPage.put(pageIndex, page.get(page.size() - 1));
+        }
+        pages.put(pageIndex, page);
+    }
+}
@@ -0,0 +1,133 @@
+package com.healthcare.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Half-open time window [start, end) for querying DATETIME columns
+ *
+ * Services filter on days, shifts and date ranges by comparing the raw column
+ * against the window bounds ("col >= ? AND col < ?") instead of wrapping the
+ * column in DATE(), which would stop MySQL from using an index on it.
+ *
+ * Usage:
+ *   String sql = "SELECT COUNT(*) FROM Bed_Transfers WHERE " + TimeWindow.predicate("transfer_time");
+ *   TimeWindow.today().bind(stmt, 1);
+ */
+public final class TimeWindow {
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    private TimeWindow(LocalDateTime start, LocalDateTime end) {
+        this.start = Objects.requireNonNull(start, "start");
+        this.end = Objects.requireNonNull(end, "end");
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Window end " + end + " must be after start " + start);
+        }
+    }
+
+    /**
+     * Window from start (inclusive) to end (exclusive)
+     */
+    public static TimeWindow of(LocalDateTime start, LocalDateTime end) {
+        return new TimeWindow(start, end);
+    }
+
+    /**
+     * The whole of one calendar day
+     */
+    public static TimeWindow day(LocalDate date) {
+        return new TimeWindow(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * The whole of today
+     */
+    public static TimeWindow today() {
+        return day(LocalDate.now());
+    }
+
+    /**
+     * Calendar days from one date to another, both included
+     */
+    public static TimeWindow days(LocalDate from, LocalDate toInclusive) {
+        return new TimeWindow(from.atStartOfDay(), toInclusive.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * The given number of whole days before today, plus today
+     */
+    public static TimeWindow lastDays(int days) {
+        LocalDate today = LocalDate.now();
+        return days(today.minusDays(days), today);
+    }
+
+    /**
+     * A shift on the given date; a shift ending at or before its start time runs into the next day
+     */
+    public static TimeWindow shift(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        LocalDateTime start = date.atTime(startTime);
+        LocalDateTime end = date.atTime(endTime);
+        if (!end.isAfter(start)) {
+            end = end.plusDays(1);
+        }
+        return new TimeWindow(start, end);
+    }
+
+    /**
+     * SQL condition selecting rows whose column falls in a window; bind the window with bind()
+     */
+    public static String predicate(String column) {
+        return column + " >= ? AND " + column + " < ?";
+    }
+
+    /**
+     * Bind start and end to the two placeholders of predicate(), starting at the given index
+     * @return index of the next placeholder
+     */
+    public int bind(PreparedStatement stmt, int index) throws SQLException {
+        stmt.setTimestamp(index, Timestamp.valueOf(start));
+        stmt.setTimestamp(index + 1, Timestamp.valueOf(end));
+        return index + 2;
+    }
+
+    public boolean contains(LocalDateTime time) {
+        return !time.isBefore(start) && time.isBefore(end);
+    }
+
+    public boolean overlaps(TimeWindow other) {
+        return start.isBefore(other.end) && other.start.isBefore(end);
+    }
+
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return end; }
+
+    /**
+     * Calendar date the window starts on
+     */
+    public LocalDate getStartDate() { return start.toLocalDate(); }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TimeWindow)) return false;
+        TimeWindow that = (TimeWindow) o;
+        return start.equals(that.start) && end.equals(that.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
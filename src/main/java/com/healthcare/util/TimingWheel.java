@@ -0,0 +1,203 @@
+package com.healthcare.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for deadlines that are only ever fired, never polled
+ *
+ * The lowest wheel has wheelSize buckets of tickMillis each; a deadline beyond its
+ * span goes into an overflow wheel whose ticks are one whole span of the wheel
+ * below, created when first needed. Scheduling and cancelling are O(1): an entry
+ * is linked into, or unlinked from, one bucket. Advancing the clock by a tick
+ * fires one bucket, and when the lowest wheel reaches the start of an overflow
+ * bucket that bucket is cascaded down to the wheel that now covers it.
+ *
+ * Deadlines fire once the clock has passed the end of their tick, so never early
+ * and at most one tick late. A deadline already in the past fires at the end of the current tick.
+ * Not thread-safe; the owner serializes access.
+ *
+ * Usage:
+ *   TimingWheel<Dose> wheel = new TimingWheel<>(1000, 64, System.currentTimeMillis());
+ *   wheel.schedule(deadlineMillis, dose);
+ *   wheel.advanceTo(System.currentTimeMillis(), this::fire);
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long spanMillis;
+    private final Entry<T>[] buckets;
+    private final TimingWheel<T> root;
+    private TimingWheel<T> overflow;
+    private long currentTime;
+    private int size;
+
+    /**
+     * @param tickMillis resolution of the lowest wheel
+     * @param wheelSize buckets per wheel
+     * @param startMillis time the clock starts at
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this(tickMillis, wheelSize, startMillis, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TimingWheel(long tickMillis, int wheelSize, long startMillis, TimingWheel<T> root) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("Tick " + tickMillis + " and size " + wheelSize + " must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.spanMillis = tickMillis * wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        this.root = root != null ? root : this;
+        this.buckets = (Entry<T>[]) new Entry<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = Entry.sentinel();
+        }
+    }
+
+    /**
+     * Schedule a value to fire once the clock passes a deadline
+     * @return handle for cancelling it
+     */
+    public Entry<T> schedule(long deadlineMillis, T value) {
+        Entry<T> entry = new Entry<>(deadlineMillis, value, this);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Move the clock forward, firing every entry whose tick has ended, in deadline-tick order
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            Entry<T> due = detach(bucketOf(currentTime));
+            currentTime += tickMillis;
+            if (overflow != null && Math.floorMod(currentTime, spanMillis) == 0) {
+                overflow.cascade();
+            }
+            while (due != null) {
+                Entry<T> next = due.next;
+                due.next = null;
+                size--;
+                expired.accept(due.value);
+                due = next;
+            }
+        }
+    }
+
+    /**
+     * Entries scheduled and not yet fired or cancelled
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Time the clock has reached, rounded down to a tick
+     */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    private void place(Entry<T> entry) {
+        long deadline = Math.max(entry.deadline, currentTime);
+        if (deadline < currentTime + spanMillis) {
+            entry.link(buckets[bucketOf(deadline)]);
+        } else {
+            if (overflow == null) {
+                overflow = new TimingWheel<>(spanMillis, wheelSize, currentTime, root);
+            }
+            overflow.place(entry);
+        }
+    }
+
+    /**
+     * Advance this overflow wheel by one of its ticks and hand the bucket the wheel below has reached back to the root
+     */
+    private void cascade() {
+        currentTime += tickMillis;
+        if (overflow != null && Math.floorMod(currentTime, spanMillis) == 0) {
+            overflow.cascade();
+        }
+        Entry<T> entry = detach(bucketOf(currentTime));
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.next = null;
+            root.place(entry);
+            entry = next;
+        }
+    }
+
+    private int bucketOf(long time) {
+        return (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) wheelSize);
+    }
+
+    /**
+     * Unlink a bucket's entries and return them as a singly linked chain
+     */
+    private Entry<T> detach(int bucket) {
+        Entry<T> sentinel = buckets[bucket];
+        Entry<T> first = sentinel.next == sentinel ? null : sentinel.next;
+        if (first != null) {
+            sentinel.prev.next = null;
+            for (Entry<T> entry = first; entry != null; entry = entry.next) {
+                entry.prev = null;
+            }
+        }
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        return first;
+    }
+
+    /**
+     * A scheduled value; cancel it to stop it firing
+     */
+    public static final class Entry<T> {
+        private final long deadline;
+        private final T value;
+        private final TimingWheel<T> owner;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(long deadline, T value, TimingWheel<T> owner) {
+            this.deadline = deadline;
+            this.value = value;
+            this.owner = owner;
+        }
+
+        private static <T> Entry<T> sentinel() {
+            Entry<T> sentinel = new Entry<>(0, null, null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void link(Entry<T> sentinel) {
+            prev = sentinel.prev;
+            next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+        }
+
+        /**
+         * @return false if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            if (prev == null) {
+                return false;
+            }
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+            owner.size--;
+            return true;
+        }
+
+        public long getDeadline() { return deadline; }
+        public T getValue() { return value; }
+    }
+}
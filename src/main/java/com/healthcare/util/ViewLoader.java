@@ -0,0 +1,219 @@
+package com.healthcare.util;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.scene.Node;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs a view's database work off the FX application thread
+ *
+ * Each controller owns one ViewLoader. load(slot, query, apply) runs the query
+ * on the application's pool of daemon threads (see newPool()) and hands the result to apply
+ * on the FX thread. Loads are keyed by slot, one per table or panel: starting a
+ * load cancels the one still running in the same slot, and a result that arrives
+ * after its load was superseded or cancelled is dropped, so a slow query never
+ * overwrites a newer one.
+ *
+ * loadingProperty() is true while any load of the view is running; showLoadingIn()
+ * puts a progress indicator in a table's placeholder meanwhile. Every load is
+ * cancelled once the node passed to attachTo() leaves its scene, i.e. when the
+ * user navigates to another component.
+ *
+ * Call every method on the FX thread. Pool size: healthcare.ui.loaderThreads (default 4).
+ *
+ * Usage (the application context creates a loader for each controller):
+ *   @Autowired
+ *   private ViewLoader loader;
+ *   ...
+ *   loader.attachTo(residentsTable);
+ *   loader.load("residents", residentService::findActiveResidents, residentsList::setAll);
+ */
+public final class ViewLoader {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final String viewName;
+    private final Executor pool;
+    private final Executor fxThread;
+    private final Map<String, Future<?>> running = new HashMap<>();
+    private final List<Runnable> detachActions = new ArrayList<>();
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(this, "loading");
+
+    /**
+     * @param viewName used in error messages
+     * @param pool runs the queries; shared by every view
+     */
+    public ViewLoader(String viewName, Executor pool) {
+        this(viewName, pool, Platform::runLater);
+    }
+
+    /**
+     * @param fxThread runs the callbacks; the FX thread, or a stand-in for it in tests
+     */
+    ViewLoader(String viewName, Executor pool, Executor fxThread) {
+        this.viewName = viewName;
+        this.pool = pool;
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * The pool of daemon threads the views' queries run on; shut it down on application shutdown
+     */
+    public static ExecutorService newPool() {
+        return Executors.newFixedThreadPool(Integer.getInteger("healthcare.ui.loaderThreads", 4), r -> {
+            Thread thread = new Thread(r, "view-loader-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run a query in the background and apply its result on the FX thread; failures are logged
+     */
+    public <T> Future<T> load(String slot, Callable<T> query, Consumer<? super T> apply) {
+        return load(slot, query, apply,
+                error -> System.err.println("Error loading " + viewName + " " + slot + ": " + error.getMessage()));
+    }
+
+    /**
+     * Run a query in the background, replacing any load still running in the same slot
+     * @param apply given the result on the FX thread, unless the load was superseded or cancelled
+     * @param failed given the query's exception on the FX thread, under the same condition
+     */
+    public <T> Future<T> load(String slot, Callable<T> query, Consumer<? super T> apply, Consumer<Throwable> failed) {
+        Future<?> previous = running.remove(slot);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+
+        Load<T> task = new Load<>(slot, query, apply, failed);
+        running.put(slot, task);
+        loading.set(true);
+        pool.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancel every running load of this view; their results are dropped
+     */
+    public void cancelAll() {
+        List<Future<?>> tasks = new ArrayList<>(running.values());
+        running.clear();
+        loading.set(false);
+        for (Future<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Cancel every load, and run the detach actions, once the node is removed from its scene
+     */
+    public void attachTo(Node node) {
+        node.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                cancelAll();
+                for (Runnable action : detachActions) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Run an action, e.g. removing a listener the view registered elsewhere, when the attached node leaves its scene
+     */
+    public void onDetach(Runnable action) {
+        detachActions.add(action);
+    }
+
+    /**
+     * Show a progress indicator in the table's placeholder while this view is loading
+     */
+    public void showLoadingIn(TableView<?> table) {
+        Node placeholder = table.getPlaceholder();
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(40, 40);
+        loading.addListener((obs, wasLoading, isLoading) -> table.setPlaceholder(isLoading ? indicator : placeholder));
+        if (loading.get()) {
+            table.setPlaceholder(indicator);
+        }
+    }
+
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * @return whether the task was still the slot's current load
+     */
+    private boolean finish(String slot, Future<?> task) {
+        boolean current = running.get(slot) == task;
+        if (current) {
+            running.remove(slot);
+        }
+        loading.set(!running.isEmpty());
+        return current;
+    }
+
+    /**
+     * One load: the query on the pool, then its result or failure on the FX thread
+     */
+    private final class Load<T> extends FutureTask<T> {
+        private final String slot;
+        private final Consumer<? super T> apply;
+        private final Consumer<Throwable> failed;
+
+        Load(String slot, Callable<T> query, Consumer<? super T> apply, Consumer<Throwable> failed) {
+            super(query);
+            this.slot = slot;
+            this.apply = apply;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void done() {
+            // A cancelled load was already taken out of its slot
+            if (!isCancelled()) {
+                fxThread.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            if (!finish(slot, this)) {
+                return;
+            }
+            T result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                failed.accept(e.getCause());
+                return;
+            } catch (CancellationException | InterruptedException e) {
+                return;
+            }
+            apply.accept(result);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- =====================================================
+-- V1: secondary indexes for the columns services filter and sort on
+-- =====================================================
+
+-- Audit log viewer: keyset pages over (action_time, action_id), optionally per staff member
+CREATE INDEX idx_actions_log_time ON Actions_Log (action_time, action_id);
+CREATE INDEX idx_actions_log_staff_time ON Actions_Log (staff_id, action_time, action_id);
+
+-- Medication rounds: "given today" probes per prescription line, per nurse and overall
+CREATE INDEX idx_admin_med_pm_time ON Administered_Medication (prescription_medicine_id, administered_time);
+CREATE INDEX idx_admin_med_nurse_time ON Administered_Medication (nurse_id, administered_time);
+CREATE INDEX idx_admin_med_time ON Administered_Medication (administered_time);
+
+-- Doctor review queues
+CREATE INDEX idx_prescriptions_doctor_review ON Prescriptions (doctor_id, review_status);
+
+-- Current residents (discharge_date IS NULL)
+CREATE INDEX idx_residents_discharge ON Residents (discharge_date);
+
+-- Roster lookups and compliance checks per staff member and day
+CREATE INDEX idx_shift_schedule_staff_date ON Shift_Schedule (staff_id, shift_date);
+
+-- Transfer history per nurse and transfer counts by time window
+CREATE INDEX idx_bed_transfers_nurse_time ON Bed_Transfers (nurse_id, transfer_time);
+CREATE INDEX idx_bed_transfers_time ON Bed_Transfers (transfer_time);
@@ -0,0 +1,7 @@
+-- =====================================================
+-- V2: row version on Beds for optimistic reservations
+-- =====================================================
+
+-- Every change to a bed bumps its version; a reservation only succeeds
+-- against the version it read (see BedReservationService)
+ALTER TABLE Beds ADD COLUMN version INT NOT NULL DEFAULT 0;
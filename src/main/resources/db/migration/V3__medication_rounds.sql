@@ -0,0 +1,44 @@
+-- =====================================================
+-- V3: materialized daily medication rounds
+-- =====================================================
+
+-- One row per active prescription line per day, with the names the nurse
+-- screens show and the number of doses given that day (see MedicationRoundService)
+CREATE TABLE IF NOT EXISTS Medication_Rounds (
+    round_date DATE NOT NULL,
+    prescription_medicine_id INT NOT NULL,
+    prescription_id INT NOT NULL,
+    medicine_id INT NOT NULL,
+    resident_id INT NOT NULL,
+    doctor_id INT NOT NULL,
+    dosage VARCHAR(50) NOT NULL,
+    frequency VARCHAR(100) NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NULL,
+    instructions TEXT,
+    prescription_date DATE NOT NULL,
+    patient_first_name VARCHAR(100),
+    patient_last_name VARCHAR(100),
+    medicine_name VARCHAR(100),
+    dosage_unit VARCHAR(20),
+    doctor_name VARCHAR(201),
+    given_count INT NOT NULL DEFAULT 0,
+    last_given_time DATETIME NULL,
+    PRIMARY KEY (round_date, prescription_medicine_id)
+);
+
+-- Days whose round has been built; later changes are applied to them incrementally
+CREATE TABLE IF NOT EXISTS Medication_Round_Days (
+    round_date DATE PRIMARY KEY,
+    built_at TIMESTAMP NOT NULL
+);
+
+-- A day's round in screen order; pending lines and counts read the same range
+CREATE INDEX idx_medication_rounds_day ON Medication_Rounds (round_date, patient_first_name, patient_last_name, medicine_name);
+
+-- Incremental maintenance by the row that changed
+CREATE INDEX idx_medication_rounds_pm ON Medication_Rounds (prescription_medicine_id, round_date);
+CREATE INDEX idx_medication_rounds_prescription ON Medication_Rounds (prescription_id, round_date);
+CREATE INDEX idx_medication_rounds_resident ON Medication_Rounds (resident_id, round_date);
+CREATE INDEX idx_medication_rounds_medicine ON Medication_Rounds (medicine_id, round_date);
+CREATE INDEX idx_medication_rounds_doctor ON Medication_Rounds (doctor_id, round_date);
@@ -0,0 +1,6 @@
+-- =====================================================
+-- V4: per-doctor reporting
+-- =====================================================
+
+-- Doctor reports: per-month and per-day prescription counts for one doctor (see DoctorReportService)
+CREATE INDEX idx_prescriptions_doctor_date ON Prescriptions (doctor_id, prescription_date);
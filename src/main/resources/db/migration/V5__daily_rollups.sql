@@ -0,0 +1,48 @@
+-- =====================================================
+-- V5: daily rollups for reports and charts
+-- =====================================================
+
+-- Rows are kept up to date by the writing services and rebuilt from history by
+-- DailyRollupService.backfill(); report queries read only these tables
+
+-- Prescriptions written per doctor per day, by status and review status
+CREATE TABLE IF NOT EXISTS Daily_Prescription_Counts (
+    rollup_date DATE NOT NULL,
+    doctor_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    review_status VARCHAR(20) NOT NULL,
+    total INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (rollup_date, doctor_id, status, review_status)
+);
+
+-- Doses recorded per nurse per day, by status (Given, Missed, Refused)
+CREATE TABLE IF NOT EXISTS Daily_Administration_Counts (
+    rollup_date DATE NOT NULL,
+    nurse_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (rollup_date, nurse_id, status)
+);
+
+-- Resident movements per ward per day, and beds occupied at the end of the day;
+-- ward 0 collects admissions and discharges of residents without a bed
+CREATE TABLE IF NOT EXISTS Daily_Ward_Counts (
+    rollup_date DATE NOT NULL,
+    ward_id INT NOT NULL,
+    admissions INT NOT NULL DEFAULT 0,
+    discharges INT NOT NULL DEFAULT 0,
+    transfers_in INT NOT NULL DEFAULT 0,
+    transfers_out INT NOT NULL DEFAULT 0,
+    occupied_beds INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (rollup_date, ward_id)
+);
+
+-- Days whose occupied_beds have been recorded; later days copy the last one forward
+CREATE TABLE IF NOT EXISTS Daily_Rollup_Census (
+    rollup_date DATE PRIMARY KEY,
+    recorded_at TIMESTAMP NOT NULL
+);
+
+-- Per-doctor and per-nurse ranges
+CREATE INDEX idx_daily_prescriptions_doctor ON Daily_Prescription_Counts (doctor_id, rollup_date);
+CREATE INDEX idx_daily_administrations_nurse ON Daily_Administration_Counts (nurse_id, rollup_date);
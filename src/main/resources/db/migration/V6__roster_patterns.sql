@@ -0,0 +1,32 @@
+-- =====================================================
+-- V6: recurring roster patterns, materialized into Shift_Schedule
+-- =====================================================
+
+-- "This staff member works this shift on these weekdays", optionally from a
+-- Shifts template. days_mask has bit 0 for Monday through bit 6 for Sunday.
+-- Rows are written into Shift_Schedule up to materialized_until (see RosterPatternService)
+CREATE TABLE IF NOT EXISTS Roster_Patterns (
+    pattern_id INT PRIMARY KEY AUTO_INCREMENT,
+    staff_id INT NOT NULL,
+    template_id INT NULL,
+    shift_type VARCHAR(20) NOT NULL,
+    start_time VARCHAR(10) NOT NULL,
+    end_time VARCHAR(10) NOT NULL,
+    ward_id INT NULL,
+    days_mask INT NOT NULL,
+    starts_on DATE NOT NULL,
+    ends_on DATE NULL,
+    materialized_until DATE NULL,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_by INT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- The pattern a scheduled shift was materialized from; NULL for one-off shifts
+ALTER TABLE Shift_Schedule ADD COLUMN pattern_id INT NULL;
+
+-- Week and month views read a date range
+CREATE INDEX idx_shift_schedule_date ON Shift_Schedule (shift_date, start_time);
+
+-- Re-materializing a pattern touches only its own upcoming rows
+CREATE INDEX idx_shift_schedule_pattern ON Shift_Schedule (pattern_id, shift_date);
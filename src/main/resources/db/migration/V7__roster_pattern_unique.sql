@@ -0,0 +1,19 @@
+-- =====================================================
+-- V7: one materialized shift per pattern and date
+-- =====================================================
+
+-- Screens extend patterns as they open, so two clients can write the same
+-- dates; keep the first row of any pair written before this constraint
+DELETE FROM Shift_Schedule
+WHERE pattern_id IS NOT NULL
+  AND shift_id NOT IN (
+      SELECT kept_id FROM (
+          SELECT MIN(shift_id) AS kept_id FROM Shift_Schedule
+          WHERE pattern_id IS NOT NULL
+          GROUP BY pattern_id, shift_date
+      ) AS kept
+  );
+
+-- Pattern inserts skip dates already written (see RosterPatternService);
+-- one-off shifts have a NULL pattern_id and are not constrained
+CREATE UNIQUE INDEX uq_shift_schedule_pattern_date ON Shift_Schedule (pattern_id, shift_date);
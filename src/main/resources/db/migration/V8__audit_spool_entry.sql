@@ -0,0 +1,8 @@
+-- =====================================================
+-- V8: ids of audit entries replayed from a client's spool
+-- =====================================================
+
+-- A replay interrupted between commit and checkpoint skips the entries whose
+-- id is already here (see AuditSpool); entries written directly have none
+ALTER TABLE Actions_Log ADD COLUMN spool_entry_id VARCHAR(64);
+CREATE INDEX idx_actions_log_spool_entry ON Actions_Log (spool_entry_id);
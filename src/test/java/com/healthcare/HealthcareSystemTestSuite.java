@@ -70,7 +70,7 @@ public class HealthcareSystemTestSuite {
     @Test
     @Order(1)
     @DisplayName("Test Staff Scheduling Compliance")
-    void testStaffSchedulingCompliance() {
+    void testStaffSchedulingCompliance() throws Exception {
         System.out.println("📋 Testing Staff Scheduling Compliance...");
         
         // Test 1.1: Positive Test - Assign a nurse correctly
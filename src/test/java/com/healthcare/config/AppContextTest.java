@@ -0,0 +1,107 @@
+package com.healthcare.config;
+
+import com.healthcare.services.ActionLogService;
+import com.healthcare.services.AuditAppender;
+import com.healthcare.services.AuditSpool;
+import com.healthcare.services.BedManagementService;
+import com.healthcare.services.BedOccupancyIndex;
+import com.healthcare.services.BedTransferService;
+import com.healthcare.services.DashboardSnapshot;
+import com.healthcare.services.DoctorReportService;
+import com.healthcare.services.OverdueDoseTracker;
+import com.healthcare.services.ResidentService;
+import com.healthcare.services.ShiftManagementService;
+import com.healthcare.services.StaffAvailabilityIndex;
+import com.healthcare.services.StaffService;
+import com.healthcare.util.ViewLoader;
+import javafx.fxml.FXMLLoader;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Application context tests: one instance per service, shared state reused, controllers injected
+ */
+public class AppContextTest {
+
+    @TempDir
+    static Path tempDir;
+
+    @BeforeAll
+    static void configurePool() {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:appcontext;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        // The context starts the shared audit spool; keep it off the user's spool file
+        System.setProperty("healthcare.audit.spoolFile", tempDir.resolve("spool.dat").toString());
+    }
+
+    @AfterAll
+    static void restorePool() {
+        AppContext.shutdown();
+        AuditAppender.shutdownShared();
+        AuditSpool.shutdownShared();
+        OverdueDoseTracker.shutdownShared();
+        BedOccupancyIndex.shutdownShared();
+        System.clearProperty("healthcare.audit.spoolFile");
+        DBConnection.shutdown();
+    }
+
+    @Test
+    @DisplayName("Services are created once and the getShared() singletons are the same instances")
+    void testSingletons() {
+        assertSame(AppContext.getShared(), AppContext.getShared());
+        assertSame(AppContext.getBean(StaffService.class), AppContext.getBean(StaffService.class));
+        assertSame(BedOccupancyIndex.getShared(), AppContext.getBean(BedOccupancyIndex.class));
+        assertSame(StaffAvailabilityIndex.getShared(), AppContext.getBean(StaffAvailabilityIndex.class));
+        assertSame(OverdueDoseTracker.getShared(), AppContext.getBean(OverdueDoseTracker.class));
+        assertSame(DashboardSnapshot.getShared(), AppContext.getBean(DashboardSnapshot.class));
+        assertSame(DoctorReportService.getShared(), AppContext.getBean(DoctorReportService.class));
+        assertNotNull(AppContext.getBean(BedTransferService.class));
+        assertNotNull(AppContext.getBean(ShiftManagementService.class));
+    }
+
+    @Test
+    @DisplayName("The controller factory fills @Autowired fields with the shared services and a new view loader, in a new controller each time")
+    void testControllerFactory() {
+        Object first = AppContext.controllerFactory().call(SampleController.class);
+        Object second = AppContext.controllerFactory().call(SampleController.class);
+
+        assertNotSame(first, second);
+        SampleController controller = (SampleController) first;
+        assertSame(AppContext.getBean(ResidentService.class), controller.residentService);
+        assertSame(AppContext.getBean(BedManagementService.class), controller.bedService);
+        assertSame(AppContext.getBean(ActionLogService.class), ((SampleController) second).actionLogService);
+        // Each controller gets a loader of its own
+        assertNotNull(controller.loader);
+        assertNotSame(controller.loader, ((SampleController) second).loader);
+
+        FXMLLoader loader = AppContext.newLoader(AppContextTest.class.getResource("/fxml/login.fxml"));
+        assertNotNull(loader.getControllerFactory());
+    }
+
+    @Test
+    @DisplayName("Closing the context leaves the shared singletons running, and the next use starts a new context")
+    void testShutdown() {
+        BedOccupancyIndex index = AppContext.getBean(BedOccupancyIndex.class);
+        StaffService staff = AppContext.getBean(StaffService.class);
+
+        AppContext.shutdown();
+
+        assertSame(index, AppContext.getBean(BedOccupancyIndex.class));
+        assertNotSame(staff, AppContext.getBean(StaffService.class));
+    }
+
+    public static class SampleController {
+        @Autowired
+        private ResidentService residentService;
+        @Autowired
+        private BedManagementService bedService;
+        @Autowired
+        private ActionLogService actionLogService;
+        @Autowired
+        private ViewLoader loader;
+    }
+}
@@ -0,0 +1,136 @@
+package com.healthcare.config;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Connection pool tests against an in-memory H2 database
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        PoolConfig config = new PoolConfig("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "");
+        config.setMinSize(0);
+        config.setMaxSize(2);
+        config.setAcquireTimeoutMillis(200);
+        config.setIdleTimeoutMillis(100);
+        config.setHousekeepingIntervalMillis(50);
+        pool = new ConnectionPool(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Closed connections are reused instead of reopened")
+    void testConnectionReuse() throws Exception {
+        Connection physical;
+        try (Connection conn = pool.getConnection()) {
+            physical = conn.unwrap(Connection.class);
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertSame(physical, conn.unwrap(Connection.class));
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(1, stats.getTotalConnections());
+        assertEquals(0, stats.getActiveConnections());
+        assertEquals(2, stats.getAcquireCount());
+    }
+
+    @Test
+    @DisplayName("Borrowers time out when the pool is exhausted")
+    void testAcquireTimeout() throws Exception {
+        try (Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+            assertEquals(2, pool.getStats().getActiveConnections());
+            assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        }
+        assertEquals(1, pool.getStats().getAcquireTimeouts());
+        assertEquals(0, pool.getStats().getActiveConnections());
+    }
+
+    @Test
+    @DisplayName("Unclosed statements and result sets are closed and counted on return")
+    void testLeakedResourcesAreReclaimed() throws Exception {
+        ResultSet leaked;
+        PreparedStatement statement;
+        try (Connection conn = pool.getConnection()) {
+            statement = conn.prepareStatement("SELECT 1");
+            leaked = statement.executeQuery();
+        }
+
+        assertTrue(leaked.isClosed());
+        assertTrue(statement.isClosed());
+        assertEquals(1, pool.getStats().getUnclosedStatements());
+        assertEquals(1, pool.getStats().getUnclosedResultSets());
+    }
+
+    @Test
+    @DisplayName("Result sets closed along with their statement are not reported as leaked")
+    void testStatementCloseClosesResultSets() throws Exception {
+        ResultSet implicit;
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            implicit = stmt.executeQuery("SELECT 1");
+        }
+
+        assertTrue(implicit.isClosed());
+        assertEquals(0, pool.getStats().getUnclosedStatements());
+        assertEquals(0, pool.getStats().getUnclosedResultSets());
+    }
+
+    @Test
+    @DisplayName("Uncommitted work is rolled back before a connection is reused")
+    void testStateResetOnReturn() throws Exception {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS pool_reset (id INT)");
+            stmt.execute("DELETE FROM pool_reset");
+        }
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.execute("INSERT INTO pool_reset VALUES (1)");
+        }
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pool_reset")) {
+            assertTrue(conn.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Idle connections above the minimum are evicted")
+    void testIdleEviction() throws Exception {
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, pool.getStats().getTotalConnections());
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (pool.getStats().getTotalConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+        }
+        assertEquals(0, pool.getStats().getTotalConnections());
+    }
+
+    @Test
+    @DisplayName("A returned connection handle cannot be used again")
+    void testClosedHandleIsRejected() throws Exception {
+        Connection conn = pool.getConnection();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(java.sql.SQLException.class, conn::createStatement);
+    }
+}
@@ -0,0 +1,115 @@
+package com.healthcare.config;
+
+import com.healthcare.exceptions.MigrationException;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migration runner tests against in-memory H2 databases in MySQL mode
+ */
+public class MigrationRunnerTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp(TestInfo info) throws Exception {
+        String name = info.getTestMethod().map(m -> m.getName()).orElse("migrations");
+        conn = DriverManager.getConnection("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    @DisplayName("Shipped migrations are found in version order")
+    void testFindMigrations() throws Exception {
+        List<MigrationRunner.Migration> migrations = new MigrationRunner().findMigrations();
+        assertFalse(migrations.isEmpty());
+        assertEquals(1, migrations.get(0).getVersion());
+        assertEquals("performance indexes", migrations.get(0).getDescription());
+        for (int i = 1; i < migrations.size(); i++) {
+            assertTrue(migrations.get(i).getVersion() > migrations.get(i - 1).getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("The index pack applies once and is recorded in schema_history")
+    void testIndexPackAppliesOnce() throws Exception {
+        TestSchema.createBaseTables(conn);
+        MigrationRunner runner = new MigrationRunner();
+        int shipped = runner.findMigrations().size();
+
+        assertEquals(shipped, runner.migrate(conn));
+        assertEquals(0, runner.migrate(conn));
+
+        assertEquals(shipped, queryInt(conn, "SELECT COUNT(*) FROM schema_history"));
+        assertEquals(1, queryInt(conn, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES " +
+                "WHERE INDEX_NAME = 'IDX_SHIFT_SCHEDULE_STAFF_DATE'"));
+    }
+
+    @Test
+    @DisplayName("An index created by hand beforehand does not fail the migration")
+    void testExistingIndexIsTolerated() throws Exception {
+        TestSchema.createBaseTables(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX idx_residents_discharge ON Residents (discharge_date)");
+        }
+        assertEquals(new MigrationRunner().findMigrations().size(), new MigrationRunner().migrate(conn));
+    }
+
+    @Test
+    @DisplayName("A failing migration is rolled back and not recorded; earlier ones stay applied")
+    void testFailedMigrationIsNotRecorded() throws Exception {
+        MigrationRunner runner = new MigrationRunner("db/broken-migration");
+
+        MigrationException error = assertThrows(MigrationException.class, () -> runner.migrate(conn));
+        assertTrue(error.getMessage().contains("V2"));
+
+        assertEquals(1, queryInt(conn, "SELECT COUNT(*) FROM schema_history"));
+        assertEquals(1, queryInt(conn, "SELECT COUNT(*) FROM migration_notes"));
+    }
+
+    @Test
+    @DisplayName("Statements are split on semicolons with comments removed")
+    void testStatementSplitting() {
+        MigrationRunner.Migration migration = new MigrationRunner.Migration(3, "split",
+                "-- header\nCREATE INDEX a ON t (x); -- trailing\n\nCREATE INDEX b\n  ON t (y);\n");
+        assertEquals(List.of("CREATE INDEX a ON t (x)", "CREATE INDEX b\n  ON t (y)"), migration.getStatements());
+    }
+
+    /**
+     * Tables touched by the shipped migrations, reduced to the columns they use
+     */
+    public static void createBaseTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Actions_Log (action_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT, " +
+                    "action_type VARCHAR(20), action_description VARCHAR(200), action_time DATETIME, details TEXT)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Administered_Medication (admin_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "prescription_medicine_id INT NOT NULL, nurse_id INT NOT NULL, administered_time DATETIME NOT NULL, " +
+                    "dosage_given VARCHAR(50), notes TEXT, status VARCHAR(10), created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Prescriptions (prescription_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "resident_id INT, doctor_id INT, prescription_date DATE, status VARCHAR(20), review_status VARCHAR(20))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Residents (resident_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "first_name VARCHAR(50), last_name VARCHAR(50), current_bed_id INT, admission_date DATE, discharge_date DATE)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Shift_Schedule (shift_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT NOT NULL, " +
+                    "shift_date DATE NOT NULL, shift_type VARCHAR(20), start_time VARCHAR(10), end_time VARCHAR(10), ward_id INT)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Bed_Transfers (transfer_id INT PRIMARY KEY AUTO_INCREMENT, resident_id INT, " +
+                    "from_bed_id INT, to_bed_id INT, nurse_id INT NOT NULL, transfer_time DATETIME NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Beds (bed_id INT PRIMARY KEY AUTO_INCREMENT, room_id INT, " +
+                    "is_occupied BOOLEAN DEFAULT FALSE, occupied_by INT)");
+        }
+    }
+}
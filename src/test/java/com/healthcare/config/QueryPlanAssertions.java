@@ -0,0 +1,90 @@
+package com.healthcare.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plan checks for tests, based on H2's EXPLAIN output
+ *
+ * H2 annotates every table access with the index it uses and the conditions it
+ * seeks on, e.g. "FROM PUBLIC.BED_TRANSFERS \/* PUBLIC.IDX_X: TRANSFER_TIME >= ?1 AND ... *\/".
+ * A full scan shows up as "tableScan", or as an index name without conditions.
+ */
+public final class QueryPlanAssertions {
+
+    private QueryPlanAssertions() {
+    }
+
+    /**
+     * EXPLAIN a statement; its parameters are bound to NULL, which does not affect the plan
+     */
+    public static String explain(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = stmt.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                stmt.setObject(i, null);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next(), "EXPLAIN returned no plan");
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Assert that the statement reads the table through the given index with a range condition on the column
+     */
+    public static void assertIndexRangeScan(Connection conn, String sql, String table, String index, String column)
+            throws SQLException {
+        String plan = explain(conn, sql);
+        Access access = findAccess(plan, table);
+        assertNotNull(access, "No access to " + table + " in plan:\n" + plan);
+        assertEquals(index.toUpperCase(), access.index, "Wrong index for " + table + " in plan:\n" + plan);
+
+        String condition = access.condition != null ? access.condition.replaceAll("\\s+", " ") : "";
+        String col = column.toUpperCase();
+        assertTrue(condition.contains(col + " >=") || condition.contains(col + " <") || condition.contains(col + " >"),
+                "Index " + index + " is not range-scanned on " + column + " in plan:\n" + plan);
+    }
+
+    /**
+     * Assert that the table is read without seeking on any index condition
+     */
+    public static void assertFullScan(Connection conn, String sql, String table) throws SQLException {
+        String plan = explain(conn, sql);
+        Access access = findAccess(plan, table);
+        assertNotNull(access, "No access to " + table + " in plan:\n" + plan);
+        assertNull(access.condition, "Expected a full scan of " + table + " in plan:\n" + plan);
+    }
+
+    private static Access findAccess(String plan, String table) {
+        Pattern pattern = Pattern.compile(
+                "\"PUBLIC\"\\.\"" + Pattern.quote(table.toUpperCase()) + "\"(?: \"\\w+\")?\\s*/\\* PUBLIC\\.([\\w.]+?)(?::(.*?))?\\s*\\*/",
+                Pattern.DOTALL);
+        Matcher matcher = pattern.matcher(plan);
+        if (!matcher.find()) {
+            return null;
+        }
+        String index = matcher.group(1);
+        if (index.endsWith(".tableScan")) {
+            return new Access("tableScan", null);
+        }
+        return new Access(index, matcher.group(2));
+    }
+
+    private static class Access {
+        final String index;
+        final String condition;
+
+        Access(String index, String condition) {
+            this.index = index;
+            this.condition = condition;
+        }
+    }
+}
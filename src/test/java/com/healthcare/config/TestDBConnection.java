@@ -128,6 +128,7 @@ public class TestDBConnection {
                 ward_id BIGINT,
                 status VARCHAR(20) DEFAULT 'Scheduled',
                 assigned_by BIGINT,
+                pattern_id BIGINT,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
             )
         """);
@@ -0,0 +1,121 @@
+package com.healthcare.config;
+
+import com.healthcare.exceptions.MigrationException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Shared H2 schema and statement helpers for the database tests
+ *
+ * The tables carry the columns the services read and write, without the
+ * later additions; those come from applying the shipped migrations on top,
+ * so every test sees the same schema production does.
+ */
+public final class TestSchema {
+
+    private TestSchema() {
+    }
+
+    /**
+     * Create the schema on the configured pool's database
+     */
+    public static void create() throws SQLException, MigrationException {
+        try (Connection conn = DBConnection.getConnection()) {
+            create(conn);
+        }
+    }
+
+    /**
+     * Create the application tables and apply the shipped migrations
+     */
+    public static void create(Connection conn) throws SQLException, MigrationException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE Actions_Log (action_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT, " +
+                    "action_type VARCHAR(20) NOT NULL, action_description VARCHAR(200) NOT NULL, " +
+                    "action_time DATETIME DEFAULT CURRENT_TIMESTAMP, details TEXT)");
+            stmt.execute("CREATE TABLE Staff (staff_id INT PRIMARY KEY AUTO_INCREMENT, first_name VARCHAR(50), " +
+                    "last_name VARCHAR(50), role VARCHAR(20))");
+            stmt.execute("CREATE TABLE Medicines (medicine_id INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100), description TEXT, " +
+                    "dosage_unit VARCHAR(20), category VARCHAR(50), classification VARCHAR(50), is_active BOOLEAN, created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE Prescriptions (prescription_id INT PRIMARY KEY AUTO_INCREMENT, resident_id INT, doctor_id INT, " +
+                    "prescription_date DATE, notes TEXT, status VARCHAR(20), review_status VARCHAR(20), review_notes TEXT, " +
+                    "reviewed_by INT, reviewed_at TIMESTAMP, created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE Prescription_Medicines (id INT PRIMARY KEY AUTO_INCREMENT, prescription_id INT, " +
+                    "medicine_id INT, dosage VARCHAR(50), frequency VARCHAR(100), start_date DATE, end_date DATE, " +
+                    "instructions TEXT, is_active BOOLEAN, created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE Residents (resident_id INT PRIMARY KEY AUTO_INCREMENT, first_name VARCHAR(50), " +
+                    "last_name VARCHAR(50), gender VARCHAR(1), birth_date DATE, admission_date DATE, discharge_date DATE, " +
+                    "current_bed_id INT, medical_condition TEXT, requires_isolation BOOLEAN DEFAULT FALSE, " +
+                    "emergency_contact VARCHAR(200), assigned_doctor_id INT)");
+            stmt.execute("CREATE TABLE Wards (ward_id INT PRIMARY KEY, ward_name VARCHAR(50))");
+            stmt.execute("CREATE TABLE Rooms (room_id INT PRIMARY KEY, ward_id INT, room_number VARCHAR(20), " +
+                    "room_type VARCHAR(20) DEFAULT 'Standard', max_capacity INT DEFAULT 4, gender_preference VARCHAR(10) DEFAULT 'Mixed')");
+            stmt.execute("CREATE TABLE Beds (bed_id INT PRIMARY KEY AUTO_INCREMENT, room_id INT, bed_number VARCHAR(20), " +
+                    "bed_code VARCHAR(20), bed_type VARCHAR(20) DEFAULT 'Standard', is_occupied BOOLEAN DEFAULT FALSE, occupied_by INT, " +
+                    "gender_restriction VARCHAR(10) DEFAULT 'None', isolation_required BOOLEAN DEFAULT FALSE, last_cleaned TIMESTAMP)");
+            stmt.execute("CREATE TABLE Bed_Transfers (transfer_id INT PRIMARY KEY AUTO_INCREMENT, resident_id INT NOT NULL, " +
+                    "from_bed_id INT, to_bed_id INT NOT NULL, nurse_id INT NOT NULL, transfer_time DATETIME NOT NULL, " +
+                    "reason TEXT, created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE Shifts (shift_id INT PRIMARY KEY AUTO_INCREMENT, shift_name VARCHAR(100), " +
+                    "shift_type VARCHAR(20), start_time TIME, end_time TIME, ward_id INT, is_active BOOLEAN, created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE Shift_Schedule (shift_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT NOT NULL, " +
+                    "shift_date DATE NOT NULL, shift_type VARCHAR(20), start_time VARCHAR(10), end_time VARCHAR(10), " +
+                    "ward_id INT, status VARCHAR(20) DEFAULT 'Scheduled', assigned_by INT, created_at TIMESTAMP)");
+        }
+        createBaseTables(conn);
+        new MigrationRunner().migrate(conn);
+    }
+
+    /**
+     * Tables touched by the shipped migrations, reduced to the columns they use
+     */
+    public static void createBaseTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Actions_Log (action_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT, " +
+                    "action_type VARCHAR(20), action_description VARCHAR(200), action_time DATETIME, details TEXT)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Administered_Medication (admin_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "prescription_medicine_id INT NOT NULL, nurse_id INT NOT NULL, administered_time DATETIME NOT NULL, " +
+                    "dosage_given VARCHAR(50), notes TEXT, status VARCHAR(10), created_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Prescriptions (prescription_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "resident_id INT, doctor_id INT, prescription_date DATE, status VARCHAR(20), review_status VARCHAR(20))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Residents (resident_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                    "first_name VARCHAR(50), last_name VARCHAR(50), current_bed_id INT, admission_date DATE, discharge_date DATE)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Shift_Schedule (shift_id INT PRIMARY KEY AUTO_INCREMENT, staff_id INT NOT NULL, " +
+                    "shift_date DATE NOT NULL, shift_type VARCHAR(20), start_time VARCHAR(10), end_time VARCHAR(10), ward_id INT)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Bed_Transfers (transfer_id INT PRIMARY KEY AUTO_INCREMENT, resident_id INT, " +
+                    "from_bed_id INT, to_bed_id INT, nurse_id INT NOT NULL, transfer_time DATETIME NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS Beds (bed_id INT PRIMARY KEY AUTO_INCREMENT, room_id INT, " +
+                    "is_occupied BOOLEAN DEFAULT FALSE, occupied_by INT)");
+        }
+    }
+
+    /**
+     * Run statements in order on a pooled connection
+     */
+    public static void execute(String... statements) throws SQLException {
+        try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * The first column of the first row, read on a pooled connection
+     */
+    public static int queryInt(String sql) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            return queryInt(conn, sql);
+        }
+    }
+
+    public static int queryInt(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.healthcare.config;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit of work tests: services called inside a scope share one connection and commit once
+ */
+public class UnitOfWorkTest {
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:uowtest;DB_CLOSE_DELAY=-1", "sa", ""));
+        try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS uow_items (id INT PRIMARY KEY, name VARCHAR(20))");
+        }
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void clearTable() throws Exception {
+        try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM uow_items");
+        }
+    }
+
+    @Test
+    @DisplayName("Services inside a scope share one pooled connection and commit together")
+    void testSingleAcquisitionAndCommit() throws Exception {
+        long acquiredBefore = DBConnection.getPoolStats().getAcquireCount();
+
+        UnitOfWork.run(() -> {
+            insert(1, "first");
+            insert(2, "second");
+            insert(3, "third");
+        });
+
+        assertEquals(1, DBConnection.getPoolStats().getAcquireCount() - acquiredBefore);
+        assertEquals(3, countRows());
+    }
+
+    @Test
+    @DisplayName("A failure swallowed by a service still rolls the whole unit back")
+    void testSwallowedFailureRollsBack() {
+        SQLException error = assertThrows(SQLException.class, () -> UnitOfWork.run(() -> {
+            insert(1, "first");
+            insertSwallowingErrors(1, "duplicate");
+        }));
+
+        assertTrue(error.getMessage().startsWith("Unit of work rolled back"));
+        assertEquals(0, countRows());
+    }
+
+    @Test
+    @DisplayName("Runtime exceptions roll back and propagate unchanged")
+    void testRuntimeExceptionRollsBack() {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+            insert(1, "first");
+            throw new IllegalStateException("validation failed");
+        }));
+
+        assertEquals(0, countRows());
+        assertFalse(UnitOfWork.isActive());
+    }
+
+    @Test
+    @DisplayName("Nested scopes join the outer transaction")
+    void testNestedScopesJoin() throws Exception {
+        UnitOfWork.run(() -> {
+            insert(1, "outer");
+            UnitOfWork.run(() -> insert(2, "inner"));
+            assertTrue(UnitOfWork.isActive());
+        });
+
+        assertEquals(2, countRows());
+    }
+
+    private static void insert(int id, String name) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("INSERT INTO uow_items (id, name) VALUES (?, ?)")) {
+            stmt.setInt(1, id);
+            stmt.setString(2, name);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Mirrors the services, which log SQL errors instead of rethrowing them
+    private static void insertSwallowingErrors(int id, String name) {
+        try {
+            insert(id, name);
+        } catch (SQLException e) {
+            System.err.println("Error saving item: " + e.getMessage());
+        }
+    }
+
+    private static int countRows() {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM uow_items")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.ActionLog;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pagination and server-side filter tests for ActionLogService
+ */
+public class ActionLogServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private final ActionLogService service = new ActionLogService();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:actionlogtest;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+        execute("DELETE FROM Actions_Log");
+
+        ActionLogService service = new ActionLogService();
+        // 250 rows over 5 days, several sharing each timestamp so paging must break ties on action_id
+        for (int i = 0; i < 250; i++) {
+            ActionLog log = new ActionLog(i % 2 == 0 ? 1L : 2L,
+                    i % 5 == 0 ? ActionLog.ActionType.Admit : ActionLog.ActionType.Update,
+                    "Action " + i, null);
+            log.setActionTime(BASE.plusDays(i / 50).plusMinutes((i % 50) / 3));
+            assertNotNull(service.save(log));
+        }
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @Test
+    @DisplayName("Walking pages by key visits every row exactly once, newest first")
+    void testKeysetWalkCoversAllRows() {
+        List<ActionLog> all = walk(null, 40);
+
+        assertEquals(250, all.size());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(ids.add(all.get(i).getActionId()));
+            if (i > 0) {
+                ActionLog previous = all.get(i - 1);
+                ActionLog current = all.get(i);
+                int byTime = current.getActionTime().compareTo(previous.getActionTime());
+                assertTrue(byTime < 0 || (byTime == 0 && current.getActionId() < previous.getActionId()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Staff, action type and date filters are applied in the query")
+    void testFilters() {
+        ActionLogService.LogFilter filter = new ActionLogService.LogFilter();
+        filter.setStaffId(1L);
+        filter.setActionType(ActionLog.ActionType.Admit);
+        filter.setFromDate(LocalDate.of(2024, 3, 2));
+        filter.setToDate(LocalDate.of(2024, 3, 3));
+
+        List<ActionLog> matching = walk(filter, 7);
+
+        assertEquals(service.countMatching(filter), matching.size());
+        assertEquals(10, matching.size());
+        for (ActionLog log : matching) {
+            assertEquals(1L, log.getStaffId());
+            assertEquals(ActionLog.ActionType.Admit, log.getActionType());
+            assertFalse(log.getActionTime().toLocalDate().isBefore(LocalDate.of(2024, 3, 2)));
+            assertFalse(log.getActionTime().toLocalDate().isAfter(LocalDate.of(2024, 3, 3)));
+        }
+    }
+
+    @Test
+    @DisplayName("An offset from a key skips rows after that key")
+    void testOffsetFromKey() {
+        List<ActionLog> firstTwoPages = service.findPage(null, null, 0, 20);
+        ActionLogService.PageKey key = ActionLogService.PageKey.of(firstTwoPages.get(4));
+
+        List<ActionLog> skipped = service.findPage(null, key, 5, 10);
+
+        assertEquals(firstTwoPages.get(10).getActionId(), skipped.get(0).getActionId());
+    }
+
+    private List<ActionLog> walk(ActionLogService.LogFilter filter, int pageSize) {
+        List<ActionLog> all = new ArrayList<>();
+        ActionLogService.PageKey key = null;
+        while (true) {
+            List<ActionLog> page = service.findPage(filter, key, 0, pageSize);
+            all.addAll(page);
+            if (page.size() < pageSize) {
+                return all;
+            }
+            key = ActionLogService.PageKey.of(page.get(page.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.ActionLog;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Asynchronous audit appender tests against an in-memory H2 database
+ */
+public class AuditAppenderTest {
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:audittest;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void clearTable() throws Exception {
+        execute("DELETE FROM Actions_Log");
+    }
+
+    @Test
+    @DisplayName("Queued entries are written in batches and visible after flush")
+    void testFlushWritesQueuedEntries() {
+        try (AuditAppender appender = new AuditAppender(100, 10, 50, 50)) {
+            for (int i = 0; i < 25; i++) {
+                appender.append(entry("Update " + i));
+            }
+            assertTrue(appender.flush(5_000));
+            assertEquals(25, countRows());
+            assertEquals(0, appender.getCallerWriteCount());
+            assertEquals(0, appender.getFailedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A full queue makes the caller write its own entry instead of dropping it")
+    void testBackpressureWhenQueueIsFull() {
+        try (AuditAppender appender = new AuditAppender(1, 1, 1_000, 0)) {
+            for (int i = 0; i < 20; i++) {
+                appender.append(entry("Burst " + i));
+            }
+            assertTrue(appender.flush(5_000));
+            assertTrue(appender.getCallerWriteCount() > 0);
+            assertEquals(20, countRows());
+        }
+    }
+
+    @Test
+    @DisplayName("Closing the appender writes everything still queued")
+    void testCloseDrainsQueue() {
+        AuditAppender appender = new AuditAppender(100, 100, 10_000, 50);
+        for (int i = 0; i < 5; i++) {
+            appender.append(entry("Shutdown " + i));
+        }
+        appender.close();
+        assertEquals(5, countRows());
+    }
+
+    @Test
+    @DisplayName("Entries appended inside a unit of work are dropped if it rolls back")
+    void testAppendInsideUnitOfWorkWaitsForCommit() throws Exception {
+        try (AuditAppender appender = new AuditAppender(100, 10, 50, 50)) {
+            ActionLogService service = new ActionLogService(appender);
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                service.append(entry("Rolled back"));
+                throw new IllegalStateException("admission failed");
+            }));
+            UnitOfWork.run(() -> service.append(entry("Committed")));
+
+            assertTrue(appender.flush(5_000));
+            assertEquals(1, countRows());
+        }
+    }
+
+    private static ActionLog entry(String description) {
+        return new ActionLog((Long) null, ActionLog.ActionType.Update, description, null);
+    }
+
+    private static int countRows() {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Actions_Log")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
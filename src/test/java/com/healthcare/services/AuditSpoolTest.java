@@ -0,0 +1,213 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.ActionLog;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Audit spool tests: journaling, crash recovery and duplicate-free replay
+ */
+public class AuditSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:spooltest;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void clearTable() throws Exception {
+        execute("DELETE FROM Actions_Log");
+    }
+
+    @Test
+    @DisplayName("Spooled entries are replayed in order and the spool is emptied")
+    void testReplayPreservesOrder() throws Exception {
+        try (AuditSpool spool = openSpool(4)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(spool.append(entry("Entry " + i, i % 2 == 0 ? 7L : null)));
+            }
+            assertTrue(spool.hasPending());
+
+            assertEquals(10, spool.replayPending());
+            assertFalse(spool.hasPending());
+        }
+
+        List<String> descriptions = descriptionsInInsertOrder();
+        assertEquals(10, descriptions.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Entry " + i, descriptions.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Entries survive a restart and a torn record at the tail is discarded")
+    void testRecoveryAfterCrash() throws Exception {
+        Path file = tempDir.resolve("spool.dat");
+        try (AuditSpool spool = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            spool.append(entry("Before crash 1", 1L));
+            spool.append(entry("Before crash 2", 1L));
+            spool.append(entry("Torn", 1L));
+        }
+        // Corrupt the last record's payload as if the process died while writing it
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long offset = 32;
+            for (int i = 0; i < 2; i++) {
+                raf.seek(offset);
+                offset += 8 + raf.readInt();
+            }
+            raf.seek(offset + 8 + 3);
+            raf.writeByte(0x7F);
+        }
+
+        try (AuditSpool reopened = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            assertEquals(2, reopened.replayPending());
+        }
+        assertEquals(List.of("Before crash 1", "Before crash 2"), descriptionsInInsertOrder());
+    }
+
+    @Test
+    @DisplayName("A batch committed before the checkpoint was saved is not inserted twice")
+    void testInDoubtBatchIsNotDuplicated() throws Exception {
+        Path file = tempDir.resolve("indoubt.dat");
+        try (AuditSpool spool = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            spool.append(entry("Committed 1", 3L));
+            spool.append(entry("Committed 2", null));
+
+            // Commit the batch, then "crash" before the checkpoint moves
+            AuditSpool.ReplayBatch batch = spool.beginReplay();
+            assertEquals(2, spool.insertBatch(batch));
+        }
+
+        try (AuditSpool reopened = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            reopened.append(entry("After restart", 3L));
+            assertEquals(1, reopened.replayPending());
+            assertEquals(2, reopened.getDuplicatesSkipped());
+        }
+        assertEquals(List.of("Committed 1", "Committed 2", "After restart"), descriptionsInInsertOrder());
+    }
+
+    @Test
+    @DisplayName("An in-doubt entry identical to one already logged is still inserted")
+    void testIdenticalEntryIsNotTakenForDuplicate() throws Exception {
+        ActionLog original = entry("Same action", 3L);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(AuditAppender.INSERT_SQL)) {
+            AuditAppender.bind(stmt, original);
+            stmt.executeUpdate();
+        }
+
+        Path file = tempDir.resolve("identical.dat");
+        try (AuditSpool spool = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            spool.append(original);
+            // "Crash" after marking the batch in doubt, before it is inserted
+            assertNotNull(spool.beginReplay());
+        }
+
+        try (AuditSpool reopened = new AuditSpool(file, 64 * 1024, 100, 0)) {
+            assertEquals(1, reopened.replayPending());
+            assertEquals(0, reopened.getDuplicatesSkipped());
+        }
+        assertEquals(List.of("Same action", "Same action"), descriptionsInInsertOrder());
+    }
+
+    @Test
+    @DisplayName("A batch that failed before its commit leaves nothing in doubt")
+    void testAbortClearsInDoubtRange() throws Exception {
+        try (AuditSpool spool = openSpool(100)) {
+            spool.append(entry("x".repeat(300), 1L));
+            assertThrows(SQLException.class, spool::replayPending);
+
+            assertFalse(spool.isInDoubt());
+            assertTrue(spool.hasPending());
+        }
+    }
+
+    @Test
+    @DisplayName("A full spool rejects entries and makes room again once replayed")
+    void testFullSpoolCompactsAfterReplay() throws Exception {
+        try (AuditSpool spool = new AuditSpool(tempDir.resolve("small.dat"), 512, 100, 0)) {
+            int accepted = 0;
+            while (spool.append(entry("Filler " + accepted, 1L))) {
+                accepted++;
+            }
+            assertTrue(accepted > 0);
+            assertEquals(1, spool.getRejectedCount());
+
+            assertEquals(accepted, spool.replayPending());
+            assertTrue(spool.append(entry("After drain", 1L)));
+        }
+    }
+
+    @Test
+    @DisplayName("The appender spools new batches while older entries wait for replay")
+    void testAppenderFollowsSpoolBacklog() throws Exception {
+        try (AuditSpool spool = openSpool(100);
+             AuditAppender appender = new AuditAppender(100, 10, 20, 50, spool)) {
+            spool.append(entry("Spooled first", 1L));
+
+            appender.append(entry("Queued second", 1L));
+            assertTrue(appender.flush(5_000));
+            assertEquals(0, countRows());
+
+            assertEquals(2, spool.replayPending());
+        }
+        assertEquals(List.of("Spooled first", "Queued second"), descriptionsInInsertOrder());
+    }
+
+    @Test
+    @DisplayName("Connection failures are told apart from rejected statements")
+    void testConnectivityFailureClassification() {
+        assertTrue(AuditSpool.isConnectivityFailure(new SQLException("Communications link failure", "08S01")));
+        assertTrue(AuditSpool.isConnectivityFailure(new java.sql.SQLTransientConnectionException("Pool exhausted")));
+        assertFalse(AuditSpool.isConnectivityFailure(new SQLException("Duplicate entry", "23000")));
+    }
+
+    private AuditSpool openSpool(int batchSize) throws Exception {
+        return new AuditSpool(tempDir.resolve("audit.dat"), 64 * 1024, batchSize, 0);
+    }
+
+    private static ActionLog entry(String description, Long staffId) {
+        return new ActionLog(staffId, ActionLog.ActionType.Update, description, "details");
+    }
+
+    private static List<String> descriptionsInInsertOrder() throws SQLException {
+        List<String> descriptions = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT action_description FROM Actions_Log ORDER BY action_id")) {
+            while (rs.next()) {
+                descriptions.add(rs.getString(1));
+            }
+        }
+        return descriptions;
+    }
+
+    private static int countRows() throws SQLException {
+        return descriptionsInInsertOrder().size();
+    }
+}
@@ -0,0 +1,159 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.Resident;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation engine tests: hard room/bed rules, scoring and batch admission
+ */
+public class BedAllocationEngineTest {
+
+    private BedOccupancyIndex index;
+    private BedAllocationEngine engine;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:bedallocation;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * Ward 1:
+     *   101 Standard, up to 4, mixed  - bed 1 (female resident), bed 2 free, bed 3 electric free
+     *   102 Standard, up to 2, mixed  - bed 4 (male resident), bed 5 free
+     *   103 Isolation, 1              - bed 6 free
+     *   104 Standard, up to 1, mixed  - bed 7 (male resident), bed 8 free but the room is full
+     *   105 Standard, up to 2, male   - beds 9 and 10 free
+     */
+    @BeforeEach
+    void createWard() throws Exception {
+        execute("DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards", "DELETE FROM Residents",
+                "INSERT INTO Wards VALUES (1, 'Ward 1')",
+                "INSERT INTO Rooms VALUES (101, 1, '101', 'Standard', 4, 'Mixed'), (102, 1, '102', 'Standard', 2, 'Mixed'), " +
+                        "(103, 1, '103', 'Isolation', 1, 'Mixed'), (104, 1, '104', 'Standard', 1, 'Mixed'), " +
+                        "(105, 1, '105', 'Standard', 2, 'Male')",
+                "INSERT INTO Residents (resident_id, gender) VALUES (500, 'F'), (501, 'M'), (502, 'M')",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code, bed_type, is_occupied, occupied_by) VALUES " +
+                        "(1, 101, '1', 'W1R101B1', 'Standard', TRUE, 500), (2, 101, '2', 'W1R101B2', 'Standard', FALSE, NULL), " +
+                        "(3, 101, '3', 'W1R101B3', 'Electric', FALSE, NULL), (4, 102, '1', 'W1R102B1', 'Standard', TRUE, 501), " +
+                        "(5, 102, '2', 'W1R102B2', 'Standard', FALSE, NULL), (6, 103, '1', 'W1R103B1', 'Standard', FALSE, NULL), " +
+                        "(7, 104, '1', 'W1R104B1', 'Standard', TRUE, 502), (8, 104, '2', 'W1R104B2', 'Standard', FALSE, NULL), " +
+                        "(9, 105, '1', 'W1R105B1', 'Standard', FALSE, NULL), (10, 105, '2', 'W1R105B2', 'Standard', FALSE, NULL)");
+        index = new BedOccupancyIndex(0);
+        engine = new BedAllocationEngine(index);
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Residents needing isolation get the isolation room; others keep out of it")
+    void testIsolation() {
+        assertEquals(6L, engine.place(resident(600, Resident.Gender.F, true), false).getBed().getBedId());
+        assertNotEquals(6L, engine.place(resident(601, Resident.Gender.F, false), false).getBed().getBedId());
+    }
+
+    @Test
+    @DisplayName("Residents join rooms of their own gender and avoid mixed rooms")
+    void testGenderCohesion() {
+        assertEquals(2L, engine.place(resident(600, Resident.Gender.F, false), false).getBed().getBedId());
+        assertEquals(5L, engine.place(resident(601, Resident.Gender.M, false), false).getBed().getBedId());
+    }
+
+    @Test
+    @DisplayName("Electric beds go to high-care residents")
+    void testHighCare() {
+        BedAllocationEngine.Placement placement = engine.place(resident(600, Resident.Gender.F, false), true);
+        assertEquals(3L, placement.getBed().getBedId());
+        assertEquals(BedAllocationEngine.SAME_GENDER_ROOM + BedAllocationEngine.ELECTRIC_FOR_HIGH_CARE, placement.getScore());
+    }
+
+    @Test
+    @DisplayName("A batch never double-books, respects capacity and room gender, and reports who is left over")
+    void testBatchPlan() {
+        List<BedAllocationEngine.Request> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(BedAllocationEngine.Request.of(resident(600 + i, Resident.Gender.F, false)));
+            requests.add(BedAllocationEngine.Request.of(resident(700 + i, Resident.Gender.M, false)));
+        }
+        requests.add(new BedAllocationEngine.Request(resident(800, Resident.Gender.M, true), false));
+
+        BedAllocationEngine.Plan plan = engine.plan(requests);
+
+        Set<Long> beds = new HashSet<>();
+        for (BedAllocationEngine.Placement placement : plan.getPlacements()) {
+            assertTrue(beds.add(placement.getBed().getBedId()), "bed used twice");
+            assertNotEquals(8L, placement.getBed().getBedId(), "room 104 is at capacity");
+            if (placement.getResident().getGender() == Resident.Gender.F) {
+                assertFalse(placement.getBed().getBedId() >= 9L, "room 105 is for men");
+            }
+        }
+        // The isolation resident is placed first, in the isolation room
+        assertEquals(800L, plan.getPlacements().get(0).getResident().getResidentId());
+        assertEquals(6L, plan.getPlacements().get(0).getBed().getBedId());
+        assertEquals(6, plan.getPlacements().size());
+        assertEquals(5, plan.getUnplaced().size());
+        assertFalse(plan.isComplete());
+    }
+
+    @Test
+    @DisplayName("Admitting a batch writes every placement and updates the index")
+    void testAdmit() throws Exception {
+        Resident first = resident(600, Resident.Gender.M, false);
+        Resident second = resident(601, Resident.Gender.M, false);
+        execute("INSERT INTO Residents (resident_id, gender) VALUES (600, 'M'), (601, 'M')");
+
+        BedAllocationEngine.Plan plan = engine.admit(List.of(
+                BedAllocationEngine.Request.of(first), BedAllocationEngine.Request.of(second)));
+
+        assertTrue(plan.isComplete());
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM Residents WHERE current_bed_id IS NOT NULL"));
+        assertEquals(5, queryInt("SELECT COUNT(*) FROM Beds WHERE is_occupied = TRUE"));
+        assertEquals(5, index.getOccupiedBeds());
+        assertNotNull(first.getCurrentBedId());
+        assertNotEquals(first.getCurrentBedId(), second.getCurrentBedId());
+    }
+
+    @Test
+    @DisplayName("A bed taken by another client meanwhile is detected and the batch replanned")
+    void testAdmitRetriesAfterConflict() throws Exception {
+        assertEquals(10, index.getTotalBeds());
+        Resident resident = resident(600, Resident.Gender.F, false);
+        execute("INSERT INTO Residents (resident_id, gender) VALUES (600, 'F'), (900, 'F')",
+                // Another workstation fills bed 2 without this index knowing
+                "UPDATE Beds SET is_occupied = TRUE, occupied_by = 900 WHERE bed_id = 2");
+
+        BedAllocationEngine.Plan plan = engine.admit(List.of(BedAllocationEngine.Request.of(resident)));
+
+        assertTrue(plan.isComplete());
+        assertNotEquals(2L, resident.getCurrentBedId());
+        assertEquals(600, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = " + resident.getCurrentBedId()));
+    }
+
+    private static Resident resident(long id, Resident.Gender gender, boolean isolation) {
+        Resident resident = new Resident("Test", "Resident" + id, gender, LocalDate.now());
+        resident.setResidentId(id);
+        resident.setRequiresIsolation(isolation);
+        return resident;
+    }
+}
@@ -0,0 +1,116 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bed census tests: stays replayed from admissions and transfers, point and range queries, appends
+ */
+public class BedCensusTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private BedCensus census;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:bedcensus;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * The medication round patients. Ann was admitted to bed 2 thirty days ago and moved
+     * to bed 1 ten days ago; Bob has no bed. Ward 2 has one free bed, 3
+     */
+    @BeforeEach
+    void createHistory() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        execute("DELETE FROM Bed_Transfers",
+                "INSERT INTO Bed_Transfers (resident_id, from_bed_id, to_bed_id, nurse_id, transfer_time) VALUES " +
+                        "(1, 2, 1, 20, TIMESTAMP '" + TODAY.minusDays(10) + " 09:00:00')",
+                "INSERT INTO Wards VALUES (2, 'Ward 2')",
+                "INSERT INTO Rooms VALUES (201, 2, '201', 'Standard', 1, 'Mixed')",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code) VALUES (3, 201, '1', 'W2R201B1')");
+        census = new BedCensus(0);
+    }
+
+    @Test
+    @DisplayName("Occupants on a day follow the resident's transfers")
+    void testOccupantsOnDay() throws Exception {
+        List<BedCensus.Stay> before = census.findOccupants(TODAY.minusDays(20));
+        assertEquals(1, before.size());
+        assertEquals(2L, before.get(0).getBedId());
+        assertTrue(before.get(0).isAdmission());
+        assertEquals(TODAY.minusDays(10), before.get(0).getUntil());
+
+        BedCensus.Stay now = census.findOccupant(1L, TODAY.minusDays(10)).orElseThrow();
+        assertEquals(1L, now.getResidentId());
+        assertFalse(now.isAdmission());
+        assertNull(now.getUntil());
+        assertTrue(census.findOccupant(2L, TODAY.minusDays(10)).isEmpty());
+
+        assertTrue(census.findOccupants(TODAY.minusDays(31)).isEmpty());
+        assertEquals(1, census.countOccupied(1, TODAY));
+        assertEquals(0, census.countOccupied(2, TODAY));
+    }
+
+    @Test
+    @DisplayName("A year of daily counts per ward covers the stay from admission on")
+    void testOccupiedByWard() throws Exception {
+        Map<Long, int[]> counts = census.countOccupiedByWard(TODAY.minusDays(364), TODAY.plusDays(1));
+
+        int[] ward = counts.get(1L);
+        assertEquals(365, ward.length);
+        assertEquals(31, Arrays.stream(ward).sum());
+        assertEquals(0, ward[364 - 31]);
+        assertEquals(1, ward[364 - 30]);
+        assertFalse(counts.containsKey(2L));
+    }
+
+    @Test
+    @DisplayName("Admissions, transfers and discharges are appended without reloading")
+    void testAppends() throws Exception {
+        census.findOccupants(TODAY);
+        // Not in the database; only the appends can show them
+        census.admitted(2L, 3L, TODAY);
+        assertEquals(1, census.countOccupied(2, TODAY));
+
+        census.transferred(2L, 2L, TODAY);
+        census.discharged(1L, TODAY);
+        assertEquals(0, census.countOccupied(2, TODAY));
+        assertEquals(1, census.countOccupied(1, TODAY));
+        assertEquals(List.of(2L), census.findOccupants(TODAY).stream().map(BedCensus.Stay::getBedId).toList());
+        assertEquals(1L, census.findOccupant(1L, TODAY.minusDays(1)).orElseThrow().getResidentId());
+
+        for (long residentId = 100; residentId < 300; residentId++) {
+            census.admitted(residentId, 3L, TODAY);
+        }
+        assertEquals(200, census.countOccupied(2, TODAY));
+        assertEquals(201, census.findOccupants(TODAY).size());
+        assertEquals(0, census.countOccupied(2, TODAY.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("An append the census cannot place reloads it from the database")
+    void testUnknownBedReloads() throws Exception {
+        census.findOccupants(TODAY);
+        census.admitted(2L, 99L, TODAY);
+
+        assertEquals(List.of(1L), census.findOccupants(TODAY).stream().map(BedCensus.Stay::getResidentId).toList());
+    }
+}
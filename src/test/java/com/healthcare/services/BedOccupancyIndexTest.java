@@ -0,0 +1,177 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import com.healthcare.model.Resident;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Occupancy index tests: counts and lists come from memory and follow committed changes
+ */
+public class BedOccupancyIndexTest {
+
+    private BedOccupancyIndex index;
+    private BedManagementService service;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:bedindex;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void createWards() throws Exception {
+        execute("DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards", "DELETE FROM Residents",
+                "INSERT INTO Wards VALUES (1, 'Ward 1'), (2, 'Ward 2')",
+                "INSERT INTO Rooms (room_id, ward_id, room_number) VALUES (11, 1, '101'), (12, 1, '102'), (21, 2, '201')",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code, bed_type, is_occupied, occupied_by, gender_restriction, isolation_required) VALUES " +
+                        "(1, 11, '1', 'W1R101B1', 'Standard', TRUE, 500, 'None', FALSE), " +
+                        "(2, 11, '2', 'W1R101B2', 'Standard', FALSE, NULL, 'Male', FALSE), " +
+                        "(3, 12, '1', 'W1R102B1', 'Electric', FALSE, NULL, 'Female', FALSE), " +
+                        "(4, 21, '1', 'W2R201B1', 'Special', FALSE, NULL, 'None', TRUE), " +
+                        "(5, 21, '2', 'W2R201B2', 'Standard', TRUE, 501, 'None', TRUE)");
+        index = new BedOccupancyIndex(0);
+        service = new BedManagementService(index);
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Counts and lists match the database after the first load")
+    void testInitialLoad() {
+        assertEquals(5, service.getTotalBeds());
+        assertEquals(2, service.getOccupiedBeds());
+        assertEquals(3, service.getAvailableBeds());
+        assertEquals(3, service.getBedsByWard("Ward 1"));
+        assertEquals(2, service.getAvailableBedsByWard("Ward 1"));
+        assertEquals(1, service.getAvailableBedsByWard("Ward 2"));
+        assertEquals(0, service.getBedsByWard("Ward 9"));
+
+        assertEquals(List.of(2L, 3L, 4L), ids(service.findAvailableBeds()));
+        assertEquals(List.of(1L, 2L), ids(service.findByRoom(11L)));
+        assertEquals(List.of(4L), ids(service.findIsolationBeds()));
+        assertEquals(List.of(2L), ids(service.findStandardBeds()));
+        assertEquals("W2R201B2", index.findByCode("W2R201B2").orElseThrow().getBedCode());
+        assertEquals(501L, index.findByCode("W2R201B2").orElseThrow().getOccupiedBy());
+    }
+
+    @Test
+    @DisplayName("Suitable beds respect gender restriction and isolation")
+    void testSuitableBeds() {
+        Resident resident = new Resident();
+        resident.setGender(Resident.Gender.F);
+        assertEquals(List.of(3L, 4L), ids(service.findSuitableBeds(resident)));
+
+        resident.setRequiresIsolation(true);
+        assertEquals(List.of(4L), ids(service.findSuitableBeds(resident)));
+
+        assertEquals(List.of(2L, 4L), ids(service.findBedsForGender(Resident.Gender.M)));
+    }
+
+    @Test
+    @DisplayName("Assigning and releasing a bed update the index without a reload")
+    void testAssignAndRelease() throws Exception {
+        assertEquals(3, service.getAvailableBeds());
+
+        assertTrue(service.assignResidentToBed(2L, 600L));
+        // The database changes behind the index's back; only the local update should show
+        execute("UPDATE Beds SET is_occupied = TRUE WHERE bed_id = 3");
+
+        assertEquals(2, service.getAvailableBeds());
+        assertEquals(1, service.getAvailableBedsByWard("Ward 1"));
+        assertEquals(600L, index.findById(2L).orElseThrow().getOccupiedBy());
+
+        service.unassignBed(1L);
+        assertEquals(3, service.getAvailableBeds());
+        assertEquals(List.of(1L, 3L), ids(service.findAvailableBedsByWard("Ward 1")));
+
+        assertTrue(index.reconcile());
+        assertEquals(List.of(1L), ids(service.findAvailableBedsByWard("Ward 1")));
+    }
+
+    @Test
+    @DisplayName("A rolled-back assignment leaves the index unchanged")
+    void testRolledBackAssignment() {
+        assertEquals(3, service.getAvailableBeds());
+
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+            assertTrue(service.assignResidentToBed(4L, 700L));
+            throw new IllegalStateException("transfer rejected");
+        }));
+
+        assertEquals(3, service.getAvailableBeds());
+        assertFalse(index.findById(4L).orElseThrow().isOccupied());
+    }
+
+    @Test
+    @DisplayName("Adding a bed makes the next read reload the index")
+    void testInvalidateOnSave() {
+        assertEquals(5, service.getTotalBeds());
+
+        Bed bed = new Bed(21L, "3", "W2R201B3", Bed.BedType.Standard);
+        assertNotNull(service.save(bed));
+
+        assertEquals(6, service.getTotalBeds());
+        assertEquals(2, service.getAvailableBedsByWard("Ward 2"));
+    }
+
+    @Test
+    @DisplayName("Beds handed out are copies that cannot corrupt the index")
+    void testReturnsCopies() {
+        service.findAvailableBeds().forEach(bed -> bed.setOccupied(true));
+        assertEquals(3, service.findAvailableBeds().size());
+    }
+
+    @Test
+    @DisplayName("Readers see consistent counts while beds are assigned and released")
+    void testConcurrentReaders() throws Exception {
+        assertEquals(5, service.getTotalBeds());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean inconsistent = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread reader = new Thread(() -> {
+            started.countDown();
+            while (running.get()) {
+                int free = index.getAvailableBeds();
+                int occupied = index.getOccupiedBeds();
+                if (free < 0 || occupied < 0 || index.getTotalBeds() != 5) {
+                    inconsistent.set(true);
+                }
+            }
+        });
+        reader.start();
+        started.await();
+        for (int i = 0; i < 500; i++) {
+            index.markOccupied(3L, 800L);
+            index.markVacant(3L);
+        }
+        running.set(false);
+        reader.join();
+
+        assertFalse(inconsistent.get());
+        assertEquals(3, index.getAvailableBeds());
+    }
+
+    private static List<Long> ids(List<Bed> beds) {
+        return beds.stream().map(Bed::getBedId).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import com.healthcare.model.Resident;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reservation tests: compare-and-set on bed and resident rows, retries, fallback, and no double-booking under load
+ */
+public class BedReservationServiceTest {
+
+    private static final int BEDS = 20;
+    private static final int CLIENTS = 32;
+
+    private BedOccupancyIndex index;
+    private BedReservationService reservations;
+    private BedAllocationEngine engine;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        PoolConfig config = new PoolConfig("jdbc:h2:mem:bedreservation;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        config.setMaxSize(CLIENTS);
+        DBConnection.configure(config);
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * One ward of five mixed rooms with four free beds each (beds 1-20); residents 1-32 without a bed
+     */
+    @BeforeEach
+    void createWard() throws Exception {
+        execute("DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards", "DELETE FROM Residents",
+                "INSERT INTO Wards VALUES (1, 'Ward 1')");
+        List<String> inserts = new ArrayList<>();
+        for (int room = 1; room <= BEDS / 4; room++) {
+            inserts.add("INSERT INTO Rooms (room_id, ward_id, room_number) VALUES (" + room + ", 1, '10" + room + "')");
+        }
+        for (int bed = 1; bed <= BEDS; bed++) {
+            int room = (bed - 1) / 4 + 1;
+            inserts.add("INSERT INTO Beds (bed_id, room_id, bed_number, bed_code) VALUES (" + bed + ", " + room + ", '" + bed + "', 'W1R10" + room + "B" + bed + "')");
+        }
+        for (int resident = 1; resident <= CLIENTS; resident++) {
+            inserts.add("INSERT INTO Residents (resident_id, gender) VALUES (" + resident + ", '" + (resident % 2 == 0 ? "F" : "M") + "')");
+        }
+        execute(inserts.toArray(new String[0]));
+        index = new BedOccupancyIndex(0);
+        reservations = new BedReservationService(index, 4, 1);
+        engine = new BedAllocationEngine(index, reservations);
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("A claim moves bed and resident together, bumps the version and updates the index")
+    void testClaim() throws Exception {
+        Bed bed = index.findById(1L).orElseThrow();
+
+        assertEquals(BedReservationService.Outcome.CLAIMED, reservations.claim(bed, resident(1), null));
+
+        assertEquals(1, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 1"));
+        assertEquals(1, queryInt("SELECT version FROM Beds WHERE bed_id = 1"));
+        assertEquals(1, queryInt("SELECT current_bed_id FROM Residents WHERE resident_id = 1"));
+        assertEquals(1L, index.findById(1L).orElseThrow().getOccupiedBy());
+        assertEquals(1, index.findById(1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("A stale version on a still-free bed is re-read and retried")
+    void testStaleVersionRetried() throws Exception {
+        Bed bed = index.findById(2L).orElseThrow();
+        // Another workstation edited the bed (not its occupancy) after it was read
+        execute("UPDATE Beds SET bed_type = 'Electric', version = version + 1 WHERE bed_id = 2");
+
+        assertEquals(BedReservationService.Outcome.CLAIMED, reservations.claim(bed, resident(1), null));
+        assertEquals(2, queryInt("SELECT version FROM Beds WHERE bed_id = 2"));
+    }
+
+    @Test
+    @DisplayName("A bed taken meanwhile falls back to the next candidate")
+    void testFallback() throws Exception {
+        List<Bed> candidates = List.of(index.findById(3L).orElseThrow(), index.findById(4L).orElseThrow());
+        execute("UPDATE Beds SET is_occupied = TRUE, occupied_by = 2, version = version + 1 WHERE bed_id = 3");
+
+        Resident resident = resident(1);
+        Bed reserved = reservations.reserveFirst(resident, candidates);
+
+        assertEquals(4L, reserved.getBedId());
+        assertEquals(4L, resident.getCurrentBedId());
+        assertEquals(2, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 3"));
+    }
+
+    @Test
+    @DisplayName("A resident moved by someone else is not claimed and the bed is left as it was")
+    void testResidentMoved() throws Exception {
+        execute("UPDATE Residents SET current_bed_id = 9 WHERE resident_id = 1");
+        Bed bed = index.findById(5L).orElseThrow();
+
+        assertEquals(BedReservationService.Outcome.RESIDENT_MOVED, reservations.claim(bed, resident(1), null));
+
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM Beds WHERE bed_id = 5 AND is_occupied = TRUE"));
+        assertEquals(0, queryInt("SELECT version FROM Beds WHERE bed_id = 5"));
+        assertEquals(9, queryInt("SELECT current_bed_id FROM Residents WHERE resident_id = 1"));
+        assertFalse(index.findById(5L).orElseThrow().isOccupied());
+    }
+
+    @Test
+    @DisplayName("A resident moved inside the caller's transaction rolls the whole unit back")
+    void testResidentMovedInUnitOfWork() throws Exception {
+        execute("UPDATE Residents SET current_bed_id = 9 WHERE resident_id = 1");
+        Bed bed = index.findById(5L).orElseThrow();
+
+        assertThrows(SQLException.class, () -> UnitOfWork.run(() -> {
+            try (Connection conn = DBConnection.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE Residents SET gender = 'X' WHERE resident_id = 2");
+            }
+            assertEquals(BedReservationService.Outcome.RESIDENT_MOVED, reservations.claim(bed, resident(1), null));
+        }));
+
+        assertEquals(0, queryInt("SELECT version FROM Beds WHERE bed_id = 5"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM Residents WHERE gender = 'X'"));
+    }
+
+    @Test
+    @DisplayName("Many clients admitting at once never double-book a bed or a resident")
+    void testConcurrentReservations() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Bed>> results = new ArrayList<>();
+        for (int i = 1; i <= CLIENTS; i++) {
+            Resident resident = resident(i);
+            results.add(pool.submit(() -> {
+                start.await();
+                return engine.reserve(resident, false);
+            }));
+        }
+        start.countDown();
+
+        int reserved = 0;
+        for (Future<Bed> result : results) {
+            if (result.get(60, TimeUnit.SECONDS) != null) {
+                reserved++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(BEDS, reserved);
+        assertEquals(BEDS, queryInt("SELECT COUNT(*) FROM Beds WHERE is_occupied = TRUE"));
+        assertEquals(BEDS, queryInt("SELECT COUNT(DISTINCT occupied_by) FROM Beds WHERE is_occupied = TRUE"));
+        assertEquals(BEDS, queryInt("SELECT COUNT(*) FROM Residents WHERE current_bed_id IS NOT NULL"));
+        // Both sides of every claim agree
+        assertEquals(BEDS, queryInt("SELECT COUNT(*) FROM Residents r JOIN Beds b " +
+                "ON b.bed_id = r.current_bed_id AND b.occupied_by = r.resident_id"));
+        assertEquals(BEDS, index.getOccupiedBeds());
+    }
+
+    private static Resident resident(long id) {
+        Resident resident = new Resident("Test", "Resident" + id, id % 2 == 0 ? Resident.Gender.F : Resident.Gender.M, LocalDate.now());
+        resident.setResidentId(id);
+        return resident;
+    }
+}
@@ -0,0 +1,146 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch transfer tests: swaps and cycles, all-or-nothing validation, and conflicts with other clients
+ */
+public class BedTransferServiceTest {
+
+    private BedOccupancyIndex index;
+    private BedTransferService service;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:bedtransfer;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * Ward 1:
+     *   101 Standard, up to 2, mixed - bed 1 (resident 1, M), bed 2 (resident 2, F)
+     *   102 Standard, up to 2, mixed - bed 3 (resident 3, M), bed 4 free
+     *   103 Standard, up to 1, male  - beds 5 and 6 free
+     * Resident 4 (F) is discharged and has no bed
+     */
+    @BeforeEach
+    void createWard() throws Exception {
+        execute("DELETE FROM Bed_Transfers", "DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards", "DELETE FROM Residents",
+                "INSERT INTO Wards VALUES (1, 'Ward 1')",
+                "INSERT INTO Rooms VALUES (101, 1, '101', 'Standard', 2, 'Mixed'), (102, 1, '102', 'Standard', 2, 'Mixed'), " +
+                        "(103, 1, '103', 'Standard', 1, 'Male')",
+                "INSERT INTO Residents (resident_id, gender, current_bed_id, discharge_date) VALUES " +
+                        "(1, 'M', 1, NULL), (2, 'F', 2, NULL), (3, 'M', 3, NULL), (4, 'F', NULL, DATE '2024-01-01')",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code, is_occupied, occupied_by) VALUES " +
+                        "(1, 101, '1', 'W1R101B1', TRUE, 1), (2, 101, '2', 'W1R101B2', TRUE, 2), " +
+                        "(3, 102, '1', 'W1R102B1', TRUE, 3), (4, 102, '2', 'W1R102B2', FALSE, NULL), " +
+                        "(5, 103, '1', 'W1R103B1', FALSE, NULL), (6, 103, '2', 'W1R103B2', FALSE, NULL)");
+        index = new BedOccupancyIndex(0);
+        service = new BedTransferService(index);
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Two residents swap beds in one plan")
+    void testSwap() throws Exception {
+        BedTransferService.BatchTransferResult result = service.transferResidents(List.of(
+                new BedTransferService.Move(1L, 2L), new BedTransferService.Move(2L, 1L)), 9L, "Swap");
+
+        assertTrue(result.isApplied());
+        assertEquals(BedTransferService.MoveStatus.MOVED, result.getResults().get(0).getStatus());
+        assertEquals(1L, result.getResults().get(0).getFromBedId());
+        assertEquals(2, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 1"));
+        assertEquals(1, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 2"));
+        assertEquals(2, queryInt("SELECT current_bed_id FROM Residents WHERE resident_id = 1"));
+        assertEquals(1, queryInt("SELECT current_bed_id FROM Residents WHERE resident_id = 2"));
+        assertEquals(1, queryInt("SELECT version FROM Beds WHERE bed_id = 1"));
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM Bed_Transfers WHERE nurse_id = 9 AND reason = 'Swap'"));
+        assertEquals(2L, index.findById(1L).orElseThrow().getOccupiedBy());
+        assertEquals(1, index.findById(1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("A cycle through three beds and a move into a free bed empty a room")
+    void testCycleAndEmptyRoom() throws Exception {
+        BedTransferService.BatchTransferResult result = service.transferResidents(List.of(
+                new BedTransferService.Move(1L, 3L),
+                new BedTransferService.Move(3L, 4L),
+                new BedTransferService.Move(2L, 1L)), 9L, "Deep clean");
+
+        assertTrue(result.isApplied());
+        assertEquals(1, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 3"));
+        assertEquals(3, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 4"));
+        assertEquals(2, queryInt("SELECT occupied_by FROM Beds WHERE bed_id = 1"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM Beds WHERE bed_id = 2 AND is_occupied = TRUE"));
+        assertEquals(3, queryInt("SELECT COUNT(*) FROM Residents r JOIN Beds b " +
+                "ON b.bed_id = r.current_bed_id AND b.occupied_by = r.resident_id"));
+        assertEquals(List.of(2L, 5L, 6L), index.findAvailable().stream().map(b -> b.getBedId()).toList());
+    }
+
+    @Test
+    @DisplayName("One bad move rejects the whole plan and nothing is written")
+    void testRejectedPlan() throws Exception {
+        BedTransferService.BatchTransferResult result = service.transferResidents(List.of(
+                new BedTransferService.Move(2L, 4L),
+                new BedTransferService.Move(1L, 3L),
+                new BedTransferService.Move(4L, 6L)), 9L, null);
+
+        assertFalse(result.isApplied());
+        assertEquals(BedTransferService.MoveStatus.NOT_APPLIED, result.getResults().get(0).getStatus());
+        assertEquals(BedTransferService.MoveStatus.REJECTED, result.getResults().get(1).getStatus());
+        assertEquals("New bed is occupied by a resident who is not moving out", result.getResults().get(1).getMessage());
+        assertEquals("Cannot transfer discharged resident", result.getResults().get(2).getMessage());
+        assertEquals(2, queryInt("SELECT current_bed_id FROM Residents WHERE resident_id = 2"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM Bed_Transfers"));
+        assertEquals(0, queryInt("SELECT SUM(version) FROM Beds"));
+    }
+
+    @Test
+    @DisplayName("Room gender and capacity are checked with the whole plan applied")
+    void testRoomRules() {
+        BedTransferService.BatchTransferResult result = service.transferResidents(List.of(
+                new BedTransferService.Move(2L, 5L)), 9L, null);
+        assertEquals("New bed is not suitable for this resident", result.getResults().get(0).getMessage());
+
+        result = service.transferResidents(List.of(
+                new BedTransferService.Move(1L, 5L), new BedTransferService.Move(3L, 6L)), 9L, null);
+        assertFalse(result.isApplied());
+        assertEquals("Room would exceed its capacity", result.getResults().get(0).getMessage());
+        assertEquals("Room would exceed its capacity", result.getResults().get(1).getMessage());
+
+        // The same room, one resident at a time, is fine
+        assertTrue(service.transferResidents(List.of(new BedTransferService.Move(1L, 5L)), 9L, null).isApplied());
+    }
+
+    @Test
+    @DisplayName("A bed changed by another client is detected, the index reloaded and the plan applied again")
+    void testConflictRetried() throws Exception {
+        assertEquals(6, index.getTotalBeds());
+        execute("UPDATE Beds SET last_cleaned = CURRENT_TIMESTAMP, version = version + 1 WHERE bed_id = 4");
+
+        BedTransferService.BatchTransferResult result = service.transferResidents(List.of(
+                new BedTransferService.Move(1L, 4L)), 9L, null);
+
+        assertTrue(result.isApplied());
+        assertEquals(2, queryInt("SELECT version FROM Beds WHERE bed_id = 4"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM Bed_Transfers"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.Prescription;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Daily rollup tests: backfill from history, upkeep by the writing services, and the occupancy census
+ */
+public class DailyRollupServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private BedOccupancyIndex index;
+    private MedicationRoundService rounds;
+    private DailyRollupService rollups;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:dailyrollups;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * The medication round patients. Ann was admitted to bed 2 thirty days ago and moved to
+     * bed 1 ten days ago; Cy stayed twenty days with no bed and left five days ago. Nurse 20
+     * gave one dose yesterday and recorded one missed today
+     */
+    @BeforeEach
+    void createHistory() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        execute("DELETE FROM Bed_Transfers",
+                "INSERT INTO Residents (resident_id, first_name, last_name, gender, admission_date, discharge_date) VALUES " +
+                        "(3, 'Cy', 'Ng', 'M', CURRENT_DATE - 25, CURRENT_DATE - 5)",
+                "INSERT INTO Bed_Transfers (resident_id, from_bed_id, to_bed_id, nurse_id, transfer_time) VALUES " +
+                        "(1, 2, 1, 20, TIMESTAMP '" + TODAY.minusDays(10) + " 09:00:00')",
+                "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, administered_time, status) VALUES " +
+                        "(1, 20, TIMESTAMP '" + TODAY.minusDays(1) + " 08:00:00', 'Given'), " +
+                        "(3, 20, TIMESTAMP '" + TODAY + " 00:00:01', 'Missed')");
+        index = new BedOccupancyIndex(0);
+        rounds = new MedicationRoundService(index);
+        rollups = new DailyRollupService();
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Backfill replays stays, transfers and doses from history")
+    void testBackfill() throws Exception {
+        rollups.ensureCurrent();
+
+        assertEquals(2, queryInt("SELECT SUM(total) FROM Daily_Prescription_Counts WHERE doctor_id = 10"));
+        assertEquals(1, queryInt("SELECT total FROM Daily_Administration_Counts WHERE rollup_date = CURRENT_DATE - 1 AND status = 'Given'"));
+        assertEquals(1, queryInt("SELECT total FROM Daily_Administration_Counts WHERE rollup_date = CURRENT_DATE AND status = 'Missed'"));
+
+        // Ann counts in ward 1 from admission; Bob and Cy never had a bed
+        assertEquals(1, queryInt("SELECT SUM(admissions) FROM Daily_Ward_Counts WHERE ward_id = 1"));
+        assertEquals(2, queryInt("SELECT SUM(admissions) FROM Daily_Ward_Counts WHERE ward_id = 0"));
+        assertEquals(1, queryInt("SELECT discharges FROM Daily_Ward_Counts WHERE ward_id = 0 AND rollup_date = CURRENT_DATE - 5"));
+        assertEquals(1, queryInt("SELECT transfers_out FROM Daily_Ward_Counts WHERE ward_id = 1 AND rollup_date = CURRENT_DATE - 10"));
+        assertEquals(1, queryInt("SELECT transfers_in FROM Daily_Ward_Counts WHERE ward_id = 1 AND rollup_date = CURRENT_DATE - 10"));
+
+        // One bed at the end of each day from admission to today
+        assertEquals(31, queryInt("SELECT SUM(occupied_beds) FROM Daily_Ward_Counts WHERE ward_id = 1"));
+        assertEquals(0, queryInt("SELECT SUM(occupied_beds) FROM Daily_Ward_Counts WHERE ward_id = 0"));
+        assertEquals(31, queryInt("SELECT COUNT(*) FROM Daily_Rollup_Census"));
+    }
+
+    @Test
+    @DisplayName("Writes after the backfill keep the rollups current in their own transaction")
+    void testIncrementalWrites() throws Exception {
+        rollups.ensureCurrent();
+
+        Prescription prescription = new Prescription();
+        prescription.setResidentId(1L);
+        prescription.setDoctorId(10L);
+        prescription.setPrescriptionDate(TODAY);
+        prescription.setStatus(Prescription.PrescriptionStatus.Active);
+        prescription.setReviewStatus(Prescription.ReviewStatus.Pending);
+        PrescriptionService prescriptions = new PrescriptionService(rounds);
+        assertNotNull(prescriptions.save(prescription));
+        assertEquals(1, queryInt("SELECT total FROM Daily_Prescription_Counts WHERE rollup_date = CURRENT_DATE AND status = 'Active'"));
+
+        prescription.setStatus(Prescription.PrescriptionStatus.Cancelled);
+        prescriptions.update(prescription);
+        assertEquals(0, queryInt("SELECT total FROM Daily_Prescription_Counts WHERE rollup_date = CURRENT_DATE AND status = 'Active'"));
+        assertEquals(1, queryInt("SELECT total FROM Daily_Prescription_Counts WHERE rollup_date = CURRENT_DATE AND status = 'Cancelled'"));
+
+        prescriptions.deleteById(prescription.getPrescriptionId());
+        assertEquals(2, queryInt("SELECT SUM(total) FROM Daily_Prescription_Counts"));
+
+        OverdueDoseTracker tracker = new OverdueDoseTracker(rounds, Duration.ofHours(1), 0);
+        try {
+            assertTrue(new MedicationAdministrationService(rounds, tracker).markMedicationAsAdministered(1L, 20L, "100", null));
+        } finally {
+            tracker.close();
+        }
+        assertEquals(1, queryInt("SELECT total FROM Daily_Administration_Counts WHERE rollup_date = CURRENT_DATE AND status = 'Given'"));
+
+        new ResidentService(rounds).dischargeResident(1L);
+        assertEquals(1, queryInt("SELECT discharges FROM Daily_Ward_Counts WHERE ward_id = 1 AND rollup_date = CURRENT_DATE"));
+    }
+
+    @Test
+    @DisplayName("Days nobody recorded copy the last census forward, and a bed change recounts today")
+    void testCensusCarriedForward() throws Exception {
+        rollups.ensureCurrent();
+        execute("DELETE FROM Daily_Rollup_Census WHERE rollup_date > CURRENT_DATE - 3",
+                "UPDATE Daily_Ward_Counts SET occupied_beds = 0 WHERE rollup_date > CURRENT_DATE - 3");
+
+        rollups.ensureCurrent();
+        assertEquals(31, queryInt("SELECT COUNT(*) FROM Daily_Rollup_Census"));
+        assertEquals(31, queryInt("SELECT SUM(occupied_beds) FROM Daily_Ward_Counts WHERE ward_id = 1"));
+
+        execute("UPDATE Beds SET is_occupied = TRUE, occupied_by = 2 WHERE bed_id = 2");
+        rollups.bedsChanged();
+        assertEquals(2, queryInt("SELECT occupied_beds FROM Daily_Ward_Counts WHERE ward_id = 1 AND rollup_date = CURRENT_DATE"));
+    }
+
+    @Test
+    @DisplayName("Ward and nurse months sum the daily rows")
+    void testMonths() throws Exception {
+        LocalDate from = YearMonth.from(TODAY).minusMonths(2).atDay(1);
+        LocalDate until = TODAY.plusDays(1);
+
+        List<DailyRollupService.WardMonth> wards = rollups.findWardMonths(from, until);
+        assertEquals(1, wards.stream().filter(w -> w.getWardId() == 1).mapToInt(DailyRollupService.WardMonth::getAdmissions).sum());
+        assertEquals(31, wards.stream().filter(w -> w.getWardId() == 1).mapToInt(DailyRollupService.WardMonth::getOccupiedBedDays).sum());
+        assertTrue(wards.stream().filter(w -> w.getWardId() == 0).allMatch(w -> w.getWardName().equals("No bed")));
+        assertTrue(wards.stream().filter(w -> w.getWardId() == 1).allMatch(w -> w.getWardName().equals("Ward 1")));
+
+        List<DailyRollupService.AdministrationMonth> doses = rollups.findAdministrationMonths(from, until);
+        assertEquals(1, doses.stream().mapToInt(DailyRollupService.AdministrationMonth::getGiven).sum());
+        assertEquals(1, doses.stream().mapToInt(DailyRollupService.AdministrationMonth::getMissed).sum());
+        assertEquals("Staff 20", doses.get(0).getNurseName());
+    }
+}
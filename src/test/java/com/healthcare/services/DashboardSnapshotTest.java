@@ -0,0 +1,134 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.UnitOfWork;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dashboard snapshot tests: every tile from one query, cached until invalidated
+ */
+public class DashboardSnapshotTest {
+
+    private BedOccupancyIndex index;
+    private MedicationRoundService rounds;
+    private DashboardSnapshot snapshot;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:dashboardsnapshot;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * The medication round patients, with Ann assigned to Dr. Hopper (10), a second
+     * doctor (11) with a prescription awaiting review today, and two audit actions today
+     */
+    @BeforeEach
+    void createSnapshot() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        execute("DELETE FROM Actions_Log",
+                "INSERT INTO Staff (staff_id, first_name, last_name) VALUES (11, 'Alan', 'Turing')",
+                "UPDATE Residents SET assigned_doctor_id = 10 WHERE resident_id = 1",
+                "INSERT INTO Prescriptions (prescription_id, resident_id, doctor_id, prescription_date, status, review_status) VALUES " +
+                        "(3, 2, 11, CURRENT_DATE, 'Active', 'Pending')",
+                "INSERT INTO Actions_Log (staff_id, action_type, action_description, action_time) VALUES " +
+                        "(10, 'Login', 'Login', CURRENT_TIMESTAMP), (11, 'Login', 'Login', CURRENT_TIMESTAMP), " +
+                        "(11, 'Login', 'Login', CURRENT_TIMESTAMP - 2)");
+        index = new BedOccupancyIndex(0);
+        rounds = new MedicationRoundService(index);
+        snapshot = new DashboardSnapshot(rounds, 0);
+    }
+
+    @AfterEach
+    void closeSnapshot() {
+        snapshot.close();
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Every role's tiles are read in one load")
+    void testAllTiles() {
+        DashboardSnapshot.Metrics metrics = snapshot.get();
+
+        assertEquals(2, metrics.getResidents());
+        assertEquals(1, metrics.getResidentsInBeds());
+        assertEquals(2, metrics.getStaff());
+        assertEquals(1, metrics.getOccupiedBeds());
+        assertEquals(2, metrics.getActionsToday());
+        assertEquals(2, metrics.getScheduledDoses());
+        assertEquals(2, metrics.getPendingDoses());
+        assertEquals(0, metrics.getGivenToday());
+
+        assertEquals(1, metrics.getPatientsOfDoctor(10L));
+        assertEquals(0, metrics.getPatientsOfDoctor(11L));
+        assertEquals(1, metrics.getPrescriptionsToday(11L));
+        assertEquals(0, metrics.getPrescriptionsToday(10L));
+        assertEquals(1, metrics.getPendingReviews(11L));
+    }
+
+    @Test
+    @DisplayName("The snapshot is reused until invalidated")
+    void testCachedUntilInvalidated() throws Exception {
+        DashboardSnapshot.Metrics first = snapshot.get();
+        execute("INSERT INTO Staff (staff_id, first_name, last_name) VALUES (12, 'Ada', 'Lovelace')");
+
+        assertSame(first, snapshot.get());
+        assertEquals(2, snapshot.get().getStaff());
+
+        snapshot.invalidate();
+        assertEquals(3, snapshot.get().getStaff());
+    }
+
+    @Test
+    @DisplayName("A committed dose refreshes the round tiles; a rolled-back one does not")
+    void testDoseInvalidates() throws Exception {
+        OverdueDoseTracker tracker = new OverdueDoseTracker(rounds, Duration.ofHours(1), 0);
+        try {
+            MedicationAdministrationService administration = new MedicationAdministrationService(rounds, tracker);
+            assertEquals(2, snapshot.get().getPendingDoses());
+            DashboardSnapshot.Metrics before = snapshot.get();
+
+            assertThrows(SQLException.class, () -> UnitOfWork.run(() -> {
+                administration.markMedicationAsAdministered(1L, 20L, "100", null);
+                throw new SQLException("Abandoned");
+            }));
+            assertSame(before, snapshot.get());
+
+            assertTrue(administration.markMedicationAsAdministered(1L, 20L, "100", null));
+            DashboardSnapshot.Metrics after = snapshot.get();
+            assertEquals(1, after.getPendingDoses());
+            assertEquals(1, after.getGivenToday());
+            assertEquals(1, after.getGivenTodayBy(20L));
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Freeing a bed and deleting a prescription refresh the shared snapshot")
+    void testBedAndPrescriptionWritesInvalidate() {
+        DashboardSnapshot shared = DashboardSnapshot.getShared();
+        shared.invalidate();
+        DashboardSnapshot.Metrics before = shared.get();
+        assertEquals(1, before.getPendingReviews(11L));
+
+        new BedManagementService(index).unassignBed(1L);
+        assertEquals(before.getOccupiedBeds() - 1, shared.get().getOccupiedBeds());
+
+        assertTrue(new PrescriptionService(rounds).deleteById(3L));
+        assertEquals(0, shared.get().getPendingReviews(11L));
+    }
+}
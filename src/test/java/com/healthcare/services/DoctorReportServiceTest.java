@@ -0,0 +1,124 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.Prescription;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Doctor report tests: per-doctor figures from the daily rollups, cached until a write commits
+ */
+public class DoctorReportServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.now();
+
+    private DoctorReportService reports;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:doctorreports;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * The medication round patients, both Dr. Hopper's (10), Bob discharged. Ann's aspirin and
+     * insulin are dated the 1st of this month, Bob's aspirin two months ago, and a completed
+     * aspirin for Ann awaiting review on the 2nd; Dr. Turing (11) has one prescription this month
+     */
+    @BeforeEach
+    void createPrescriptions() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        execute("INSERT INTO Staff (staff_id, first_name, last_name) VALUES (11, 'Alan', 'Turing')",
+                "UPDATE Residents SET assigned_doctor_id = 10",
+                "UPDATE Residents SET discharge_date = CURRENT_DATE WHERE resident_id = 2",
+                "UPDATE Prescriptions SET prescription_date = DATE '" + MONTH.atDay(1) + "' WHERE prescription_id = 1",
+                "UPDATE Prescriptions SET prescription_date = DATE '" + MONTH.minusMonths(2).atDay(5) + "' WHERE prescription_id = 2",
+                "INSERT INTO Prescriptions (prescription_id, resident_id, doctor_id, prescription_date, status, review_status) VALUES " +
+                        "(3, 1, 10, DATE '" + MONTH.atDay(2) + "', 'Completed', 'Pending'), " +
+                        "(4, 2, 11, DATE '" + MONTH.atDay(2) + "', 'Active', 'Pending')",
+                "INSERT INTO Prescription_Medicines (id, prescription_id, medicine_id, dosage, frequency, start_date, is_active) VALUES " +
+                        "(4, 3, 1, '50', 'Daily', CURRENT_DATE, TRUE), (5, 4, 2, '5', 'Daily', CURRENT_DATE, TRUE)");
+        reports = new DoctorReportService(0);
+    }
+
+    @Test
+    @DisplayName("Patient and prescription counts are grouped per doctor")
+    void testCounts() throws Exception {
+        DoctorReportService.Report report = reports.get(10L);
+
+        assertEquals(2, report.getPatients());
+        assertEquals(1, report.getCurrentPatients());
+        assertEquals(3, report.getPrescriptions());
+        assertEquals(2, report.getPrescriptions(Prescription.PrescriptionStatus.Active));
+        assertEquals(1, report.getPrescriptions(Prescription.PrescriptionStatus.Completed));
+        assertEquals(0, report.getPrescriptions(Prescription.PrescriptionStatus.Cancelled));
+        assertEquals(2, report.getPrescriptions(Prescription.ReviewStatus.Approved));
+        assertEquals(1, report.getPrescriptions(Prescription.ReviewStatus.Pending));
+
+        DoctorReportService.Report other = reports.get(11L);
+        assertEquals(0, other.getPatients());
+        assertEquals(1, other.getPrescriptions());
+    }
+
+    @Test
+    @DisplayName("Months, this month's days and top medicines come from the doctor's prescriptions only")
+    void testBreakdowns() throws Exception {
+        DoctorReportService.Report report = reports.load(10L, MONTH);
+
+        assertEquals(DoctorReportService.MONTHS, report.getPrescriptionsByMonth().size());
+        assertEquals(MONTH, report.getPrescriptionsByMonth().lastKey());
+        assertEquals(2, report.getPrescriptionsByMonth().get(MONTH));
+        assertEquals(1, report.getPrescriptionsByMonth().get(MONTH.minusMonths(2)));
+        assertEquals(0, report.getPrescriptionsByMonth().get(MONTH.minusMonths(1)));
+
+        assertEquals(2, report.getPrescriptionsThisMonth());
+        assertEquals(1, report.getPrescriptionsThisMonth(Prescription.PrescriptionStatus.Active));
+        assertEquals(1, report.getPrescriptionsThisMonth(Prescription.PrescriptionStatus.Completed));
+        assertEquals(List.of(MONTH.atDay(1), MONTH.atDay(2)), List.copyOf(report.getPrescriptionsThisMonthByDay().keySet()));
+
+        List<DoctorReportService.MedicineCount> top = report.getTopMedicines();
+        assertEquals(List.of("Aspirin", "Insulin"), top.stream().map(DoctorReportService.MedicineCount::getName).toList());
+        assertEquals(3, top.get(0).getPrescriptions());
+        assertEquals(2, top.get(0).getPatients());
+        assertEquals(1, top.get(1).getPrescriptions());
+    }
+
+    @Test
+    @DisplayName("A report is reused until a prescription write commits")
+    void testCachedUntilWrite() throws Exception {
+        DoctorReportService shared = DoctorReportService.getShared();
+        shared.invalidate();
+        DoctorReportService.Report first = shared.get(10L);
+
+        assertSame(first, shared.get(10L));
+
+        Prescription prescription = new Prescription();
+        prescription.setResidentId(1L);
+        prescription.setDoctorId(10L);
+        prescription.setPrescriptionDate(LocalDate.now());
+        prescription.setStatus(Prescription.PrescriptionStatus.Active);
+        prescription.setReviewStatus(Prescription.ReviewStatus.Pending);
+        BedOccupancyIndex index = new BedOccupancyIndex(0);
+        try {
+            new PrescriptionService(new MedicationRoundService(index)).save(prescription);
+        } finally {
+            index.close();
+        }
+
+        assertNotSame(first, shared.get(10L));
+        assertEquals(4, shared.get(10L).getPrescriptions());
+    }
+}
@@ -0,0 +1,227 @@
+package com.healthcare.services;
+
+import com.healthcare.config.MigrationRunner;
+import com.healthcare.config.TestSchema;
+import com.healthcare.util.TimeWindow;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Before/after benchmark for the V1 index pack on a synthetic dataset
+ *
+ * Not a unit test (surefire does not pick it up). Run after test-compile:
+ *   mvn -q test-compile
+ *   java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        -Dbench.rows=500000 com.healthcare.services.IndexPackBenchmark
+ *
+ * Uses H2 in MySQL mode with result reuse off, so every run executes the query; absolute
+ * numbers differ from MySQL, the before/after ratio is what matters.
+ */
+public class IndexPackBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 200_000);
+    private static final int RUNS = Integer.getInteger("bench.runs", 15);
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 30);
+
+    public static void main(String[] args) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:indexbench;MODE=MySQL;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "")) {
+            TestSchema.createBaseTables(conn);
+            long loadStarted = System.currentTimeMillis();
+            populate(conn);
+            System.out.printf("Loaded %,d rows per table in %d ms%n", ROWS, System.currentTimeMillis() - loadStarted);
+
+            Map<String, Query> queries = queries();
+            Map<String, Double> before = new LinkedHashMap<>();
+            for (Map.Entry<String, Query> entry : queries.entrySet()) {
+                before.put(entry.getKey(), medianMillis(conn, entry.getValue()));
+            }
+
+            long migrateStarted = System.currentTimeMillis();
+            new MigrationRunner().migrate(conn);
+            System.out.printf("Applied index pack in %d ms%n%n", System.currentTimeMillis() - migrateStarted);
+
+            System.out.printf("%-42s %12s %12s %9s%n", "query", "before (ms)", "after (ms)", "speedup");
+            for (Map.Entry<String, Query> entry : queries.entrySet()) {
+                double after = medianMillis(conn, entry.getValue());
+                double was = before.get(entry.getKey());
+                System.out.printf("%-42s %12.3f %12.3f %8.1fx%n", entry.getKey(), was, after, was / Math.max(after, 0.001));
+            }
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private static class Query {
+        final String sql;
+        final Binder binder;
+
+        Query(String sql, Binder binder) {
+            this.sql = sql;
+            this.binder = binder;
+        }
+    }
+
+    private static Map<String, Query> queries() {
+        TimeWindow today = TimeWindow.day(TODAY);
+        TimeWindow lastWeek = TimeWindow.days(TODAY.minusDays(7), TODAY);
+
+        Map<String, Query> queries = new LinkedHashMap<>();
+        queries.put("audit log: date range", new Query(ActionLogService.FIND_BY_TIME_WINDOW_SQL
+                .replace("LEFT JOIN Staff s ON al.staff_id = s.staff_id ", "")
+                .replace("al.*, s.first_name, s.last_name, s.role", "al.*"),
+                stmt -> today.bind(stmt, 1)));
+        queries.put("audit log: staff page", new Query(
+                "SELECT * FROM Actions_Log WHERE staff_id = ? ORDER BY action_time DESC, action_id DESC LIMIT 100",
+                stmt -> stmt.setLong(1, 7)));
+        queries.put("administered: nurse today", new Query(MedicationAdministrationService.NURSE_ADMINISTRATIONS_IN_WINDOW_SQL,
+                stmt -> {
+                    stmt.setLong(1, 5);
+                    today.bind(stmt, 2);
+                }));
+        queries.put("administered: given today", new Query(MedicationAdministrationService.GIVEN_IN_WINDOW_SQL,
+                stmt -> today.bind(stmt, 1)));
+        queries.put("administered: per prescription line", new Query(
+                "SELECT COUNT(*) FROM Administered_Medication WHERE prescription_medicine_id = ? AND " +
+                        TimeWindow.predicate("administered_time"),
+                stmt -> {
+                    stmt.setLong(1, 42);
+                    today.bind(stmt, 2);
+                }));
+        queries.put("prescriptions: doctor review queue", new Query(
+                "SELECT * FROM Prescriptions WHERE doctor_id = ? AND review_status = 'Pending' ORDER BY prescription_date DESC",
+                stmt -> stmt.setLong(1, 3)));
+        queries.put("residents: current", new Query(
+                "SELECT COUNT(*) FROM Residents WHERE discharge_date IS NULL", stmt -> { }));
+        queries.put("shift schedule: staff day", new Query(
+                "SELECT * FROM Shift_Schedule WHERE staff_id = ? AND shift_date = ?",
+                stmt -> {
+                    stmt.setLong(1, 11);
+                    stmt.setDate(2, Date.valueOf(TODAY));
+                }));
+        queries.put("transfers: last week", new Query(BedTransferService.COUNT_TRANSFERS_IN_WINDOW_SQL,
+                stmt -> lastWeek.bind(stmt, 1)));
+        queries.put("transfers: nurse history", new Query(
+                "SELECT * FROM Bed_Transfers WHERE nurse_id = ? AND " + TimeWindow.predicate("transfer_time"),
+                stmt -> {
+                    stmt.setLong(1, 5);
+                    lastWeek.bind(stmt, 2);
+                }));
+        return queries;
+    }
+
+    private static double medianMillis(Connection conn, Query query) throws SQLException {
+        double[] samples = new double[RUNS];
+        try (PreparedStatement stmt = conn.prepareStatement(query.sql)) {
+            query.binder.bind(stmt);
+            for (int i = 0; i < RUNS; i++) {
+                long started = System.nanoTime();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getObject(1);
+                    }
+                }
+                samples[i] = (System.nanoTime() - started) / 1_000_000.0;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+
+    /**
+     * Two years of activity: 50 staff, spread evenly over time
+     */
+    private static void populate(Connection conn) throws SQLException {
+        Random random = new Random(42);
+        LocalDateTime origin = TODAY.minusYears(2).atStartOfDay();
+        long spanMinutes = java.time.Duration.between(origin, TODAY.plusDays(1).atStartOfDay()).toMinutes();
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Actions_Log (staff_id, action_type, action_description, action_time) VALUES (?, 'Update', 'bench', ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                stmt.setLong(1, 1 + random.nextInt(50));
+                stmt.setTimestamp(2, Timestamp.valueOf(origin.plusMinutes(random.nextInt((int) spanMinutes))));
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Administered_Medication (prescription_medicine_id, nurse_id, administered_time, status) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                stmt.setLong(1, 1 + random.nextInt(2_000));
+                stmt.setLong(2, 1 + random.nextInt(50));
+                stmt.setTimestamp(3, Timestamp.valueOf(origin.plusMinutes(random.nextInt((int) spanMinutes))));
+                stmt.setString(4, random.nextInt(10) == 0 ? "Missed" : "Given");
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Prescriptions (resident_id, doctor_id, prescription_date, status, review_status) VALUES (?, ?, ?, 'Active', ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                stmt.setLong(1, 1 + random.nextInt(5_000));
+                stmt.setLong(2, 1 + random.nextInt(50));
+                stmt.setDate(3, Date.valueOf(TODAY.minusDays(random.nextInt(730))));
+                stmt.setString(4, random.nextInt(20) == 0 ? "Pending" : "Reviewed");
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Residents (first_name, last_name, admission_date, discharge_date) VALUES ('Bench', 'Resident', ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                LocalDate admitted = TODAY.minusDays(random.nextInt(730));
+                stmt.setDate(1, Date.valueOf(admitted));
+                stmt.setDate(2, random.nextInt(100) == 0 ? null : Date.valueOf(admitted.plusDays(1 + random.nextInt(30))));
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Shift_Schedule (staff_id, shift_date, shift_type, start_time, end_time) VALUES (?, ?, 'Morning', '08:00', '16:00')")) {
+            for (int i = 0; i < ROWS; i++) {
+                stmt.setLong(1, 1 + random.nextInt(50));
+                stmt.setDate(2, Date.valueOf(TODAY.minusDays(random.nextInt(730))));
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Bed_Transfers (resident_id, nurse_id, transfer_time) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                stmt.setLong(1, 1 + random.nextInt(5_000));
+                stmt.setLong(2, 1 + random.nextInt(50));
+                stmt.setTimestamp(3, Timestamp.valueOf(origin.plusMinutes(random.nextInt((int) spanMinutes))));
+                batch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    private static void batch(PreparedStatement stmt, int i) throws SQLException {
+        stmt.addBatch();
+        if (i % 5_000 == 4_999) {
+            stmt.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.Prescription;
+import com.healthcare.model.Resident;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * List row tests: table views get bed, ward and names joined in by one query
+ */
+public class ListRowQueryTest {
+
+    private BedOccupancyIndex index;
+    private ResidentService residentService;
+    private PrescriptionService prescriptionService;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:listrows;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * The medication round patients; Ann (bed W1R101B1) is Dr. Hopper's patient, Cy is discharged
+     */
+    @BeforeEach
+    void createPatients() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        execute("UPDATE Residents SET assigned_doctor_id = 10, medical_condition = 'Diabetes', " +
+                        "emergency_contact = 'Sam Lee' WHERE resident_id = 1",
+                "INSERT INTO Residents (resident_id, first_name, last_name, gender, admission_date, discharge_date) VALUES " +
+                        "(3, 'Cy', 'Ng', 'M', CURRENT_DATE - 60, CURRENT_DATE - 5)");
+        index = new BedOccupancyIndex(0);
+        MedicationRoundService rounds = new MedicationRoundService(index);
+        residentService = new ResidentService(rounds);
+        prescriptionService = new PrescriptionService(rounds);
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Resident rows carry bed, room, ward and doctor without the medical notes")
+    void testResidentRows() {
+        List<Resident> rows = residentService.findListRows();
+
+        assertEquals(List.of(2L, 1L, 3L), rows.stream().map(Resident::getResidentId).toList());
+        Resident ann = rows.get(1);
+        assertEquals("W1R101B1", ann.getBedCode());
+        assertEquals("101", ann.getCurrentBed().getRoomNumber());
+        assertEquals("Ward 1", ann.getWardName());
+        assertEquals("Grace Hopper", ann.getAssignedDoctorName());
+        assertNull(ann.getMedicalCondition());
+
+        Resident bob = rows.get(0);
+        assertNull(bob.getCurrentBedId());
+        assertNull(bob.getBedCode());
+        assertNull(bob.getAssignedDoctorName());
+    }
+
+    @Test
+    @DisplayName("Patient lists select the notes they show, filtered in the query")
+    void testPatientRows() {
+        List<Resident> active = residentService.findActiveListRows();
+        assertEquals(List.of(2L, 1L), active.stream().map(Resident::getResidentId).toList());
+
+        List<Resident> doctorsPatients = residentService.findListRowsByDoctorId(10L);
+        assertEquals(1, doctorsPatients.size());
+        assertEquals("Diabetes", doctorsPatients.get(0).getMedicalCondition());
+        assertEquals("Sam Lee", doctorsPatients.get(0).getEmergencyContact());
+        assertEquals("W1R101B1", doctorsPatients.get(0).getBedCode());
+    }
+
+    @Test
+    @DisplayName("Prescription rows carry the patient's name")
+    void testPrescriptionRows() {
+        List<Prescription> rows = prescriptionService.findListRowsByDoctorId(10L);
+
+        assertEquals(2, rows.size());
+        assertEquals(List.of("Bob Moss", "Ann Lee"), rows.stream().map(Prescription::getPatientName).toList());
+        assertTrue(prescriptionService.findListRowsByDoctorId(11L).isEmpty());
+    }
+}
@@ -0,0 +1,173 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.QueryPlanAssertions;
+import com.healthcare.model.Medicine;
+import com.healthcare.model.Prescription;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Materialized medication round tests: build on first read, and upkeep by the writing services
+ */
+public class MedicationRoundServiceTest {
+
+    private BedOccupancyIndex index;
+    private MedicationRoundService rounds;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:medicationrounds;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void createRounds() throws Exception {
+        createPatients();
+        index = new BedOccupancyIndex(0);
+        rounds = new MedicationRoundService(index);
+    }
+
+    /**
+     * Ann Lee (bed 1) takes Aspirin twice daily, and took Insulin until yesterday;
+     * Bob Moss (no bed) takes Aspirin every 8 hours
+     */
+    static void createPatients() throws Exception {
+        execute("DELETE FROM Medication_Rounds", "DELETE FROM Medication_Round_Days",
+                "DELETE FROM Administered_Medication", "DELETE FROM Prescription_Medicines", "DELETE FROM Prescriptions",
+                "DELETE FROM Residents", "DELETE FROM Medicines", "DELETE FROM Staff",
+                "DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards",
+                "DELETE FROM Daily_Prescription_Counts", "DELETE FROM Daily_Administration_Counts",
+                "DELETE FROM Daily_Ward_Counts", "DELETE FROM Daily_Rollup_Census",
+                "INSERT INTO Staff (staff_id, first_name, last_name) VALUES (10, 'Grace', 'Hopper')",
+                "INSERT INTO Medicines (medicine_id, name, dosage_unit, is_active) VALUES (1, 'Aspirin', 'mg', TRUE), (2, 'Insulin', 'units', TRUE)",
+                "INSERT INTO Residents (resident_id, first_name, last_name, gender, current_bed_id, admission_date) VALUES " +
+                        "(1, 'Ann', 'Lee', 'F', 1, CURRENT_DATE - 30), (2, 'Bob', 'Moss', 'M', NULL, CURRENT_DATE - 30)",
+                "INSERT INTO Prescriptions (prescription_id, resident_id, doctor_id, prescription_date, status, review_status) VALUES " +
+                        "(1, 1, 10, CURRENT_DATE - 10, 'Active', 'Approved'), (2, 2, 10, CURRENT_DATE - 10, 'Active', 'Approved')",
+                "INSERT INTO Prescription_Medicines (id, prescription_id, medicine_id, dosage, frequency, start_date, end_date, is_active) VALUES " +
+                        "(1, 1, 1, '100', 'Twice daily', CURRENT_DATE - 10, NULL, TRUE), " +
+                        "(2, 1, 2, '10', 'Daily', CURRENT_DATE - 10, CURRENT_DATE - 1, TRUE), " +
+                        "(3, 2, 1, '75', 'Every 8 hours', CURRENT_DATE - 10, NULL, TRUE)",
+                "INSERT INTO Wards VALUES (1, 'Ward 1')",
+                "INSERT INTO Rooms VALUES (101, 1, '101', 'Standard', 2, 'Mixed')",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code, is_occupied, occupied_by) VALUES " +
+                        "(1, 101, '1', 'W1R101B1', TRUE, 1), (2, 101, '2', 'W1R101B2', FALSE, NULL)");
+    }
+
+    @AfterEach
+    void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("A day's round is built on first read, in patient order, with beds from the occupancy index")
+    void testBuiltOnFirstRead() throws Exception {
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM Medication_Round_Days"));
+
+        List<MedicationAdministrationService.MedicationSchedule> round = rounds.findRound(LocalDate.now());
+
+        assertEquals(2, round.size());
+        assertEquals("Ann Lee", round.get(0).getPatientName());
+        assertEquals("Aspirin", round.get(0).getMedicineName());
+        assertEquals("Grace Hopper", round.get(0).getDoctorName());
+        assertEquals(1L, round.get(0).getBedId());
+        assertEquals("Bob Moss", round.get(1).getPatientName());
+        assertEquals(0L, round.get(1).getBedId());
+        assertArrayEquals(new int[]{2, 2}, rounds.countRound(LocalDate.now()));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM Medication_Round_Days"));
+
+        // Yesterday still had Ann's Insulin
+        assertEquals(3, rounds.findRound(LocalDate.now().minusDays(1)).size());
+    }
+
+    @Test
+    @DisplayName("Recording a dose moves the line out of pending and into the day's counts")
+    void testDoseGiven() {
+        OverdueDoseTracker tracker = new OverdueDoseTracker(rounds, Duration.ofHours(1), 0);
+        MedicationAdministrationService administration = new MedicationAdministrationService(rounds, tracker);
+        assertEquals(2, administration.getPendingMedications().size());
+
+        assertTrue(administration.markMedicationAsAdministered(1L, 20L, "100", null));
+        assertTrue(administration.markMedicationAsRefused(3L, 20L, "Asleep"));
+
+        List<MedicationAdministrationService.MedicationSchedule> pending = administration.getPendingMedications();
+        assertEquals(1, pending.size());
+        assertEquals(3L, pending.get(0).getPrescriptionMedicineId());
+
+        MedicationAdministrationService.MedicationStats stats = administration.getMedicationStats();
+        assertEquals(2, stats.getTotalScheduled());
+        assertEquals(1, stats.getAdministeredToday());
+        assertEquals(1, stats.getPending());
+        tracker.close();
+    }
+
+    @Test
+    @DisplayName("New lines, cancelled prescriptions and renamed medicines reach built rounds; past days are kept")
+    void testPrescriptionChanges() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        assertEquals(2, rounds.findRound(today).size());
+        assertEquals(3, rounds.findRound(yesterday).size());
+
+        PrescriptionService prescriptions = new PrescriptionService(rounds);
+        prescriptions.savePrescriptionMedicine(2L, 2L, "5", "Twice daily", today, null, null);
+        assertEquals(3, rounds.findRound(today).size());
+
+        Prescription cancelled = new Prescription(2L, 10L, today.minusDays(10), null);
+        cancelled.setPrescriptionId(2L);
+        cancelled.setStatus(Prescription.PrescriptionStatus.Cancelled);
+        cancelled.setReviewStatus(Prescription.ReviewStatus.Approved);
+        assertNotNull(prescriptions.update(cancelled));
+
+        List<MedicationAdministrationService.MedicationSchedule> round = rounds.findRound(today);
+        assertEquals(1, round.size());
+        assertEquals("Ann Lee", round.get(0).getPatientName());
+
+        Medicine aspirin = new MedicineService(rounds).findById(1L).orElseThrow();
+        aspirin.setName("Acetylsalicylic acid");
+        assertNotNull(new MedicineService(rounds).update(aspirin));
+
+        assertEquals("Acetylsalicylic acid", rounds.findRound(today).get(0).getMedicineName());
+        assertEquals(3, rounds.findRound(yesterday).size());
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM Medication_Rounds WHERE round_date = CURRENT_DATE - 1 " +
+                "AND medicine_name = 'Aspirin'"));
+    }
+
+    @Test
+    @DisplayName("Discharging a resident removes their lines from today's round")
+    void testDischarge() throws Exception {
+        assertEquals(2, rounds.findRound(LocalDate.now()).size());
+
+        new ResidentService(rounds).dischargeResident(1L);
+
+        List<MedicationAdministrationService.MedicationSchedule> round = rounds.findRound(LocalDate.now());
+        assertEquals(1, round.size());
+        assertEquals("Bob Moss", round.get(0).getPatientName());
+    }
+
+    @Test
+    @DisplayName("A day's round is read by seeking on round_date, not by scanning the table")
+    void testRoundSeeksOnDay() throws Exception {
+        try (Connection conn = DBConnection.getConnection()) {
+            // H2 may take the primary key or idx_medication_rounds_day; both lead with round_date
+            String plan = QueryPlanAssertions.explain(conn, MedicationRoundService.FIND_ROUND_SQL);
+            assertTrue(plan.contains(": ROUND_DATE = ?1 */"), plan);
+        }
+    }
+}
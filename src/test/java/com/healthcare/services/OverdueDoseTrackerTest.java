@@ -0,0 +1,166 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import org.junit.jupiter.api.*;
+
+import com.healthcare.services.MedicationAdministrationService.MedicationSchedule;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Overdue tracking tests over today's round, with the clock advanced by hand
+ */
+public class OverdueDoseTrackerTest {
+
+    private BedOccupancyIndex index;
+    private MedicationRoundService rounds;
+    private OverdueDoseTracker tracker;
+    private final List<OverdueDoseTracker.OverdueDose> fired = new ArrayList<>();
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:overduedoses;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * Ann's Aspirin (line 1) is due at 08:00 and 20:00, Bob's (line 3) at 06:00, 14:00 and 22:00;
+     * both with an hour's grace
+     */
+    @BeforeEach
+    void createTracker() throws Exception {
+        MedicationRoundServiceTest.createPatients();
+        index = new BedOccupancyIndex(0);
+        rounds = new MedicationRoundService(index);
+        tracker = new OverdueDoseTracker(rounds, Duration.ofHours(1), 0);
+        tracker.addListener(fired::add);
+    }
+
+    @AfterEach
+    void closeTracker() {
+        tracker.close();
+        index.close();
+    }
+
+    @Test
+    @DisplayName("A dose becomes overdue when its grace period ends, not before")
+    void testOverdueAtDeadline() {
+        tracker.advance(at(6, 30));
+        assertEquals(5, tracker.getScheduledCount());
+        assertTrue(fired.isEmpty());
+
+        tracker.advance(at(6, 59));
+        assertTrue(fired.isEmpty());
+        tracker.advance(at(7, 0, 1));
+        assertEquals(1, fired.size());
+        assertEquals(3L, fired.get(0).getPrescriptionMedicineId());
+        assertEquals(at(6, 0), fired.get(0).getDueAt());
+
+        tracker.advance(at(8, 59, 59));
+        assertFalse(tracker.isOverdue(1L));
+        tracker.advance(at(9, 0, 1));
+        assertTrue(tracker.isOverdue(1L));
+        assertEquals(2, fired.size());
+        assertEquals(3, tracker.getScheduledCount());
+    }
+
+    @Test
+    @DisplayName("Doses already late when the round loads are reported on load")
+    void testLateOnLoad() {
+        tracker.advance(at(15, 30));
+
+        assertEquals(2, fired.size());
+        assertEquals(3L, fired.get(0).getPrescriptionMedicineId());
+        assertEquals(1L, fired.get(1).getPrescriptionMedicineId());
+        // Bob's 22:00 and Ann's 20:00 doses are still ahead
+        assertEquals(2, tracker.getScheduledCount());
+    }
+
+    @Test
+    @DisplayName("Recording the dose clears it; the next missed dose is reported again")
+    void testDoseGivenClearsOverdue() {
+        MedicationAdministrationService administration = new MedicationAdministrationService(rounds, tracker);
+        tracker.advance(at(9, 30));
+        assertTrue(tracker.isOverdue(1L));
+
+        assertTrue(administration.markMedicationAsAdministered(1L, 20L, "100", null));
+        tracker.advance(at(9, 31));
+        assertFalse(tracker.isOverdue(1L));
+        assertTrue(tracker.isOverdue(3L));
+        assertEquals(2, fired.size());
+
+        tracker.advance(at(21, 0, 1));
+        assertTrue(tracker.isOverdue(1L));
+        assertEquals(3, fired.size());
+        assertEquals(at(20, 0), fired.get(2).getDueAt());
+    }
+
+    @Test
+    @DisplayName("Readers are answered from the old wheel while the round reloads")
+    void testReloadOutsideLock() throws Exception {
+        AtomicBoolean hold = new AtomicBoolean();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MedicationRoundService gated = new MedicationRoundService(index) {
+            @Override
+            public List<MedicationSchedule> findRound(LocalDate day) throws SQLException {
+                loads.incrementAndGet();
+                if (hold.get()) {
+                    reading.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findRound(day);
+            }
+        };
+        try (OverdueDoseTracker gatedTracker = new OverdueDoseTracker(gated, Duration.ofHours(1), 0)) {
+            gatedTracker.advance(at(9, 30));
+            assertTrue(gatedTracker.isOverdue(1L));
+
+            hold.set(true);
+            gatedTracker.invalidate();
+            CompletableFuture<Void> reload = CompletableFuture.runAsync(() -> gatedTracker.advance(at(9, 31)));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+            assertTrue(CompletableFuture.supplyAsync(() -> gatedTracker.isOverdue(1L)).get(1, TimeUnit.SECONDS));
+
+            // A change made while the round is read is picked up by the next advance
+            gatedTracker.invalidate();
+            release.countDown();
+            reload.get(5, TimeUnit.SECONDS);
+            hold.set(false);
+            gatedTracker.advance(at(9, 32));
+            assertEquals(3, loads.get());
+        }
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return at(hour, minute, 0);
+    }
+
+    private static LocalDateTime at(int hour, int minute, int second) {
+        return LocalDate.now().atTime(hour, minute, second);
+    }
+}
@@ -0,0 +1,173 @@
+package com.healthcare.services;
+
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+import com.healthcare.model.Staff;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roster generator tests: open slots filled compliantly, shifts shared evenly, existing shifts kept and worked around
+ */
+public class RosterGeneratorTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+    private static final LocalDate SUNDAY = MONDAY.plusDays(6);
+
+    private final RosterGenerator generator = new RosterGenerator(new ForkJoinPool(2), 4);
+
+    @Test
+    @DisplayName("An empty week is filled with no violations and shifts shared evenly")
+    void testFillsEmptyWeek() {
+        List<Staff> staff = List.of(staff(1L, Staff.Role.Nurse), staff(2L, Staff.Role.Nurse), staff(3L, Staff.Role.Nurse),
+                staff(4L, Staff.Role.Nurse), staff(10L, Staff.Role.Doctor), staff(11L, Staff.Role.Doctor));
+
+        RosterGenerator.Roster roster = generate(List.of(), staff, List.of(1L, 2L));
+
+        assertTrue(roster.isComplete());
+        assertEquals(21, roster.getShifts().size());
+        assertTrue(new ShiftComplianceEvaluator(MONDAY, SUNDAY, roster.getShifts()).audit(MONDAY, SUNDAY).isEmpty());
+
+        Map<Long, Integer> counts = counts(roster.getShifts());
+        // 14 nurse shifts over 4 nurses, 7 doctor shifts over 2 doctors
+        for (long nurse = 1; nurse <= 4; nurse++) {
+            assertTrue(counts.get(nurse) == 3 || counts.get(nurse) == 4, "nurse " + nurse + ": " + counts.get(nurse));
+        }
+        assertEquals(7, counts.get(10L) + counts.get(11L));
+        assertTrue(Math.abs(counts.get(10L) - counts.get(11L)) <= 1);
+        assertTrue(roster.getShifts().stream().allMatch(s -> s.getWardId() != null));
+        assertTrue(roster.getCandidates() >= 1);
+    }
+
+    @Test
+    @DisplayName("Only the slots the saved shifts leave open are filled")
+    void testKeepsExistingShifts() {
+        List<ShiftSchedule> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            saved.add(new ShiftSchedule(1L, MONDAY.plusDays(i), Shift.ShiftType.Morning, "08:00", "16:00"));
+        }
+        saved.add(new ShiftSchedule(10L, MONDAY, Shift.ShiftType.Doctor, "09:00", "10:00"));
+        List<Staff> staff = List.of(staff(1L, Staff.Role.Nurse), staff(2L, Staff.Role.Nurse), staff(10L, Staff.Role.Doctor));
+
+        RosterGenerator.Roster roster = generate(saved, staff, List.of());
+
+        assertTrue(roster.isComplete());
+        assertEquals(7 + 6, roster.getShifts().size());
+        // Nurse 1 already works 8 hours every day, so every new nurse shift goes to nurse 2
+        assertTrue(roster.getShifts().stream()
+                .filter(s -> s.getShiftType() != Shift.ShiftType.Doctor)
+                .allMatch(s -> s.getStaffId() == 2L));
+        List<ShiftSchedule> all = new ArrayList<>(saved);
+        all.addAll(roster.getShifts());
+        assertTrue(new ShiftComplianceEvaluator(MONDAY, SUNDAY, all).audit(MONDAY, SUNDAY).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Slots nobody can take within 8 hours are reported, not forced")
+    void testReportsUnfilled() {
+        List<Staff> staff = List.of(staff(1L, Staff.Role.Nurse), staff(10L, Staff.Role.Doctor),
+                inactive(staff(2L, Staff.Role.Nurse)), staff(20L, Staff.Role.Manager));
+
+        RosterGenerator.Roster roster = generate(List.of(), staff, List.of());
+
+        // One nurse covers one 8 hour shift a day; the other nurse shift stays open
+        assertFalse(roster.isComplete());
+        assertEquals(7, roster.getUnfilled().size());
+        assertTrue(roster.getUnfilled().stream().allMatch(u -> u.getSlot().getShiftType() != Shift.ShiftType.Doctor));
+        assertEquals(14, roster.getShifts().size());
+        assertTrue(roster.getShifts().stream().noneMatch(s -> s.getStaffId() == 2L || s.getStaffId() == 20L));
+        assertTrue(new ShiftComplianceEvaluator(MONDAY, SUNDAY, roster.getShifts()).audit(MONDAY, SUNDAY).stream()
+                .noneMatch(v -> v.getType() == ShiftComplianceEvaluator.Violation.Type.DAILY_HOURS));
+    }
+
+    @Test
+    @DisplayName("Nobody is given two slots at once, even within 8 hours")
+    void testNoOverlappingSlots() {
+        List<RosterGenerator.Slot> slots = List.of(
+                new RosterGenerator.Slot(Shift.ShiftType.Morning, "08:00", "12:00"),
+                new RosterGenerator.Slot(Shift.ShiftType.Afternoon, "10:00", "14:00"),
+                new RosterGenerator.Slot(Shift.ShiftType.Doctor, "09:00", "10:00"));
+
+        RosterGenerator.Roster roster = generator.generate(MONDAY, SUNDAY, new ShiftComplianceEvaluator(MONDAY, SUNDAY, List.of()),
+                List.of(staff(1L, Staff.Role.Nurse), staff(10L, Staff.Role.Doctor)), List.of(), slots, Duration.ofMillis(200), 7L);
+
+        assertEquals(7, roster.getUnfilled().size());
+        assertEquals(7, roster.getShifts().stream().filter(s -> s.getStaffId() == 1L).count());
+    }
+
+    @Test
+    @DisplayName("Saved shifts, including the day before's, are not overlapped and count for quick returns")
+    void testWorksAroundSavedShifts() {
+        LocalDate sunday = MONDAY.minusDays(1);
+        for (long seed = 1; seed <= 5; seed++) {
+            // Nurse 1 works overnight into Monday morning
+            RosterGenerator.Roster overnight = generateMonday(seed,
+                    new ShiftSchedule(1L, sunday, Shift.ShiftType.Afternoon, "22:00", "09:00"));
+            assertEquals(2L, staffOn(overnight, Shift.ShiftType.Morning));
+            assertEquals(1L, staffOn(overnight, Shift.ShiftType.Afternoon));
+
+            // Nurse 1 worked Sunday afternoon, so a Monday morning would be a quick return
+            RosterGenerator.Roster afternoon = generateMonday(seed,
+                    new ShiftSchedule(1L, sunday, Shift.ShiftType.Afternoon, "14:00", "22:00"));
+            assertEquals(2L, staffOn(afternoon, Shift.ShiftType.Morning));
+        }
+    }
+
+    @Test
+    @DisplayName("A covered range needs no shifts")
+    void testNothingOpen() {
+        List<ShiftSchedule> saved = new ArrayList<>();
+        saved.add(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "08:00", "16:00"));
+        saved.add(new ShiftSchedule(2L, MONDAY, Shift.ShiftType.Afternoon, "14:00", "22:00"));
+        saved.add(new ShiftSchedule(10L, MONDAY, Shift.ShiftType.Doctor, "09:00", "10:00"));
+
+        RosterGenerator.Roster roster = generator.generate(MONDAY, MONDAY, new ShiftComplianceEvaluator(MONDAY, MONDAY, saved),
+                List.of(staff(1L, Staff.Role.Nurse)), List.of(), RosterGenerator.DEFAULT_SLOTS, Duration.ofMillis(200), 1L);
+
+        assertTrue(roster.isComplete());
+        assertTrue(roster.getShifts().isEmpty());
+    }
+
+    private RosterGenerator.Roster generate(List<ShiftSchedule> saved, List<Staff> staff, List<Long> wardIds) {
+        return generator.generate(MONDAY, SUNDAY, new ShiftComplianceEvaluator(MONDAY, SUNDAY, saved), staff, wardIds,
+                RosterGenerator.DEFAULT_SLOTS, Duration.ofMillis(500), 42L);
+    }
+
+    private RosterGenerator.Roster generateMonday(long seed, ShiftSchedule saved) {
+        return generator.generate(MONDAY, MONDAY, new ShiftComplianceEvaluator(MONDAY.minusDays(1), MONDAY, List.of(saved)),
+                List.of(staff(1L, Staff.Role.Nurse), staff(2L, Staff.Role.Nurse), staff(10L, Staff.Role.Doctor)), List.of(),
+                RosterGenerator.DEFAULT_SLOTS, Duration.ofMillis(100), seed);
+    }
+
+    private static long staffOn(RosterGenerator.Roster roster, Shift.ShiftType type) {
+        return roster.getShifts().stream().filter(s -> s.getShiftType() == type).findFirst().orElseThrow().getStaffId();
+    }
+
+    private static Map<Long, Integer> counts(List<ShiftSchedule> shifts) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (ShiftSchedule shift : shifts) {
+            counts.merge(shift.getStaffId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static Staff staff(Long id, Staff.Role role) {
+        Staff staff = new Staff("user" + id, "secret", role);
+        staff.setStaffId(id);
+        return staff;
+    }
+
+    private static Staff inactive(Staff staff) {
+        staff.setActive(false);
+        return staff;
+    }
+}
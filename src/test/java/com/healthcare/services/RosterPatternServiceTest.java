@@ -0,0 +1,229 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.RosterPattern;
+import com.healthcare.model.Shift;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static com.healthcare.config.TestSchema.queryInt;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roster pattern tests: materializing to a horizon, re-materializing only what an edit changes, extending, stopping,
+ * and leaving out dates that would double-book or break the daily rules
+ */
+public class RosterPatternServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate NEXT_MONDAY = TODAY.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    private final RosterPatternService patterns =
+            new RosterPatternService(new StaffAvailabilityIndex(0), new ShiftManagementService());
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:rosterpatterns;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+        execute("INSERT INTO Staff (staff_id, first_name, last_name, role) VALUES (5, 'Nina', 'Park', 'Nurse'), " +
+                "(6, 'Omar', 'Reyes', 'Nurse'), (7, 'Lena', 'Cho', 'Nurse')");
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    @BeforeEach
+    void clearTables() throws Exception {
+        execute("DELETE FROM Shift_Schedule", "DELETE FROM Roster_Patterns", "DELETE FROM Shifts",
+                "INSERT INTO Shifts (shift_name, shift_type, start_time, end_time, ward_id, is_active) VALUES " +
+                        "('Morning Shift', 'Morning', TIME '08:00:00', TIME '16:00:00', 1, TRUE), " +
+                        "('Old Night Shift', 'Afternoon', TIME '22:00:00', TIME '06:00:00', NULL, FALSE)");
+    }
+
+    @Test
+    @DisplayName("A new pattern schedules its weekdays up to the horizon, in one go")
+    void testSaveMaterializes() throws Exception {
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+
+        // 4 weeks from next Monday: 12 shifts
+        RosterPatternService.Materialized saved = patterns.save(pattern, NEXT_MONDAY.plusDays(27));
+        assertEquals(12, saved.getChanged());
+        assertTrue(saved.getSkipped().isEmpty());
+        assertNotNull(pattern.getPatternId());
+
+        List<LocalDate> dates = shiftDates(pattern.getPatternId());
+        assertEquals(12, dates.size());
+        assertEquals(NEXT_MONDAY, dates.get(0));
+        assertTrue(dates.stream().allMatch(d -> pattern.getDays().contains(d.getDayOfWeek())));
+        assertEquals(12, queryInt("SELECT COUNT(*) FROM Shift_Schedule WHERE staff_id = 5 AND ward_id = 1 " +
+                "AND start_time = '08:00' AND status = 'Scheduled'"));
+
+        RosterPattern stored = patterns.findById(pattern.getPatternId()).orElseThrow();
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY), stored.getDays());
+        assertEquals(NEXT_MONDAY.plusDays(27), stored.getMaterializedUntil());
+    }
+
+    @Test
+    @DisplayName("Editing the days only deletes and inserts the dates that changed; shifts edited by hand stay")
+    void testUpdateChangesOnlyAffectedRows() throws Exception {
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+        patterns.save(pattern, NEXT_MONDAY.plusDays(13));
+        execute("UPDATE Shift_Schedule SET status = 'Cancelled' WHERE shift_date = DATE '" + NEXT_MONDAY + "'");
+        List<Integer> before = shiftIds(pattern.getPatternId());
+
+        // Mon/Wed/Fri becomes Mon/Tue/Wed over two weeks: Fridays go, Tuesdays come, the rest are kept as they were
+        pattern.setDays(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY));
+        assertEquals(4, patterns.update(pattern).getChanged());
+
+        List<LocalDate> dates = shiftDates(pattern.getPatternId());
+        assertEquals(List.of(NEXT_MONDAY, NEXT_MONDAY.plusDays(1), NEXT_MONDAY.plusDays(2),
+                NEXT_MONDAY.plusDays(7), NEXT_MONDAY.plusDays(8), NEXT_MONDAY.plusDays(9)), dates);
+        List<Integer> after = shiftIds(pattern.getPatternId());
+        assertEquals(4, after.stream().filter(before::contains).count());
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM Shift_Schedule WHERE status = 'Cancelled'"));
+
+        // A new time rewrites the kept scheduled rows in place, leaving the cancelled one
+        pattern.setStartTime("07:00");
+        pattern.setEndTime("15:00");
+        assertEquals(5, patterns.update(pattern).getChanged());
+        assertEquals(after, shiftIds(pattern.getPatternId()));
+        assertEquals(5, queryInt("SELECT COUNT(*) FROM Shift_Schedule WHERE start_time = '07:00'"));
+
+        assertEquals(0, patterns.update(pattern).getChanged());
+    }
+
+    @Test
+    @DisplayName("Extending to a later horizon adds only the new weeks, and a stopped pattern loses its upcoming shifts")
+    void testExtendAndDeactivate() throws Exception {
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+        pattern.setEndsOn(NEXT_MONDAY.plusDays(20));
+        patterns.save(pattern, NEXT_MONDAY.plusDays(6));
+
+        assertEquals(6, patterns.extendAll(NEXT_MONDAY.plusDays(27)));
+        assertEquals(0, patterns.extendAll(NEXT_MONDAY.plusDays(27)));
+        assertEquals(9, shiftDates(pattern.getPatternId()).size());
+
+        assertTrue(patterns.deactivate(pattern.getPatternId()));
+        assertTrue(shiftDates(pattern.getPatternId()).isEmpty());
+        assertTrue(patterns.findActive().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Dates that would double-book the staff member or break the daily rules are skipped and reported")
+    void testSaveSkipsClashingDates() throws Exception {
+        // Nurse 5 already works the second Wednesday evening, and the second Friday has its two nurse shifts
+        LocalDate wednesday = NEXT_MONDAY.plusDays(9);
+        LocalDate friday = NEXT_MONDAY.plusDays(11);
+        execute(shiftRow(5, wednesday, "14:00", "22:00"), shiftRow(6, friday, "08:00", "16:00"),
+                shiftRow(7, friday, "14:00", "22:00"));
+
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+        pattern.setStartTime("12:00");
+        pattern.setEndTime("16:00");
+        RosterPatternService.Materialized saved = patterns.save(pattern, NEXT_MONDAY.plusDays(13));
+
+        assertEquals(4, saved.getChanged());
+        assertEquals(List.of(wednesday, friday), saved.getSkipped().stream().map(RosterPatternService.Skipped::getDate).toList());
+        assertFalse(shiftDates(pattern.getPatternId()).contains(wednesday));
+        assertFalse(shiftDates(pattern.getPatternId()).contains(friday));
+    }
+
+    @Test
+    @DisplayName("A series edit keeps the old shift on a date where the new one would clash, and skips gained dates that clash")
+    void testUpdateChecksEveryDate() throws Exception {
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+        patterns.save(pattern, NEXT_MONDAY.plusDays(6));
+        // Nurse 6 works the Wednesday afternoon and the Tuesday morning
+        execute(shiftRow(6, NEXT_MONDAY.plusDays(2), "14:00", "22:00"), shiftRow(6, NEXT_MONDAY.plusDays(1), "08:00", "12:00"));
+
+        // Hand the pattern to nurse 6 and add Tuesdays
+        pattern.setStaffId(6L);
+        pattern.setDays(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY));
+        RosterPatternService.Materialized updated = patterns.update(pattern);
+
+        assertEquals(2, updated.getChanged());
+        assertEquals(List.of(NEXT_MONDAY.plusDays(2), NEXT_MONDAY.plusDays(1)),
+                updated.getSkipped().stream().map(RosterPatternService.Skipped::getDate).toList());
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM Shift_Schedule WHERE pattern_id = " + pattern.getPatternId() +
+                " AND staff_id = 5 AND shift_date = DATE '" + NEXT_MONDAY.plusDays(2) + "'"));
+        assertEquals(List.of(NEXT_MONDAY, NEXT_MONDAY.plusDays(2), NEXT_MONDAY.plusDays(4)), shiftDates(pattern.getPatternId()));
+    }
+
+    @Test
+    @DisplayName("Extending dates another client already wrote adds no duplicates")
+    void testExtendIsIdempotent() throws Exception {
+        RosterPattern pattern = monWedFri(NEXT_MONDAY);
+        patterns.save(pattern, NEXT_MONDAY.plusDays(13));
+
+        // A second client still sees the pattern as never materialized
+        execute("UPDATE Roster_Patterns SET materialized_until = NULL");
+        assertEquals(3, new RosterPatternService(new StaffAvailabilityIndex(0), new ShiftManagementService())
+                .extendAll(NEXT_MONDAY.plusDays(20)));
+
+        assertEquals(9, shiftDates(pattern.getPatternId()).size());
+        assertThrows(java.sql.SQLException.class, () -> execute(shiftRow(5, NEXT_MONDAY, "08:00", "16:00")
+                .replace("created_at)", "created_at, pattern_id)").replace("CURRENT_TIMESTAMP)", "CURRENT_TIMESTAMP, "
+                        + pattern.getPatternId() + ")")));
+    }
+
+    @Test
+    @DisplayName("Only active templates are offered, with their times")
+    void testTemplates() {
+        List<Shift> templates = patterns.findTemplates();
+
+        assertEquals(1, templates.size());
+        assertEquals(Shift.ShiftType.Morning, templates.get(0).getShiftType());
+        assertEquals("08:00", templates.get(0).getStartTime().toString());
+        assertEquals(1L, templates.get(0).getWardId());
+    }
+
+    private static String shiftRow(long staffId, LocalDate date, String start, String end) {
+        return "INSERT INTO Shift_Schedule (staff_id, shift_date, shift_type, start_time, end_time, status, created_at) " +
+                "VALUES (" + staffId + ", DATE '" + date + "', 'Afternoon', '" + start + "', '" + end + "', 'Scheduled', CURRENT_TIMESTAMP)";
+    }
+
+    private static RosterPattern monWedFri(LocalDate startsOn) {
+        RosterPattern pattern = new RosterPattern(5L, Shift.ShiftType.Morning, "08:00", "16:00",
+                EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY), startsOn);
+        pattern.setWardId(1L);
+        return pattern;
+    }
+
+    private static List<LocalDate> shiftDates(Long patternId) throws Exception {
+        List<LocalDate> dates = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT shift_date FROM Shift_Schedule WHERE pattern_id = " + patternId +
+                     " ORDER BY shift_date")) {
+            while (rs.next()) {
+                dates.add(rs.getDate(1).toLocalDate());
+            }
+        }
+        return dates;
+    }
+
+    private static List<Integer> shiftIds(Long patternId) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT shift_id FROM Shift_Schedule WHERE pattern_id = " + patternId +
+                     " ORDER BY shift_date")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
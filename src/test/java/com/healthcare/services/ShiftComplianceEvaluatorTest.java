@@ -0,0 +1,131 @@
+package com.healthcare.services;
+
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Shift compliance tests: running totals per staff member and day, proposals checked before saving, full audits
+ */
+public class ShiftComplianceEvaluatorTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private long nextId;
+
+    /**
+     * A compliant week: nurses 1 and 2 on Morning and Afternoon, doctor 10 from 08:00 to 16:00, every day
+     */
+    private List<ShiftSchedule> compliantWeek() {
+        List<ShiftSchedule> shifts = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = MONDAY.plusDays(i);
+            shifts.add(shift(1L, date, Shift.ShiftType.Morning, "06:00", "14:00"));
+            shifts.add(shift(2L, date, Shift.ShiftType.Afternoon, "14:00", "22:00"));
+            shifts.add(shift(10L, date, Shift.ShiftType.Doctor, "08:00", "16:00"));
+        }
+        return shifts;
+    }
+
+    @Test
+    @DisplayName("A fully covered week within hours has no violations")
+    void testCompliantWeek() {
+        ShiftComplianceEvaluator evaluator = new ShiftComplianceEvaluator(MONDAY, MONDAY.plusDays(6), compliantWeek());
+
+        assertTrue(evaluator.audit(MONDAY, MONDAY.plusDays(6)).isEmpty());
+        assertEquals(480, evaluator.getMinutes(1L, MONDAY));
+        assertEquals(2, evaluator.getNurseShifts(MONDAY.plusDays(3)));
+        assertEquals(1, evaluator.getDoctorShifts(MONDAY.plusDays(6)));
+    }
+
+    @Test
+    @DisplayName("An audit reports every violation, not just the first")
+    void testAuditReportsAll() {
+        List<ShiftSchedule> shifts = compliantWeek();
+        // No doctor on Tuesday or Friday, a third nurse shift and 10 hours for nurse 1 on Wednesday
+        shifts.removeIf(s -> s.getShiftType() == Shift.ShiftType.Doctor
+                && (s.getShiftDate().equals(MONDAY.plusDays(1)) || s.getShiftDate().equals(MONDAY.plusDays(4))));
+        shifts.add(shift(1L, MONDAY.plusDays(2), Shift.ShiftType.Afternoon, "14:00", "16:00"));
+
+        List<ShiftComplianceEvaluator.Violation> violations =
+                new ShiftComplianceEvaluator(MONDAY, MONDAY.plusDays(6), shifts).audit(MONDAY, MONDAY.plusDays(6));
+
+        assertEquals(4, violations.size());
+        assertEquals(List.of(ShiftComplianceEvaluator.Violation.Type.DOCTOR_COVERAGE,
+                        ShiftComplianceEvaluator.Violation.Type.NURSE_COVERAGE,
+                        ShiftComplianceEvaluator.Violation.Type.DAILY_HOURS,
+                        ShiftComplianceEvaluator.Violation.Type.DOCTOR_COVERAGE),
+                violations.stream().map(ShiftComplianceEvaluator.Violation::getType).toList());
+        assertEquals(1L, violations.get(2).getStaffId());
+        assertEquals("Staff member 1 has more than 8 hours on " + MONDAY.plusDays(2) + " (10h)", violations.get(2).getMessage());
+        assertEquals("Doctor shifts on " + MONDAY.plusDays(1) + " must be exactly 1. Found: 0", violations.get(0).getMessage());
+    }
+
+    @Test
+    @DisplayName("A proposed shift is checked against the day's totals, an edit replacing the shift it edits")
+    void testCheckProposed() {
+        ShiftComplianceEvaluator evaluator = new ShiftComplianceEvaluator(MONDAY, MONDAY.plusDays(6), compliantWeek());
+
+        List<ShiftComplianceEvaluator.Violation> violations =
+                evaluator.check(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Afternoon, "14:00", "15:00"));
+        assertEquals(List.of(ShiftComplianceEvaluator.Violation.Type.DAILY_HOURS,
+                        ShiftComplianceEvaluator.Violation.Type.NURSE_COVERAGE),
+                violations.stream().map(ShiftComplianceEvaluator.Violation::getType).toList());
+
+        assertTrue(evaluator.check(new ShiftSchedule(3L, MONDAY, Shift.ShiftType.Doctor, "08:00", "12:00")).stream()
+                .anyMatch(v -> v.getType() == ShiftComplianceEvaluator.Violation.Type.DOCTOR_COVERAGE));
+
+        // Moving nurse 1's Monday shift an hour later is still one nurse shift of 8 hours
+        ShiftSchedule moved = new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "07:00", "15:00");
+        moved.setScheduleId(1L);
+        assertTrue(evaluator.check(moved).isEmpty());
+
+        ShiftSchedule cancelled = new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "15:00", "23:00");
+        cancelled.setStatus(ShiftSchedule.ScheduleStatus.Cancelled);
+        assertTrue(evaluator.check(cancelled).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Adding and removing shifts keeps the totals current")
+    void testIncrementalUpdates() {
+        List<ShiftSchedule> week = compliantWeek();
+        ShiftComplianceEvaluator evaluator = new ShiftComplianceEvaluator(MONDAY, MONDAY.plusDays(6), week);
+
+        evaluator.remove(week.get(0));
+        assertEquals(0, evaluator.getMinutes(1L, MONDAY));
+        assertEquals(1, evaluator.getNurseShifts(MONDAY));
+        assertEquals(1, evaluator.audit(MONDAY, MONDAY.plusDays(6)).size());
+
+        ShiftSchedule overnight = shift(3L, MONDAY, Shift.ShiftType.Morning, "22:00", "06:00");
+        evaluator.add(overnight);
+        assertEquals(480, evaluator.getMinutes(3L, MONDAY));
+        assertTrue(evaluator.audit(MONDAY, MONDAY.plusDays(6)).isEmpty());
+
+        ShiftSchedule longer = shift(3L, MONDAY, Shift.ShiftType.Morning, "21:30", "06:00");
+        longer.setScheduleId(overnight.getScheduleId());
+        evaluator.add(longer);
+        assertEquals(510, evaluator.getMinutes(3L, MONDAY));
+        assertEquals(2, evaluator.getNurseShifts(MONDAY));
+    }
+
+    @Test
+    @DisplayName("Shift lengths are read from HH:mm without splitting, bad times counting as none")
+    void testMinutes() {
+        assertEquals(495, ShiftComplianceEvaluator.minutes(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "9:30", "17:45")));
+        assertEquals(0, ShiftComplianceEvaluator.minutes(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "9", "17:00")));
+        assertEquals(0, ShiftComplianceEvaluator.minutes(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, "25:00", "17:00")));
+        assertEquals(0, ShiftComplianceEvaluator.minutes(new ShiftSchedule(1L, MONDAY, Shift.ShiftType.Morning, null, "17:00")));
+    }
+
+    private ShiftSchedule shift(Long staffId, LocalDate date, Shift.ShiftType type, String start, String end) {
+        ShiftSchedule shift = new ShiftSchedule(staffId, date, type, start, end);
+        shift.setScheduleId(++nextId);
+        return shift;
+    }
+}
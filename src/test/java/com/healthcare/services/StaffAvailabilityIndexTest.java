@@ -0,0 +1,119 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.model.Shift;
+import com.healthcare.model.ShiftSchedule;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Staff availability tests: overlaps in absolute minutes, free staff per slot and ward, next free time, changes
+ */
+public class StaffAvailabilityIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private StaffAvailabilityIndex index;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:staffavailability;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * Nurse 1 works Monday 08:00-16:00 on ward 1, nurse 2 Monday 22:00-06:00 on ward 2,
+     * nurse 3 has a cancelled shift and nurse 4 has nothing
+     */
+    @BeforeEach
+    void createShifts() throws Exception {
+        execute("DELETE FROM Shift_Schedule",
+                "INSERT INTO Shift_Schedule (shift_id, staff_id, shift_date, shift_type, start_time, end_time, ward_id, status) VALUES " +
+                        "(1, 1, DATE '" + MONDAY + "', 'Morning', '08:00', '16:00', 1, 'Scheduled'), " +
+                        "(2, 2, DATE '" + MONDAY + "', 'Afternoon', '22:00', '06:00', 2, 'Scheduled'), " +
+                        "(3, 3, DATE '" + MONDAY + "', 'Morning', '08:00', '16:00', 1, 'Cancelled')");
+        index = new StaffAvailabilityIndex(0);
+    }
+
+    @Test
+    @DisplayName("A slot overlaps a shift it shares any minute with, across midnight too")
+    void testConflicts() throws Exception {
+        assertFalse(index.isFree(1L, MONDAY, "15:00", "17:00"));
+        assertTrue(index.isFree(1L, MONDAY, "16:00", "22:00"));
+        assertTrue(index.isFree(1L, MONDAY, "06:00", "08:00"));
+
+        // Nurse 2's overnight shift runs into Tuesday morning
+        assertFalse(index.isFree(2L, MONDAY.plusDays(1), "05:00", "07:00"));
+        assertTrue(index.isFree(2L, MONDAY.plusDays(1), "06:00", "14:00"));
+        assertEquals(2L, index.findConflict(2L, MONDAY, "23:00", "01:00", null).orElseThrow().getScheduleId());
+
+        assertTrue(index.isFree(3L, MONDAY, "08:00", "16:00"));
+        assertTrue(index.findConflict(1L, MONDAY, "09:00", "17:00", 1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Free staff for a slot, without anyone already working another ward that day")
+    void testFindFree() throws Exception {
+        List<Long> nurses = List.of(1L, 2L, 3L, 4L);
+
+        assertEquals(List.of(2L, 3L, 4L), index.findFree(nurses, null, MONDAY, "12:00", "14:00"));
+        assertEquals(List.of(1L, 3L, 4L), index.findFree(nurses, 1L, MONDAY, "16:00", "18:00"));
+        assertEquals(List.of(1L, 3L, 4L), index.findFree(nurses, 2L, MONDAY.plusDays(1), "05:00", "08:00"));
+    }
+
+    @Test
+    @DisplayName("The next free time skips past every shift the slot would overlap")
+    void testNextFree() throws Exception {
+        assertEquals(MONDAY.atTime(16, 0), index.nextFree(1L, MONDAY, "09:00", "11:00", null));
+        assertEquals(MONDAY.atTime(6, 0), index.nextFree(1L, MONDAY, "06:00", "08:00", null));
+        assertEquals(MONDAY.atTime(9, 0), index.nextFree(1L, MONDAY, "09:00", "11:00", 1L));
+        assertEquals(MONDAY.plusDays(1).atTime(6, 0), index.nextFree(2L, MONDAY.atTime(21, 0), 90));
+    }
+
+    @Test
+    @DisplayName("A shift loaded without a ward keeps no ward, so it never counts as working another ward")
+    void testShiftWithoutWard() throws Exception {
+        execute("INSERT INTO Shift_Schedule (shift_id, staff_id, shift_date, shift_type, start_time, end_time, ward_id, status) " +
+                "VALUES (4, 5, DATE '" + MONDAY + "', 'Morning', '06:00', '07:00', NULL, 'Scheduled')");
+
+        assertNull(index.findBookings(5L, MONDAY).get(0).getWardId());
+        assertEquals(List.of(5L), index.findFree(List.of(5L), 1L, MONDAY, "08:00", "16:00"));
+        assertEquals(List.of(5L), index.findFree(List.of(5L), 2L, MONDAY, "08:00", "16:00"));
+    }
+
+    @Test
+    @DisplayName("Saved and deleted shifts are applied without reloading")
+    void testChanges() throws Exception {
+        index.isFree(4L, MONDAY, "08:00", "16:00");
+        // Not in the database; only the changes can show them
+        ShiftSchedule shift = new ShiftSchedule(4L, MONDAY, Shift.ShiftType.Afternoon, "14:00", "22:00");
+        shift.setScheduleId(10L);
+        index.added(shift);
+        assertFalse(index.isFree(4L, MONDAY, "20:00", "21:00"));
+
+        shift.setStartTime("18:00");
+        index.added(shift);
+        assertTrue(index.isFree(4L, MONDAY, "14:00", "18:00"));
+        assertEquals(1, index.findBookings(4L, MONDAY).size());
+
+        index.removed(10L);
+        index.removed(1L);
+        assertTrue(index.isFree(4L, MONDAY, "20:00", "21:00"));
+        assertTrue(index.isFree(1L, MONDAY, "08:00", "16:00"));
+
+        index.invalidate();
+        assertFalse(index.isFree(1L, MONDAY, "08:00", "16:00"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.healthcare.services;
+
+import com.healthcare.config.TestSchema;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import static com.healthcare.config.QueryPlanAssertions.assertFullScan;
+import static com.healthcare.config.QueryPlanAssertions.assertIndexRangeScan;
+
+/**
+ * Checks that time-window queries range-scan the index on their time column.
+ * Indexes come from the shipped migrations, as in production.
+ */
+public class TimeWindowQueryPlanTest {
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void createSchema() throws Exception {
+        conn = DriverManager.getConnection("jdbc:h2:mem:plantest;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        TestSchema.create(conn);
+    }
+
+    @AfterAll
+    static void closeConnection() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    @DisplayName("Audit log date range uses the action_time index")
+    void testActionLogDateRange() throws Exception {
+        assertIndexRangeScan(conn, ActionLogService.FIND_BY_TIME_WINDOW_SQL,
+                "Actions_Log", "idx_actions_log_time", "action_time");
+    }
+
+    @Test
+    @DisplayName("Transfer counts use the transfer_time index")
+    void testTransferCounts() throws Exception {
+        assertIndexRangeScan(conn, BedTransferService.COUNT_TRANSFERS_IN_WINDOW_SQL,
+                "Bed_Transfers", "idx_bed_transfers_time", "transfer_time");
+    }
+
+    @Test
+    @DisplayName("A nurse's administrations for a window seek on nurse and time")
+    void testNurseAdministrations() throws Exception {
+        assertIndexRangeScan(conn, MedicationAdministrationService.NURSE_ADMINISTRATIONS_IN_WINDOW_SQL,
+                "Administered_Medication", "idx_admin_med_nurse_time", "administered_time");
+    }
+
+    @Test
+    @DisplayName("Administered-today count uses the administered_time index")
+    void testGivenCount() throws Exception {
+        assertIndexRangeScan(conn, MedicationAdministrationService.GIVEN_IN_WINDOW_SQL,
+                "Administered_Medication", "idx_admin_med_time", "administered_time");
+    }
+
+    @Test
+    @DisplayName("Building a medication round probes administrations by prescription and time")
+    void testMedicationRoundBuild() throws Exception {
+        assertIndexRangeScan(conn, MedicationRoundService.BUILD_SQL,
+                "Administered_Medication", "idx_admin_med_pm_time", "administered_time");
+    }
+
+    @Test
+    @DisplayName("Wrapping the column in DATE() is reported as a full scan")
+    void testFunctionOnColumnIsDetected() throws Exception {
+        assertFullScan(conn, "SELECT COUNT(*) FROM Bed_Transfers WHERE DATE(transfer_time) = CURDATE()", "Bed_Transfers");
+    }
+}
@@ -0,0 +1,151 @@
+package com.healthcare.services;
+
+import com.healthcare.config.DBConnection;
+import com.healthcare.config.PoolConfig;
+import com.healthcare.config.TestSchema;
+import com.healthcare.config.UnitOfWork;
+import com.healthcare.model.Bed;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.healthcare.config.TestSchema.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Topology registry tests: lookups and rollups over many wards, and atomic refresh
+ */
+public class WardTopologyTest {
+
+    private static final int WARDS = 200;
+    private static final int ROOMS_PER_WARD = 5;
+    private static final int BEDS_PER_ROOM = 3;
+
+    private WardTopology topology;
+
+    @BeforeAll
+    static void configurePool() throws Exception {
+        DBConnection.configure(new PoolConfig("jdbc:h2:mem:wardtopology;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        TestSchema.create();
+    }
+
+    @AfterAll
+    static void restorePool() {
+        DBConnection.shutdown();
+    }
+
+    /**
+     * Wards "North 1" .. "North 200", five rooms each (capacity 4), three beds per room
+     */
+    @BeforeEach
+    void createSite() throws Exception {
+        execute("DELETE FROM Beds", "DELETE FROM Rooms", "DELETE FROM Wards",
+                "INSERT INTO Wards SELECT X, 'North ' || X FROM SYSTEM_RANGE(1, " + WARDS + ")",
+                "INSERT INTO Rooms (room_id, ward_id, room_number) SELECT X, (X - 1) / " + ROOMS_PER_WARD + " + 1, " +
+                        "'R' || X FROM SYSTEM_RANGE(1, " + WARDS * ROOMS_PER_WARD + ")",
+                "INSERT INTO Beds (bed_id, room_id, bed_number, bed_code, bed_type, gender_restriction, isolation_required) " +
+                        "SELECT X, (X - 1) / " + BEDS_PER_ROOM + " + 1, '' || X, 'B' || X, 'Standard', 'None', FALSE " +
+                        "FROM SYSTEM_RANGE(1, " + WARDS * ROOMS_PER_WARD * BEDS_PER_ROOM + ")");
+        topology = new WardTopology(0);
+    }
+
+    @Test
+    @DisplayName("Wards, rooms and beds are found by id and name with their totals")
+    void testLookups() {
+        assertEquals(WARDS, topology.getWards().size());
+        assertEquals("North 1", topology.getWardNames().get(0));
+
+        WardTopology.WardNode ward = topology.findWardByName("North 150").orElseThrow();
+        assertEquals(150L, ward.getWardId());
+        assertEquals(ROOMS_PER_WARD, ward.getRoomCount());
+        assertEquals(ROOMS_PER_WARD * BEDS_PER_ROOM, ward.getBedCount());
+        assertEquals(ROOMS_PER_WARD * 4, ward.getCapacity());
+        assertSame(ward, topology.findWard(150L).orElseThrow());
+
+        // Bed 2240 is in room 747, the second room of ward 150
+        assertEquals(747L, topology.findRoomOfBed(2240L).orElseThrow().getRoomId());
+        assertEquals("North 150", topology.findWardOfBed(2240L).orElseThrow().getWardName());
+        assertEquals(747L, topology.getRooms(150L).get(1).getRoomId());
+
+        assertEquals(WARDS * ROOMS_PER_WARD * BEDS_PER_ROOM, topology.getTotalBeds());
+        assertEquals(WARDS * ROOMS_PER_WARD * 4, topology.getTotalCapacity());
+        assertTrue(topology.findWardByName("Ward 1").isEmpty());
+        assertTrue(topology.findWardOfBed(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Lookups come from memory until the registry is invalidated")
+    void testInvalidate() throws Exception {
+        assertEquals(WARDS, topology.getWards().size());
+        execute("INSERT INTO Wards VALUES (" + (WARDS + 1) + ", 'South')");
+        assertTrue(topology.findWardByName("South").isEmpty());
+
+        topology.invalidate();
+        assertEquals(WARDS + 1, topology.findWardByName("South").orElseThrow().getWardId());
+        assertTrue(topology.getRooms(WARDS + 1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A refresh inside a caller's transaction reads only committed rows")
+    void testRefreshOutsideCallerTransaction() throws Exception {
+        UnitOfWork.run(() -> {
+            try (Connection conn = DBConnection.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO Wards VALUES (" + (WARDS + 1) + ", 'South')");
+            }
+            assertTrue(topology.refresh());
+            assertTrue(topology.findWardByName("South").isEmpty());
+        });
+
+        topology.invalidate();
+        assertTrue(topology.findWardByName("South").isPresent());
+    }
+
+    @Test
+    @DisplayName("Adding a bed through the bed service refreshes the shared registry")
+    void testBedServiceInvalidates() {
+        WardTopology shared = WardTopology.getShared();
+        shared.invalidate();
+        assertEquals(BEDS_PER_ROOM, shared.findRoom(1L).orElseThrow().getBedCount());
+
+        BedOccupancyIndex index = new BedOccupancyIndex(0);
+        try {
+            assertNotNull(new BedManagementService(index).save(new Bed(1L, "4", "R1B4", Bed.BedType.Standard)));
+        } finally {
+            index.close();
+        }
+
+        assertEquals(BEDS_PER_ROOM + 1, shared.findRoom(1L).orElseThrow().getBedCount());
+        assertEquals(BEDS_PER_ROOM * ROOMS_PER_WARD + 1, shared.findWard(1L).orElseThrow().getBedCount());
+    }
+
+    @Test
+    @DisplayName("Readers never see a half-built topology while it is refreshed")
+    void testAtomicRefresh() throws Exception {
+        assertEquals(WARDS, topology.getWards().size());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean inconsistent = new AtomicBoolean();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                WardTopology.Topology seen = topology.topology();
+                int beds = 0;
+                for (WardTopology.WardNode ward : seen.wards) {
+                    beds += ward.getBedCount();
+                }
+                if (seen.wards.size() != WARDS || seen.wardById.size() != WARDS || seen.bedCount != beds) {
+                    inconsistent.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(topology.refresh());
+        }
+        running.set(false);
+        reader.join();
+
+        assertFalse(inconsistent.get());
+    }
+}
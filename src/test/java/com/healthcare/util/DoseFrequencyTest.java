@@ -0,0 +1,84 @@
+package com.healthcare.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Frequency compiler tests over the wordings used on prescriptions
+ */
+public class DoseFrequencyTest {
+
+    private static final LocalTime T06 = LocalTime.of(6, 0);
+    private static final LocalTime T08 = LocalTime.of(8, 0);
+    private static final LocalTime T12 = LocalTime.of(12, 0);
+    private static final LocalTime T14 = LocalTime.of(14, 0);
+    private static final LocalTime T16 = LocalTime.of(16, 0);
+    private static final LocalTime T18 = LocalTime.of(18, 0);
+    private static final LocalTime T20 = LocalTime.of(20, 0);
+    private static final LocalTime T21 = LocalTime.of(21, 0);
+    private static final LocalTime T22 = LocalTime.of(22, 0);
+
+    @Test
+    @DisplayName("Doses per day in words, digits and abbreviations")
+    void testTimesDaily() {
+        assertEquals(List.of(T08), slots("Once daily"));
+        assertEquals(List.of(T08), slots("Daily"));
+        assertEquals(List.of(T08), slots("OD"));
+        assertEquals(List.of(T08, T20), slots("Twice daily"));
+        assertEquals(List.of(T08, T20), slots("2 times a day"));
+        assertEquals(List.of(T08, T20), slots("BID"));
+        assertEquals(List.of(T08, T14, T20), slots("Three times daily with meals"));
+        assertEquals(List.of(T08, T14, T20), slots("tds"));
+        assertEquals(List.of(T08, T12, T16, T20), slots("Four times a day"));
+        assertEquals(List.of(T08, T12, T16, T20), slots("QID"));
+        assertEquals(6, DoseFrequency.compile("6 times daily").getDosesPerDay());
+    }
+
+    @Test
+    @DisplayName("Hourly intervals start at 06:00")
+    void testEveryHours() {
+        assertEquals(List.of(T06, T14, T22), slots("Every 8 hours"));
+        assertEquals(List.of(LocalTime.of(0, 0), T06, T12, T18), slots("q6h"));
+        assertEquals(List.of(T06, T18), slots("every 12 hrs"));
+    }
+
+    @Test
+    @DisplayName("Times of day, meals, evening and bedtime")
+    void testTimesOfDay() {
+        assertEquals(List.of(T08, T12, T18), slots("With meals"));
+        assertEquals(List.of(T18), slots("Every evening"));
+        assertEquals(List.of(T18), slots("Once daily in the evening"));
+        assertEquals(List.of(T21), slots("At bedtime"));
+        assertEquals(List.of(T08, T21), slots("Morning and bedtime"));
+        assertEquals(List.of(LocalTime.of(9, 30), T21), slots("At 21:00 and 09:30"));
+    }
+
+    @Test
+    @DisplayName("As-needed and unknown frequencies have no fixed times")
+    void testNoFixedTimes() {
+        DoseFrequency prn = DoseFrequency.compile("PRN for pain");
+        assertTrue(prn.isAsNeeded());
+        assertTrue(prn.isRecognized());
+        assertTrue(prn.getSlots().isEmpty());
+
+        DoseFrequency weekly = DoseFrequency.compile("Weekly on Mondays");
+        assertFalse(weekly.isRecognized());
+        assertTrue(weekly.getSlots().isEmpty());
+        assertFalse(DoseFrequency.compile(null).isRecognized());
+    }
+
+    @Test
+    @DisplayName("The same text in any case or spacing compiles once")
+    void testCached() {
+        assertSame(DoseFrequency.compile("Twice daily"), DoseFrequency.compile("  TWICE   daily "));
+    }
+
+    private static List<LocalTime> slots(String frequency) {
+        return DoseFrequency.compile(frequency).getSlots();
+    }
+}
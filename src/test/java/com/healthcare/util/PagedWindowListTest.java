@@ -0,0 +1,165 @@
+package com.healthcare.util;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Windowed list tests against an in-memory page source
+ */
+public class PagedWindowListTest {
+
+    /**
+     * Rows 0..n-1 served like a keyset query; records every request
+     */
+    private static class FakeSource implements PagedWindowList.PageSource<Integer> {
+        private final int rows;
+        private final List<Integer> offsets = new ArrayList<>();
+
+        FakeSource(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Integer> fetch(Integer after, int offset, int limit) {
+            offsets.add(offset);
+            int start = (after == null ? 0 : after + 1) + offset;
+            List<Integer> page = new ArrayList<>();
+            for (int i = start; i < Math.min(rows, start + limit); i++) {
+                page.add(i);
+            }
+            return page;
+        }
+    }
+
+    @Test
+    @DisplayName("Rows are fetched a page at a time and only when requested")
+    void testLazyPageFetch() {
+        FakeSource source = new FakeSource(1_000_000);
+        PagedWindowList<Integer> list = new PagedWindowList<>(source, 1_000_000, 100, 5);
+
+        assertEquals(1_000_000, list.size());
+        assertEquals(0, list.getFetchCount());
+
+        assertEquals(Integer.valueOf(0), list.get(0));
+        assertEquals(Integer.valueOf(99), list.get(99));
+        assertEquals(1, list.getFetchCount());
+    }
+
+    @Test
+    @DisplayName("A preloaded page is served without another fetch")
+    void testPreload() {
+        FakeSource source = new FakeSource(1_000);
+        PagedWindowList<Integer> list = new PagedWindowList<>(source, 1_000, 100, 5);
+
+        list.preload(0);
+        list.preload(5_000);
+        assertEquals(1, list.getFetchCount());
+        assertEquals(Integer.valueOf(42), list.get(42));
+        assertEquals(1, list.getFetchCount());
+    }
+
+    @Test
+    @DisplayName("Scrolling forward seeks past the previous page instead of using an offset")
+    void testSequentialScrollUsesKeyset() {
+        FakeSource source = new FakeSource(10_000);
+        PagedWindowList<Integer> list = new PagedWindowList<>(source, 10_000, 100, 5);
+
+        for (int i = 0; i < 2_000; i++) {
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+        assertEquals(20, list.getFetchCount());
+        assertTrue(source.offsets.stream().allMatch(offset -> offset == 0));
+    }
+
+    @Test
+    @DisplayName("Only a bounded number of pages are kept in memory")
+    void testCacheIsBounded() {
+        FakeSource source = new FakeSource(10_000);
+        PagedWindowList<Integer> list = new PagedWindowList<>(source, 10_000, 100, 3);
+
+        for (int i = 0; i < 10_000; i += 100) {
+            list.get(i);
+        }
+        assertEquals(3, list.getCachedPageCount());
+
+        // An evicted page is fetched again from its stored seek key
+        int before = list.getFetchCount();
+        assertEquals(Integer.valueOf(150), list.get(150));
+        assertEquals(before + 1, list.getFetchCount());
+        assertEquals(0, (int) source.offsets.get(source.offsets.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Jumping ahead offsets from the nearest known page")
+    void testJumpUsesNearestKey() {
+        FakeSource source = new FakeSource(10_000);
+        PagedWindowList<Integer> list = new PagedWindowList<>(source, 10_000, 100, 5);
+
+        list.get(450);
+        assertEquals(400, (int) source.offsets.get(0));
+        assertEquals(Integer.valueOf(999), list.get(999));
+        assertEquals(400, (int) source.offsets.get(1));
+    }
+
+    @Test
+    @DisplayName("With a loader, unloaded rows read as null until their page arrives, then are replaced")
+    void testBackgroundPageFetch() {
+        FakeSource source = new FakeSource(1_000);
+        List<Runnable> pending = new ArrayList<>();
+        PagedWindowList<Integer> list = new PagedWindowList<>(source,
+                (page, fetch, loaded, failed) -> pending.add(() -> {
+                    try {
+                        loaded.accept(fetch.call());
+                    } catch (Exception e) {
+                        failed.accept(e);
+                    }
+                }), 1_000, 100, 5);
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<Integer>) change -> {
+            while (change.next()) {
+                changes.add(change.getFrom() + "-" + change.getTo() + (change.wasReplaced() ? " replaced" : ""));
+            }
+        });
+
+        assertNull(list.get(150));
+        assertNull(list.get(199));
+        assertEquals(1, pending.size());
+        assertEquals(0, list.getCachedPageCount());
+
+        pending.remove(0).run();
+        assertEquals(List.of("100-200 replaced"), changes);
+        assertEquals(Integer.valueOf(150), list.get(150));
+        assertEquals(1, list.getFetchCount());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A page whose background fetch failed is asked for again")
+    void testFailedPageIsRetried() {
+        List<Integer> attempts = new ArrayList<>();
+        PagedWindowList<Integer> list = new PagedWindowList<>(new FakeSource(1_000),
+                (page, fetch, loaded, failed) -> {
+                    attempts.add(page);
+                    failed.accept(new IllegalStateException("connection lost"));
+                }, 1_000, 100, 5);
+
+        assertNull(list.get(0));
+        assertNull(list.get(1));
+        assertEquals(List.of(0, 0), attempts);
+    }
+
+    @Test
+    @DisplayName("Rows missing since the count return null instead of failing")
+    void testShrunkSourceReturnsNull() {
+        PagedWindowList<Integer> list = new PagedWindowList<>(new FakeSource(5), 10, 100, 5);
+        assertEquals(Integer.valueOf(4), list.get(4));
+        assertNull(list.get(7));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(10));
+    }
+}
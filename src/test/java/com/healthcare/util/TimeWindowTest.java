@@ -0,0 +1,60 @@
+package com.healthcare.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Half-open time window tests
+ */
+public class TimeWindowTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    @Test
+    @DisplayName("A day includes midnight at its start but not at its end")
+    void testDayBounds() {
+        TimeWindow window = TimeWindow.day(DAY);
+        assertTrue(window.contains(DAY.atStartOfDay()));
+        assertTrue(window.contains(DAY.atTime(23, 59, 59, 999_999_999)));
+        assertFalse(window.contains(DAY.plusDays(1).atStartOfDay()));
+    }
+
+    @Test
+    @DisplayName("Date ranges include both end dates")
+    void testDaysInclusive() {
+        TimeWindow window = TimeWindow.days(DAY, DAY.plusDays(2));
+        assertEquals(DAY.atStartOfDay(), window.getStart());
+        assertEquals(DAY.plusDays(3).atStartOfDay(), window.getEnd());
+    }
+
+    @Test
+    @DisplayName("Overnight shifts end on the following day")
+    void testOvernightShift() {
+        TimeWindow night = TimeWindow.shift(DAY, LocalTime.of(22, 0), LocalTime.of(6, 0));
+        assertEquals(LocalDateTime.of(2024, 3, 11, 6, 0), night.getEnd());
+
+        TimeWindow morning = TimeWindow.shift(DAY, LocalTime.of(8, 0), LocalTime.of(16, 0));
+        TimeWindow afternoon = TimeWindow.shift(DAY, LocalTime.of(16, 0), LocalTime.of(22, 0));
+        assertFalse(morning.overlaps(afternoon));
+        assertTrue(morning.overlaps(TimeWindow.shift(DAY, LocalTime.of(14, 0), LocalTime.of(22, 0))));
+    }
+
+    @Test
+    @DisplayName("Empty windows are rejected")
+    void testEmptyWindowRejected() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0);
+        assertThrows(IllegalArgumentException.class, () -> TimeWindow.of(now, now));
+    }
+
+    @Test
+    @DisplayName("The SQL predicate compares the raw column")
+    void testPredicate() {
+        assertEquals("transfer_time >= ? AND transfer_time < ?", TimeWindow.predicate("transfer_time"));
+    }
+}
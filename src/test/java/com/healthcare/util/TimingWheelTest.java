@@ -0,0 +1,95 @@
+package com.healthcare.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Timing wheel tests: firing order and lateness across wheel levels, and cancelling
+ */
+public class TimingWheelTest {
+
+    @Test
+    @DisplayName("Deadlines in the lowest wheel and in overflow wheels fire within one tick after they pass")
+    void testFiresAcrossLevels() {
+        // Tick 10 ms, 8 buckets: levels span 80 ms, 640 ms and 5120 ms
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, 1_000);
+        long[] deadlines = {1_005, 1_079, 1_080, 1_500, 1_639, 1_640, 4_999, 7_000, 12_345};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 1_000; now <= 13_000; now += 10) {
+            long time = now;
+            wheel.advanceTo(now, deadline -> {
+                assertTrue(deadline <= time, deadline + " fired early at " + time);
+                assertTrue(time - deadline <= 10, deadline + " fired late at " + time);
+                fired.add(deadline);
+            });
+        }
+
+        assertEquals(List.of(1_005L, 1_079L, 1_080L, 1_500L, 1_639L, 1_640L, 4_999L, 7_000L, 12_345L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Cancelled entries never fire; past deadlines fire at the end of the current tick")
+    void testCancelAndPastDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 64, 0);
+        TimingWheel.Entry<String> cancelled = wheel.schedule(5_000, "cancelled");
+        wheel.schedule(500_000, "far");
+        TimingWheel.Entry<String> farCancelled = wheel.schedule(600_000, "far cancelled");
+        wheel.schedule(-5, "late");
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(farCancelled.cancel());
+        assertEquals(2, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(1_000, fired::add);
+        assertEquals(List.of("late"), fired);
+
+        wheel.advanceTo(700_000, fired::add);
+        assertEquals(List.of("late", "far"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("A day of doses for a large site fires each one once, in deadline order")
+    void testManyDeadlines() {
+        long day = 24L * 60 * 60 * 1000;
+        TimingWheel<Long> wheel = new TimingWheel<>(1_000, 64, 0);
+        Random random = new Random(42);
+        int count = 50_000;
+        for (int i = 0; i < count; i++) {
+            long deadline = (long) (random.nextDouble() * day);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] last = {-1};
+        int[] fired = {0};
+        for (long now = 0; now <= day + 1_000; now += 60_000) {
+            long time = now;
+            wheel.advanceTo(now, deadline -> {
+                assertTrue(deadline <= time);
+                // Within one advance entries come out tick by tick
+                assertTrue(deadline / 1_000 >= last[0] / 1_000);
+                last[0] = deadline;
+                fired[0]++;
+            });
+        }
+
+        assertEquals(count, fired[0]);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,141 @@
+package com.healthcare.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * View loader tests: results applied in order, superseded and cancelled loads dropped.
+ * The test thread stands in for the FX thread, running the callbacks queued for it.
+ */
+public class ViewLoaderTest {
+
+    private ExecutorService pool;
+    private final BlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+    private ViewLoader loader;
+    private final List<String> applied = new ArrayList<>();
+
+    @BeforeEach
+    void createLoader() {
+        pool = Executors.newFixedThreadPool(2);
+        loader = new ViewLoader("test", pool, fxQueue::add);
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A result is applied on the FX thread and the view stops loading")
+    void testResultApplied() throws Exception {
+        Future<String> load = loader.load("rows", () -> "first", applied::add);
+        assertTrue(loader.isLoading());
+
+        load.get(5, TimeUnit.SECONDS);
+        assertTrue(applied.isEmpty());
+        runFxCallbacks(1);
+
+        assertEquals(List.of("first"), applied);
+        assertFalse(loader.isLoading());
+    }
+
+    @Test
+    @DisplayName("A query's exception goes to the failure callback")
+    void testFailureReported() throws Exception {
+        List<Throwable> failures = new ArrayList<>();
+        loader.<String>load("rows", () -> {
+            throw new IllegalStateException("no rows");
+        }, applied::add, failures::add);
+
+        runFxCallbacks(1);
+
+        assertTrue(applied.isEmpty());
+        assertEquals("no rows", failures.get(0).getMessage());
+        assertFalse(loader.isLoading());
+    }
+
+    @Test
+    @DisplayName("A newer load in the same slot cancels the running one; only the newer result is applied")
+    void testSupersededLoadIsCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Future<String> slow = loader.load("rows", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "slow";
+        }, applied::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> fast = loader.load("rows", () -> "fast", applied::add);
+        assertTrue(slow.isCancelled());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        fast.get(5, TimeUnit.SECONDS);
+        runFxCallbacks(1);
+        assertEquals(List.of("fast"), applied);
+        assertFalse(loader.isLoading());
+    }
+
+    @Test
+    @DisplayName("A result that arrives after its load was superseded is dropped")
+    void testStaleResultDropped() throws Exception {
+        Future<String> first = loader.load("rows", () -> "stale", applied::add);
+        first.get(5, TimeUnit.SECONDS);
+
+        // Its callback is queued, but a new load takes the slot before the FX thread runs it
+        Future<String> second = loader.load("rows", () -> "fresh", applied::add);
+        second.get(5, TimeUnit.SECONDS);
+        runFxCallbacks(2);
+
+        assertEquals(List.of("fresh"), applied);
+        assertFalse(loader.isLoading());
+    }
+
+    @Test
+    @DisplayName("Loads in other slots are independent; cancelAll drops every pending result")
+    void testCancelAll() throws Exception {
+        Future<String> rows = loader.load("rows", () -> "rows", applied::add);
+        Future<String> counts = loader.load("counts", () -> "counts", applied::add);
+        rows.get(5, TimeUnit.SECONDS);
+        counts.get(5, TimeUnit.SECONDS);
+
+        loader.cancelAll();
+        assertFalse(loader.isLoading());
+        runFxCallbacks(2);
+        assertTrue(applied.isEmpty());
+
+        loader.load("rows", () -> "again", applied::add).get(5, TimeUnit.SECONDS);
+        runFxCallbacks(1);
+        assertEquals(List.of("again"), applied);
+    }
+
+    /**
+     * Run the given number of callbacks queued for the FX thread, waiting for each
+     */
+    private void runFxCallbacks(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            Runnable callback = fxQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(callback, "No callback queued for the FX thread");
+            callback.run();
+        }
+        assertTrue(fxQueue.isEmpty());
+    }
+}
@@ -0,0 +1,3 @@
+-- Valid first migration
+CREATE TABLE migration_notes (id INT PRIMARY KEY, note VARCHAR(50));
+INSERT INTO migration_notes (id, note) VALUES (1, 'first');
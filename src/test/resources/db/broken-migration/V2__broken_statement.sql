@@ -0,0 +1,3 @@
+-- The first insert is rolled back when the second statement fails
+INSERT INTO migration_notes (id, note) VALUES (2, 'second');
+INSERT INTO no_such_table (id) VALUES (1);